@@ -2,15 +2,24 @@ package net.sf.juoserver.api;
 
 import java.util.List;
 
-public interface Account {
+public interface Account extends Persistent {
 	void addMobileSerialId(int serialId);
 
 	int getAccountId();
 
 	String getUsername();
 
+	/**
+	 * @return the hashed password, or the plaintext one of the accounts not
+	 *         logged in since passwords are hashed
+	 */
 	String getPassword();
 
+	/**
+	 * @param password hashed password
+	 */
+	void setPassword(String password);
+
 	/**
 	 * Retrieves an account's characters serial IDs, given its position in the
 	 * login screen.
@@ -22,5 +31,9 @@ public interface Account {
 	 */
 	int getCharacterSerialIdByPosition(int position);
 
+	/**
+	 * @return a copy of the characters serial IDs, by their position in the
+	 *         login screen
+	 */
 	List<Integer> getCharactersSerials();
 }
@@ -0,0 +1,23 @@
+package net.sf.juoserver.api;
+
+/**
+ * Keys issued by the login listener to the accounts logging in, and redeemed
+ * by the game listener the client is then redirected to, which may run in
+ * another process sharing the store.
+ */
+public interface AuthenticationKeyStore {
+    /**
+     * @param username username of the account logging in
+     * @return a new key, redeemable once for the account
+     */
+    int issue(String username);
+
+    /**
+     * Removes a key.
+     *
+     * @param key key sent by the client
+     * @return the username the key was issued to, <tt>null</tt> if the key is
+     *         unknown, already redeemed or expired
+     */
+    String redeem(int key);
+}
@@ -0,0 +1,21 @@
+package net.sf.juoserver.api;
+
+/**
+ * Receives the {@link Persistent} entities changed or removed since the
+ * previous save.
+ */
+public interface ChangeTracker {
+    ChangeTracker NONE = new ChangeTracker() {
+        @Override
+        public void changed(Persistent entity) {
+        }
+
+        @Override
+        public void removed(Persistent entity) {
+        }
+    };
+
+    void changed(Persistent entity);
+
+    void removed(Persistent entity);
+}
@@ -0,0 +1,13 @@
+package net.sf.juoserver.api;
+
+/**
+ * Combat values derived from the stats and the equipment of a mobile, cached
+ * on the mobile until its {@link Mobile#getRevision() revision} changes.
+ *
+ * @param revision revision of the mobile the values were derived from
+ * @param attackModifier damage modifier when attacking
+ * @param defenseModifier armor modifier when attacked
+ * @param weaponSpeed speed of the swings
+ */
+public record CombatStats(int revision, int attackModifier, int defenseModifier, int weaponSpeed) {
+}
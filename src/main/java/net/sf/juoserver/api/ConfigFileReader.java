@@ -1,9 +1,34 @@
 package net.sf.juoserver.api;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 public interface ConfigFileReader {
 
     List<NpcMobile> loadNpcs();
 
+    /**
+     * @return the file the NPCs are loaded from, or <tt>null</tt> if they
+     *         don't come from a file
+     */
+    Path getNpcsPath();
+
+    /**
+     * @return the spawn definitions, empty if there are none
+     */
+    List<SpawnDefinition> loadSpawns();
+
+    /**
+     * @return the definitions of the NPC behaviour trees by name, empty if
+     *         there are none
+     */
+    Map<String, Object> loadBehaviourTrees();
+
+    /**
+     * @return the file the behaviour trees are loaded from, or <tt>null</tt>
+     *         if they don't come from a file
+     */
+    Path getBehavioursPath();
+
 }
@@ -14,6 +14,8 @@ public interface Configuration {
 	FilesConfiguration getFiles();
 	CommandConfiguration getCommand();
 	PacketConfiguration getPacket();
+	FacetConfiguration getFacet();
+	NpcConfiguration getNpc();
 
 	interface ClientConfiguration {
 		int getLos();
@@ -21,12 +23,100 @@ public interface Configuration {
 
 	interface FilesConfiguration {
 		String getMulPath();
+		/**
+		 * Binary world save, read at startup and replaced by the saves; none to keep the built-in test world.
+		 */
+		String getWorldSavePath();
+		/**
+		 * Seconds between two saves of the world to {@link #getWorldSavePath()} or {@link #getWorldDatabaseUrl()}, only
+		 * the changes being saved after the first one; 0 to only save on demand.
+		 */
+		int getWorldSavePeriod();
+		/**
+		 * Milliseconds between two appends of the world changes to the journal next to the save, replayed after a
+		 * crash; 0 not to journal the changes.
+		 */
+		int getJournalPeriod();
+		/**
+		 * Seconds the player characters stay in the world after their account logs out, before being evicted from
+		 * memory once saved; with a world save, the characters are left on disk at startup and loaded when their
+		 * account logs in. 0 to load all the characters at startup and keep them.
+		 */
+		int getCharacterEvictionDelay();
+		/**
+		 * JDBC URL of an embedded database keeping the world, such as <tt>jdbc:h2:./world</tt>, used instead of
+		 * {@link #getWorldSavePath()}; none to use the binary save.
+		 */
+		String getWorldDatabaseUrl();
+		/**
+		 * Milliseconds the saves and journaled changes are queued before being written to
+		 * {@link #getWorldDatabaseUrl()} together; 0 to write them at once.
+		 */
+		int getDatabaseFlushPeriod();
 	}
 
 	interface ServerConfiguration {
+		/**
+		 * Listeners run by a process.
+		 */
+		enum Listeners {
+			/**
+			 * Both the login and the game listeners
+			 */
+			ALL,
+			/**
+			 * The login listener only, the game one running in another process sharing
+			 * {@link ServerConfiguration#getAuthenticationKeysPath()}
+			 */
+			LOGIN,
+			/**
+			 * The game listener only, the login one running in another process sharing
+			 * {@link ServerConfiguration#getAuthenticationKeysPath()}
+			 */
+			GAME
+		}
+
+		/**
+		 * Port of the login listener, and of the game one too unless {@link #getGamePort()} is set.
+		 */
 		int getPort();
 		String getName();
 		String getHost();
+		/**
+		 * Whether logging in with an unknown username creates the account.
+		 */
+		boolean isAccountAutoRegistration();
+		/**
+		 * Port of the game listener, to which the clients are redirected once logged in; 0 to serve the game on
+		 * the login listener.
+		 */
+		int getGamePort();
+		/**
+		 * Listeners run by this process, {@link Listeners#ALL} unless {@link #getGamePort()} is set.
+		 */
+		Listeners getListeners();
+		/**
+		 * Threads of the login listener on its own port, whatever the load of the game one: connections served at once by the
+		 * threaded server, the next ones waiting to be accepted, or I/O processors of the multiplexing one; 0 for no
+		 * limit.
+		 */
+		int getLoginThreads();
+		/**
+		 * Seconds a connection to the login listener on its own port may stay silent before being closed, so
+		 * that idle clients do not hold its threads; 0 for no limit.
+		 */
+		int getLoginTimeout();
+		/**
+		 * Directory of the authentication keys issued by the login listener and redeemed by the game one, when
+		 * they run in separate processes, which refuse to start without it; none to keep them in memory.
+		 */
+		String getAuthenticationKeysPath();
+		/**
+		 * Directory where the game listeners report their players and tick load every second, and from which the
+		 * login listener advertises every one of them as a shard of its own, by {@link #getName()}, the least
+		 * loaded first; none to advertise this server only. Every game listener plays its own world.
+		 */
+		String getNodesPath();
 	}
 
 	interface StatsConfiguration {
@@ -41,6 +131,11 @@ public interface Configuration {
 
 		int getDexDefenseDivisorModifier();
 		int getStrDefenseDivisorModifier();
+
+		/**
+		 * Shards of the fights, by region, resolved in parallel, 0 for as many as the available processors.
+		 */
+		int getShards();
 	}
 
 	interface CommandConfiguration {
@@ -50,4 +145,34 @@ public interface Configuration {
 	interface PacketConfiguration {
 		boolean isLogging();
 	}
+
+	interface FacetConfiguration {
+		/**
+		 * Seconds a facet must stay empty before its map data and indices are released.
+		 */
+		int getEmptyTimeout();
+	}
+
+	interface NpcConfiguration {
+		/**
+		 * NPCs chasing the same target from which they share a flow field instead of searching a path each, 0 to disable.
+		 */
+		int getFlowFieldChasers();
+		/**
+		 * Radius, in cells, of the flow fields around the chased targets.
+		 */
+		int getFlowFieldRadius();
+		/**
+		 * Threads running the NPCs AI scripts, 0 for as many as the available processors.
+		 */
+		int getAiThreads();
+		/**
+		 * Radius, in sectors, around the players within which the NPCs AI runs, 0 to never make NPCs dormant.
+		 */
+		int getActivationSectors();
+		/**
+		 * Microseconds of CPU time the NPCs behaviour trees may spend per tick, beyond which they are resumed on the next tick, 0 for no limit.
+		 */
+		int getAiTickBudgetMicros();
+	}
 }
@@ -4,6 +4,10 @@ import java.util.List;
 import java.util.Map;
 
 public interface Container extends Item {
+	/**
+	 * @return a copy of the contained items, safe to iterate while the
+	 *         container is being changed
+	 */
 	List<? extends Item> getItems();
 
 	int getGumpId();
@@ -14,5 +18,8 @@ public interface Container extends Item {
 
 	void addItem(Item item, Point2D positionInContainer);
 
+	/**
+	 * @return a copy of the positions of the contained items
+	 */
 	Map<Item, Point2D> getItemsPositions();
 }
\ No newline at end of file
@@ -3,6 +3,9 @@ package net.sf.juoserver.api;
 import net.sf.juoserver.model.UOItem;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -20,11 +23,20 @@ public interface Core {
 	/**
 	 * Retrieves the map tile definition of the given coordinates.
 	 * 
+	 * @param facet facet
 	 * @param x X coordinate
 	 * @param y Y coordinate
 	 * @return the map tile definition of the given coordinates
 	 */
-	MapTile getTile(final int x, final int y);
+	MapTile getTile(Facet facet, final int x, final int y);
+
+	/**
+	 * Retrieves the walk grid of the given facet, loading the facet if needed.
+	 *
+	 * @param facet facet
+	 * @return the walk grid of the given facet
+	 */
+	WalkGrid getWalkGrid(Facet facet);
 
 	/**
 	 * Retrieves a {@link Mobile} by its serial ID.
@@ -37,6 +49,23 @@ public interface Core {
 
 	void removeMobile(Mobile mobile);
 
+	/**
+	 * Brings the characters of an account logging in into the world, loading
+	 * the ones not in memory.
+	 * 
+	 * @param account account
+	 * @return completed once the characters can be found by serial ID
+	 */
+	CompletableFuture<Void> loadCharacters(Account account);
+
+	/**
+	 * Tells that an account logged out, so that its characters may leave the
+	 * world and the memory after a while.
+	 * 
+	 * @param account account
+	 */
+	void releaseCharacters(Account account);
+
 	/**
 	 * Retrieves an {@link UOItem} by its serial ID.
 	 * 
@@ -50,14 +79,27 @@ public interface Core {
 	 * Retrieves an {@link Account} by username and password; the password is
 	 * needed to check the credentials.
 	 * 
-	 * @param username username
+	 * @param username username, in any case
 	 * @return the {@link Account} matching the provided username, or <tt>null</tt>
 	 * if no such account could be found
 	 */
 	Account findAccountByUsername(String username);
 
 	/**
-	 * Attempts to authenticate the given account with the specified password.
+	 * Creates an account, to be saved by the next save; slow on purpose, the
+	 * password being hashed.
+	 * 
+	 * @param username username, unique regardless of its case, not blank
+	 * @param password password
+	 * @return the new {@link Account}, or <tt>null</tt> if the username is
+	 * taken
+	 * @throws IllegalArgumentException if the username is blank
+	 */
+	Account registerAccount(String username, String password);
+
+	/**
+	 * Attempts to authenticate the given account with the specified password;
+	 * slow on purpose, the passwords being hashed.
 	 * 
 	 * @param account account
 	 * @param password password
@@ -76,26 +118,49 @@ public interface Core {
 
 	/**
 	 * Find items in a specific direction of the location.
+	 * @param facet facet to look for items in
 	 * @param myLocation origin location
 	 * @param direction direction to look for items
 	 * @param distanceFromMe How far from the origin location will look for items
 	 * @return List of items
 	 */
-	Collection<Item> findItemsByDirection(Point2D myLocation, Direction direction, int distanceFromMe);
+	Collection<Item> findItemsByDirection(Facet facet, Point2D myLocation, Direction direction, int distanceFromMe);
 
-	Collection<Item> findItemsInRegion(Point2D location, int distance);
+	Collection<Item> findItemsInRegion(Facet facet, Point2D location, int distance);
 
 	/**
 	 * Create a new npc based on npcs.yaml
 	 * @param templateId Id of the npc definition
+	 * @param facet Facet where npc must appear
 	 * @param location Location where npc must appear
 	 * @return Instance of NPC
 	 */
-	NpcMobile createNpcAtLocation(int templateId, Point3D location);
+	NpcMobile createNpcAtLocation(int templateId, Facet facet, Point3D location);
 
-	Collection<Mobile> findNpcInRange(Point2D location);
+	/**
+	 * Creates NPCs of the same template in bulk, reserving all their serial IDs
+	 * at once; this method may be called concurrently.
+	 * @param templateId Id of the npc definition
+	 * @param facet Facet where npcs must appear
+	 * @param locations Locations where npcs must appear, one per NPC
+	 * @return the NPCs, in the order of their locations
+	 */
+	List<NpcMobile> createNpcs(int templateId, Facet facet, List<? extends Point3D> locations);
 
-	Stream<Mobile> findMobilesInRange(Point2D location);
+	Collection<Mobile> findNpcInRange(Facet facet, Point2D location);
+
+	Stream<Mobile> findMobilesInRange(Facet facet, Point2D location);
+
+	/**
+	 * Visits the mobiles within the given distance of a location, without
+	 * collecting them.
+	 *
+	 * @param facet facet
+	 * @param location center of the search
+	 * @param distance maximum distance (exclusive)
+	 * @param action action to be performed on every mobile found
+	 */
+	void forEachMobileInRange(Facet facet, Point2D location, int distance, Consumer<Mobile> action);
 
 	Stream<NpcMobile> getAllNpcs();
 
@@ -105,6 +170,52 @@ public interface Core {
 	 */
 	int getNextCursorId();
 
+	/**
+	 * Keeps awake the NPCs around a player in game, until
+	 * {@link #deactivateAround(Mobile) deactivated}.
+	 *
+	 * @param player player's mobile
+	 */
+	void activateAround(Mobile player);
+
+	void deactivateAround(Mobile player);
+
+	/**
+	 * Tells whether the AI of the NPCs at the given location should sleep,
+	 * because no player in game is close enough; the {@link MobileListener}s
+	 * are notified of the mobiles to wake up when a player comes close.
+	 *
+	 * @param facet facet
+	 * @param location location
+	 * @return <tt>true</tt> if and only if no player is close enough
+	 */
+	boolean isDormant(Facet facet, Point2D location);
+
+	/**
+	 * Saves the players' mobiles, the accounts and the items through the
+	 * {@link DataManager}; to be called between two ticks, as the world is
+	 * captured before returning.
+	 *
+	 * @return completed once saved
+	 */
+	CompletableFuture<SaveStats> saveWorld();
+
+	/**
+	 * Saves the players' mobiles and the items changed or removed since the
+	 * previous save, and the accounts, like {@link #saveWorld()}.
+	 *
+	 * @return completed once saved
+	 */
+	CompletableFuture<SaveStats> saveChanges();
+
+	/**
+	 * Journals the players' mobiles, the accounts and the items changed or
+	 * removed since the previous call, to be saved again by the next save.
+	 *
+	 * @return completed once journaled
+	 */
+	CompletableFuture<SaveStats> journalChanges();
+
 	void addMobileListener(MobileListener listener);
 
 	void removeMobileCreationListener(MobileListener listener);
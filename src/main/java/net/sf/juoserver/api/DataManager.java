@@ -1,6 +1,8 @@
 package net.sf.juoserver.api;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface DataManager {
 	List<Mobile> loadMobiles();
@@ -10,4 +12,38 @@ public interface DataManager {
 	List<Item> loadItems();
 
 	Integer getItemSerial();
+
+	/**
+	 * Loads player characters, wearing their items, for the data managers
+	 * which leave them out of {@link #loadMobiles()}; by default, they are
+	 * taken from the loaded mobiles.
+	 * 
+	 * @param serials serial IDs of the characters
+	 * @return the characters found, completed once loaded
+	 */
+	default CompletableFuture<List<Mobile>> loadCharacters(Collection<Integer> serials) {
+		return CompletableFuture.completedFuture(loadMobiles().stream()
+				.filter(mobile -> serials.contains(mobile.getSerialId()))
+				.toList());
+	}
+
+	/**
+	 * Saves the world, or applies the changes since the previous save. The
+	 * world is captured before returning, and must not change meanwhile; the
+	 * save itself may complete later.
+	 * 
+	 * @param changes the whole world, or the changes since the previous save
+	 * @return completed once saved
+	 */
+	CompletableFuture<SaveStats> save(WorldChanges changes);
+
+	/**
+	 * Durably records the changes since the previous call, so that they are
+	 * not lost by a crash before the next save. The changes are captured
+	 * before returning, like {@link #save(WorldChanges)}.
+	 * 
+	 * @param changes the changes since the previous call
+	 * @return completed once recorded
+	 */
+	CompletableFuture<SaveStats> journal(WorldChanges changes);
 }
@@ -0,0 +1,54 @@
+package net.sf.juoserver.api;
+
+/**
+ * The facets (maps) of the world.
+ * <p/>
+ * Every facet has its own map and statics files (e.g., <tt>map2.mul</tt>,
+ * <tt>staidx2.mul</tt> and <tt>statics2.mul</tt> for Ilshenar) and is
+ * identified, towards the client, by its map index.
+ */
+public enum Facet implements Coded {
+	Felucca(0, 7168, 4096),
+	Trammel(1, 7168, 4096),
+	Ilshenar(2, 2304, 1600),
+	Malas(3, 2560, 2048),
+	Tokuno(4, 1448, 1448),
+	TerMur(5, 1280, 4096);
+
+	private final int mapIndex;
+	private final int width;
+	private final int height;
+
+	Facet(int mapIndex, int width, int height) {
+		this.mapIndex = mapIndex;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * @return the map index: the number the client knows this facet by, which
+	 *         is also the number within the names of its files
+	 */
+	@Override
+	public int getCode() {
+		return mapIndex;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 * @return <tt>true</tt> if and only if the given coordinates lie within
+	 *         this facet's bounds
+	 */
+	public boolean contains(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+}
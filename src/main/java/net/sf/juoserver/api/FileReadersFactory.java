@@ -10,4 +10,20 @@ public interface FileReadersFactory {
 			IdxFileReader idxFileReader) throws FileNotFoundException;
 
 	MapFileReader createMapFileReader(File mapFile, int mapHeight) throws FileNotFoundException;
+
+	/**
+	 * Creates a map reader working straight on a UOP container, such as
+	 * <tt>map0LegacyMUL.uop</tt>.
+	 *
+	 * @param uopFile UOP container
+	 * @param mapIndex index of the map within the container entries' names
+	 * @param mapHeight map height
+	 * @return the map reader
+	 * @throws FileNotFoundException if the container does not exist
+	 */
+	MapFileReader createUopMapFileReader(File uopFile, int mapIndex, int mapHeight) throws FileNotFoundException;
+
+	StaticsFileReader createStaticsFileReader(File idxFile, File staticsFile, int mapHeight) throws FileNotFoundException;
+
+	TileDataFileReader createTileDataFileReader(File file) throws FileNotFoundException;
 }
@@ -18,4 +18,9 @@ public interface IdxFileReader extends GenericFileReader<Integer, IdxFileEntry>
 	 * @return all the {@link IdxFileEntry}s in the index file
 	 */
 	List<IdxFileEntry> getAllEntries();
+
+	/**
+	 * @return the number of entries in the index file
+	 */
+	int size();
 }
@@ -1,5 +1,6 @@
 package net.sf.juoserver.api;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -16,4 +17,15 @@ public interface IndexedFileReader<T> extends GenericFileReader<IdxFileEntry, T>
 	 * @return all the outputs in the index file
 	 */
 	public List<T> getAllEntries();
+
+	/**
+	 * Retrieves the raw contents of the given entry <b>without copying</b>
+	 * them: the returned buffer is a read-only, little-endian view over the
+	 * data file.
+	 * 
+	 * @param entry
+	 *            index entry
+	 * @return a view of the data file portion described by the given entry
+	 */
+	ByteBuffer getSliceAt(IdxFileEntry entry);
 }
@@ -24,5 +24,10 @@ public interface InterClientNetwork {
 	void notifyOtherKilled(Mobile mobile);
 	void removeIntercomListener(IntercomListener listener);
 	void addIntercomListener(IntercomListener listener);
+	/**
+	 * @return the number of the players in the game, whose sessions listen to
+	 *         the network
+	 */
+	int getPlayersCount();
 
 }
@@ -1,11 +1,19 @@
 package net.sf.juoserver.api;
 
-public interface Item extends JUoEntity, Point3D, PropertyChangeSupported {
+public interface Item extends JUoEntity, Point3D, PropertyChangeSupported, Persistent {
 
 	void accept(ItemVisitor itemManager);
 
 	int baseDamage();
 
+	/**
+	 * @return weapon speed, the higher the more frequent the swings, 0 if the
+	 *         item is not a weapon
+	 */
+	int speed();
+
+	Item speed(int speed);
+
 	int amount();
 
 	/**
@@ -19,6 +27,10 @@ public interface Item extends JUoEntity, Point3D, PropertyChangeSupported {
 
 	Item location(Point3D point3D);
 
+	Facet getFacet();
+
+	Item facet(Facet facet);
+
 	Item name(String name);
 
 	Item hue(int hue);
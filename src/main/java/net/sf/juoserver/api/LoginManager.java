@@ -1,7 +1,28 @@
 package net.sf.juoserver.api;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 public interface LoginManager {
-	Account login(String username, String password) throws NoSuchCharacterException, WrongPasswordException;
+	/**
+	 * Verifies the password of an account in the background.
+	 * 
+	 * @return the account, completed exceptionally with a
+	 *         {@link NoSuchCharacterException}, a {@link WrongPasswordException},
+	 *         or a {@link RejectedExecutionException} when too many logins are
+	 *         being verified
+	 */
+	CompletableFuture<Account> login(String username, String password);
+	/**
+	 * Issues the key the client sends to the game server, redeemable once
+	 * for a limited time.
+	 */
 	int generateAuthenticationKey(Account account);
+	/**
+	 * Redeems a key issued by {@link #generateAuthenticationKey(Account)}.
+	 * 
+	 * @return the account the key was issued to, <tt>null</tt> if unknown,
+	 *         already redeemed or expired
+	 */
 	Account getAuthorizedAccount(int key);
 }
@@ -3,7 +3,7 @@ package net.sf.juoserver.api;
 import java.util.Map;
 import java.util.Set;
 
-public interface Mobile extends JUoEntity, Point3D {
+public interface Mobile extends JUoEntity, Point3D, PropertyChangeSupported, Persistent {
 
 	void setZ(int z);
 
@@ -11,6 +11,15 @@ public interface Mobile extends JUoEntity, Point3D {
 
 	void setLocation(Point3D location);
 
+	Facet getFacet();
+
+	/**
+	 * Moves this mobile to another facet, keeping its coordinates.
+	 *
+	 * @param facet new facet
+	 */
+	void setFacet(Facet facet);
+
 	Direction getDirection();
 
 	void setDirection(Direction direction);
@@ -59,6 +68,10 @@ public interface Mobile extends JUoEntity, Point3D {
 
 	Set<Skill> getSkills();
 
+	/**
+	 * @return a copy of the worn items by layer, safe to iterate while the
+	 *         mobile is being changed
+	 */
 	Map<Layer, Item> getItems();
 
 	Notoriety getNotoriety();
@@ -88,6 +101,26 @@ public interface Mobile extends JUoEntity, Point3D {
 
 	int getWeaponBaseDamage();
 
+	/**
+	 * @return the speed of the equipped weapon, or the wrestling speed when
+	 *         fighting bare-handed
+	 */
+	int getWeaponSpeed();
+
+	/**
+	 * @return a counter incremented on every change of the stats or of the
+	 *         equipment the {@link CombatStats} are derived from
+	 */
+	int getRevision();
+
+	/**
+	 * @return the cached combat stats, possibly of an older revision, or
+	 *         <tt>null</tt>
+	 */
+	CombatStats getCombatStats();
+
+	void setCombatStats(CombatStats combatStats);
+
 	int distanceOf(Mobile mobile);
 
 	void kill();
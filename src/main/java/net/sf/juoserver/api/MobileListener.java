@@ -5,4 +5,14 @@ public interface MobileListener {
     void onMobileCreated(Mobile mobile);
 
     void onMobileRemoved(Mobile mobile);
+
+    /**
+     * Notified when a player comes close enough to a dormant mobile to wake
+     * it up, see {@link Core#isDormant(Facet, Point2D)}; the mobile might
+     * also be already awake.
+     *
+     * @param mobile mobile
+     */
+    default void onMobileAwakened(Mobile mobile) {
+    }
 }
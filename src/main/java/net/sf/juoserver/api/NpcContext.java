@@ -1,6 +1,12 @@
 package net.sf.juoserver.api;
 
 public interface NpcContext {
+    /**
+     * Set by scripts which stopped before the end of their run, for lack of
+     * CPU time in the current tick, so that they are resumed on the next tick;
+     * reset when read.
+     */
+    String YIELDED = "yielded";
 
     <T> void addEntry(String key, T value);
 
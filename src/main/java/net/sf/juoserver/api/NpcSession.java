@@ -1,13 +1,53 @@
 package net.sf.juoserver.api;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 public interface NpcSession extends CombatSession {
 
     Mobile getMobile();
 
+    /**
+     * @param includeNpc whether other NPCs must be included
+     * @return the mobiles within the client range of the NPC, the NPC
+     *         excluded
+     */
     Stream<Mobile> findMobilesInRange(boolean includeNpc);
 
+    /*
+     * Perception: the following queries don't scan the world on every call,
+     * but at most once per perception period; results are filled in buffers
+     * owned by the scripts, which should reuse them.
+     */
+
+    /**
+     * @param radius maximum distance
+     * @return the nearest alive player the NPC is hostile to, or
+     *         <tt>null</tt> if there is none within the radius
+     */
+    Mobile findNearestHostilePlayer(int radius);
+
+    /**
+     * @param radius maximum distance
+     * @param result buffer, cleared and filled with the alive players within
+     *               the radius
+     * @return the number of players found
+     */
+    int findPlayersInRange(int radius, List<Mobile> result);
+
+    /**
+     * @param radius maximum distance
+     * @param result buffer, cleared and filled with the alive players within
+     *               the radius the NPC is hostile to and can see
+     * @return the number of targets found
+     */
+    int findTargetsInSight(int radius, List<Mobile> result);
+
+    /**
+     * @param millis milliseconds between two scans of the NPC surroundings
+     */
+    void setPerceptionPeriod(long millis);
+
     void move(Direction direction, boolean running);
 
     void moveTowards(Point2D location);
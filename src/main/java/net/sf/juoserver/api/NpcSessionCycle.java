@@ -4,6 +4,14 @@ import net.sf.juoserver.model.npc.ContextBasedNpcSession;
 
 public interface NpcSessionCycle {
 
-    void execute(AIScript script, ContextBasedNpcSession session);
+    /**
+     * Runs the AI script of a session once; scripts must not block, as they
+     * share a bounded pool of threads.
+     *
+     * @param script AI script
+     * @param session NPC session
+     * @return the milliseconds until the next run of the script
+     */
+    long execute(AIScript script, ContextBasedNpcSession session);
 
 }
@@ -0,0 +1,22 @@
+package net.sf.juoserver.api;
+
+/**
+ * An entity whose saved state is tracked, so that only the entities changed
+ * since the previous save are saved again.
+ */
+public interface Persistent {
+    /**
+     * Starts reporting the changes of the saved state to the tracker, the
+     * current state being saved already. A changed entity is reported once,
+     * until {@link #clearChanges() cleared}.
+     *
+     * @param tracker tracker
+     */
+    void trackChanges(ChangeTracker tracker);
+
+    /**
+     * Marks the entity as saved, before its state is captured: the next
+     * change is reported again.
+     */
+    void clearChanges();
+}
@@ -4,4 +4,11 @@ public interface PhysicalDamageCalculator {
 
     int calculate(Mobile attacker, Mobile attacked);
 
+    /**
+     * @param mobile mobile
+     * @return the combat stats of the mobile, derived again only if its
+     *         revision changed since they were cached
+     */
+    CombatStats statsOf(Mobile mobile);
+
 }
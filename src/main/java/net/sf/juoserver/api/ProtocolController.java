@@ -34,4 +34,10 @@ public interface ProtocolController {
 	void postProcess(Message request);
 
 	boolean isInterestedIn(Message message);
+
+	/**
+	 * Tells that the client is gone.
+	 */
+	default void connectionClosed() {
+	}
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package net.sf.juoserver.api;
+
+/**
+ * Outcome of a save.
+ *
+ * @param bytes bytes written
+ * @param writeMillis milliseconds spent writing, after the world was captured
+ */
+public record SaveStats(long bytes, long writeMillis) {
+}
@@ -0,0 +1,23 @@
+package net.sf.juoserver.api;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Shards advertised by the login listener to the clients logging in, and the
+ * game nodes serving them.
+ */
+public interface ShardRouter {
+    /**
+     * @return the names of the shards having a node up, in the order of the
+     *         server list
+     */
+    List<String> getShards();
+
+    /**
+     * @param shard name of the shard selected by a client
+     * @return the address of the node serving the shard, to redirect the client
+     *         to, <tt>null</tt> if none is up
+     */
+    InetSocketAddress route(String shard);
+}
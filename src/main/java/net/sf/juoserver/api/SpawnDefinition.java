@@ -0,0 +1,38 @@
+package net.sf.juoserver.api;
+
+/**
+ * Keeps a number of NPCs of a template alive in a rectangular region of a
+ * facet.
+ */
+public interface SpawnDefinition {
+
+    String getName();
+
+    int getTemplateId();
+
+    Facet getFacet();
+
+    /**
+     * @return X coordinate of the region's north-west corner
+     */
+    int getX();
+
+    /**
+     * @return Y coordinate of the region's north-west corner
+     */
+    int getY();
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * @return NPCs kept alive in the region
+     */
+    int getCount();
+
+    /**
+     * @return seconds between the death of a spawned NPC and its replacement
+     */
+    int getRespawnDelay();
+}
@@ -0,0 +1,18 @@
+package net.sf.juoserver.api;
+
+/**
+ * Populates the world with the NPCs of the {@link SpawnDefinition}s, and
+ * replaces them when they die.
+ */
+public interface SpawnerSystem {
+
+    /**
+     * Loads the spawn definitions and creates all their NPCs.
+     */
+    void spawn();
+
+    /**
+     * @return the spawned NPCs currently alive
+     */
+    int getSpawnedCount();
+}
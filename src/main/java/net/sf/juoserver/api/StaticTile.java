@@ -0,0 +1,11 @@
+package net.sf.juoserver.api;
+
+/**
+ * A static object of the map (trees, walls, floors, ...), as stored within the
+ * statics files.
+ */
+public interface StaticTile extends Point3D {
+	int getTileID();
+
+	int getHue();
+}
@@ -0,0 +1,19 @@
+package net.sf.juoserver.api;
+
+import java.util.List;
+
+/**
+ * Statics files reader: provides the static objects lying on a map cell.
+ */
+public interface StaticsFileReader extends GenericFileReader<MapLocation, List<StaticTile>> {
+
+	/**
+	 * Retrieves all the statics of an 8x8 block at once, which is how they are
+	 * stored within the files.
+	 *
+	 * @param blockX X coordinate of the block (i.e., cell X / 8)
+	 * @param blockY Y coordinate of the block (i.e., cell Y / 8)
+	 * @return the statics of the given block, in no particular order
+	 */
+	List<StaticTile> getBlockStatics(int blockX, int blockY);
+}
@@ -0,0 +1,29 @@
+package net.sf.juoserver.api;
+
+/**
+ * Reader of the tile definitions (<tt>tiledata.mul</tt>), which tell e.g.
+ * whether a land or static tile can be walked through.
+ */
+public interface TileDataFileReader {
+	long FLAG_IMPASSABLE = 0x40;
+	long FLAG_WET = 0x80;
+	long FLAG_SURFACE = 0x200;
+
+	/**
+	 * @param tileID land tile ID (see {@link MapTile#getTileID()})
+	 * @return the flags of the given land tile, or 0 if it is unknown
+	 */
+	long getLandFlags(int tileID);
+
+	/**
+	 * @param tileID static tile ID (see {@link StaticTile#getTileID()})
+	 * @return the flags of the given static tile, or 0 if it is unknown
+	 */
+	long getItemFlags(int tileID);
+
+	/**
+	 * @param tileID static tile ID (see {@link StaticTile#getTileID()})
+	 * @return the height of the given static tile, or 0 if it is unknown
+	 */
+	int getItemHeight(int tileID);
+}
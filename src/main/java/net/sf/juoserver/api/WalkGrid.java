@@ -0,0 +1,17 @@
+package net.sf.juoserver.api;
+
+/**
+ * Tells which cells of a {@link Facet} can be walked on.
+ */
+public interface WalkGrid {
+
+	Facet getFacet();
+
+	/**
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 * @return <tt>true</tt> if and only if a mobile can stand on the given cell;
+	 *         cells outside the facet are never walkable
+	 */
+	boolean isWalkable(int x, int y);
+}
@@ -0,0 +1,28 @@
+package net.sf.juoserver.api;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * What a save has to write: either the whole world, or the changes since the
+ * previous save.
+ *
+ * @param full whether this is the whole world, replacing the previous save
+ * @param mobiles the mobiles, or the changed ones, along with the items they wear
+ * @param accounts the accounts, or the changed ones
+ * @param items the ground items, or the changed items wherever they are, along with their content
+ * @param removedMobiles serials of the mobiles removed since the previous save
+ * @param removedItems serials of the items removed since the previous save
+ * @param itemSerial serial of the next created item
+ */
+public record WorldChanges(boolean full, Collection<? extends Mobile> mobiles, Collection<? extends Account> accounts,
+                           Collection<? extends Item> items, Collection<Integer> removedMobiles,
+                           Collection<Integer> removedItems, int itemSerial) {
+    /**
+     * @return the whole world
+     */
+    public static WorldChanges full(Collection<? extends Mobile> mobiles, Collection<? extends Account> accounts,
+                                    Collection<? extends Item> groundItems, int itemSerial) {
+        return new WorldChanges(true, mobiles, accounts, groundItems, List.of(), List.of(), itemSerial);
+    }
+}
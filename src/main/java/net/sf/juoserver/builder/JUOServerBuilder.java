@@ -1,15 +1,28 @@
 package net.sf.juoserver.builder;
 
 import net.sf.juoserver.api.*;
+import net.sf.juoserver.api.Configuration.ServerConfiguration.Listeners;
 import net.sf.juoserver.configuration.ConfigurationFactory;
 import net.sf.juoserver.configuration.YamlConfigFileReader;
 import net.sf.juoserver.files.mondainslegacy.MondainsLegacyFileReadersFactory;
+import net.sf.juoserver.model.AuthenticationKeys;
+import net.sf.juoserver.model.FileAuthenticationKeys;
 import net.sf.juoserver.model.InMemoryDataManager;
 import net.sf.juoserver.model.Intercom;
+import net.sf.juoserver.model.TickLoad;
 import net.sf.juoserver.model.UOConcurrentManagerExecutor;
+import net.sf.juoserver.model.UOLoginManager;
+import net.sf.juoserver.model.ai.TickBudget;
 import net.sf.juoserver.model.core.UOCore;
+import net.sf.juoserver.model.persistence.BinaryDataManager;
+import net.sf.juoserver.model.persistence.JdbcDataManager;
+import net.sf.juoserver.model.persistence.WorldSaver;
+import net.sf.juoserver.model.shard.FileShardRouter;
+import net.sf.juoserver.model.shard.LocalShard;
+import net.sf.juoserver.model.shard.NodeReporter;
 import net.sf.juoserver.model.npc.UONpcSessionCycle;
 import net.sf.juoserver.model.npc.UONpcSystem;
+import net.sf.juoserver.model.spawn.UOSpawnerSystem;
 import net.sf.juoserver.networking.mina.MinaMultiplexingServerAdapter;
 import net.sf.juoserver.networking.threaded.ThreadedServerAdapter;
 import net.sf.juoserver.protocol.ControllerFactory;
@@ -18,6 +31,8 @@ import net.sf.juoserver.model.combat.PhysicalDamageCalculatorImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -30,6 +45,14 @@ import static net.sf.juoserver.model.UOConcurrentManagerExecutor.Task.from;
 public final class JUOServerBuilder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JUOServerBuilder.class);
+    /**
+     * Milliseconds between the dispatches of the due NPCs AI scripts.
+     */
+    private static final long NPC_TICK = 10;
+    /**
+     * Milliseconds between the resolutions of the due combat swings.
+     */
+    private static final long COMBAT_TICK = 50;
     private Configuration configuration;
     private ConfigFileReader configFileReader;
     private DataManager dataManager;
@@ -43,7 +66,17 @@ public final class JUOServerBuilder {
         JUOServerBuilder builder = new JUOServerBuilder();
         builder.configuration = ConfigurationFactory.newInstance().newConfiguration();
         builder.configFileReader = new YamlConfigFileReader();
-        builder.dataManager = new InMemoryDataManager();
+        var files = builder.configuration.getFiles();
+        var worldSavePath = files != null ? files.getWorldSavePath() : null;
+        var worldDatabaseUrl = files != null ? files.getWorldDatabaseUrl() : null;
+        builder.dataManager = worldDatabaseUrl != null
+                ? new JdbcDataManager(worldDatabaseUrl, new InMemoryDataManager(), Executors.newSingleThreadExecutor(),
+                        files.getDatabaseFlushPeriod(), files.getCharacterEvictionDelay() > 0)
+                : worldSavePath != null
+                ? new BinaryDataManager(Path.of(worldSavePath), new InMemoryDataManager(), Executors.newSingleThreadExecutor(),
+                        files.getJournalPeriod() > 0 ? Executors.newSingleThreadExecutor() : null,
+                        files.getCharacterEvictionDelay() > 0)
+                : new InMemoryDataManager();
         builder.serverType = ServerType.THREADED;
         return builder;
     }
@@ -59,16 +92,26 @@ public final class JUOServerBuilder {
     }
 
     public JUOServer build() {
+        if (getListeners() != Listeners.ALL && configuration.getServer().getAuthenticationKeysPath() == null) {
+            throw new IllegalArgumentException(String.format("Listeners %s need server.authenticationKeysPath, "
+                    + "shared with the process running the other listener", getListeners()));
+        }
         LOGGER.info("Creating server managers");
         var commands = modules.stream()
                 .map(ServerModule::getCommands)
                 .flatMap(Collection::stream)
                 .collect(Collectors.toList());
 
-        var core = new UOCore(new MondainsLegacyFileReadersFactory(), dataManager, configuration, configFileReader);
-        var combatSystem = new UOCombatSystem(new PhysicalDamageCalculatorImpl(configuration));
+        var core = new UOCore(new MondainsLegacyFileReadersFactory(), dataManager, configuration, configFileReader,
+                new TickBudget(configuration.getNpc().getAiTickBudgetMicros(), NPC_TICK));
+        var combatShards = configuration.getCombat().getShards() > 0 ? configuration.getCombat().getShards()
+                : Runtime.getRuntime().availableProcessors();
+        var combatSystem = new UOCombatSystem(new PhysicalDamageCalculatorImpl(configuration), combatShards,
+                combatShards > 1 ? Executors.newFixedThreadPool(combatShards - 1) : Runnable::run);
         var network = new Intercom();
-        var npcSystem = new UONpcSystem(core, network, configuration, new UONpcSessionCycle(), Executors.newVirtualThreadPerTaskExecutor());
+        var aiThreads = configuration.getNpc().getAiThreads();
+        var npcSystem = new UONpcSystem(core, network, configuration, new UONpcSessionCycle(),
+                Executors.newFixedThreadPool(aiThreads > 0 ? aiThreads : Runtime.getRuntime().availableProcessors()));
         npcSystem.addNpcSessionListener(new NpcSessionListener() {
             @Override
             public void onSessionCreated(NpcMobile mobile, NpcSession session) {
@@ -81,24 +124,119 @@ public final class JUOServerBuilder {
             }
         });
 
-        var server = getServer(new ControllerFactory(core, configuration, commands, combatSystem, network, npcSystem));
-        var executorService = new UOConcurrentManagerExecutor(from(combatSystem, 500), from(npcSystem, 1));
+        var spawnerSystem = new UOSpawnerSystem(core, configFileReader);
+
+        var server = configuration.getServer();
+        var shardRouter = server.getNodesPath() != null ? new FileShardRouter(Path.of(server.getNodesPath()))
+                : new LocalShard(server);
+        var servers = getServers(new ControllerFactory(core, configuration, getLoginManager(core), shardRouter,
+                commands, combatSystem, network, npcSystem));
+        var tasks = new ArrayList<>(List.of(from(combatSystem, COMBAT_TICK), from(npcSystem, NPC_TICK),
+                from(core.getFacetManager(), 1000), from(core.getCharacterCache(), 1000), from(spawnerSystem, 1000)));
+        var files = configuration.getFiles();
+        if (files != null && (files.getWorldSavePath() != null || files.getWorldDatabaseUrl() != null)
+                && files.getWorldSavePeriod() > 0) {
+            boolean journal = files.getJournalPeriod() > 0;
+            tasks.add(from(new WorldSaver(core, files.getWorldSavePeriod() * 1000L, journal),
+                    journal ? files.getJournalPeriod() : 1000));
+        }
+        var tickLoad = new TickLoad();
+        var nodeReporter = getNodeReporter(network, tickLoad);
+        if (nodeReporter != null) {
+            tasks.add(from(nodeReporter, NodeReporter.PERIOD));
+        }
+        var executorService = new UOConcurrentManagerExecutor(tickLoad,
+                tasks.toArray(UOConcurrentManagerExecutor.Task[]::new));
         LOGGER.info("Server managers successfully created");
 
         return () -> {
             LOGGER.info("Initializing!!");
-            core.init();
-            executorService.start();
-            server.acceptClientConnections();
+            // Before loading the world, which may be the one of another node
+            if (nodeReporter != null && getListeners() != Listeners.LOGIN) {
+                nodeReporter.start();
+            }
+            // The world is played, and saved, by the game listener process only
+            var startup = getListeners() != Listeners.LOGIN ? core.startup() : core.startupAccounts();
+            // Logins are served as soon as the accounts are available, while the world keeps loading
+            startup.await(UOCore.ACCOUNTS_STAGE);
+            if (getListeners() != Listeners.LOGIN) {
+                startup.getCompletion().thenRun(spawnerSystem::spawn).thenRun(executorService::start)
+                        .exceptionally(error -> {
+                            // Not to serve logins into a world that is not ticking
+                            LOGGER.error("Cannot start the world, stopping the server", error);
+                            System.exit(1);
+                            return null;
+                        });
+            }
+            for (var login : servers.subList(0, servers.size() - 1)) {
+                new Thread(() -> {
+                    try {
+                        login.acceptClientConnections();
+                    } catch (IOException e) {
+                        LOGGER.error("Login listener stopped", e);
+                    }
+                }, "login-listener").start();
+            }
+            servers.get(servers.size() - 1).acceptClientConnections();
         };
     }
 
-    private Server getServer(ControllerFactory controllerFactory) {
+    private Listeners getListeners() {
+        var server = configuration.getServer();
+        return server.getGamePort() != 0 ? server.getListeners() : Listeners.ALL;
+    }
+
+    private NodeReporter getNodeReporter(Intercom network, TickLoad tickLoad) {
+        var server = configuration.getServer();
+        if (server.getNodesPath() == null) {
+            return null;
+        }
+        var files = configuration.getFiles();
+        var world = files == null ? null
+                : files.getWorldDatabaseUrl() != null ? files.getWorldDatabaseUrl()
+                : files.getWorldSavePath() != null ? Path.of(files.getWorldSavePath()).toAbsolutePath().normalize().toString()
+                : null;
+        return new NodeReporter(Path.of(server.getNodesPath()), server.getName(), server.getHost(),
+                server.getGamePort() != 0 ? server.getGamePort() : server.getPort(), world, network::getPlayersCount,
+                tickLoad::get);
+    }
+
+    private LoginManager getLoginManager(Core core) {
+        var server = configuration.getServer();
+        var authenticationKeys = server.getAuthenticationKeysPath() != null
+                ? new FileAuthenticationKeys(Path.of(server.getAuthenticationKeysPath()), UOLoginManager.KEY_TTL)
+                : new AuthenticationKeys(UOLoginManager.KEY_TTL);
+        // The accounts registered by a login listener process would never be saved
+        return new UOLoginManager(core, server.isAccountAutoRegistration() && getListeners() != Listeners.LOGIN,
+                authenticationKeys);
+    }
+
+    /**
+     * @return the listeners of this process, the login one first when the game
+     *         one has its own port
+     */
+    private List<Server> getServers(ControllerFactory controllerFactory) {
+        var server = configuration.getServer();
+        if (server.getGamePort() == 0) {
+            return List.of(getServer(controllerFactory, server.getPort(), 0, 0));
+        }
+        var servers = new ArrayList<Server>();
+        if (getListeners() != Listeners.GAME) {
+            servers.add(getServer(controllerFactory.forListeners(Listeners.LOGIN), server.getPort(),
+                    server.getLoginThreads(), server.getLoginTimeout()));
+        }
+        if (getListeners() != Listeners.LOGIN) {
+            servers.add(getServer(controllerFactory.forListeners(Listeners.GAME), server.getGamePort(), 0, 0));
+        }
+        return servers;
+    }
+
+    private Server getServer(ControllerFactory controllerFactory, int port, int threads, int readTimeout) {
         switch (serverType) {
             case THREADED:
-                return new ThreadedServerAdapter(configuration, controllerFactory);
+                return new ThreadedServerAdapter(configuration, controllerFactory, port, threads, readTimeout);
             case MULTIPLEXING:
-                return new MinaMultiplexingServerAdapter(configuration, controllerFactory);
+                return new MinaMultiplexingServerAdapter(configuration, controllerFactory, port, threads, readTimeout);
             default:
                 throw new IllegalArgumentException(String.format("ServerType %s does not exist", serverType));
         }
@@ -7,6 +7,7 @@ class CombatConfigurationImpl implements Configuration.CombatConfiguration {
     private int strAttackDivisorModifier;
     private int dexDefenseDivisorModifier;
     private int strDefenseDivisorModifier;
+    private int shards;
 
     @Override
     public int getDexAttackDivisorModifier() {
@@ -28,6 +29,11 @@ class CombatConfigurationImpl implements Configuration.CombatConfiguration {
         return strDefenseDivisorModifier;
     }
 
+    @Override
+    public int getShards() {
+        return shards;
+    }
+
     public void setDexAttackDivisorModifier(int dexAttackDivisorModifier) {
         this.dexAttackDivisorModifier = dexAttackDivisorModifier;
     }
@@ -43,4 +49,8 @@ class CombatConfigurationImpl implements Configuration.CombatConfiguration {
     public void setStrDefenseDivisorModifier(int strDefenseDivisorModifier) {
         this.strDefenseDivisorModifier = strDefenseDivisorModifier;
     }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
 }
@@ -36,6 +36,8 @@ public class ConfigurationFactory {
         simpleModule.addAbstractTypeMapping(Configuration.CommandConfiguration.class, CommandConfigurationImpl.class);
         simpleModule.addAbstractTypeMapping(Configuration.PacketConfiguration.class, PacketConfigurationImpl.class);
         simpleModule.addAbstractTypeMapping(Configuration.ClientConfiguration.class, ClientConfigurationImpl.class);
+        simpleModule.addAbstractTypeMapping(Configuration.NpcConfiguration.class, NpcConfigurationImpl.class);
+        simpleModule.addAbstractTypeMapping(Configuration.FacetConfiguration.class, FacetConfigurationImpl.class);
 
         this.propsMapper = new JavaPropsMapper();
         this.propsMapper.registerModule(simpleModule);
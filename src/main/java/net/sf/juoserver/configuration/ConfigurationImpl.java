@@ -15,6 +15,8 @@ public class ConfigurationImpl implements Configuration {
     private FilesConfiguration files;
     private CommandConfiguration command;
     private PacketConfiguration packet;
+    private NpcConfiguration npc;
+    private FacetConfiguration facet;
 
     @Override
     public String getSkillsIdxPath() {
@@ -61,6 +63,16 @@ public class ConfigurationImpl implements Configuration {
         return packet;
     }
 
+    @Override
+    public NpcConfiguration getNpc() {
+        return npc;
+    }
+
+    @Override
+    public FacetConfiguration getFacet() {
+        return facet;
+    }
+
     public void setSkillsIdxPath(String skillsIdxPath) {
         this.skillsIdxPath = skillsIdxPath;
     }
@@ -108,4 +120,12 @@ public class ConfigurationImpl implements Configuration {
     public void setPacket(PacketConfiguration packet) {
         this.packet = packet;
     }
+
+    public void setFacet(FacetConfiguration facet) {
+        this.facet = facet;
+    }
+
+    public void setNpc(NpcConfiguration npc) {
+        this.npc = npc;
+    }
 }
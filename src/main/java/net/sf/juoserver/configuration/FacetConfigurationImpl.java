@@ -0,0 +1,17 @@
+package net.sf.juoserver.configuration;
+
+import net.sf.juoserver.api.Configuration;
+
+class FacetConfigurationImpl implements Configuration.FacetConfiguration {
+
+    private int emptyTimeout;
+
+    @Override
+    public int getEmptyTimeout() {
+        return emptyTimeout;
+    }
+
+    public void setEmptyTimeout(int emptyTimeout) {
+        this.emptyTimeout = emptyTimeout;
+    }
+}
@@ -5,6 +5,12 @@ import net.sf.juoserver.api.Configuration;
 class FilesConfigurationImpl implements Configuration.FilesConfiguration {
 
     private String mulPath;
+    private String worldSavePath;
+    private int worldSavePeriod = 300;
+    private int journalPeriod = 100;
+    private int characterEvictionDelay;
+    private String worldDatabaseUrl;
+    private int databaseFlushPeriod = 1000;
 
     @Override
     public String getMulPath() {
@@ -14,4 +20,58 @@ class FilesConfigurationImpl implements Configuration.FilesConfiguration {
     public void setMulPath(String mulsPath) {
         this.mulPath = mulsPath;
     }
+
+    @Override
+    public String getWorldSavePath() {
+        return worldSavePath;
+    }
+
+    public void setWorldSavePath(String worldSavePath) {
+        this.worldSavePath = worldSavePath;
+    }
+
+    @Override
+    public int getWorldSavePeriod() {
+        return worldSavePeriod;
+    }
+
+    public void setWorldSavePeriod(int worldSavePeriod) {
+        this.worldSavePeriod = worldSavePeriod;
+    }
+
+    @Override
+    public int getJournalPeriod() {
+        return journalPeriod;
+    }
+
+    public void setJournalPeriod(int journalPeriod) {
+        this.journalPeriod = journalPeriod;
+    }
+
+    @Override
+    public int getCharacterEvictionDelay() {
+        return characterEvictionDelay;
+    }
+
+    public void setCharacterEvictionDelay(int characterEvictionDelay) {
+        this.characterEvictionDelay = characterEvictionDelay;
+    }
+
+    @Override
+    public String getWorldDatabaseUrl() {
+        return worldDatabaseUrl;
+    }
+
+    public void setWorldDatabaseUrl(String worldDatabaseUrl) {
+        this.worldDatabaseUrl = worldDatabaseUrl;
+    }
+
+    @Override
+    public int getDatabaseFlushPeriod() {
+        return databaseFlushPeriod;
+    }
+
+    public void setDatabaseFlushPeriod(int databaseFlushPeriod) {
+        this.databaseFlushPeriod = databaseFlushPeriod;
+    }
 }
@@ -0,0 +1,57 @@
+package net.sf.juoserver.configuration;
+
+import net.sf.juoserver.api.Configuration;
+
+class NpcConfigurationImpl implements Configuration.NpcConfiguration {
+
+    private int flowFieldChasers;
+    private int flowFieldRadius;
+    private int aiThreads;
+    private int activationSectors;
+    private int aiTickBudgetMicros;
+
+    @Override
+    public int getFlowFieldChasers() {
+        return flowFieldChasers;
+    }
+
+    public void setFlowFieldChasers(int flowFieldChasers) {
+        this.flowFieldChasers = flowFieldChasers;
+    }
+
+    @Override
+    public int getFlowFieldRadius() {
+        return flowFieldRadius;
+    }
+
+    public void setFlowFieldRadius(int flowFieldRadius) {
+        this.flowFieldRadius = flowFieldRadius;
+    }
+
+    @Override
+    public int getAiThreads() {
+        return aiThreads;
+    }
+
+    public void setAiThreads(int aiThreads) {
+        this.aiThreads = aiThreads;
+    }
+
+    @Override
+    public int getActivationSectors() {
+        return activationSectors;
+    }
+
+    public void setActivationSectors(int activationSectors) {
+        this.activationSectors = activationSectors;
+    }
+
+    @Override
+    public int getAiTickBudgetMicros() {
+        return aiTickBudgetMicros;
+    }
+
+    public void setAiTickBudgetMicros(int aiTickBudgetMicros) {
+        this.aiTickBudgetMicros = aiTickBudgetMicros;
+    }
+}
@@ -7,6 +7,13 @@ class ServerConfigurationImpl implements Configuration.ServerConfiguration {
     private int port;
     private String name;
     private String host;
+    private boolean accountAutoRegistration;
+    private int gamePort;
+    private Listeners listeners = Listeners.ALL;
+    private int loginThreads;
+    private int loginTimeout;
+    private String authenticationKeysPath;
+    private String nodesPath;
 
     @Override
     public int getPort() {
@@ -34,4 +41,67 @@ class ServerConfigurationImpl implements Configuration.ServerConfiguration {
     public void setHost(String host) {
         this.host = host;
     }
+
+    @Override
+    public boolean isAccountAutoRegistration() {
+        return accountAutoRegistration;
+    }
+
+    public void setAccountAutoRegistration(boolean accountAutoRegistration) {
+        this.accountAutoRegistration = accountAutoRegistration;
+    }
+
+    @Override
+    public int getGamePort() {
+        return gamePort;
+    }
+
+    public void setGamePort(int gamePort) {
+        this.gamePort = gamePort;
+    }
+
+    @Override
+    public Listeners getListeners() {
+        return listeners;
+    }
+
+    public void setListeners(Listeners listeners) {
+        this.listeners = listeners;
+    }
+
+    @Override
+    public int getLoginThreads() {
+        return loginThreads;
+    }
+
+    public void setLoginThreads(int loginThreads) {
+        this.loginThreads = loginThreads;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    public void setLoginTimeout(int loginTimeout) {
+        this.loginTimeout = loginTimeout;
+    }
+
+    @Override
+    public String getAuthenticationKeysPath() {
+        return authenticationKeysPath;
+    }
+
+    public void setAuthenticationKeysPath(String authenticationKeysPath) {
+        this.authenticationKeysPath = authenticationKeysPath;
+    }
+
+    @Override
+    public String getNodesPath() {
+        return nodesPath;
+    }
+
+    public void setNodesPath(String nodesPath) {
+        this.nodesPath = nodesPath;
+    }
 }
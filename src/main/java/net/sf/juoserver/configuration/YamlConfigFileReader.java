@@ -1,27 +1,91 @@
 package net.sf.juoserver.configuration;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import net.sf.juoserver.api.ConfigFileReader;
 import net.sf.juoserver.api.NpcMobile;
+import net.sf.juoserver.api.SpawnDefinition;
 import net.sf.juoserver.model.UONpcMobile;
+import net.sf.juoserver.model.spawn.UOSpawnDefinition;
 
-import java.io.FileReader;
 import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class YamlConfigFileReader implements ConfigFileReader {
+    private static final Path DEFAULT_NPCS_PATH = Path.of("config/npcs.yaml");
+    private static final Path DEFAULT_SPAWNS_PATH = Path.of("config/spawns.yaml");
+    private static final Path DEFAULT_BEHAVIOURS_PATH = Path.of("config/behaviours.yaml");
     private final YAMLMapper yamlMapper;
+    private final Path npcsPath;
+    private final Path spawnsPath;
+    private final Path behavioursPath;
 
     public YamlConfigFileReader() {
+        this(DEFAULT_NPCS_PATH);
+    }
+
+    public YamlConfigFileReader(Path npcsPath) {
+        this(npcsPath, DEFAULT_SPAWNS_PATH);
+    }
+
+    public YamlConfigFileReader(Path npcsPath, Path spawnsPath) {
+        this(npcsPath, spawnsPath, DEFAULT_BEHAVIOURS_PATH);
+    }
+
+    public YamlConfigFileReader(Path npcsPath, Path spawnsPath, Path behavioursPath) {
         this.yamlMapper = new YAMLMapper();
+        this.npcsPath = npcsPath;
+        this.spawnsPath = spawnsPath;
+        this.behavioursPath = behavioursPath;
     }
+
     @Override
     public List<NpcMobile> loadNpcs() {
-        try (Reader reader = new FileReader("config/npcs.yaml")) {
+        try (Reader reader = Files.newBufferedReader(npcsPath)) {
             return Arrays.asList(yamlMapper.readValue(reader, UONpcMobile[].class));
         } catch (Exception exception) {
             throw new IllegalArgumentException(exception);
         }
     }
+
+    @Override
+    public Path getNpcsPath() {
+        return npcsPath;
+    }
+
+    @Override
+    public List<SpawnDefinition> loadSpawns() {
+        if (!Files.exists(spawnsPath)) {
+            return List.of();
+        }
+        try (Reader reader = Files.newBufferedReader(spawnsPath)) {
+            var spawns = yamlMapper.readValue(reader, UOSpawnDefinition[].class);
+            return spawns == null ? List.of() : Arrays.asList(spawns);
+        } catch (Exception exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    @Override
+    public Map<String, Object> loadBehaviourTrees() {
+        if (!Files.exists(behavioursPath)) {
+            return Map.of();
+        }
+        try (Reader reader = Files.newBufferedReader(behavioursPath)) {
+            Map<String, Object> trees = yamlMapper.readValue(reader, new TypeReference<LinkedHashMap<String, Object>>() {});
+            return trees == null ? Map.of() : trees;
+        } catch (Exception exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    @Override
+    public Path getBehavioursPath() {
+        return behavioursPath;
+    }
 }
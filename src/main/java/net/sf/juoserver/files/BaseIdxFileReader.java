@@ -5,8 +5,7 @@ import net.sf.juoserver.api.IdxFileReader;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,29 +13,48 @@ import java.util.List;
 /**
  * Base {@link IdxFileReader} acting as a <b>bridge</b> towards a specific
  * {@link IdxFileEntryEncoder}.
+ * <p/>
+ * The whole index file is memory-mapped and decoded <b>once</b>, on
+ * construction, into three parallel arrays: the start position, the length
+ * and the extra (file specific) value of every entry. Afterwards the file is
+ * never accessed again, so lookups are simple array reads and the reader can
+ * be safely shared between threads.
  */
 public class BaseIdxFileReader implements IdxFileReader {
-	private RandomAccessFile raf;
-	private int blockSize;
-	private IdxFileEntryEncoder entryEncoder;
+	private static final int START_OFFSET = 0;
+	private static final int LENGTH_OFFSET = 4;
+	private static final int EXTRA_OFFSET = 8;
+
+	private final int[] starts;
+	private final int[] lengths;
+	private final int[] extras;
+	private final IdxFileEntryEncoder entryEncoder;
 
 	public BaseIdxFileReader(File file, int blockSize,
 			IdxFileEntryEncoder entryEncoder) throws FileNotFoundException {
 		super();
-		this.raf = new RandomAccessFile(file, "r");
 		if (blockSize <= 0) {
 			throw new IllegalArgumentException("blockSize <= 0");
 		}
-		this.blockSize = blockSize;
 		this.entryEncoder = entryEncoder;
+
+		ByteBuffer bb = MappedFiles.map(file);
+		int count = bb.capacity() / blockSize;
+		this.starts = new int[count];
+		this.lengths = new int[count];
+		this.extras = new int[count];
+		for (int i = 0, position = 0; i < count; i++, position += blockSize) {
+			starts[i] = bb.getInt(position + START_OFFSET);
+			lengths[i] = blockSize > LENGTH_OFFSET ? bb.getInt(position + LENGTH_OFFSET) : 0;
+			extras[i] = blockSize > EXTRA_OFFSET ? bb.getInt(position + EXTRA_OFFSET) : 0;
+		}
 	}
 
 	@Override
 	public List<IdxFileEntry> getAllEntries() {
-		List<IdxFileEntry> entries = new ArrayList<IdxFileEntry>();
-		IdxFileEntry entry;
-		for (int i = 0; (entry = getEntryAt(i)) != null; i++) {
-			entries.add(entry);
+		List<IdxFileEntry> entries = new ArrayList<IdxFileEntry>(starts.length);
+		for (int i = 0; i < starts.length; i++) {
+			entries.add(createEntry(i));
 		}
 		return entries;
 	}
@@ -46,21 +64,48 @@ public class BaseIdxFileReader implements IdxFileReader {
 		if (index == null) {
 			throw new IllegalArgumentException("index cannot be null");
 		}
-		// TODO: (LRU?-) cache entries
-		try {
-			raf.seek(index * blockSize);
-		} catch (IOException e) {
-			throw new FileReaderException("Error while seeking position", e);
-		}
-		byte[] buffer = new byte[blockSize];
-		try {
-			int nread = raf.read(buffer, 0, blockSize);
-			if (nread != blockSize) {
-				return null;
-			}
-		} catch (IOException e) {
-			throw new FileReaderException("Error while reading file", e);
+		if (index < 0 || index >= starts.length) {
+			return null;
 		}
-		return entryEncoder.encode(buffer).index(index);
+		return createEntry(index);
+	}
+
+	@Override
+	public int size() {
+		return starts.length;
+	}
+
+	/**
+	 * @param index
+	 *            entry position
+	 * @return the starting position, within the data file, of the entry at the
+	 *         specified position
+	 */
+	public int getStart(int index) {
+		return starts[index];
+	}
+
+	/**
+	 * @param index
+	 *            entry position
+	 * @return the length, within the data file, of the entry at the specified
+	 *         position
+	 */
+	public int getLength(int index) {
+		return lengths[index];
+	}
+
+	/**
+	 * @param index
+	 *            entry position
+	 * @return the file specific extra value of the entry at the specified
+	 *         position (e.g., the gump size for <tt>gumpidx.mul</tt>)
+	 */
+	public int getExtra(int index) {
+		return extras[index];
+	}
+
+	private IdxFileEntry createEntry(int index) {
+		return entryEncoder.encode(starts[index], lengths[index], extras[index]).index(index);
 	}
 }
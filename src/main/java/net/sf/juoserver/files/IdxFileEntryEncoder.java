@@ -9,4 +9,18 @@ import net.sf.juoserver.files.mondainslegacy.MondainsLegacyIdxFileEntry;
  * {@link MondainsLegacyIdxFileEntry}s starting from byte
  * arrays.
  */
-public interface IdxFileEntryEncoder extends GenericFileEntryEncoder<IdxFileEntry> {}
+public interface IdxFileEntryEncoder extends GenericFileEntryEncoder<IdxFileEntry> {
+	/**
+	 * Encodes an entry whose columns have already been decoded from the index
+	 * file (see {@link BaseIdxFileReader}).
+	 *
+	 * @param start
+	 *            starting position within the data file
+	 * @param length
+	 *            length of the portion within the data file
+	 * @param extra
+	 *            file specific extra value
+	 * @return the index entry
+	 */
+	IdxFileEntry encode(int start, int length, int extra);
+}
@@ -0,0 +1,55 @@
+package net.sf.juoserver.files;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Helper for memory-mapping game files.
+ * <p/>
+ * Game files are never modified by the server, so they are mapped
+ * <b>read-only</b> and the underlying channel is closed right after the
+ * mapping is established (the mapping stays valid until the buffer is
+ * garbage collected). The returned buffers are little-endian, like every
+ * number stored in the UO files.
+ * <p/>
+ * Readers sharing a mapped buffer between threads must only use the
+ * <i>absolute</i> get methods (or {@link ByteBuffer#slice(int, int)}), which do
+ * not touch the buffer position.
+ */
+public final class MappedFiles {
+
+	private MappedFiles() {
+	}
+
+	/**
+	 * Maps the whole given file in memory.
+	 *
+	 * @param file
+	 *            file to be mapped
+	 * @return a read-only, little-endian buffer over the file contents
+	 * @throws FileNotFoundException
+	 *             if the file does not exist
+	 * @throws FileReaderException
+	 *             if the file could not be mapped
+	 */
+	public static ByteBuffer map(File file) throws FileNotFoundException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new FileReaderException("File too big to be mapped: " + file);
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+					.order(ByteOrder.LITTLE_ENDIAN);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new FileReaderException("Error while mapping " + file, e);
+		}
+	}
+}
@@ -7,33 +7,36 @@ import net.sf.juoserver.api.IndexedFileReader;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * MUL (data) files {@link IndexedFileReader} acting as a <b>bridge</b> towards
  * a specific {@link IdxFileReader} and {@link GenericFileEntryEncoder}.
+ * <p/>
+ * The data file is memory-mapped and only accessed through absolute reads, so
+ * a single reader can be safely shared between threads.
  * 
  * @param <T>
  *            type of the object to be retrieved from the data file
  */
 public class MulFileReader<T> implements IndexedFileReader<T> {
-	private RandomAccessFile raf;
-	private IdxFileReader idxFileReader;
-	private GenericFileEntryEncoder<T> encoder;
+	private final ByteBuffer data;
+	private final IdxFileReader idxFileReader;
+	private final GenericFileEntryEncoder<T> encoder;
 
 	public MulFileReader(File file, IdxFileReader idxFileReader,
 			GenericFileEntryEncoder<T> encoder) throws FileNotFoundException {
-		this.raf = new RandomAccessFile(file, "r");
+		this.data = MappedFiles.map(file);
 		this.idxFileReader = idxFileReader;
 		this.encoder = encoder;
 	}
 
 	@Override
 	public List<T> getAllEntries() {
-		List<T> entries = new ArrayList<T>();
+		List<T> entries = new ArrayList<T>(idxFileReader.size());
 		for (IdxFileEntry idx : idxFileReader.getAllEntries()) {
 			entries.add(getEntryAt(idx));
 		}
@@ -42,21 +45,22 @@ public class MulFileReader<T> implements IndexedFileReader<T> {
 
 	@Override
 	public T getEntryAt(IdxFileEntry entry) {
+		ByteBuffer slice = getSliceAt(entry);
+		byte[] buffer = new byte[slice.remaining()];
+		slice.get(0, buffer);
+		return encoder.encode(buffer);
+	}
+
+	@Override
+	public ByteBuffer getSliceAt(IdxFileEntry entry) {
 		if (entry == null) {
 			throw new IllegalArgumentException("index entry cannot be null");
 		}
-		// TODO: (LRU?-) cache entries
-		try {
-			raf.seek(entry.getStart());
-		} catch (IOException e) {
-			throw new FileReaderException(e);
-		}
-		byte[] buffer = new byte[entry.getLength()];
-		try {
-			raf.read(buffer, 0, entry.getLength());
-		} catch (IOException e) {
-			throw new FileReaderException(e);
+		int start = entry.getStart();
+		int length = entry.getLength();
+		if (start < 0 || length < 0 || start > data.capacity() - length) {
+			throw new FileReaderException("Entry out of data file bounds: " + entry);
 		}
-		return encoder.encode(buffer);
+		return data.slice(start, length).order(ByteOrder.LITTLE_ENDIAN);
 	}
 }
@@ -0,0 +1,310 @@
+package net.sf.juoserver.files;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader for the <b>UOP</b> containers (e.g., <tt>map0LegacyMUL.uop</tt>)
+ * shipped by the current clients in place of the legacy MUL files.
+ * <h1>UOP file organization</h1>
+ * A UOP file starts with a header:
+ *
+ * <pre>
+ * uint32 magic            'MYP\0'
+ * uint32 version
+ * uint32 signature
+ * int64  first table block offset
+ * uint32 table block capacity
+ * uint32 files count
+ * </pre>
+ *
+ * followed by a chain of <i>table blocks</i>, each made of:
+ *
+ * <pre>
+ * uint32 files in this block
+ * int64  next block offset (0 = last block)
+ * entry[files in this block]
+ * </pre>
+ *
+ * where every entry is 34 bytes long:
+ *
+ * <pre>
+ * int64  offset of the entry header
+ * uint32 header length
+ * uint32 compressed length
+ * uint32 decompressed length
+ * uint64 file name hash (see {@link #hash(String)})
+ * uint32 data hash
+ * int16  compression (0 = none, 1 = zlib)
+ * </pre>
+ *
+ * The entry contents start at <tt>offset + header length</tt>.
+ * <p/>
+ * The table blocks are parsed <b>once</b>, on construction, into a primitive
+ * open-addressing hash table mapping the file name hashes to the position and
+ * length of the contents; the file itself is memory-mapped and uncompressed
+ * entries are served as read-only slices of the mapping, without copying.
+ *
+ * @see <a href="https://github.com/ClassicUO/ClassicUO">ClassicUO</a> for the
+ *      reference implementation of the container format
+ */
+public class UopFileReader {
+	public static final int MAGIC = 0x0050594D;
+	public static final int HEADER_SIZE = 0x28;
+	public static final int ENTRY_SIZE = 34;
+	public static final short COMPRESSION_NONE = 0;
+	public static final short COMPRESSION_ZLIB = 1;
+	private static final int NO_ENTRY = -1;
+
+	private final File file;
+	private final ByteBuffer data;
+
+	private final long[] hashes;
+	private final int[] starts;
+	private final int[] lengths;
+	private final int[] decompressedLengths;
+	private final short[] compressions;
+	private final int size;
+	/**
+	 * Open-addressing table: entry positions within the arrays above, indexed
+	 * by (the low bits of) their hash.
+	 */
+	private final int[] table;
+	private final int mask;
+
+	public UopFileReader(File file) throws FileNotFoundException {
+		this.file = file;
+		this.data = MappedFiles.map(file);
+		if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+			throw new FileReaderException("Not a UOP file: " + file);
+		}
+
+		int filesCount = data.getInt(24);
+		this.hashes = new long[filesCount];
+		this.starts = new int[filesCount];
+		this.lengths = new int[filesCount];
+		this.decompressedLengths = new int[filesCount];
+		this.compressions = new short[filesCount];
+
+		int capacity = Integer.highestOneBit(Math.max(filesCount, 1) * 2 - 1) << 1;
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+		Arrays.fill(table, NO_ENTRY);
+
+		int count = 0;
+		long blockOffset = data.getLong(12);
+		while (blockOffset != 0) {
+			int block = checkedPosition(blockOffset, 12);
+			int filesInBlock = data.getInt(block);
+			long nextBlock = data.getLong(block + 4);
+			int entry = checkedPosition(block + 12, (long) filesInBlock * ENTRY_SIZE);
+			for (int i = 0; i < filesInBlock; i++, entry += ENTRY_SIZE) {
+				long offset = data.getLong(entry);
+				if (offset == 0) {
+					continue; // unused slot
+				}
+				if (count == filesCount) {
+					throw new FileReaderException("UOP tables hold more files than declared in the header: " + file);
+				}
+				int headerLength = data.getInt(entry + 8);
+				int compressedLength = data.getInt(entry + 12);
+				hashes[count] = data.getLong(entry + 20);
+				starts[count] = checkedPosition(offset + headerLength, compressedLength);
+				lengths[count] = compressedLength;
+				decompressedLengths[count] = data.getInt(entry + 16);
+				compressions[count] = data.getShort(entry + 32);
+				put(count++);
+			}
+			blockOffset = nextBlock;
+		}
+		this.size = count;
+	}
+
+	/**
+	 * @return the number of entries in the container
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param name
+	 *            entry name - e.g., <tt>build/map0legacymul/00000000.dat</tt>
+	 * @return <tt>true</tt> if and only if the container holds the given entry
+	 */
+	public boolean contains(String name) {
+		return find(hash(name)) != NO_ENTRY;
+	}
+
+	/**
+	 * Retrieves an entry by name.
+	 *
+	 * @param name
+	 *            entry name - e.g., <tt>build/map0legacymul/00000000.dat</tt>
+	 * @return the entry contents, or <tt>null</tt> if there is no such entry
+	 * @see #getEntry(long)
+	 */
+	public ByteBuffer getEntry(String name) {
+		return getEntry(hash(name));
+	}
+
+	/**
+	 * Retrieves an entry by its file name hash.
+	 * <p/>
+	 * Uncompressed entries are returned as read-only, little-endian views over
+	 * the mapped file; compressed entries are inflated in a new buffer.
+	 *
+	 * @param hash
+	 *            file name hash
+	 * @return the entry contents, or <tt>null</tt> if there is no such entry
+	 */
+	public ByteBuffer getEntry(long hash) {
+		int index = find(hash);
+		if (index == NO_ENTRY) {
+			return null;
+		}
+		ByteBuffer slice = data.slice(starts[index], lengths[index]).order(ByteOrder.LITTLE_ENDIAN);
+		switch (compressions[index]) {
+			case COMPRESSION_NONE:
+				return slice;
+			case COMPRESSION_ZLIB:
+				return inflate(slice, decompressedLengths[index]);
+			default:
+				throw new FileReaderException("Unsupported UOP compression " + compressions[index] + " in " + file);
+		}
+	}
+
+	private ByteBuffer inflate(ByteBuffer compressed, int decompressedLength) {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			ByteBuffer output = ByteBuffer.allocate(decompressedLength);
+			while (output.hasRemaining() && !inflater.finished()) {
+				if (inflater.inflate(output) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+			}
+			if (output.hasRemaining()) {
+				throw new FileReaderException("Truncated UOP entry in " + file);
+			}
+			return output.flip().order(ByteOrder.LITTLE_ENDIAN).asReadOnlyBuffer();
+		} catch (DataFormatException e) {
+			throw new FileReaderException("Corrupted UOP entry in " + file, e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private void put(int index) {
+		int slot = slot(hashes[index]);
+		while (table[slot] != NO_ENTRY) {
+			if (hashes[table[slot]] == hashes[index]) {
+				throw new FileReaderException("Duplicated UOP entry hash in " + file);
+			}
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = index;
+	}
+
+	private int find(long hash) {
+		int slot = slot(hash);
+		int index;
+		while ((index = table[slot]) != NO_ENTRY) {
+			if (hashes[index] == hash) {
+				return index;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NO_ENTRY;
+	}
+
+	private int slot(long hash) {
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private int checkedPosition(long position, long length) {
+		if (position < 0 || length < 0 || position + length > data.capacity()) {
+			throw new FileReaderException("UOP table points outside of " + file);
+		}
+		return (int) position;
+	}
+
+	/**
+	 * Hashes an entry name the way the client does (Bob Jenkins'
+	 * <i>lookup3</i> <tt>hashlittle2</tt>, returning both 32 bits halves).
+	 *
+	 * @param name
+	 *            entry name - e.g., <tt>build/map0legacymul/00000000.dat</tt>
+	 * @return the 64 bits hash of the given name
+	 */
+	public static long hash(String name) {
+		byte[] s = name.getBytes(StandardCharsets.US_ASCII);
+		int length = s.length;
+		int eax = 0, ecx, edx, ebx, esi, edi;
+
+		ebx = edi = esi = length + 0xDEADBEEF;
+
+		int i = 0;
+		for (; i + 12 < length; i += 12) {
+			edi = word(s, i + 4) + edi;
+			esi = word(s, i + 8) + esi;
+			edx = word(s, i) - esi;
+
+			edx = (edx + ebx) ^ (esi >>> 28) ^ (esi << 4);
+			esi += edi;
+			edi = (edi - edx) ^ (edx >>> 26) ^ (edx << 6);
+			edx += esi;
+			esi = (esi - edi) ^ (edi >>> 24) ^ (edi << 8);
+			edi += edx;
+			ebx = (edx - esi) ^ (esi >>> 16) ^ (esi << 16);
+			esi += edi;
+			edi = (edi - ebx) ^ (ebx >>> 13) ^ (ebx << 19);
+			ebx += esi;
+			esi = (esi - edi) ^ (edi >>> 28) ^ (edi << 4);
+			edi += ebx;
+		}
+
+		int remaining = length - i;
+		if (remaining > 0) {
+			// Intentional fall-through: the remaining bytes are added from the last one
+			switch (remaining) {
+				case 12: esi += (s[i + 11] & 0xFF) << 24;
+				case 11: esi += (s[i + 10] & 0xFF) << 16;
+				case 10: esi += (s[i + 9] & 0xFF) << 8;
+				case 9: esi += s[i + 8] & 0xFF;
+				case 8: edi += (s[i + 7] & 0xFF) << 24;
+				case 7: edi += (s[i + 6] & 0xFF) << 16;
+				case 6: edi += (s[i + 5] & 0xFF) << 8;
+				case 5: edi += s[i + 4] & 0xFF;
+				case 4: ebx += (s[i + 3] & 0xFF) << 24;
+				case 3: ebx += (s[i + 2] & 0xFF) << 16;
+				case 2: ebx += (s[i + 1] & 0xFF) << 8;
+				case 1: ebx += s[i] & 0xFF;
+					break;
+				default:
+			}
+
+			esi = (esi ^ edi) - ((edi >>> 18) ^ (edi << 14));
+			ecx = (esi ^ ebx) - ((esi >>> 21) ^ (esi << 11));
+			edi = (edi ^ ecx) - ((ecx >>> 7) ^ (ecx << 25));
+			esi = (esi ^ edi) - ((edi >>> 16) ^ (edi << 16));
+			edx = (esi ^ ecx) - ((esi >>> 28) ^ (esi << 4));
+			edi = (edi ^ edx) - ((edx >>> 18) ^ (edx << 14));
+			eax = (esi ^ edi) - ((edi >>> 8) ^ (edi << 24));
+
+			return ((long) edi << 32) | (eax & 0xFFFFFFFFL);
+		}
+
+		return ((long) esi << 32) | (eax & 0xFFFFFFFFL);
+	}
+
+	private static int word(byte[] s, int i) {
+		return (s[i] & 0xFF) | (s[i + 1] & 0xFF) << 8 | (s[i + 2] & 0xFF) << 16 | (s[i + 3] & 0xFF) << 24;
+	}
+}
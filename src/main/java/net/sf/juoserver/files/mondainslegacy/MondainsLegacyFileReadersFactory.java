@@ -4,6 +4,8 @@ import net.sf.juoserver.api.FileReadersFactory;
 import net.sf.juoserver.api.IdxFileReader;
 import net.sf.juoserver.api.MapFileReader;
 import net.sf.juoserver.api.SkillsMulFileReader;
+import net.sf.juoserver.api.StaticsFileReader;
+import net.sf.juoserver.api.TileDataFileReader;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -20,6 +22,24 @@ public final class MondainsLegacyFileReadersFactory implements FileReadersFactor
 			int mapHeight) throws FileNotFoundException {
 		return new MondainsLegacyMapFileReader(mapFile, mapHeight);
 	}
+
+	@Override
+	public MapFileReader createUopMapFileReader(File uopFile, int mapIndex,
+			int mapHeight) throws FileNotFoundException {
+		return new UopMapFileReader(uopFile, mapIndex, mapHeight);
+	}
+
+	@Override
+	public StaticsFileReader createStaticsFileReader(File idxFile,
+			File staticsFile, int mapHeight) throws FileNotFoundException {
+		return new MondainsLegacyStaticsFileReader(idxFile, staticsFile, mapHeight);
+	}
+
+	@Override
+	public TileDataFileReader createTileDataFileReader(File file)
+			throws FileNotFoundException {
+		return new MondainsLegacyTileDataFileReader(file);
+	}
 	
 	@Override
 	public SkillsMulFileReader createSkillsMulFileReader(File file,
@@ -1,20 +1,14 @@
 package net.sf.juoserver.files.mondainslegacy;
 
-import net.sf.juoserver.api.GenericFileEntryEncoder;
 import net.sf.juoserver.api.MapFileReader;
 import net.sf.juoserver.api.MapLocation;
 import net.sf.juoserver.api.MapTile;
 import net.sf.juoserver.files.FileReaderException;
-import org.apache.commons.codec.binary.Hex;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import net.sf.juoserver.files.MappedFiles;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /**
  * Map file reader.
@@ -83,37 +77,28 @@ import java.nio.ByteOrder;
  * int cellOffset = ( (y % 8) * 8 + (x % 8) ) * 3
  * </pre>
  * 
+ * The map file is memory-mapped, so cells are read with absolute gets and the
+ * reader can be shared between threads.
+ * 
  * @see <a href="http://uo.stratics.com/heptazane/fileformats.shtml#3.8">File
  *      Formats</a>
  * @see #getBlockNumber(int, int)
  */
 class MondainsLegacyMapFileReader implements MapFileReader {
-	private static final Logger LOGGER = LoggerFactory.getLogger(MondainsLegacyMapFileReader.class);
-	private RandomAccessFile raf;
-	private GenericFileEntryEncoder<MapTile> encoder;
+	private static final int BLOCK_SIZE = 196;
+	private final ByteBuffer data;
 	/**
 	 * Map height. We need this information because of the way block cells are
 	 * arranged in the map files.
 	 * 
 	 * @see #getEntryAt(MapLocation)
 	 */
-	private int mapHeight;
+	private final int mapHeight;
 
 	public MondainsLegacyMapFileReader(File mapFile, int mapHeight) throws FileNotFoundException {
 		super();
-		this.raf = new RandomAccessFile(mapFile, "r");
+		this.data = MappedFiles.map(mapFile);
 		this.mapHeight = mapHeight;
-		this.encoder = new GenericFileEntryEncoder<MapTile>() {
-			@Override
-			public MapTile encode(byte[] contents) {
-				// Little endian again, just to make our life easier.. ;-)
-				ByteBuffer bb = ByteBuffer.wrap(contents).order(
-						ByteOrder.LITTLE_ENDIAN);
-				int tileID = bb.getShort() & 0xFFFF; // Unsigned short (2 bytes)
-				byte z = bb.get();
-				return new MondainsLegacyMapTile(z, tileID);
-			}
-		};
 	}
 
 	/**
@@ -129,30 +114,23 @@ class MondainsLegacyMapFileReader implements MapFileReader {
 			throw new IllegalArgumentException("location cannot be null");
 		}
 		int blockNumber = getBlockNumber(location.getX(), location.getY());
-		// TODO: (LRU?-) cache locations (read & cache blocks instead?)
-		try {
-			// Seek the containing block
-			// 196 = 8x8x3 + 4, 4 = file header bytes (unknown content)
-			int blockOffset = blockNumber * 196 + 4;
+		// Seek the containing block
+		// 196 = 8x8x3 + 4, 4 = file header bytes (unknown content)
+		int blockOffset = blockNumber * BLOCK_SIZE + 4;
 
-			// Offset within the block (this time, X coordinate comes first)
-			int cellX = location.getX() % 8;
-			int cellY = location.getY() % 8;
-			int cellNumber = cellY * 8 + cellX;
-			raf.seek(blockOffset + cellNumber * 3);
-		} catch (IOException e) {
-			throw new FileReaderException(e);
+		// Offset within the block (this time, X coordinate comes first)
+		int cellX = location.getX() % 8;
+		int cellY = location.getY() % 8;
+		int cellNumber = cellY * 8 + cellX;
+		int cellOffset = blockOffset + cellNumber * 3;
+		if (blockNumber < 0 || cellOffset + 3 > data.capacity()) {
+			throw new FileReaderException("Location out of map bounds: " + location.getX() + "," + location.getY());
 		}
 
-		// Read the cell
-		byte[] buffer = new byte[3];
-		try {
-			raf.read(buffer, 0, buffer.length);
-		} catch (IOException e) {
-			throw new FileReaderException(e);
-		}
-		LOGGER.trace("Tile = " + Hex.encodeHexString(buffer).toUpperCase());
-		return encoder.encode(buffer);
+		// Read the cell (little endian)
+		int tileID = data.getShort(cellOffset) & 0xFFFF; // Unsigned short (2 bytes)
+		byte z = data.get(cellOffset + 2);
+		return new MondainsLegacyMapTile(z, tileID);
 	}
 
 	/**
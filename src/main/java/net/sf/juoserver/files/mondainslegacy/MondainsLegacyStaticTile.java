@@ -0,0 +1,50 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.StaticTile;
+
+public final class MondainsLegacyStaticTile implements StaticTile {
+	private final int tileID;
+	private final int x;
+	private final int y;
+	private final int z;
+	private final int hue;
+
+	public MondainsLegacyStaticTile(int tileID, int x, int y, int z, int hue) {
+		super();
+		this.tileID = tileID;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.hue = hue;
+	}
+
+	@Override
+	public int getTileID() {
+		return tileID;
+	}
+
+	@Override
+	public int getX() {
+		return x;
+	}
+
+	@Override
+	public int getY() {
+		return y;
+	}
+
+	@Override
+	public int getZ() {
+		return z;
+	}
+
+	@Override
+	public int getHue() {
+		return hue;
+	}
+
+	@Override
+	public String toString() {
+		return "StaticTileImpl [tileID=" + tileID + ", x=" + x + ", y=" + y + ", z=" + z + ", hue=" + hue + "]";
+	}
+}
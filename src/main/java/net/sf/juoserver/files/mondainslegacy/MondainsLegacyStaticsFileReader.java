@@ -0,0 +1,98 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.MapLocation;
+import net.sf.juoserver.api.StaticTile;
+import net.sf.juoserver.api.StaticsFileReader;
+import net.sf.juoserver.files.BaseIdxFileReader;
+import net.sf.juoserver.files.FileReaderException;
+import net.sf.juoserver.files.MappedFiles;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statics files reader.
+ * <h1>Statics files organization</h1>
+ * The statics are grouped by map block (see {@link MondainsLegacyMapFileReader}
+ * for the blocks layout): the <tt>staidx#.mul</tt> index holds one entry per
+ * block, numbered exactly like the map blocks, pointing to a sequence of
+ * 7-bytes records within <tt>statics#.mul</tt>:
+ *
+ * <pre>
+ * uint16 tile ID
+ * uint8  X offset within the block
+ * uint8  Y offset within the block
+ * int8   Z
+ * uint16 hue
+ * </pre>
+ *
+ * Blocks without statics have a start of <tt>0xFFFFFFFF</tt> in the index.
+ * <p/>
+ * Both files are memory-mapped, so the reader can be shared between threads.
+ */
+class MondainsLegacyStaticsFileReader implements StaticsFileReader {
+	private static final int RECORD_SIZE = 7;
+
+	private final BaseIdxFileReader idxFileReader;
+	private final ByteBuffer data;
+	private final int mapHeight;
+
+	public MondainsLegacyStaticsFileReader(File idxFile, File staticsFile, int mapHeight) throws FileNotFoundException {
+		super();
+		this.idxFileReader = new StaticsIdxFileReader(idxFile);
+		this.data = MappedFiles.map(staticsFile);
+		this.mapHeight = mapHeight;
+	}
+
+	/**
+	 * Retrieves the statics lying on the specified location.
+	 *
+	 * @param location 2D-location
+	 * @return the statics at the specified location
+	 */
+	@Override
+	public List<StaticTile> getEntryAt(MapLocation location) {
+		if (location == null) {
+			throw new IllegalArgumentException("location cannot be null");
+		}
+		List<StaticTile> statics = new ArrayList<>();
+		for (StaticTile tile : getBlockStatics(location.getX() / 8, location.getY() / 8)) {
+			if (tile.getX() == location.getX() && tile.getY() == location.getY()) {
+				statics.add(tile);
+			}
+		}
+		return statics;
+	}
+
+	@Override
+	public List<StaticTile> getBlockStatics(int blockX, int blockY) {
+		int blockNumber = blockX * (mapHeight / 8) + blockY;
+		if (blockNumber < 0 || blockNumber >= idxFileReader.size()) {
+			throw new FileReaderException("Block out of statics bounds: " + blockX + "," + blockY);
+		}
+		int start = idxFileReader.getStart(blockNumber);
+		int length = idxFileReader.getLength(blockNumber);
+		if (start == -1 || length <= 0) {
+			return Collections.emptyList();
+		}
+		if (start < 0 || start + length > data.capacity()) {
+			throw new FileReaderException("Statics block out of file bounds: " + blockX + "," + blockY);
+		}
+
+		int count = length / RECORD_SIZE;
+		List<StaticTile> statics = new ArrayList<>(count);
+		for (int i = 0, position = start; i < count; i++, position += RECORD_SIZE) {
+			int tileID = data.getShort(position) & 0xFFFF;
+			int x = blockX * 8 + (data.get(position + 2) & 0xFF);
+			int y = blockY * 8 + (data.get(position + 3) & 0xFF);
+			int z = data.get(position + 4);
+			int hue = data.getShort(position + 5) & 0xFFFF;
+			statics.add(new MondainsLegacyStaticTile(tileID, x, y, z, hue));
+		}
+		return statics;
+	}
+}
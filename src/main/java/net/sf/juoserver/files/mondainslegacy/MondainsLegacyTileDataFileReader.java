@@ -0,0 +1,99 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.TileDataFileReader;
+import net.sf.juoserver.files.FileReaderException;
+import net.sf.juoserver.files.MappedFiles;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+
+/**
+ * Tile definitions reader (<tt>tiledata.mul</tt>).
+ * <h1>Tile data file organization</h1>
+ * The file starts with the land tiles section, 0x4000 tiles in groups of 32,
+ * followed by the static (item) tiles section, again in groups of 32. Each
+ * group starts with a 4-bytes header of unknown content.
+ * <p/>
+ * Two layouts exist: before client 7.0.9 the flags are 32 bits wide (26 bytes
+ * per land tile, 37 per item tile), afterwards they are 64 bits wide (30 and
+ * 41 bytes respectively). The layout is detected from the file size.
+ * <p/>
+ * Only the flags and the item heights are kept, in primitive arrays decoded
+ * once on construction.
+ *
+ * @see <a href="http://uo.stratics.com/heptazane/fileformats.shtml#3.18">File
+ *      Formats</a>
+ */
+class MondainsLegacyTileDataFileReader implements TileDataFileReader {
+	private static final int LAND_TILES = 0x4000;
+	private static final int GROUP_SIZE = 32;
+	private static final int GROUP_HEADER_SIZE = 4;
+	private static final int OLD_LAND_SIZE = 26;
+	private static final int OLD_ITEM_SIZE = 37;
+	private static final int NEW_LAND_SIZE = 30;
+	private static final int NEW_ITEM_SIZE = 41;
+	/**
+	 * Offset of the height within an item entry, after the flags.
+	 */
+	private static final int ITEM_HEIGHT_OFFSET = 12;
+
+	private final long[] landFlags = new long[LAND_TILES];
+	private final long[] itemFlags;
+	private final byte[] itemHeights;
+
+	public MondainsLegacyTileDataFileReader(File file) throws FileNotFoundException {
+		super();
+		ByteBuffer bb = MappedFiles.map(file);
+		boolean newFormat = isLayout(bb.capacity(), NEW_LAND_SIZE, NEW_ITEM_SIZE);
+		if (!newFormat && !isLayout(bb.capacity(), OLD_LAND_SIZE, OLD_ITEM_SIZE)) {
+			throw new FileReaderException("Unknown tile data layout: " + file);
+		}
+		int flagsSize = newFormat ? 8 : 4;
+		int landSize = newFormat ? NEW_LAND_SIZE : OLD_LAND_SIZE;
+		int itemSize = newFormat ? NEW_ITEM_SIZE : OLD_ITEM_SIZE;
+
+		int position = 0;
+		for (int i = 0; i < LAND_TILES; i++, position += landSize) {
+			if (i % GROUP_SIZE == 0) {
+				position += GROUP_HEADER_SIZE;
+			}
+			landFlags[i] = readFlags(bb, position, flagsSize);
+		}
+
+		int items = (bb.capacity() - position) / (GROUP_HEADER_SIZE + GROUP_SIZE * itemSize) * GROUP_SIZE;
+		this.itemFlags = new long[items];
+		this.itemHeights = new byte[items];
+		for (int i = 0; i < items; i++, position += itemSize) {
+			if (i % GROUP_SIZE == 0) {
+				position += GROUP_HEADER_SIZE;
+			}
+			itemFlags[i] = readFlags(bb, position, flagsSize);
+			itemHeights[i] = bb.get(position + flagsSize + ITEM_HEIGHT_OFFSET);
+		}
+	}
+
+	private static boolean isLayout(int fileSize, int landSize, int itemSize) {
+		int itemsSize = fileSize - LAND_TILES / GROUP_SIZE * (GROUP_HEADER_SIZE + GROUP_SIZE * landSize);
+		return itemsSize > 0 && itemsSize % (GROUP_HEADER_SIZE + GROUP_SIZE * itemSize) == 0;
+	}
+
+	private static long readFlags(ByteBuffer bb, int position, int flagsSize) {
+		return flagsSize == 8 ? bb.getLong(position) : bb.getInt(position) & 0xFFFFFFFFL;
+	}
+
+	@Override
+	public long getLandFlags(int tileID) {
+		return tileID >= 0 && tileID < landFlags.length ? landFlags[tileID] : 0;
+	}
+
+	@Override
+	public long getItemFlags(int tileID) {
+		return tileID >= 0 && tileID < itemFlags.length ? itemFlags[tileID] : 0;
+	}
+
+	@Override
+	public int getItemHeight(int tileID) {
+		return tileID >= 0 && tileID < itemHeights.length ? itemHeights[tileID] & 0xFF : 0;
+	}
+}
@@ -15,6 +15,11 @@ class SkillsIdxFileEntryEncoder implements IdxFileEntryEncoder {
 		ByteBuffer bb = ByteBuffer.wrap(contents).order(ByteOrder.LITTLE_ENDIAN);
 		int start = bb.getInt();
 		int length = bb.getInt();
+		return encode(start, length, 0);
+	}
+
+	@Override
+	public IdxFileEntry encode(int start, int length, int extra) {
 		return new MondainsLegacyIdxFileEntry(start, length);
 	}
 }
@@ -0,0 +1,18 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.files.BaseIdxFileReader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+/**
+ * Statics index file reader (namely, <tt>staidx#.mul</tt>): one entry per map
+ * block, pointing to the block statics within <tt>statics#.mul</tt>.
+ */
+class StaticsIdxFileReader extends BaseIdxFileReader {
+	public static final int IDX_BLOCK_SIZE = 12;
+
+	public StaticsIdxFileReader(File file) throws FileNotFoundException {
+		super(file, IDX_BLOCK_SIZE, new SkillsIdxFileEntryEncoder());
+	}
+}
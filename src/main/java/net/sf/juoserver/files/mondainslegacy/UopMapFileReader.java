@@ -0,0 +1,77 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.MapFileReader;
+import net.sf.juoserver.api.MapLocation;
+import net.sf.juoserver.api.MapTile;
+import net.sf.juoserver.files.FileReaderException;
+import net.sf.juoserver.files.UopFileReader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Map file reader working straight on the UOP containers (e.g.,
+ * <tt>map0LegacyMUL.uop</tt>).
+ * <p/>
+ * The container holds the legacy <tt>map#.mul</tt> contents split into
+ * entries named <tt>build/map#legacymul/00000000.dat</tt>,
+ * <tt>build/map#legacymul/00000001.dat</tt> and so on, each one made of
+ * {@link #BLOCKS_PER_ENTRY} blocks. The blocks and cells are organized exactly
+ * like in the MUL file (see {@link MondainsLegacyMapFileReader}), so a cell is
+ * found by computing its block number and then looking up the entry holding
+ * that block.
+ * <p/>
+ * Every entry is resolved once, on construction, into a slice of the mapped
+ * container.
+ */
+class UopMapFileReader implements MapFileReader {
+	private static final int BLOCK_SIZE = 196;
+	/**
+	 * Number of blocks stored by each container entry (0xC4000 bytes).
+	 */
+	static final int BLOCKS_PER_ENTRY = 4096;
+	private static final String ENTRY_NAME_FORMAT = "build/map%dlegacymul/%08d.dat";
+
+	private final ByteBuffer[] entries;
+	private final int mapHeight;
+
+	public UopMapFileReader(File uopFile, int mapIndex, int mapHeight) throws FileNotFoundException {
+		this(new UopFileReader(uopFile), mapIndex, mapHeight);
+	}
+
+	UopMapFileReader(UopFileReader container, int mapIndex, int mapHeight) {
+		this.mapHeight = mapHeight;
+		List<ByteBuffer> slices = new ArrayList<>();
+		ByteBuffer entry;
+		while ((entry = container.getEntry(String.format(ENTRY_NAME_FORMAT, mapIndex, slices.size()))) != null) {
+			slices.add(entry);
+		}
+		if (slices.isEmpty()) {
+			throw new FileReaderException("UOP container holds no entries for map " + mapIndex);
+		}
+		this.entries = slices.toArray(new ByteBuffer[0]);
+	}
+
+	@Override
+	public MapTile getEntryAt(MapLocation location) {
+		if (location == null) {
+			throw new IllegalArgumentException("location cannot be null");
+		}
+		int blockNumber = (location.getX() / 8) * (mapHeight / 8) + (location.getY() / 8);
+		int entryIndex = blockNumber / BLOCKS_PER_ENTRY;
+		if (entryIndex < 0 || entryIndex >= entries.length) {
+			throw new FileReaderException("Location out of map bounds: " + location.getX() + "," + location.getY());
+		}
+		int cellNumber = (location.getY() % 8) * 8 + (location.getX() % 8);
+		// 4 = block header bytes (unknown content)
+		int cellOffset = (blockNumber % BLOCKS_PER_ENTRY) * BLOCK_SIZE + 4 + cellNumber * 3;
+
+		ByteBuffer entry = entries[entryIndex];
+		int tileID = entry.getShort(cellOffset) & 0xFFFF; // Unsigned short (2 bytes)
+		byte z = entry.get(cellOffset + 2);
+		return new MondainsLegacyMapTile(z, tileID);
+	}
+}
@@ -33,7 +33,7 @@ public class CreateNPC extends AbstractCommand {
             if (!args.isEmpty()) {
                 var id = Integer.parseInt(args.get(0).substring(2));
                 var mobile = context.session().getMobile();
-                var npc = context.core().createNpcAtLocation(id, context.session().getMobile());
+                var npc = context.core().createNpcAtLocation(id, context.session().getMobile().getFacet(), context.session().getMobile());
             }
 
     }
@@ -0,0 +1,28 @@
+package net.sf.juoserver.main.test;
+
+import net.sf.juoserver.api.MessageType;
+import net.sf.juoserver.api.PlayerContext;
+import net.sf.juoserver.protocol.AbstractCommand;
+import net.sf.juoserver.protocol.UnicodeSpeech;
+
+import java.io.IOException;
+import java.util.List;
+
+public class Save extends AbstractCommand {
+    public Save() {
+        super("save");
+    }
+
+    @Override
+    public void execute(List<String> source, PlayerContext context) {
+        var mobile = context.session().getMobile();
+        context.core().saveWorld().whenComplete((result, throwable) -> {
+            try {
+                context.protocolIoPort().sendToClient(new UnicodeSpeech(mobile, MessageType.System, 0x481, 0, "en_US",
+                        throwable == null ? "World saved" : "World not saved: " + throwable.getMessage()));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
@@ -15,6 +15,7 @@ public class TestServerModule extends JUOServerModule {
         registerCommand(new Move());
         registerCommand(new CreateNPC());
         registerCommand(new KIll());
+        registerCommand(new Save());
         registerCommand(new AbstractCommand("death") {
             @Override
             public void execute(List<String> source, PlayerContext context) {
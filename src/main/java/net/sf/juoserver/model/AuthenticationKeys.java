@@ -0,0 +1,152 @@
+package net.sf.juoserver.model;
+
+import net.sf.juoserver.api.AuthenticationKeyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Keys handed out by the login server to the accounts logging in, redeemed
+ * once by the game server connection of the same client, in the same process.
+ * <p/>
+ * A key is removed when redeemed, and expires after the time to live; the
+ * expired keys are swept by a timer wheel of one slot per second, advanced
+ * whenever a key is issued, so that the table only holds the keys of the last
+ * time to live whatever the rate of the logins. The keys are drawn from a
+ * shared {@link SecureRandom}, not to be guessed by other clients.
+ * <p/>
+ * The keys issued, redeemed, expired and rejected are counted, and logged
+ * every minute.
+ */
+public final class AuthenticationKeys implements AuthenticationKeyStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationKeys.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final long TICK_MILLIS = 1000;
+    private static final long STATS_PERIOD = 60_000;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlTicks;
+    private final LongSupplier clock;
+    /**
+     * Keys expiring at every tick, by tick modulo the wheel size
+     */
+    private final int[][] slots;
+    private final int[] slotSizes;
+    private long currentTick;
+    private long lastStatsMillis;
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder redeemed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param ttlMillis milliseconds a key can be redeemed once issued
+     */
+    public AuthenticationKeys(long ttlMillis) {
+        this(ttlMillis, System::currentTimeMillis);
+    }
+
+    AuthenticationKeys(long ttlMillis, LongSupplier clock) {
+        this.ttlTicks = Math.max(1, (ttlMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+        this.clock = clock;
+        this.slots = new int[(int) ttlTicks + 1][16];
+        this.slotSizes = new int[slots.length];
+        this.lastStatsMillis = clock.getAsLong();
+        this.currentTick = lastStatsMillis / TICK_MILLIS;
+    }
+
+    @Override
+    public synchronized int issue(String username) {
+        long now = clock.getAsLong();
+        advance(now);
+        var entry = new Entry(username, currentTick + ttlTicks);
+        int key;
+        do {
+            key = RANDOM.nextInt();
+        } while (entries.putIfAbsent(key, entry) != null);
+        int slot = (int) (entry.expiresAt % slots.length);
+        if (slotSizes[slot] == slots[slot].length) {
+            slots[slot] = Arrays.copyOf(slots[slot], slots[slot].length * 2);
+        }
+        slots[slot][slotSizes[slot]++] = key;
+        issued.increment();
+        if (now - lastStatsMillis >= STATS_PERIOD) {
+            lastStatsMillis = now;
+            LOGGER.info("Authentication keys: {}", this);
+        }
+        return key;
+    }
+
+    @Override
+    public String redeem(int key) {
+        var entry = entries.remove(key);
+        if (entry == null || entry.expiresAt <= clock.getAsLong() / TICK_MILLIS) {
+            rejected.increment();
+            return null;
+        }
+        redeemed.increment();
+        return entry.username;
+    }
+
+    /**
+     * Sweeps the slots of the ticks elapsed since the previous advance.
+     */
+    private void advance(long now) {
+        long tick = now / TICK_MILLIS;
+        long swept = Math.max(currentTick, tick - slots.length);
+        while (swept < tick) {
+            sweep((int) (++swept % slots.length), swept);
+        }
+        currentTick = Math.max(currentTick, tick);
+    }
+
+    private void sweep(int slot, long tick) {
+        var keys = slots[slot];
+        for (int i = 0; i < slotSizes[slot]; i++) {
+            var entry = entries.get(keys[i]);
+            // The key may have been redeemed, then issued again
+            if (entry != null && entry.expiresAt <= tick && entries.remove(keys[i], entry)) {
+                expired.increment();
+            }
+        }
+        slotSizes[slot] = 0;
+    }
+
+    /**
+     * @return the number of keys issued and neither redeemed nor swept
+     */
+    int size() {
+        return entries.size();
+    }
+
+    long getIssued() {
+        return issued.sum();
+    }
+
+    long getRedeemed() {
+        return redeemed.sum();
+    }
+
+    long getExpired() {
+        return expired.sum();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return getIssued() + " issued, " + getRedeemed() + " redeemed, " + getExpired() + " expired, " + getRejected()
+                + " rejected, " + size() + " pending";
+    }
+
+    private record Entry(String username, long expiresAt) {
+    }
+}
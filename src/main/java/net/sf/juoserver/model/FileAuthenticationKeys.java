@@ -0,0 +1,144 @@
+package net.sf.juoserver.model;
+
+import net.sf.juoserver.api.AuthenticationKeyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keys shared through a directory by a login listener and the game listeners
+ * running in other processes, on the same host or sharing the directory: a key
+ * is a file named after it, holding the username it was issued to.
+ * <p/>
+ * A key is redeemed by renaming its file, atomically, so that a single game
+ * listener redeems it, then deleting it; a key expires once its file is older
+ * than the time to live. The files of the expired keys, and the ones left
+ * by a process stopped while redeeming, are swept by the issuing process at
+ * most once per time to live.
+ */
+public final class FileAuthenticationKeys implements AuthenticationKeyStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileAuthenticationKeys.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String SUFFIX = ".key";
+
+    private final Path directory;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final AtomicLong lastSweepMillis;
+
+    /**
+     * @param directory directory shared by the listeners, created if missing
+     * @param ttlMillis milliseconds a key can be redeemed once issued
+     */
+    public FileAuthenticationKeys(Path directory, long ttlMillis) {
+        this(directory, ttlMillis, System::currentTimeMillis);
+    }
+
+    FileAuthenticationKeys(Path directory, long ttlMillis, LongSupplier clock) {
+        this.directory = directory;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.lastSweepMillis = new AtomicLong(clock.getAsLong());
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create the authentication keys directory " + directory, e);
+        }
+    }
+
+    @Override
+    public int issue(String username) {
+        long now = clock.getAsLong();
+        long lastSweep = lastSweepMillis.get();
+        if (now - lastSweep >= ttlMillis && lastSweepMillis.compareAndSet(lastSweep, now)) {
+            sweep(now);
+        }
+        var content = username.getBytes(StandardCharsets.UTF_8);
+        while (true) {
+            int key = RANDOM.nextInt();
+            try {
+                // The key reaches the client once written, so a game listener never reads it half written
+                Files.write(file(key), content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                return key;
+            } catch (FileAlreadyExistsException e) {
+                // Pending key, draw another one
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write the authentication key", e);
+            }
+        }
+    }
+
+    @Override
+    public String redeem(int key) {
+        var claimed = directory.resolve(String.format("%08x.%s.redeemed", key, UUID.randomUUID()));
+        try {
+            Files.move(file(key), claimed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.error("Cannot redeem the authentication key", e);
+            return null;
+        }
+        try {
+            if (isExpired(claimed, clock.getAsLong())) {
+                return null;
+            }
+            return Files.readString(claimed, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.error("Cannot redeem the authentication key", e);
+            return null;
+        } finally {
+            delete(claimed);
+        }
+    }
+
+    /**
+     * Deletes the files older than the time to live.
+     */
+    private void sweep(long now) {
+        int swept = 0;
+        try (var files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                try {
+                    if (isExpired(file, now) && Files.deleteIfExists(file)) {
+                        swept++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // Redeemed meanwhile
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Cannot sweep the expired authentication keys", e);
+        }
+        LOGGER.debug("{} expired authentication keys swept", swept);
+    }
+
+    private boolean isExpired(Path file, long now) throws IOException {
+        return Files.getLastModifiedTime(file).toMillis() + ttlMillis <= now;
+    }
+
+    private Path file(int key) {
+        return directory.resolve(String.format("%08x", key) + SUFFIX);
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete {}, to be swept", file, e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import net.sf.juoserver.api.*;
 import net.sf.juoserver.model.core.UOCore;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class InMemoryDataManager implements DataManager {
 	private static final int ACCOUNT_ID = 0;
@@ -45,7 +46,7 @@ public class InMemoryDataManager implements DataManager {
 				positions));
 		mobile.setItemOnLayer(Layer.InnerTorso, new UOItem(mobile.getSerialId() + 0x1A + UOCore.ITEMS_MAX_SERIAL_ID, 0x1F7B, 0x7E, "doublet", 0));
 		mobile.setItemOnLayer(Layer.OuterTorso, new UOItem(mobile.getSerialId() + 1200 + UOCore.ITEMS_MAX_SERIAL_ID, 0x1F03, 0x3F, "robe", 0));
-		mobile.setItemOnLayer(Layer.FirstValid, new UOItem(mobile.getSerialId() + 1300 + UOCore.ITEMS_MAX_SERIAL_ID, 0x143A, 0, "maul", 5));
+		mobile.setItemOnLayer(Layer.FirstValid, new UOItem(mobile.getSerialId() + 1300 + UOCore.ITEMS_MAX_SERIAL_ID, 0x143A, 0, "maul", 5).speed(32));
 		mobile.setItemOnLayer(Layer.MiddleTorso, new UOItem(mobile.getSerialId() + 1400 + UOCore.ITEMS_MAX_SERIAL_ID, 0x13BF, 0x0381, "chainmail tunic", 0));
 		mobile.setItemOnLayer(Layer.Pants, new UOItem(mobile.getSerialId() + 1500 + UOCore.ITEMS_MAX_SERIAL_ID, 0x13BE, 0x0090, "chainmail leggings", 0));
 		mobile.setItemOnLayer(Layer.Shoes, new UOItem(mobile.getSerialId() + 1600 + UOCore.ITEMS_MAX_SERIAL_ID, 0x26AF, 0x06A8, "Arcane Thigh Boots", 0));
@@ -86,4 +87,14 @@ public class InMemoryDataManager implements DataManager {
 	public Integer getItemSerial() {
 		return itemSerialId;
 	}
+
+	@Override
+	public CompletableFuture<SaveStats> save(WorldChanges changes) {
+		return CompletableFuture.completedFuture(new SaveStats(0, 0)); // The world is built again at every start
+	}
+
+	@Override
+	public CompletableFuture<SaveStats> journal(WorldChanges changes) {
+		return CompletableFuture.completedFuture(new SaveStats(0, 0));
+	}
 }
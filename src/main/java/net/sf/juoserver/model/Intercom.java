@@ -27,6 +27,11 @@ public final class Intercom implements InterClientNetwork {
 		listeners.remove(listener);
 	}
 
+	@Override
+	public int getPlayersCount() {
+		return listeners.size();
+	}
+
 	/**
 	 * Notifies listeners about a mobile's movement.
 	 * 
@@ -0,0 +1,91 @@
+package net.sf.juoserver.model;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Hashes the passwords of the accounts with PBKDF2, as
+ * <tt>pbkdf2-sha512$iterations$salt$hash</tt>, salt and hash in Base64.
+ * <p/>
+ * Passwords not hashed yet, from the saves of older versions, are still
+ * matched, to be hashed once matched. Hashing is slow on purpose, and must not
+ * run on the threads serving the connections.
+ */
+public final class Passwords {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
+    private static final String PREFIX = "pbkdf2-sha512$";
+    private static final int ITERATIONS = 210_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 512;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    /**
+     * Longest hashed password, whatever the iterations.
+     */
+    public static final int MAX_HASHED_LENGTH = PREFIX.length() + String.valueOf(Integer.MAX_VALUE).length() + 1
+            + base64Length(SALT_BYTES) + 1 + base64Length(HASH_BITS / 8);
+
+    private Passwords() {
+    }
+
+    /**
+     * @param password plaintext password
+     * @return the hashed password, with a new salt
+     */
+    public static String hash(String password) {
+        var salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        var encoder = Base64.getEncoder();
+        return PREFIX + ITERATIONS + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(derive(password, salt, ITERATIONS));
+    }
+
+    /**
+     * @param stored stored password
+     * @return whether the stored password is hashed
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    /**
+     * @param password plaintext password
+     * @param stored stored password, hashed or not
+     * @return whether the password matches the stored one
+     */
+    public static boolean matches(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        var parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        var decoder = Base64.getDecoder();
+        return MessageDigest.isEqual(decoder.decode(parts[2]),
+                derive(password, decoder.decode(parts[1]), Integer.parseInt(parts[0])));
+    }
+
+    private static int base64Length(int bytes) {
+        return (bytes + 2) / 3 * 4;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        var spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
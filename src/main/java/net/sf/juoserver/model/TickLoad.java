@@ -0,0 +1,39 @@
+package net.sf.juoserver.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time the subsystems take to run, as a share of their period, averaged over
+ * their last runs; the share of the busiest one is the tick load of the node,
+ * reported to the login listener.
+ */
+public final class TickLoad {
+    /**
+     * Weight of the previous runs in the averages, the last run weighting 1
+     */
+    private static final long SMOOTHING = 7;
+
+    /**
+     * Average shares, in thousandths of the period, by subsystem
+     */
+    private final Map<Object, Long> averages = new ConcurrentHashMap<>();
+
+    /**
+     * @param subsystem subsystem run
+     * @param periodMillis milliseconds between two runs of the subsystem
+     * @param nanos time the run took
+     */
+    public void record(Object subsystem, long periodMillis, long nanos) {
+        long share = nanos / (Math.max(periodMillis, 1) * 1_000);
+        averages.merge(subsystem, share, (average, last) -> (average * SMOOTHING + last) / (SMOOTHING + 1));
+    }
+
+    /**
+     * @return the average share of its period the busiest subsystem runs for,
+     *         in percent, 100 or more when its ticks overrun
+     */
+    public int get() {
+        return (int) (averages.values().stream().mapToLong(Long::longValue).max().orElse(0) / 10);
+    }
+}
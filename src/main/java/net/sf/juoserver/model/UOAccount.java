@@ -1,6 +1,7 @@
 package net.sf.juoserver.model;
 
 import net.sf.juoserver.api.Account;
+import net.sf.juoserver.api.ChangeTracker;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,13 +18,15 @@ public class UOAccount implements Account {
 
 	private int accountId;
 	private String username;
-	private String password;
+	private volatile String password;
 
 	/**
 	 * Account's characters serial IDs, indexed by their position in the login
-	 * screen.
+	 * screen; guards itself, and is copied by the getter.
 	 */
-	private List<Integer> charSerialsByPositions = new ArrayList<Integer>();
+	private final List<Integer> charSerialsByPositions = new ArrayList<Integer>();
+	private volatile boolean changed;
+	private volatile ChangeTracker changeTracker = ChangeTracker.NONE;
 
 	public UOAccount(int accountId, String username, String password) {
 		super();
@@ -34,7 +37,13 @@ public class UOAccount implements Account {
 
 	@Override
 	public void addMobileSerialId(int serialId) {
-		charSerialsByPositions.add(serialId);
+		synchronized (charSerialsByPositions) {
+			charSerialsByPositions.add(serialId);
+		}
+		if (!changed) {
+			changed = true;
+			changeTracker.changed(this);
+		}
 	}
 
 	@Override
@@ -52,6 +61,15 @@ public class UOAccount implements Account {
 		return password;
 	}
 
+	@Override
+	public void setPassword(String password) {
+		this.password = password;
+		if (!changed) {
+			changed = true;
+			changeTracker.changed(this);
+		}
+	}
+
 	/**
 	 * Retrieves an account's characters serial IDs, given its position in the
 	 * login screen.
@@ -63,12 +81,27 @@ public class UOAccount implements Account {
 	 */
 	@Override
 	public int getCharacterSerialIdByPosition(int position) {
-		return charSerialsByPositions.get(position);
+		synchronized (charSerialsByPositions) {
+			return charSerialsByPositions.get(position);
+		}
 	}
 	
 	@Override
 	public List<Integer> getCharactersSerials() {
-		return charSerialsByPositions;
+		synchronized (charSerialsByPositions) {
+			return new ArrayList<Integer>(charSerialsByPositions);
+		}
+	}
+
+	@Override
+	public void trackChanges(ChangeTracker tracker) {
+		this.changed = false;
+		this.changeTracker = tracker;
+	}
+
+	@Override
+	public void clearChanges() {
+		changed = false;
 	}
 
 	@Override
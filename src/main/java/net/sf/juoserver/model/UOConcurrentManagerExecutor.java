@@ -16,10 +16,20 @@ public class UOConcurrentManagerExecutor implements ConcurrentManagerExecutor {
     private static final int INITIAL_DELAY = 500;
     private final Task[] tasks;
     private final ScheduledExecutorService executorService;
+    private final TickLoad tickLoad;
 
     public UOConcurrentManagerExecutor(Task... tasks) {
+        this(new TickLoad(), tasks);
+    }
+
+    /**
+     * @param tickLoad recorder of the time the tasks take
+     * @param tasks tasks
+     */
+    public UOConcurrentManagerExecutor(TickLoad tickLoad, Task... tasks) {
         this.tasks = tasks;
         this.executorService = Executors.newScheduledThreadPool(3);
+        this.tickLoad = tickLoad;
     }
 
     @Override
@@ -27,11 +37,13 @@ public class UOConcurrentManagerExecutor implements ConcurrentManagerExecutor {
         for (Task task : tasks) {
             final var uptime = new AtomicLong(INITIAL_DELAY);
             executorService.scheduleWithFixedDelay(()->{
+                long start = System.nanoTime();
                 try {
                     task.manager.execute(uptime.getAndAdd(task.delay));
                 } catch (RuntimeException exception) {
                     LOGGER.error("Error executing task {}", task, exception);
                 }
+                tickLoad.record(task, task.delay, System.nanoTime() - start);
             }, INITIAL_DELAY, task.delay, TimeUnit.MILLISECONDS);
         }
     }
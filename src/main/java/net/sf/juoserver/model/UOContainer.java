@@ -6,11 +6,15 @@ import net.sf.juoserver.api.ItemVisitor;
 import net.sf.juoserver.api.Point2D;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class UOContainer extends UOItem implements Container {
-	private List<Item> items;
+	/**
+	 * Guards the items and their positions, which are copied by the getters
+	 */
+	private final List<Item> items;
 	private int gumpId;
 	private Map<Item, Point2D> positions;
 	
@@ -24,7 +28,9 @@ public class UOContainer extends UOItem implements Container {
 
 	@Override
 	public List<? extends Item> getItems() {
-		return items;
+		synchronized (items) {
+			return new ArrayList<Item>(items);
+		}
 	}
 
 	@Override
@@ -39,27 +45,37 @@ public class UOContainer extends UOItem implements Container {
 
 	@Override
 	public Point2D getPositionWithinContainer(Item item) {
-		return positions.get(item);
+		synchronized (items) {
+			return positions.get(item);
+		}
 	}
 	
 	@Override
 	public Map<Item, Point2D> getItemsPositions() {
-		return positions;
+		synchronized (items) {
+			return new HashMap<Item, Point2D>(positions);
+		}
 	}
 
 	@Override
 	public void removeItem(Item item) {
-		items.remove(item);
+		synchronized (items) {
+			items.remove(item);
+		}
+		markChanged();
 	}
 
 	@Override
 	public void addItem(Item item, Point2D where) {
-		items.add(item);
-		positions.put(item, where);
+		synchronized (items) {
+			items.add(item);
+			positions.put(item, where);
+		}
+		markChanged();
 	}
 
 	@Override
 	public String toString() {
-		return "UOContainer [serialId=" + getSerialId() + ", items=" + items + "]";
+		return "UOContainer [serialId=" + getSerialId() + ", items=" + getItems() + "]";
 	}
 }
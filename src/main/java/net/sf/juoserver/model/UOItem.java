@@ -1,7 +1,9 @@
 package net.sf.juoserver.model;
 
+import net.sf.juoserver.api.ChangeTracker;
 import net.sf.juoserver.api.Item;
 import net.sf.juoserver.api.EventHandler;
+import net.sf.juoserver.api.Facet;
 import net.sf.juoserver.api.ItemVisitor;
 import net.sf.juoserver.api.Point3D;
 
@@ -16,11 +18,15 @@ public class UOItem implements Item, Comparable<Item> {
 	private int hue;
 	private String name = "no name";
 	private int baseDamage;
+	private int speed;
 	private int amount;
 	private int x;
 	private int y;
 	private int z;
+	private Facet facet = Facet.Felucca;
 	private EventHandler script;
+	private volatile boolean changed;
+	private volatile ChangeTracker changeTracker = ChangeTracker.NONE;
 
 	public UOItem(int serialId, int modelId) {
 		this.serialId = serialId;
@@ -96,6 +102,18 @@ public class UOItem implements Item, Comparable<Item> {
 		return baseDamage;
 	}
 
+	@Override
+	public int speed() {
+		return speed;
+	}
+
+	@Override
+	public UOItem speed(int speed) {
+		this.speed = speed;
+		markChanged();
+		return this;
+	}
+
 	@Override
 	public int amount() {
 		return amount;
@@ -104,6 +122,7 @@ public class UOItem implements Item, Comparable<Item> {
 	@Override
 	public UOItem amount(int amount) {
 		this.amount = amount;
+		markChanged();
 		return this;
 	}
 
@@ -129,6 +148,7 @@ public class UOItem implements Item, Comparable<Item> {
 		changeSupport.firePropertyChange("y", this.y, this.y = y);
 		changeSupport.firePropertyChange("z", this.z, this.z = z);
 		changeSupport.firePropertyChange("location", oldLocation, new PointInSpace(this.x, this.y, this.z));
+		markChanged();
 		return this;
 	}
 
@@ -137,15 +157,29 @@ public class UOItem implements Item, Comparable<Item> {
 		return location(newLocation.getX(), newLocation.getY(), newLocation.getZ());
 	}
 
+	@Override
+	public Facet getFacet() {
+		return facet;
+	}
+
+	@Override
+	public Item facet(Facet facet) {
+		changeSupport.firePropertyChange("facet", this.facet, this.facet = facet);
+		markChanged();
+		return this;
+	}
+
 	@Override
 	public Item name(String name) {
 		this.name = name;
+		markChanged();
 		return this;
 	}
 
 	@Override
 	public Item hue(int hue) {
 		this.hue = hue;
+		markChanged();
 		return this;
 	}
 
@@ -160,6 +194,27 @@ public class UOItem implements Item, Comparable<Item> {
 		return script;
 	}
 
+	@Override
+	public void trackChanges(ChangeTracker tracker) {
+		this.changed = false;
+		this.changeTracker = tracker;
+	}
+
+	@Override
+	public void clearChanges() {
+		changed = false;
+	}
+
+	/**
+	 * Reports the first change since the item was last saved.
+	 */
+	protected void markChanged() {
+		if (!changed) {
+			changed = true;
+			changeTracker.changed(this);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "UOItem{" +
@@ -169,6 +224,7 @@ public class UOItem implements Item, Comparable<Item> {
 				", x=" + x +
 				", y=" + y +
 				", z=" + z +
+				", facet=" + facet +
 				'}';
 	}
 
@@ -2,42 +2,119 @@ package net.sf.juoserver.model;
 
 import net.sf.juoserver.api.*;
 
-import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Logs the accounts in, verifying their passwords on a bounded pool of
+ * threads rather than on the ones serving the connections: the logins beyond
+ * the capacity of its queue are rejected, for the clients to try again,
+ * rather than piling up after a restart.
+ * <p/>
+ * With auto-registration, logging in with an unknown username creates the
+ * account, on the same pool, its password being hashed.
+ * <p/>
+ * The authentication keys are kept in memory, unless a shared store is
+ * given for a login listener and game listeners running in separate processes.
+ */
 public class UOLoginManager implements LoginManager {
-	private final Map<Integer, Account> authorizedAccountsByKeys = new ConcurrentHashMap<Integer, Account>();
+	/**
+	 * Milliseconds a client has to connect to the game server once logged in
+	 */
+	public static final long KEY_TTL = 30_000;
+	/**
+	 * Logins waiting for a verifier thread
+	 */
+	private static final int VERIFICATION_QUEUE = 256;
+	private final AuthenticationKeyStore authenticationKeys;
 	private final Core core;
+	private final Executor verifier;
+	private final boolean autoRegistration;
 	
 	public UOLoginManager(Core core) {
+		this(core, false);
+	}
+
+	/**
+	 * @param core core
+	 * @param autoRegistration whether to create the unknown accounts
+	 */
+	public UOLoginManager(Core core, boolean autoRegistration) {
+		this(core, autoRegistration, new AuthenticationKeys(KEY_TTL));
+	}
+
+	/**
+	 * @param core core
+	 * @param autoRegistration whether to create the unknown accounts
+	 * @param authenticationKeys store of the keys redeemed by the game listeners
+	 */
+	public UOLoginManager(Core core, boolean autoRegistration, AuthenticationKeyStore authenticationKeys) {
+		this(core, autoRegistration, authenticationKeys, newVerifier());
+	}
+
+	/**
+	 * @param core core
+	 * @param autoRegistration whether to create the unknown accounts
+	 * @param authenticationKeys store of the keys redeemed by the game listeners
+	 * @param verifier executor verifying the passwords, rejecting the tasks
+	 *                 it cannot take
+	 */
+	public UOLoginManager(Core core, boolean autoRegistration, AuthenticationKeyStore authenticationKeys,
+			Executor verifier) {
 		super();
 		this.core = core;
+		this.autoRegistration = autoRegistration;
+		this.verifier = verifier;
+		this.authenticationKeys = authenticationKeys;
+	}
+
+	private static Executor newVerifier() {
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		var executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(VERIFICATION_QUEUE), new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
 	}
 
 	@Override
-	public Account login(String username, String password) {
-		Account account = core.findAccountByUsername(username);
-		if (account == null) {
-			throw new NoSuchCharacterException(username);
+	public CompletableFuture<Account> login(String username, String password) {
+		Account known = core.findAccountByUsername(username);
+		if (known == null && (!autoRegistration || username == null || username.isBlank())) {
+			return CompletableFuture.failedFuture(new NoSuchCharacterException(username));
 		}
 		
-		if (!core.authenticate(account, password)) {
-			throw new WrongPasswordException(username);
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				Account account = known;
+				if (account == null) {
+					Account registered = core.registerAccount(username, password);
+					if (registered != null) {
+						return registered;
+					}
+					account = core.findAccountByUsername(username); // Registered meanwhile
+				}
+				if (!core.authenticate(account, password)) {
+					throw new WrongPasswordException(username);
+				}
+				return account;
+			}, verifier);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
 		}
-		
-		return account;
 	}
 	
 	@Override
 	public int generateAuthenticationKey(Account account) {
-		int key = new Random().nextInt();
-		authorizedAccountsByKeys.put(key, account);
-		return key;
+		return authenticationKeys.issue(account.getUsername());
 	}
 	
 	@Override
 	public Account getAuthorizedAccount(int key) {
-		return authorizedAccountsByKeys.get(key);
+		String username = authenticationKeys.redeem(key);
+		return username != null ? core.findAccountByUsername(username) : null;
 	}
 }
@@ -3,12 +3,19 @@ package net.sf.juoserver.model;
 import lombok.ToString;
 import net.sf.juoserver.api.*;
 
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 import java.util.*;
 
 @ToString(onlyExplicitlyIncluded = true)
 public class UOMobile implements Mobile {
     public static final int DEATH_MODEL_ID = 403;
     public static final int ALIVE_MODEL_ID = 0x190;
+    /**
+     * Speed of the swings when fighting bare-handed
+     */
+    public static final int WRESTLING_SPEED = 50;
+    private final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
     @ToString.Include
     private int serialId;
     /**
@@ -52,11 +59,19 @@ public class UOMobile implements Mobile {
     private int x;
     private int y;
     private int z;
+    private Facet facet = Facet.Felucca;
     private Direction direction = Direction.Southeast;
     private boolean running;
     private Notoriety notoriety = Notoriety.Innocent;
     private CharacterStatus characterStatus = CharacterStatus.Normal;
     private boolean npc;
+    /**
+     * Revision of the stats and equipment, read by the combat threads
+     */
+    private volatile int revision;
+    private volatile CombatStats combatStats;
+    private volatile boolean changed;
+    private volatile ChangeTracker changeTracker = ChangeTracker.NONE;
 
     public UOMobile(int serialId, String playerName, int currentHitPoints,
                     int maxHitPoints, boolean nameChangeFlag, StatusFlag statusFlag,
@@ -116,6 +131,26 @@ public class UOMobile implements Mobile {
         this.items = new HashMap<>();
     }
 
+    @Override
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        changeSupport.addPropertyChangeListener(listener);
+    }
+
+    @Override
+    public void addPropertyChangeListener(String property, PropertyChangeListener listener) {
+        changeSupport.addPropertyChangeListener(property, listener);
+    }
+
+    @Override
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        changeSupport.removePropertyChangeListener(listener);
+    }
+
+    @Override
+    public void removePropertyChangeListener(String property, PropertyChangeListener listener) {
+        changeSupport.removePropertyChangeListener(property, listener);
+    }
+
     @Override
     public int getModelId() {
         return modelId;
@@ -152,13 +187,23 @@ public class UOMobile implements Mobile {
     @Override
     public void setZ(int z) {
         this.z = z;
+        markChanged();
     }
 
     @Override
     public void setLocation(Point3D location) {
-        this.x = location.getX();
-        this.y = location.getY();
-        this.z = location.getZ();
+        location(location.getX(), location.getY(), location.getZ());
+    }
+
+    @Override
+    public Facet getFacet() {
+        return facet;
+    }
+
+    @Override
+    public void setFacet(Facet facet) {
+        changeSupport.firePropertyChange("facet", this.facet, this.facet = facet);
+        markChanged();
     }
 
     @Override
@@ -169,6 +214,7 @@ public class UOMobile implements Mobile {
     @Override
     public void setDirection(Direction direction) {
         this.direction = direction;
+        markChanged();
     }
 
     @Override
@@ -188,6 +234,7 @@ public class UOMobile implements Mobile {
 
     public void setName(String name) {
         this.name = name;
+        markChanged();
     }
 
     @Override
@@ -198,6 +245,7 @@ public class UOMobile implements Mobile {
     @Override
     public void setCurrentHitPoints(int currentHitPoints) {
         this.currentHitPoints = currentHitPoints;
+        markChanged();
     }
 
     @Override
@@ -207,6 +255,7 @@ public class UOMobile implements Mobile {
 
     public void setMaxHitPoints(int maxHitPoints) {
         this.maxHitPoints = maxHitPoints;
+        markChanged();
     }
 
     @Override
@@ -221,6 +270,7 @@ public class UOMobile implements Mobile {
 
     public void setStatusFlag(StatusFlag statusFlag) {
         this.statusFlag = statusFlag;
+        markChanged();
     }
 
     @Override
@@ -230,6 +280,7 @@ public class UOMobile implements Mobile {
 
     public void setSexRace(SexRace sexRace) {
         this.sexRace = sexRace;
+        markChanged();
     }
 
     @Override
@@ -239,6 +290,8 @@ public class UOMobile implements Mobile {
 
     public void setStrength(int strength) {
         this.strength = strength;
+        revision++;
+        markChanged();
     }
 
     @Override
@@ -248,6 +301,8 @@ public class UOMobile implements Mobile {
 
     public void setDexterity(int dexterity) {
         this.dexterity = dexterity;
+        revision++;
+        markChanged();
     }
 
     @Override
@@ -257,6 +312,7 @@ public class UOMobile implements Mobile {
 
     public void setIntelligence(int intelligence) {
         this.intelligence = intelligence;
+        markChanged();
     }
 
     @Override
@@ -264,6 +320,11 @@ public class UOMobile implements Mobile {
         return currentStamina;
     }
 
+    public void setCurrentStamina(int currentStamina) {
+        this.currentStamina = currentStamina;
+        markChanged();
+    }
+
     @Override
     public int getMaxStamina() {
         return maxStamina;
@@ -271,6 +332,7 @@ public class UOMobile implements Mobile {
 
     public void setMaxStamina(int maxStamina) {
         this.maxStamina = maxStamina;
+        markChanged();
     }
 
     @Override
@@ -285,6 +347,7 @@ public class UOMobile implements Mobile {
 
     public void setMaxMana(int maxMana) {
         this.maxMana = maxMana;
+        markChanged();
     }
 
     @Override
@@ -314,6 +377,7 @@ public class UOMobile implements Mobile {
 
     public void setRaceFlag(RaceFlag raceFlag) {
         this.raceFlag = raceFlag;
+        markChanged();
     }
 
     @Override
@@ -328,7 +392,9 @@ public class UOMobile implements Mobile {
 
     @Override
     public Map<Layer, Item> getItems() {
-        return items;
+        synchronized (items) {
+            return new HashMap<>(items);
+        }
     }
 
     @Override
@@ -338,6 +404,7 @@ public class UOMobile implements Mobile {
 
     public void setHue(int hue) {
         this.hue = hue;
+        markChanged();
     }
 
     @Override
@@ -345,6 +412,11 @@ public class UOMobile implements Mobile {
         return notoriety;
     }
 
+    public void setNotoriety(Notoriety notoriety) {
+        this.notoriety = notoriety;
+        markChanged();
+    }
+
     @Override
     public CharacterStatus getCharacterStatus() {
         return characterStatus;
@@ -355,6 +427,7 @@ public class UOMobile implements Mobile {
      */
     @Override
     public void moveForward() {
+        var oldLocation = new PointInSpace(x, y, z);
         switch (direction) {
             case North:
                 --y;
@@ -385,6 +458,8 @@ public class UOMobile implements Mobile {
                 --y;
                 break;
         }
+        changeSupport.firePropertyChange("location", oldLocation, new PointInSpace(x, y, z));
+        markChanged();
     }
 
     @Override
@@ -399,24 +474,36 @@ public class UOMobile implements Mobile {
 
     @Override
     public void setItemOnLayer(Layer layer, Item item) {
-        items.put(layer, item);
+        synchronized (items) {
+            items.put(layer, item);
+        }
+        revision++;
+        markChanged();
     }
 
     @Override
     public Item getItemByLayer(Layer layer) {
-        return items.get(layer);
+        synchronized (items) {
+            return items.get(layer);
+        }
     }
 
     @Override
     public boolean removeItem(Item item) {
-        return items.remove(getLayer(item)) != null;
+        revision++;
+        markChanged();
+        synchronized (items) {
+            return items.remove(getLayer(item)) != null;
+        }
     }
 
     @Override
     public Layer getLayer(Item item) {
-        for (Layer layer : Collections.unmodifiableSet(items.keySet())) {
-            if (getItemByLayer(layer).equals(item)) {
-                return layer;
+        synchronized (items) {
+            for (Map.Entry<Layer, Item> worn : items.entrySet()) {
+                if (worn.getValue().equals(item)) {
+                    return worn.getKey();
+                }
             }
         }
         return null;
@@ -434,20 +521,63 @@ public class UOMobile implements Mobile {
 
     @Override
     public int getWeaponBaseDamage() {
-        if (items.containsKey(Layer.FirstValid)) {
-            return items.get(Layer.FirstValid).baseDamage();
-        }
-        return 1;
+        var weapon = getItemByLayer(Layer.FirstValid);
+        return weapon != null ? weapon.baseDamage() : 1;
+    }
+
+    @Override
+    public int getWeaponSpeed() {
+        var weapon = getItemByLayer(Layer.FirstValid);
+        return weapon != null && weapon.speed() > 0 ? weapon.speed() : WRESTLING_SPEED;
+    }
+
+    @Override
+    public int getRevision() {
+        return revision;
+    }
+
+    @Override
+    public CombatStats getCombatStats() {
+        return combatStats;
+    }
+
+    @Override
+    public void setCombatStats(CombatStats combatStats) {
+        this.combatStats = combatStats;
     }
 
     @Override
     public Mobile location(int x, int y, int z) {
+        var oldLocation = new PointInSpace(this.x, this.y, this.z);
         this.x = x;
         this.y = y;
         this.z = z;
+        changeSupport.firePropertyChange("location", oldLocation, new PointInSpace(x, y, z));
+        markChanged();
         return this;
     }
 
+    @Override
+    public void trackChanges(ChangeTracker tracker) {
+        this.changed = false;
+        this.changeTracker = tracker;
+    }
+
+    @Override
+    public void clearChanges() {
+        changed = false;
+    }
+
+    /**
+     * Reports the first change since the mobile was last saved.
+     */
+    protected void markChanged() {
+        if (!changed) {
+            changed = true;
+            changeTracker.changed(this);
+        }
+    }
+
     @Override
     public int distanceOf(Mobile mobile) {
         return (int) Math.hypot(x - mobile.getX(), y - mobile.getY());
@@ -461,6 +591,7 @@ public class UOMobile implements Mobile {
         this.death = true;
         this.characterStatus = CharacterStatus.Normal;
         this.modelId = DEATH_MODEL_ID;
+        markChanged();
     }
 
     @Override
@@ -469,6 +600,7 @@ public class UOMobile implements Mobile {
         this.currentMana = 1;
         this.currentStamina = 1;
         this.modelId = ALIVE_MODEL_ID;
+        markChanged();
     }
 
     @Override
@@ -7,6 +7,10 @@ public class UONpcMobile extends UOMobile implements NpcMobile {
 
     private int templateId;
     private AIScript aiScript;
+    /**
+     * Name of the behaviour tree running the NPC AI, if any
+     */
+    private String behaviour;
 
     public UONpcMobile(int serialId, String name, Point3D location, AIScript aiScript) {
         super(serialId,  0x9,name, 100, 100, false, StatusFlag.UOML, SexRace.MaleHuman, 100,50,100,1000,100,100,100,0,0,0,100,RaceFlag.Elf, location, Notoriety.Murderer, true);
@@ -18,6 +22,29 @@ public class UONpcMobile extends UOMobile implements NpcMobile {
         this.aiScript = new WalkScript();
     }
 
+    /**
+     * Creates a new NPC with the attributes of a template NPC; the AI script
+     * is shared, as scripts keep their state in the NPC context.
+     *
+     * @param template template NPC
+     */
+    public UONpcMobile(UONpcMobile template) {
+        super(true);
+        this.templateId = template.templateId;
+        this.aiScript = template.aiScript;
+        this.behaviour = template.behaviour;
+        setName(template.getName());
+        setModelId(template.getModelId());
+        setStrength(template.getStrength());
+        setDexterity(template.getDexterity());
+        setIntelligence(template.getIntelligence());
+        setMaxHitPoints(template.getMaxHitPoints());
+        setMaxStamina(template.getMaxStamina());
+        setMaxMana(template.getMaxMana());
+        setNotoriety(template.getNotoriety());
+        setHue(template.getHue());
+    }
+
     @Override
     public AIScript getAIScript() {
         return aiScript;
@@ -27,6 +54,14 @@ public class UONpcMobile extends UOMobile implements NpcMobile {
         this.aiScript = aiScript;
     }
 
+    public String getBehaviour() {
+        return behaviour;
+    }
+
+    public void setBehaviour(String behaviour) {
+        this.behaviour = behaviour;
+    }
+
     @Override
     public int getTemplateId() {
         return templateId;
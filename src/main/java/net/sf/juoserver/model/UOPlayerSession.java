@@ -78,17 +78,17 @@ public class UOPlayerSession implements PlayerSession {
 			mobile.moveForward();
 		}
 
-		var items = core.findItemsByDirection(mobile, direction, 20);
+		var items = core.findItemsByDirection(mobile.getFacet(), mobile, direction, 20);
 		if (!items.isEmpty()) {
 			network.notifyGroundItemsCreated(items);
 		}
 
-		var npcs = core.findNpcInRange(mobile);
+		var npcs = core.findNpcInRange(mobile.getFacet(), mobile);
 		if (!npcs.isEmpty()) {
 			listener.npcOnRange(npcs);
 		}
 
-		MapTile tile = core.getTile(mobile.getX(), mobile.getY());
+		MapTile tile = core.getTile(mobile.getFacet(), mobile.getX(), mobile.getY());
 		mobile.setZ( tile.getZ() );
 
 		// Notify others client I'm moving
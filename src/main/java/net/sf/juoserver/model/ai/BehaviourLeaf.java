@@ -0,0 +1,15 @@
+package net.sf.juoserver.model.ai;
+
+import net.sf.juoserver.api.NpcSession;
+
+/**
+ * Action or condition of a behaviour tree. Leaves are shared by all the NPCs
+ * running the tree, so they keep their state in the NPC blackboard, in the
+ * slots they declared when compiled.
+ */
+@FunctionalInterface
+public interface BehaviourLeaf {
+
+    BehaviourStatus tick(NpcSession session, Blackboard blackboard);
+
+}
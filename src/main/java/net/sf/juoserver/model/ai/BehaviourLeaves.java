@@ -0,0 +1,108 @@
+package net.sf.juoserver.model.ai;
+
+import net.sf.juoserver.api.Direction;
+import net.sf.juoserver.api.Mobile;
+import net.sf.juoserver.protocol.MobileUtils;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Leaves available to all the behaviour trees:
+ * <ul>
+ * <li><tt>findHostile</tt>: stores the nearest hostile player within
+ * <tt>radius</tt> (12 by default) in the <tt>target</tt> entry, failing if
+ * there is none;</li>
+ * <li><tt>chase</tt>: moves towards the <tt>target</tt> entry, running until
+ * next to it, failing if it's dead or farther than <tt>radius</tt>;</li>
+ * <li><tt>wander</tt>: takes a step in a random direction;</li>
+ * <li><tt>wait</tt>: runs for <tt>millis</tt> milliseconds.</li>
+ * </ul>
+ * The entries can be renamed with the <tt>target</tt> parameter.
+ */
+final class BehaviourLeaves {
+    private static final int DEFAULT_RADIUS = 12;
+    private static final String TARGET = "target";
+
+    private BehaviourLeaves() {
+    }
+
+    static void registerAll(BehaviourTreeCompiler compiler) {
+        compiler.register("findHostile", BehaviourLeaves::findHostile);
+        compiler.register("chase", BehaviourLeaves::chase);
+        compiler.register("wander", (parameters, layout) -> wander());
+        compiler.register("wait", BehaviourLeaves::waitFor);
+    }
+
+    private static BehaviourLeaf findHostile(Map<String, Object> parameters, BlackboardLayout layout) {
+        int radius = intParameter(parameters, "radius", DEFAULT_RADIUS);
+        int target = layout.referenceSlot(stringParameter(parameters, "target", TARGET));
+        return (session, blackboard) -> {
+            var hostile = session.findNearestHostilePlayer(radius);
+            blackboard.set(target, hostile);
+            return hostile != null ? BehaviourStatus.SUCCESS : BehaviourStatus.FAILURE;
+        };
+    }
+
+    private static BehaviourLeaf chase(Map<String, Object> parameters, BlackboardLayout layout) {
+        int radius = intParameter(parameters, "radius", DEFAULT_RADIUS);
+        int target = layout.referenceSlot(stringParameter(parameters, "target", TARGET));
+        return (session, blackboard) -> {
+            Mobile chased = blackboard.get(target);
+            if (chased == null || chased.isDeath()) {
+                return BehaviourStatus.FAILURE;
+            }
+            int distance = MobileUtils.getDistance(session.getMobile(), chased);
+            if (distance <= 1) {
+                return BehaviourStatus.SUCCESS;
+            }
+            if (distance > radius) {
+                return BehaviourStatus.FAILURE;
+            }
+            session.moveTowards(chased);
+            return BehaviourStatus.RUNNING;
+        };
+    }
+
+    private static BehaviourLeaf wander() {
+        var directions = Direction.values();
+        return (session, blackboard) -> {
+            session.move(directions[ThreadLocalRandom.current().nextInt(directions.length)], false);
+            return BehaviourStatus.SUCCESS;
+        };
+    }
+
+    private static BehaviourLeaf waitFor(Map<String, Object> parameters, BlackboardLayout layout) {
+        long millis = intParameter(parameters, "millis", 1000);
+        int until = layout.newLongSlot();
+        return (session, blackboard) -> {
+            long now = System.nanoTime() / 1_000_000;
+            long due = blackboard.getLong(until);
+            if (due == 0) {
+                blackboard.setLong(until, now + millis);
+                return BehaviourStatus.RUNNING;
+            }
+            if (now < due) {
+                return BehaviourStatus.RUNNING;
+            }
+            blackboard.setLong(until, 0);
+            return BehaviourStatus.SUCCESS;
+        };
+    }
+
+    private static int intParameter(Map<String, Object> parameters, String name, int defaultValue) {
+        var value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number: " + value);
+        }
+        return number.intValue();
+    }
+
+    private static String stringParameter(Map<String, Object> parameters, String name, String defaultValue) {
+        var value = parameters.get(name);
+        return value == null ? defaultValue : value.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package net.sf.juoserver.model.ai;
+
+/**
+ * Outcome of a behaviour tree node.
+ */
+public enum BehaviourStatus {
+    SUCCESS, FAILURE,
+    /**
+     * Not done yet: the tree resumes from this node on its next run.
+     */
+    RUNNING
+}
@@ -0,0 +1,167 @@
+package net.sf.juoserver.model.ai;
+
+import net.sf.juoserver.api.AIScript;
+import net.sf.juoserver.api.NpcContext;
+import net.sf.juoserver.api.NpcSession;
+
+/**
+ * Behaviour tree compiled by the {@link BehaviourTreeCompiler}, shared by all
+ * the NPCs running it.
+ * <p/>
+ * Nodes are flattened in pre-order, so that the first child of a node is the
+ * next one and its subtree ends at {@link #ends}; the tree is walked with no
+ * recursion nor stack, going back up through {@link #parents}. Every NPC
+ * keeps in its context a {@link State}: its blackboard and the node to resume
+ * from, which is a leaf that returned {@link BehaviourStatus#RUNNING}, or the
+ * leaf the run stopped at when the {@link TickBudget} was spent. In the latter
+ * case, the {@link NpcContext#YIELDED} entry asks for the NPC to be run again
+ * on the next tick; as every run executes at least one leaf, yielding trees
+ * always make progress.
+ */
+public final class BehaviourTree implements AIScript {
+    /**
+     * Context entry of the state of an NPC running a tree.
+     */
+    static final String STATE = "behaviourTree";
+
+    static final byte LEAF = 0;
+    static final byte SEQUENCE = 1;
+    static final byte SELECTOR = 2;
+    static final byte INVERTER = 3;
+
+    private final String name;
+    private final byte[] kinds;
+    private final int[] parents;
+    private final int[] ends;
+    private final BehaviourLeaf[] leaves;
+    private final BlackboardLayout layout;
+    private final TickBudget budget;
+
+    BehaviourTree(String name, byte[] kinds, int[] parents, int[] ends, BehaviourLeaf[] leaves, BlackboardLayout layout,
+                  TickBudget budget) {
+        this.name = name;
+        this.kinds = kinds;
+        this.parents = parents;
+        this.ends = ends;
+        this.leaves = leaves;
+        this.layout = layout;
+        this.budget = budget;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    int size() {
+        return kinds.length;
+    }
+
+    @Override
+    public boolean isActive(NpcSession session) {
+        return true;
+    }
+
+    @Override
+    public void execute(NpcContext context, NpcSession session) {
+        State state = context.getEntry(STATE, null);
+        if (state == null || state.tree != this) {
+            state = new State(this); // New NPC, or tree reloaded
+            context.addEntry(STATE, state);
+        }
+        run(session, state);
+        if (state.yielded) {
+            context.addEntry(NpcContext.YIELDED, true);
+        }
+    }
+
+    /**
+     * Runs the tree from where the NPC stopped, until the root completes, a
+     * leaf is running or the budget is spent.
+     *
+     * @return the status of the root, {@link BehaviourStatus#RUNNING} if it
+     *         did not complete
+     */
+    BehaviourStatus run(NpcSession session, State state) {
+        state.yielded = false;
+        int node = state.cursor;
+        boolean first = true;
+        while (true) {
+            while (kinds[node] != LEAF) {
+                node++;
+            }
+            if (!first && budget.isExhausted()) {
+                state.cursor = node;
+                state.yielded = true;
+                return BehaviourStatus.RUNNING;
+            }
+            first = false;
+            var status = tick(node, session, state.blackboard);
+            if (status == BehaviourStatus.RUNNING) {
+                state.cursor = node;
+                return status;
+            }
+            while (true) {
+                int parent = parents[node];
+                if (parent < 0) {
+                    state.cursor = 0;
+                    return status;
+                }
+                byte kind = kinds[parent];
+                boolean next = kind == SEQUENCE && status == BehaviourStatus.SUCCESS
+                        || kind == SELECTOR && status == BehaviourStatus.FAILURE;
+                if (next && ends[node] < ends[parent]) {
+                    node = ends[node];
+                    break;
+                }
+                if (kind == INVERTER) {
+                    status = status == BehaviourStatus.SUCCESS ? BehaviourStatus.FAILURE : BehaviourStatus.SUCCESS;
+                }
+                node = parent;
+            }
+        }
+    }
+
+    private BehaviourStatus tick(int node, NpcSession session, Blackboard blackboard) {
+        if (budget.isUnlimited()) {
+            return leaves[node].tick(session, blackboard);
+        }
+        long start = budget.cpuTime();
+        try {
+            return leaves[node].tick(session, blackboard);
+        } finally {
+            budget.spend(budget.cpuTime() - start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BehaviourTree[" + name + ", " + kinds.length + " nodes]";
+    }
+
+    /**
+     * Where an NPC is in a tree.
+     */
+    static final class State {
+        private final BehaviourTree tree;
+        private final Blackboard blackboard;
+        private int cursor;
+        private boolean yielded;
+
+        State(BehaviourTree tree) {
+            this.tree = tree;
+            this.blackboard = tree.layout.newBlackboard();
+        }
+
+        Blackboard getBlackboard() {
+            return blackboard;
+        }
+
+        int getCursor() {
+            return cursor;
+        }
+
+        boolean isYielded() {
+            return yielded;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package net.sf.juoserver.model.ai;
+
+import java.util.*;
+
+/**
+ * Compiles behaviour trees, as read from the configuration, into
+ * {@link BehaviourTree}s.
+ * <p/>
+ * Every node is a map with a single entry, whose key is the node type:
+ * <ul>
+ * <li><tt>sequence</tt> and <tt>selector</tt>, with the list of their
+ * children;</li>
+ * <li><tt>inverter</tt>, with its child;</li>
+ * <li>the registered leaves, with their parameters, if any.</li>
+ * </ul>
+ * For example:
+ * <pre>
+ * chaser:
+ *   selector:
+ *     - sequence:
+ *         - findHostile: {radius: 12}
+ *         - chase: {}
+ *     - wander: {}
+ * </pre>
+ */
+public final class BehaviourTreeCompiler {
+    /**
+     * Creates a leaf from its parameters, declaring the blackboard slots it
+     * uses.
+     */
+    @FunctionalInterface
+    public interface LeafFactory {
+        BehaviourLeaf create(Map<String, Object> parameters, BlackboardLayout layout);
+    }
+
+    private final Map<String, LeafFactory> leafFactories = new HashMap<>();
+    private final TickBudget budget;
+
+    /**
+     * @param budget CPU budget shared by the compiled trees
+     */
+    public BehaviourTreeCompiler(TickBudget budget) {
+        this.budget = budget;
+        BehaviourLeaves.registerAll(this);
+    }
+
+    /**
+     * @param type leaf type, as named in the trees
+     * @param factory leaf factory
+     */
+    public void register(String type, LeafFactory factory) {
+        leafFactories.put(type, factory);
+    }
+
+    /**
+     * @param definitions trees by name
+     * @return the compiled trees by name
+     * @throws IllegalArgumentException if a tree is not valid
+     */
+    public Map<String, BehaviourTree> compileAll(Map<String, Object> definitions) {
+        Map<String, BehaviourTree> trees = new HashMap<>();
+        definitions.forEach((name, definition) -> trees.put(name, compile(name, definition)));
+        return trees;
+    }
+
+    /**
+     * @param name tree name
+     * @param definition root node
+     * @return the compiled tree
+     * @throws IllegalArgumentException if the tree is not valid
+     */
+    public BehaviourTree compile(String name, Object definition) {
+        var builder = new Builder();
+        builder.add(definition, -1, name);
+        int size = builder.kinds.size();
+        var kinds = new byte[size];
+        var parents = new int[size];
+        var ends = new int[size];
+        for (int node = 0; node < size; node++) {
+            kinds[node] = builder.kinds.get(node);
+            parents[node] = builder.parents.get(node);
+            ends[node] = builder.ends.get(node);
+        }
+        return new BehaviourTree(name, kinds, parents, ends, builder.leaves.toArray(new BehaviourLeaf[0]), builder.layout, budget);
+    }
+
+    private final class Builder {
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<Integer> parents = new ArrayList<>();
+        private final List<Integer> ends = new ArrayList<>();
+        private final List<BehaviourLeaf> leaves = new ArrayList<>();
+        private final BlackboardLayout layout = new BlackboardLayout();
+
+        private void add(Object definition, int parent, String path) {
+            if (!(definition instanceof Map<?, ?> map) || map.size() != 1) {
+                throw new IllegalArgumentException(path + ": a node must have a single type");
+            }
+            var entry = map.entrySet().iterator().next();
+            var type = String.valueOf(entry.getKey());
+            var value = entry.getValue();
+            int node = kinds.size();
+            parents.add(parent);
+            ends.add(-1);
+            path = path + "/" + type;
+            switch (type) {
+                case "sequence", "selector" -> {
+                    kinds.add("sequence".equals(type) ? BehaviourTree.SEQUENCE : BehaviourTree.SELECTOR);
+                    leaves.add(null);
+                    if (!(value instanceof List<?> children) || children.isEmpty()) {
+                        throw new IllegalArgumentException(path + ": children expected");
+                    }
+                    for (Object child : children) {
+                        add(child, node, path);
+                    }
+                }
+                case "inverter" -> {
+                    kinds.add(BehaviourTree.INVERTER);
+                    leaves.add(null);
+                    add(value, node, path);
+                }
+                default -> {
+                    var factory = leafFactories.get(type);
+                    if (factory == null) {
+                        throw new IllegalArgumentException(path + ": unknown node type");
+                    }
+                    kinds.add(BehaviourTree.LEAF);
+                    leaves.add(factory.create(parameters(value, path), layout));
+                }
+            }
+            ends.set(node, kinds.size());
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> parameters(Object value, String path) {
+            if (value == null) {
+                return Map.of();
+            }
+            if (!(value instanceof Map)) {
+                throw new IllegalArgumentException(path + ": parameters expected");
+            }
+            return (Map<String, Object>) value;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package net.sf.juoserver.model.ai;
+
+/**
+ * Memory of an NPC running a behaviour tree: numbers and references are kept
+ * in arrays, at the slots handed out by the tree {@link BlackboardLayout}, so
+ * that they are neither hashed nor boxed.
+ */
+public final class Blackboard {
+    private final long[] numbers;
+    private final Object[] references;
+
+    Blackboard(int numbers, int references) {
+        this.numbers = new long[numbers];
+        this.references = new Object[references];
+    }
+
+    public long getLong(int slot) {
+        return numbers[slot];
+    }
+
+    public void setLong(int slot, long value) {
+        numbers[slot] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(int slot) {
+        return (T) references[slot];
+    }
+
+    public void set(int slot, Object value) {
+        references[slot] = value;
+    }
+}
@@ -0,0 +1,51 @@
+package net.sf.juoserver.model.ai;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Slots of the blackboards of a behaviour tree, handed out to its leaves
+ * while compiling: leaves naming the same entry share its slot, which must
+ * always be of the same type.
+ */
+public final class BlackboardLayout {
+    private final Map<String, Integer> numbers = new HashMap<>();
+    private final Map<String, Integer> references = new HashMap<>();
+    private int numberSlots;
+    private int referenceSlots;
+
+    /**
+     * @param name entry name
+     * @return the slot of the number entry
+     * @throws IllegalArgumentException if the entry is a reference
+     */
+    public int longSlot(String name) {
+        if (references.containsKey(name)) {
+            throw new IllegalArgumentException("Blackboard entry " + name + " is not a number");
+        }
+        return numbers.computeIfAbsent(name, key -> numberSlots++);
+    }
+
+    /**
+     * @param name entry name
+     * @return the slot of the reference entry
+     * @throws IllegalArgumentException if the entry is a number
+     */
+    public int referenceSlot(String name) {
+        if (numbers.containsKey(name)) {
+            throw new IllegalArgumentException("Blackboard entry " + name + " is not a reference");
+        }
+        return references.computeIfAbsent(name, key -> referenceSlots++);
+    }
+
+    /**
+     * @return a number slot private to the calling leaf
+     */
+    public int newLongSlot() {
+        return numberSlots++;
+    }
+
+    Blackboard newBlackboard() {
+        return new Blackboard(numberSlots, referenceSlots);
+    }
+}
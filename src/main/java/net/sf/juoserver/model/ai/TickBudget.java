@@ -0,0 +1,106 @@
+package net.sf.juoserver.model.ai;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * CPU time the behaviour trees of all the NPCs may spend within one tick of
+ * the NPCs AI, shared by the workers running them.
+ * <p/>
+ * Ticks are windows of wall-clock time: the budget is refilled as soon as a
+ * new window starts, without any call from the scheduler. The time spent is
+ * the CPU time of the worker threads, or their wall-clock time where the JVM
+ * can't measure it.
+ */
+public final class TickBudget {
+    /**
+     * Budget which is never exhausted.
+     */
+    public static final TickBudget UNLIMITED = new TickBudget(0, 1);
+
+    private final long budgetNanos;
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final LongSupplier cpuClock;
+    private final AtomicLong spentNanos = new AtomicLong();
+    private volatile long tick;
+
+    /**
+     * @param budgetMicros microseconds per tick, 0 for no budget
+     * @param tickMillis milliseconds per tick
+     */
+    public TickBudget(long budgetMicros, long tickMillis) {
+        this(budgetMicros, tickMillis, System::nanoTime, cpuClock());
+    }
+
+    TickBudget(long budgetMicros, long tickMillis, LongSupplier nanoClock) {
+        this(budgetMicros, tickMillis, nanoClock, nanoClock);
+    }
+
+    /**
+     * @param budgetMicros microseconds per tick, 0 for no budget
+     * @param tickMillis milliseconds per tick
+     * @param nanoClock wall clock, in nanoseconds, the ticks are windows of
+     * @param cpuClock clock, in nanoseconds, measuring the time spent by the
+     *                 current thread
+     */
+    TickBudget(long budgetMicros, long tickMillis, LongSupplier nanoClock, LongSupplier cpuClock) {
+        this.budgetNanos = budgetMicros * 1_000;
+        this.tickNanos = Math.max(tickMillis, 1) * 1_000_000;
+        this.nanoClock = nanoClock;
+        this.cpuClock = cpuClock;
+    }
+
+    private static LongSupplier cpuClock() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads::getCurrentThreadCpuTime : System::nanoTime;
+    }
+
+    boolean isUnlimited() {
+        return budgetNanos <= 0;
+    }
+
+    /**
+     * @return the CPU time of the current thread, in nanoseconds, to measure
+     *         the time spent
+     */
+    long cpuTime() {
+        return cpuClock.getAsLong();
+    }
+
+    /**
+     * @return <tt>true</tt> if and only if the budget of the current tick has
+     *         been spent
+     */
+    boolean isExhausted() {
+        if (isUnlimited()) {
+            return false;
+        }
+        refill(nanoClock.getAsLong());
+        return spentNanos.get() >= budgetNanos;
+    }
+
+    /**
+     * @param nanos time spent in the current tick
+     */
+    void spend(long nanos) {
+        if (!isUnlimited()) {
+            refill(nanoClock.getAsLong());
+            spentNanos.addAndGet(nanos);
+        }
+    }
+
+    private void refill(long now) {
+        long current = now / tickNanos;
+        if (current != tick) {
+            synchronized (this) {
+                if (current != tick) {
+                    spentNanos.set(0);
+                    tick = current;
+                }
+            }
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package net.sf.juoserver.model.ai;
 
 import net.sf.juoserver.api.AIScript;
-import net.sf.juoserver.api.Direction;
 import net.sf.juoserver.api.NpcContext;
 import net.sf.juoserver.api.NpcSession;
-import net.sf.juoserver.model.Position;
 
 public class WalkScript implements AIScript {
+    private static final int CHASE_RADIUS = 12;
 
     @Override
     public boolean isActive(NpcSession session) {
@@ -15,16 +14,10 @@ public class WalkScript implements AIScript {
 
     @Override
     public void execute(NpcContext context, NpcSession session) {
-
-        //session.move(Direction.North, false);
-        var mobile = session.getMobile();
-        var enemy = session.findMobilesInRange(false)
-                .filter(mobile1 -> {
-                    return true;
-                })
-                .findFirst()
-                .orElseThrow();
-        session.moveTowards(enemy);
+        var enemy = session.findNearestHostilePlayer(CHASE_RADIUS);
+        if (enemy != null) {
+            session.moveTowards(enemy);
+        }
     }
 
 }
@@ -1,9 +1,15 @@
 package net.sf.juoserver.model.combat;
 
+import net.sf.juoserver.api.CombatStats;
 import net.sf.juoserver.api.Configuration;
 import net.sf.juoserver.api.Mobile;
 import net.sf.juoserver.api.PhysicalDamageCalculator;
 
+/**
+ * Derives the attack and defense modifiers of the mobiles from their stats
+ * and equipment, and caches them on the mobiles until their revision changes,
+ * so that resolving a swing only reads precomputed values.
+ */
 public class PhysicalDamageCalculatorImpl implements PhysicalDamageCalculator {
 
     private final Configuration configuration;
@@ -18,26 +24,41 @@ public class PhysicalDamageCalculatorImpl implements PhysicalDamageCalculator {
 
     @Override
     public int calculate(Mobile attacker, Mobile attacked) {
-        var combatConfiguration = configuration.getCombat();
-        var baseDamage = attacker.getWeaponBaseDamage();
+        var damageModifier = statsOf(attacker).attackModifier();
+        var armorModifier = statsOf(attacked).defenseModifier();
 
-        var armorRating = attacked.getArmorRating();
+        var damage = Math.floor(damageModifier / ((armorModifier + 100.0) / 100));
+
+        return (int) (damage * normalizer);
+    }
+
+    @Override
+    public CombatStats statsOf(Mobile mobile) {
+        var revision = mobile.getRevision();
+        var stats = mobile.getCombatStats();
+        if (stats == null || stats.revision() != revision) {
+            stats = derive(mobile, revision);
+            mobile.setCombatStats(stats);
+        }
+        return stats;
+    }
+
+    private CombatStats derive(Mobile mobile, int revision) {
+        var combatConfiguration = configuration.getCombat();
 
         // Strength Modifier
         // Attack
-        var damageModifier = baseDamage + (attacker.getStrength() / combatConfiguration.getStrAttackDivisorModifier());
+        var damageModifier = mobile.getWeaponBaseDamage() + (mobile.getStrength() / combatConfiguration.getStrAttackDivisorModifier());
         // Defense
-        var armorModifier = armorRating + (attacked.getStrength() / combatConfiguration.getStrDefenseDivisorModifier());
+        var armorModifier = mobile.getArmorRating() + (mobile.getStrength() / combatConfiguration.getStrDefenseDivisorModifier());
 
         // Dexterity Modifier
         // Attack
-        damageModifier = damageModifier + (attacker.getDexterity() / combatConfiguration.getDexAttackDivisorModifier());
+        damageModifier = damageModifier + (mobile.getDexterity() / combatConfiguration.getDexAttackDivisorModifier());
         // Defense
-        armorModifier = armorModifier + (attacked.getDexterity() / combatConfiguration.getDexDefenseDivisorModifier());
+        armorModifier = armorModifier + (mobile.getDexterity() / combatConfiguration.getDexDefenseDivisorModifier());
 
-        var damage = Math.floor(damageModifier / ((armorModifier + 100.0) / 100));
-
-        return (int) (damage * normalizer);
+        return new CombatStats(revision, damageModifier, armorModifier, mobile.getWeaponSpeed());
     }
 
 }
@@ -1,21 +1,124 @@
 package net.sf.juoserver.model.combat;
 
 import net.sf.juoserver.api.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
+/**
+ * Resolves the fights swing by swing.
+ * <p/>
+ * Every fighting mobile has a single swing against its opponent in a timer
+ * queue ordered by due time; the delay between two swings depends on the
+ * speed of the weapon and on the stamina of the attacker (see
+ * {@link #swingDelay(Mobile, int)}). As a {@link SubSystem}, only the due swings
+ * are taken from the queue, so the cost of a run grows with the swings due
+ * rather than with the fights going on. Mobiles attacked fight back.
+ * <p/>
+ * Combat requests come from the client and NPC threads through a lock-free
+ * queue, drained at the start of every run by the combat thread, which alone
+ * keeps the index of the swings by attacker: repeated requests against the
+ * same opponent keep the current swing, and ended fights are removed in
+ * constant time. The swings are sharded by the serial ID of the attacked
+ * mobile, which unlike its location never changes, so that all the damage a
+ * mobile receives is resolved by the same shard; the shards are resolved in
+ * parallel.
+ * <p/>
+ * Swings per second and the scheduling latency (how late the swings are
+ * resolved after being due) are periodically logged.
+ */
 public class UOCombatSystem implements CombatSystem, SubSystem {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UOCombatSystem.class);
+    /**
+     * Minimum milliseconds between two swings.
+     */
+    static final long MIN_SWING_DELAY = 1250;
+    /**
+     * Milliseconds after which a swing against an opponent out of range is
+     * tried again.
+     */
+    static final long OUT_OF_RANGE_DELAY = 250;
+    /**
+     * Milliseconds of uptime between the logs of the swings statistics.
+     */
+    private static final long STATS_PERIOD = 60_000;
+
     private final PhysicalDamageCalculator physicalDamageCalculator;
-    private final Map<Mobile, CombatSession> sessionMap = new Hashtable<>();
-    private final List<CombatOccurring> combatsOccurring = new ArrayList<>();
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final Map<Mobile, CombatSession> sessionMap = new ConcurrentHashMap<>();
+    private final Queue<Request> intake = new ConcurrentLinkedQueue<>();
+    private final Shard[] shards;
+    /**
+     * Current swing of every fighting mobile, only used by the combat thread
+     * while the shards are not running.
+     */
+    private final Map<Mobile, Swing> swingsByAttacker = new HashMap<>();
+    private final SwingStats stats = new SwingStats();
+    private long lastStatsUptime;
 
     public UOCombatSystem(PhysicalDamageCalculator physicalDamageCalculator) {
+        this(physicalDamageCalculator, 1, Runnable::run);
+    }
+
+    /**
+     * @param shards shards resolved in parallel
+     * @param executor pool resolving all the shards but the first one, which
+     *                 is resolved by the combat thread
+     */
+    public UOCombatSystem(PhysicalDamageCalculator physicalDamageCalculator, int shards, Executor executor) {
+        this(physicalDamageCalculator, shards, executor, () -> System.nanoTime() / 1_000_000);
+    }
+
+    UOCombatSystem(PhysicalDamageCalculator physicalDamageCalculator, LongSupplier clock) {
+        this(physicalDamageCalculator, 1, Runnable::run, clock);
+    }
+
+    UOCombatSystem(PhysicalDamageCalculator physicalDamageCalculator, int shards, Executor executor, LongSupplier clock) {
         this.physicalDamageCalculator = physicalDamageCalculator;
+        this.executor = executor;
+        this.clock = clock;
+        this.shards = new Shard[Math.max(shards, 1)];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard();
+        }
     }
 
     @Override
     public void beginCombat(Mobile attacker, Mobile attacked) {
-        combatsOccurring.add(new CombatOccurring(attacker, attacked));
+        intake.add(new Request(RequestType.BEGIN, attacker, attacked, clock.getAsLong()));
+    }
+
+    /**
+     * @return milliseconds until the next swing of the attacker, with the
+     *         weapon speed of its cached combat stats
+     */
+    private long swingDelay(Mobile attacker) {
+        return swingDelay(attacker, physicalDamageCalculator.statsOf(attacker).weaponSpeed());
+    }
+
+    /**
+     * Delay between two swings, after the AOS formula: the faster the weapon
+     * and the higher the stamina (or the dexterity, for mobiles without
+     * stamina) the shorter, but never shorter than {@link #MIN_SWING_DELAY}.
+     *
+     * @param attacker attacker
+     * @param weaponSpeed speed of the attacker weapon
+     * @return milliseconds until the next swing of the attacker
+     */
+    static long swingDelay(Mobile attacker, int weaponSpeed) {
+        int stamina = attacker.getCurrentStamina() > 0 ? attacker.getCurrentStamina() : attacker.getDexterity();
+        int speed = Math.max(weaponSpeed, 1);
+        long quarters = 40_000L / ((Math.max(stamina, 0) + 100L) * speed);
+        return Math.max(quarters * 250, MIN_SWING_DELAY);
     }
 
     @Override
@@ -30,58 +133,119 @@ public class UOCombatSystem implements CombatSystem, SubSystem {
 
     @Override
     public void combatFinished(Mobile attacker, Mobile attacked) {
-
+        intake.add(new Request(RequestType.FINISH, attacker, attacked, clock.getAsLong()));
     }
 
     @Override
     public void mobileKilled(Mobile mobile) {
-
+        intake.add(new Request(RequestType.STOP, mobile, null, clock.getAsLong())); // The swings against it are dropped once due
     }
 
     @Override
     public void execute(long uptime) {
+        drainIntake();
+        var now = clock.getAsLong();
+        if (shards.length == 1) {
+            shards[0].run(now);
+        } else {
+            var others = new CompletableFuture<?>[shards.length - 1];
+            for (int i = 1; i < shards.length; i++) {
+                var shard = shards[i];
+                others[i - 1] = CompletableFuture.runAsync(() -> shard.run(now), executor);
+            }
+            shards[0].run(now);
+            CompletableFuture.allOf(others).join();
+        }
+        for (Shard shard : shards) {
+            for (Swing swing : shard.ended) {
+                swingsByAttacker.remove(swing.attacker, swing);
+            }
+            shard.ended.clear();
+        }
+        if (uptime - lastStatsUptime >= STATS_PERIOD) {
+            LOGGER.info("Combat: {}, {} swings scheduled", stats.reset(uptime - lastStatsUptime), size());
+            lastStatsUptime = uptime;
+        }
+    }
 
-        var finished = new LinkedList<CombatOccurring>();
-
-        for (CombatOccurring combat : combatsOccurring) {
-            final var mobile1 = combat.getMobile1();
-            final var mobile2 = combat.getMobile2();
-
-            // TODO check equiped weapon distance
-            if (mobile1.distanceOf(mobile2) <= 1) {
-                final var loop = combat.getCombatLoop();
-                if (loop % 3 == 0) {
-                    final var mobile1Damage = physicalDamageCalculator.calculate(mobile2, mobile1);
-                    final var mobile2Damage = physicalDamageCalculator.calculate(mobile1, mobile2);
-
-                    var mobile1Session = sessionMap.get(mobile1);
-                    var mobile2Session = sessionMap.get(mobile2);
-
-                    if (mobile2Damage < mobile1Damage) {
-                        mobile2Session.attackWithDamage(mobile1, mobile2Damage);
-                        mobile1Session.receiveDamage(mobile1Damage);
-                    } else {
-                        mobile1Session.attackWithDamage(mobile2, mobile1Damage);
-                        mobile2Session.receiveDamage(mobile2Damage);
+    private void drainIntake() {
+        Request request;
+        while ((request = intake.poll()) != null) {
+            switch (request.type) {
+                case BEGIN -> {
+                    var current = swingsByAttacker.get(request.attacker);
+                    if (current == null || !current.attacked.equals(request.attacked)) {
+                        cancel(request.attacker);
+                        schedule(request.attacker, request.attacked, request.time);
                     }
-
-                    if (mobile1.isDeath()) {
-                        sessionMap.remove(mobile1);
-                        finished.add(combat);
+                    if (!swingsByAttacker.containsKey(request.attacked)) {
+                        schedule(request.attacked, request.attacker, request.time);
                     }
-                    if (mobile2.isDeath()) {
-                        sessionMap.remove(mobile2);
-                        finished.add(combat);
+                }
+                case FINISH -> {
+                    var current = swingsByAttacker.get(request.attacker);
+                    if (current != null && current.attacked.equals(request.attacked)) {
+                        cancel(request.attacker);
                     }
-
-                    combat.resetCombatLoop();
-                } else {
-                    combat.incrementCombatLoop();
                 }
+                case STOP -> cancel(request.attacker);
             }
         }
+    }
 
-        combatsOccurring.removeAll(finished);
+    private void schedule(Mobile attacker, Mobile attacked, long time) {
+        var swing = new Swing(attacker, attacked, time + swingDelay(attacker));
+        swingsByAttacker.put(attacker, swing);
+        shards[shardOf(attacked)].swings.add(swing);
+    }
+
+    private void cancel(Mobile attacker) {
+        var swing = swingsByAttacker.remove(attacker);
+        if (swing != null) {
+            swing.cancelled = true; // Left in the queue, skipped once due
+        }
+    }
+
+    /**
+     * @return the shard of the fights against a mobile, from its serial ID
+     */
+    int shardOf(Mobile attacked) {
+        return Math.floorMod(attacked.getSerialId(), shards.length);
+    }
+
+    /**
+     * @return the milliseconds until the next swing, or -1 if the fight is over
+     */
+    private long resolve(Swing swing) {
+        var attacker = swing.attacker;
+        var attacked = swing.attacked;
+        var attackedSession = sessionMap.get(attacked);
+        if (attacker.isDeath() || attacked.isDeath() || attackedSession == null || !sessionMap.containsKey(attacker)) {
+            return -1;
+        }
+        // TODO check equiped weapon distance
+        if (attacker.distanceOf(attacked) > 1) {
+            return OUT_OF_RANGE_DELAY;
+        }
+        var damage = physicalDamageCalculator.calculate(attacker, attacked);
+        if (damage < attacked.getCurrentHitPoints()) {
+            attackedSession.attackWithDamage(attacker, damage);
+        } else {
+            attackedSession.receiveDamage(damage);
+        }
+        if (attacked.isDeath()) {
+            sessionMap.remove(attacked);
+            return -1;
+        }
+        return swingDelay(attacker);
+    }
+
+    int size() {
+        return swingsByAttacker.size();
+    }
+
+    SwingStats getStats() {
+        return stats;
     }
 
     @Override
@@ -91,7 +255,89 @@ public class UOCombatSystem implements CombatSystem, SubSystem {
 
     @Override
     public void removeMobile(Mobile mobile) {
-        System.out.println("removido "+mobile);
+        LOGGER.debug("{} removed from combat", mobile);
         this.sessionMap.remove(mobile);
+        intake.add(new Request(RequestType.STOP, mobile, null, clock.getAsLong()));
+    }
+
+    /**
+     * Swings against some mobiles, only resolved by one thread at a time.
+     */
+    private final class Shard {
+        private final PriorityQueue<Swing> swings = new PriorityQueue<>(Comparator.comparingLong(swing -> swing.due));
+        private final List<Swing> ended = new ArrayList<>();
+
+        private void run(long now) {
+            while (!swings.isEmpty() && swings.peek().due <= now) {
+                var swing = swings.poll();
+                if (swing.cancelled) {
+                    continue;
+                }
+                stats.add(now - swing.due);
+                long delay;
+                try {
+                    delay = resolve(swing);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error resolving the swing of {} against {}", swing.attacker, swing.attacked, e);
+                    delay = -1;
+                }
+                if (delay < 0) {
+                    ended.add(swing);
+                } else {
+                    swing.due = clock.getAsLong() + delay;
+                    swings.add(swing);
+                }
+            }
+        }
+    }
+
+    private enum RequestType {
+        BEGIN, FINISH, STOP
+    }
+
+    private record Request(RequestType type, Mobile attacker, Mobile attacked, long time) {
+    }
+
+    private static final class Swing {
+        private final Mobile attacker;
+        private final Mobile attacked;
+        private long due;
+        private boolean cancelled;
+
+        private Swing(Mobile attacker, Mobile attacked, long due) {
+            this.attacker = attacker;
+            this.attacked = attacked;
+            this.due = due;
+        }
+    }
+
+    /**
+     * Swings resolved and their scheduling latency, since the last reset.
+     */
+    static final class SwingStats {
+        private final LongAdder swings = new LongAdder();
+        private final LongAdder latencySum = new LongAdder();
+        private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+
+        private void add(long latency) {
+            swings.increment();
+            latencySum.add(latency);
+            maxLatency.accumulate(latency);
+        }
+
+        long getSwings() {
+            return swings.sum();
+        }
+
+        long getMaxLatency() {
+            return maxLatency.get();
+        }
+
+        private String reset(long periodMillis) {
+            long count = swings.sumThenReset();
+            long sum = latencySum.sumThenReset();
+            return (periodMillis == 0 ? 0 : count * 1000 / periodMillis) + " swings/s, latency "
+                    + (count == 0 ? 0 : sum / count) + " ms average, " + maxLatency.getThenReset() + " ms max";
+        }
     }
 }
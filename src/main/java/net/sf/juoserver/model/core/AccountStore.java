@@ -0,0 +1,107 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.Account;
+import net.sf.juoserver.api.ChangeTracker;
+import net.sf.juoserver.model.Passwords;
+import net.sf.juoserver.model.UOAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The accounts, indexed by username, regardless of its case, and the serial
+ * IDs of their characters.
+ * <p/>
+ * Accounts are loaded at startup, or registered at runtime; the registered
+ * ones are reported to the change tracker, to be saved by the next save.
+ */
+public final class AccountStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountStore.class);
+    private final Map<String, Account> byUsername = new ConcurrentHashMap<>();
+    private final Set<Integer> characterSerials = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextAccountId = new AtomicInteger();
+    private final ChangeTracker changes;
+
+    /**
+     * @param changes tracker of the changed accounts
+     */
+    AccountStore(ChangeTracker changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Adds a loaded account, unless its username only differs in case from
+     * the one of an account already added, which is kept.
+     */
+    void add(Account account) {
+        // The characters of a dropped account are still in the world: their serial IDs stay taken
+        characterSerials.addAll(account.getCharactersSerials());
+        nextAccountId.accumulateAndGet(account.getAccountId() + 1, Math::max);
+        var kept = byUsername.putIfAbsent(normalize(account.getUsername()), account);
+        if (kept != null) {
+            LOGGER.warn("Account {} ignored, its username clashes with the one of account {}",
+                    account.getAccountId(), kept.getAccountId());
+            return;
+        }
+        account.trackChanges(changes);
+    }
+
+    /**
+     * Registers a new account, unless the username is taken.
+     *
+     * @param username username, not blank
+     * @param password plaintext password, hashed by this method
+     * @return the new account, <tt>null</tt> if the username is taken
+     * @throws IllegalArgumentException if the username is blank
+     */
+    Account register(String username, String password) {
+        if (username == null || username.isBlank()) {
+            throw new IllegalArgumentException("Blank username");
+        }
+        var key = normalize(username);
+        if (byUsername.containsKey(key)) {
+            return null;
+        }
+        var hashed = Passwords.hash(password);
+        var registered = new Account[1];
+        byUsername.computeIfAbsent(key, k -> registered[0] = new UOAccount(nextAccountId.getAndIncrement(),
+                username, hashed));
+        if (registered[0] != null) {
+            registered[0].trackChanges(changes);
+            changes.changed(registered[0]);
+        }
+        return registered[0];
+    }
+
+    /**
+     * @return the account of the given username, in any case, <tt>null</tt>
+     *         if none
+     */
+    Account findByUsername(String username) {
+        return username != null ? byUsername.get(normalize(username)) : null;
+    }
+
+    /**
+     * @return all the accounts
+     */
+    Collection<Account> all() {
+        return byUsername.values();
+    }
+
+    /**
+     * @return the serial IDs of the characters of all the accounts
+     */
+    Set<Integer> characterSerials() {
+        return characterSerials;
+    }
+
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+}
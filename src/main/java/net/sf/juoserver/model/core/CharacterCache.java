@@ -0,0 +1,197 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.Account;
+import net.sf.juoserver.api.Mobile;
+import net.sf.juoserver.api.SubSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps in memory the characters of the accounts logged in, and of the ones
+ * logged out for less than the eviction delay.
+ * <p/>
+ * The characters of an account are loaded when it logs in, and stay in the
+ * world for the eviction delay once it logs out; they then leave the world,
+ * and are evicted from memory once a save captured after they left has been
+ * written, so that their last state can be loaded again. An account logging
+ * in meanwhile finds its characters as they were. The eviction check runs as
+ * a {@link SubSystem}.
+ * <p/>
+ * The characters loaded at startup, if any, are kept until their account
+ * logs in and out.
+ */
+public final class CharacterCache implements SubSystem {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CharacterCache.class);
+
+    private final World world;
+    private final long evictionDelayMillis;
+    private final LongSupplier clock;
+    private final Map<Account, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * Saves captured so far, and the last of them written
+     */
+    private final AtomicInteger savesCaptured = new AtomicInteger();
+    private final AtomicInteger savesWritten = new AtomicInteger();
+
+    /**
+     * @param world the world the characters enter and leave
+     * @param evictionDelayMillis milliseconds the characters stay in the world
+     *                            after logout; 0 never to evict them
+     */
+    CharacterCache(World world, long evictionDelayMillis) {
+        this(world, evictionDelayMillis, System::currentTimeMillis);
+    }
+
+    CharacterCache(World world, long evictionDelayMillis, LongSupplier clock) {
+        this.world = world;
+        this.evictionDelayMillis = evictionDelayMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Brings the characters of an account into the world, loading them if
+     * they are not in memory.
+     *
+     * @param account account logging in
+     * @return completed once the characters are in the world
+     */
+    CompletableFuture<Void> acquire(Account account) {
+        var entry = entries.compute(account, (key, current) -> {
+            if (current == null) {
+                return new Entry(world.load(account));
+            }
+            current.releasedAt = -1;
+            if (current.leftAtSave >= 0) {
+                current.leftAtSave = -1;
+                world.enter(current.loaded.join());
+            }
+            return current;
+        });
+        entry.loaded.whenComplete((characters, error) -> {
+            if (error != null) {
+                entries.remove(account, entry); // Loaded again by the next login
+            }
+        });
+        return entry.loaded.thenApply(characters -> null);
+    }
+
+    /**
+     * Starts the eviction delay of the characters of an account.
+     *
+     * @param account account logging out
+     */
+    void release(Account account) {
+        if (evictionDelayMillis > 0) {
+            entries.computeIfPresent(account, (key, entry) -> {
+                entry.releasedAt = clock.getAsLong();
+                return entry;
+            });
+        }
+    }
+
+    /**
+     * To be called before capturing a save.
+     *
+     * @return the number of the save
+     */
+    int saveCaptured() {
+        return savesCaptured.incrementAndGet();
+    }
+
+    /**
+     * To be called once a save has been written.
+     *
+     * @param save number of the save
+     */
+    void saveWritten(int save) {
+        savesWritten.accumulateAndGet(save, Math::max);
+    }
+
+    /**
+     * Takes the characters of the accounts logged out for longer than the
+     * eviction delay out of the world, and evicts the ones already out once
+     * saved.
+     */
+    @Override
+    public void execute(long uptime) {
+        long now = clock.getAsLong();
+        for (Account account : entries.keySet()) {
+            entries.computeIfPresent(account, (key, entry) -> {
+                var characters = entry.loaded.getNow(null);
+                if (characters == null || entry.releasedAt < 0) {
+                    return entry;
+                } else if (entry.leftAtSave < 0) {
+                    if (now - entry.releasedAt >= evictionDelayMillis) {
+                        world.leave(characters);
+                        entry.leftAtSave = savesCaptured.get();
+                    }
+                    return entry;
+                } else if (savesWritten.get() > entry.leftAtSave) {
+                    world.unload(characters);
+                    LOGGER.debug("Characters of {} evicted", account.getUsername());
+                    return null;
+                }
+                return entry;
+            });
+        }
+    }
+
+    /**
+     * @return the number of accounts whose characters are in memory
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * The world the characters enter and leave.
+     */
+    interface World {
+        /**
+         * Loads the characters of an account not in memory, and brings them
+         * all into the world.
+         *
+         * @param account account
+         * @return the characters, completed once in the world
+         */
+        CompletableFuture<List<Mobile>> load(Account account);
+
+        /**
+         * Brings back into the world characters which left it.
+         */
+        void enter(List<Mobile> characters);
+
+        /**
+         * Takes characters out of the world, keeping them in memory.
+         */
+        void leave(List<Mobile> characters);
+
+        /**
+         * Forgets characters out of the world.
+         */
+        void unload(List<Mobile> characters);
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<List<Mobile>> loaded;
+        /**
+         * When the account logged out, -1 while logged in
+         */
+        private long releasedAt = -1;
+        /**
+         * Saves captured when the characters left the world, -1 while in
+         */
+        private int leftAtSave = -1;
+
+        private Entry(CompletableFuture<List<Mobile>> loaded) {
+            this.loaded = loaded;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.Facet;
+import net.sf.juoserver.api.Mobile;
+import net.sf.juoserver.api.Point2D;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Spatial index of the mobiles of a facet.
+ * <p/>
+ * The facet is split in square sectors of {@link #SECTOR_SIZE} cells, each one
+ * holding the mobiles standing in it, so range searches only visit the
+ * sectors overlapping the searched area instead of every mobile of the world.
+ * Sectors are created on demand and are safe for concurrent updates.
+ */
+final class MobileSectorIndex {
+    static final int SECTOR_SIZE = 16;
+
+    private final int sectorsWide;
+    private final int sectorsHigh;
+    private final AtomicReferenceArray<Set<Mobile>> sectors;
+    private final AtomicInteger size = new AtomicInteger();
+
+    MobileSectorIndex(Facet facet) {
+        this.sectorsWide = (facet.getWidth() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        this.sectorsHigh = (facet.getHeight() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        this.sectors = new AtomicReferenceArray<>(sectorsWide * sectorsHigh);
+    }
+
+    void add(Mobile mobile) {
+        if (sector(mobile.getX(), mobile.getY()).add(mobile)) {
+            size.incrementAndGet();
+        }
+    }
+
+    void remove(Mobile mobile) {
+        remove(mobile, mobile.getX(), mobile.getY());
+    }
+
+    /**
+     * Moves a mobile between sectors, if needed.
+     *
+     * @param mobile moving mobile
+     * @param from previous location
+     * @param to new location
+     */
+    void move(Mobile mobile, Point2D from, Point2D to) {
+        int fromSector = sectorIndex(from.getX(), from.getY());
+        int toSector = sectorIndex(to.getX(), to.getY());
+        if (fromSector == toSector) {
+            return;
+        }
+        remove(mobile, from.getX(), from.getY());
+        add(mobile);
+    }
+
+    private void remove(Mobile mobile, int x, int y) {
+        var sector = sectors.get(sectorIndex(x, y));
+        if (sector != null && sector.remove(mobile)) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Visits the mobiles of every sector overlapping the square of the given
+     * radius centered on the given location; the caller is expected to
+     * refine the search on the exact distance.
+     *
+     * @param center center of the area
+     * @param radius area radius
+     * @param action action to be performed on every candidate mobile
+     */
+    void forEachCandidate(Point2D center, int radius, Consumer<Mobile> action) {
+        int fromX = clamp((center.getX() - radius) / SECTOR_SIZE, sectorsWide);
+        int toX = clamp((center.getX() + radius) / SECTOR_SIZE, sectorsWide);
+        int fromY = clamp((center.getY() - radius) / SECTOR_SIZE, sectorsHigh);
+        int toY = clamp((center.getY() + radius) / SECTOR_SIZE, sectorsHigh);
+        for (int sx = fromX; sx <= toX; sx++) {
+            for (int sy = fromY; sy <= toY; sy++) {
+                var sector = sectors.get(sx * sectorsHigh + sy);
+                if (sector != null) {
+                    sector.forEach(action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits the mobiles of a single sector.
+     *
+     * @param sector sector index, as laid out by {@link SectorActivation}
+     * @param action action to be performed on every mobile of the sector
+     */
+    void forEachInSector(int sector, Consumer<Mobile> action) {
+        var mobiles = sectors.get(sector);
+        if (mobiles != null) {
+            mobiles.forEach(action);
+        }
+    }
+
+    Collection<Mobile> getCandidates(Point2D center, int radius) {
+        Collection<Mobile> candidates = new ArrayList<>();
+        forEachCandidate(center, radius, candidates::add);
+        return candidates;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private Set<Mobile> sector(int x, int y) {
+        int index = sectorIndex(x, y);
+        var sector = sectors.get(index);
+        if (sector == null) {
+            sectors.compareAndSet(index, null, ConcurrentHashMap.newKeySet());
+            sector = sectors.get(index);
+        }
+        return sector;
+    }
+
+    private int sectorIndex(int x, int y) {
+        return clamp(x / SECTOR_SIZE, sectorsWide) * sectorsHigh + clamp(y / SECTOR_SIZE, sectorsHigh);
+    }
+
+    private static int clamp(int sector, int sectors) {
+        return Math.max(0, Math.min(sector, sectors - 1));
+    }
+}
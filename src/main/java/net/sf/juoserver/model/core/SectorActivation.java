@@ -0,0 +1,109 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.Facet;
+import net.sf.juoserver.api.Point2D;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+import static net.sf.juoserver.model.core.MobileSectorIndex.SECTOR_SIZE;
+
+/**
+ * Activation counters of the sectors of a facet, laid out as the sectors of
+ * the {@link MobileSectorIndex}.
+ * <p/>
+ * Every activator (a player in game) counts in all the sectors within the
+ * given radius, in sectors, of its own; a sector is active as long as its
+ * counter is positive. Counters are updated lock-free: a move first counts
+ * the activator in its new sectors, then leaves the old ones, so that the
+ * sectors in both areas never look inactive.
+ */
+final class SectorActivation {
+    private final int radius;
+    private final int sectorsWide;
+    private final int sectorsHigh;
+    private final AtomicIntegerArray counters;
+
+    /**
+     * @param facet facet
+     * @param radius activation radius, in sectors
+     */
+    SectorActivation(Facet facet, int radius) {
+        this.radius = radius;
+        this.sectorsWide = (facet.getWidth() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        this.sectorsHigh = (facet.getHeight() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        this.counters = new AtomicIntegerArray(sectorsWide * sectorsHigh);
+    }
+
+    /**
+     * Counts an activator in the sectors around its location.
+     *
+     * @param location activator location
+     * @param activated receives the index of every sector becoming active
+     */
+    void activate(Point2D location, IntConsumer activated) {
+        forEachSector(sectorX(location), sectorY(location), sector -> {
+            if (counters.incrementAndGet(sector) == 1) {
+                activated.accept(sector);
+            }
+        });
+    }
+
+    /**
+     * Stops counting an activator in the sectors around its location.
+     *
+     * @param location activator location
+     */
+    void deactivate(Point2D location) {
+        forEachSector(sectorX(location), sectorY(location), counters::decrementAndGet);
+    }
+
+    /**
+     * Moves an activator, if it changed sector.
+     *
+     * @param from previous location
+     * @param to new location
+     * @param activated receives the index of every sector becoming active
+     */
+    void move(Point2D from, Point2D to, IntConsumer activated) {
+        if (sectorX(from) == sectorX(to) && sectorY(from) == sectorY(to)) {
+            return;
+        }
+        activate(to, activated);
+        deactivate(from);
+    }
+
+    /**
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @return <tt>true</tt> if and only if an activator is close enough to
+     *         the sector of the given location
+     */
+    boolean isActive(int x, int y) {
+        return counters.get(clamp(x / SECTOR_SIZE, sectorsWide) * sectorsHigh + clamp(y / SECTOR_SIZE, sectorsHigh)) > 0;
+    }
+
+    private void forEachSector(int centerX, int centerY, IntConsumer action) {
+        int fromX = Math.max(0, centerX - radius);
+        int toX = Math.min(sectorsWide - 1, centerX + radius);
+        int fromY = Math.max(0, centerY - radius);
+        int toY = Math.min(sectorsHigh - 1, centerY + radius);
+        for (int sx = fromX; sx <= toX; sx++) {
+            for (int sy = fromY; sy <= toY; sy++) {
+                action.accept(sx * sectorsHigh + sy);
+            }
+        }
+    }
+
+    private int sectorX(Point2D location) {
+        return clamp(location.getX() / SECTOR_SIZE, sectorsWide);
+    }
+
+    private int sectorY(Point2D location) {
+        return clamp(location.getY() / SECTOR_SIZE, sectorsHigh);
+    }
+
+    private static int clamp(int sector, int sectors) {
+        return Math.max(0, Math.min(sector, sectors - 1));
+    }
+}
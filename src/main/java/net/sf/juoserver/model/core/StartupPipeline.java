@@ -0,0 +1,167 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.LoadException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the startup work as a dependency graph of stages.
+ * <p/>
+ * Every stage starts, on the given executor, as soon as all of its
+ * dependencies are done, so independent stages (e.g., reading the tile data
+ * and loading the accounts) run in parallel. Stages must be declared after
+ * their dependencies, which rules out cycles.
+ * <p/>
+ * The time spent by every stage is logged, along with a summary once the
+ * whole pipeline is done; callers may wait for single stages (e.g., to serve
+ * logins as soon as the accounts are available) or for the whole pipeline.
+ */
+public final class StartupPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupPipeline.class);
+
+    private final Executor executor;
+    private final Map<String, CompletableFuture<Void>> stages = new LinkedHashMap<>();
+    private final Map<String, Duration> timings = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> start = new CompletableFuture<>();
+    private long startNanos;
+    private CompletableFuture<Void> completion;
+
+    public StartupPipeline(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Declares a stage.
+     *
+     * @param name stage name, used for logging and lookups
+     * @param action work of the stage
+     * @param dependencies names of the stages which must be done before this
+     *                     one starts; they must be already declared
+     * @return this pipeline
+     */
+    public StartupPipeline stage(String name, Runnable action, String... dependencies) {
+        if (completion != null) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        if (stages.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicated stage " + name);
+        }
+        var prerequisites = new ArrayList<CompletableFuture<Void>>();
+        prerequisites.add(start);
+        for (String dependency : dependencies) {
+            var prerequisite = stages.get(dependency);
+            if (prerequisite == null) {
+                throw new IllegalArgumentException("Stage " + name + " depends on the undeclared stage " + dependency);
+            }
+            prerequisites.add(prerequisite);
+        }
+        stages.put(name, CompletableFuture.allOf(prerequisites.toArray(new CompletableFuture<?>[0]))
+                .thenRunAsync(() -> run(name, action), executor));
+        return this;
+    }
+
+    private void run(String name, Runnable action) {
+        var stageStart = System.nanoTime();
+        action.run();
+        var elapsed = Duration.ofNanos(System.nanoTime() - stageStart);
+        timings.put(name, elapsed);
+        LOGGER.info("Startup stage '{}' done in {} millis (at +{} millis)", name, elapsed.toMillis(),
+                Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+    }
+
+    /**
+     * Starts running the declared stages.
+     *
+     * @return this pipeline
+     */
+    public StartupPipeline start() {
+        if (completion != null) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        completion = CompletableFuture.allOf(stages.values().toArray(new CompletableFuture<?>[0]))
+                .whenComplete((result, error) -> {
+                    var total = Duration.ofNanos(System.nanoTime() - startNanos);
+                    if (error == null) {
+                        LOGGER.info("Startup completed in {} millis, stages: {}", total.toMillis(), describeTimings());
+                    } else {
+                        LOGGER.error("Startup failed after {} millis", total.toMillis(), error);
+                    }
+                });
+        startNanos = System.nanoTime();
+        start.complete(null);
+        return this;
+    }
+
+    /**
+     * @param name stage name
+     * @return a future completed once the given stage is done
+     */
+    public CompletableFuture<Void> getStage(String name) {
+        var stage = stages.get(name);
+        if (stage == null) {
+            throw new IllegalArgumentException("No such stage " + name);
+        }
+        return stage;
+    }
+
+    /**
+     * @return a future completed once every stage is done
+     */
+    public CompletableFuture<Void> getCompletion() {
+        if (completion == null) {
+            throw new IllegalStateException("Pipeline not started");
+        }
+        return completion;
+    }
+
+    /**
+     * Waits for a stage to be done.
+     *
+     * @param name stage name
+     * @throws LoadException if the stage, or any of its dependencies, failed
+     */
+    public void await(String name) {
+        join(getStage(name));
+    }
+
+    /**
+     * Waits for the whole pipeline to be done.
+     *
+     * @throws LoadException if any stage failed
+     */
+    public void await() {
+        join(getCompletion());
+    }
+
+    /**
+     * @return the time spent by every stage done so far
+     */
+    public Map<String, Duration> getTimings() {
+        return Collections.unmodifiableMap(timings);
+    }
+
+    private String describeTimings() {
+        return stages.keySet().stream()
+                .map(name -> name + "=" + timings.get(name).toMillis() + "ms")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof LoadException loadException) {
+                throw loadException;
+            }
+            throw new LoadException(e.getCause());
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package net.sf.juoserver.model.core;
 
 import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.Passwords;
 import net.sf.juoserver.model.UOItem;
-import net.sf.juoserver.model.UONpcMobile;
-import net.sf.juoserver.protocol.MobileUtils;
-
-import java.io.File;
-import java.io.FileNotFoundException;
+import net.sf.juoserver.model.ai.BehaviourTreeCompiler;
+import net.sf.juoserver.model.ai.TickBudget;
+import net.sf.juoserver.model.npc.NpcTemplateRegistry;
+import net.sf.juoserver.model.persistence.ChangedEntities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -20,6 +28,19 @@ import java.util.stream.Stream;
  * Holds information about everything: tiles, mobiles, etc.
  */
 public final class UOCore implements Core {
+	private static final Logger LOGGER = LoggerFactory.getLogger(UOCore.class);
+	/**
+	 * Startup stage after which logins can be served.
+	 */
+	public static final String ACCOUNTS_STAGE = "accounts";
+	/**
+	 * Startup stage after which the world is loaded.
+	 */
+	public static final String WORLD_STAGE = "spatial index";
+	/**
+	 * Radius, around every mobile, of the walk grid computed at startup.
+	 */
+	private static final int WALK_GRID_PRECOMPUTED_RADIUS = 24;
 	private static final int MOBILES_MAX_SERIAL_ID = 0x3FFFFFFF;
 	//TODO: make this private
 	public static final int ITEMS_MAX_SERIAL_ID = MOBILES_MAX_SERIAL_ID + 1;
@@ -29,76 +50,227 @@ public final class UOCore implements Core {
 	/**
 	 * Currently managed mobiles.
 	 */
-	private final Map<Integer, Mobile> mobilesBySerialId = new HashMap<>();
+	private final Map<Integer, Mobile> mobilesBySerialId = new ConcurrentHashMap<>();
 	
 	/**
 	 * Currently managed items.
 	 */
-	private final Map<Integer, Item> itemsBySerialId = new HashMap<>();
-	private final Map<Item, Container> containersByContainedItems = new HashMap<>();
+	private final Map<Integer, Item> itemsBySerialId = new ConcurrentHashMap<>();
+	private final Map<Item, Container> containersByContainedItems = new ConcurrentHashMap<>();
 	/**
 	 * Items serial
 	 */
 	private final AtomicInteger itemSerial = new AtomicInteger();
-	private final ItemLocator itemLocator;
-
-
 	/**
-	 * The accounts, by username.
+	 * Serial of the next created mobile
 	 */
-	private final Map<String, Account> accounts = new HashMap<>();
-	private final Configuration configuration;
-	private final FileReadersFactory fileReadersFactory;
-	private final DataManager dataManager;
-
+	private final AtomicInteger mobileSerial = new AtomicInteger(1);
 	/**
-	 * Map reader.
+	 * Completed once the world has been loaded.
 	 */
-	private MapFileReader mapReader;
+	private volatile CompletableFuture<Void> worldLoaded = CompletableFuture.completedFuture(null);
+	/**
+	 * Per-facet map data and indices, loaded on demand.
+	 */
+	private final UOFacetManager facetManager;
+
+
+	private final Configuration configuration;
+	private final DataManager dataManager;
 
 	private final AtomicInteger atomicCursor = new AtomicInteger(1);
 	/**
-	 * Config Reader
+	 * NPC templates, read from the configuration
 	 */
-	private ConfigFileReader configFileReader;
+	private final NpcTemplateRegistry npcTemplates;
 
 	/**
 	 * Listener
 	 */
 	private final List<MobileListener> mobileListeners = new ArrayList<>();
+	/**
+	 * Players and items changed since the previous save
+	 */
+	private final ChangedEntities changes = new ChangedEntities();
+	private final AccountStore accounts = new AccountStore(changes);
+	/**
+	 * Characters of the accounts logged in, or logged out not long ago
+	 */
+	private final CharacterCache characterCache;
 
 	public UOCore(FileReadersFactory fileReadersFactory, DataManager dataManager, Configuration configuration, ConfigFileReader configFileReader) {
+		this(fileReadersFactory, dataManager, configuration, configFileReader, TickBudget.UNLIMITED);
+	}
+
+	/**
+	 * @param aiBudget CPU budget per tick of the NPCs behaviour trees
+	 */
+	public UOCore(FileReadersFactory fileReadersFactory, DataManager dataManager, Configuration configuration, ConfigFileReader configFileReader,
+			TickBudget aiBudget) {
 		super();
 		this.configuration = configuration;
-		this.fileReadersFactory = fileReadersFactory;
 		this.dataManager = dataManager;
-		this.configFileReader = configFileReader;
-		this.itemLocator = new UOItemLocator(itemsBySerialId, configuration);
+		this.npcTemplates = new NpcTemplateRegistry(configFileReader, new BehaviourTreeCompiler(aiBudget));
+		this.facetManager = new UOFacetManager(fileReadersFactory, configuration, itemsBySerialId);
+		this.facetManager.setWakeUpListener(this::wakeUp);
+		var files = configuration.getFiles();
+		this.characterCache = new CharacterCache(new Characters(),
+				files != null && (files.getWorldSavePath() != null || files.getWorldDatabaseUrl() != null)
+						? files.getCharacterEvictionDelay() * 1000L : 0);
 	}
 
 	@Override
 	public void init() {
+		startup().await();
+	}
+
+	/**
+	 * Starts loading the core in parallel, as a {@link StartupPipeline} whose
+	 * stages are:
+	 * <ul>
+	 * <li><i>{@value #ACCOUNTS_STAGE}</i>: once done, logins can be served;</li>
+	 * <li><i>tiledata</i>, <i>npc templates</i>, <i>mobiles</i> and
+	 * <i>items</i>: the files and data which depend on nothing else;</li>
+	 * <li><i>map</i> and <i>statics</i>: open the facets where mobiles are;</li>
+	 * <li><i>walk grid</i>: computes the terrain around the mobiles;</li>
+	 * <li><i>world data</i>: registers the loaded mobiles and items, once the
+	 * serials of the characters of the accounts are reserved;</li>
+	 * <li><i>{@value #WORLD_STAGE}</i>: indexes the mobiles and items by
+	 * location, after which the world is loaded.</li>
+	 * </ul>
+	 * Lookups of mobiles and items by serial ID wait for the world to be
+	 * loaded, so that players logging in early just wait a bit.
+	 *
+	 * @return the started pipeline
+	 */
+	public StartupPipeline startup() {
+		// The facets' files are otherwise opened lazily, by the facet manager, the first time a mobile enters them
+		var mulPath = configuration.getFiles().getMulPath();
+		if (mulPath == null || !Files.exists(Path.of(mulPath))) {
+			throw new LoadException("UO folder containing .mul files was not found, have you configured files.mulPath?");
+		}
+
+		var mobiles = new ArrayList<Mobile>();
+		var items = new ArrayList<Item>();
+		var maps = new ConcurrentHashMap<Facet, MapFileReader>();
+		var statics = new ConcurrentHashMap<Facet, Optional<StaticsFileReader>>();
+		var walkGrids = new ConcurrentHashMap<Facet, UOWalkGrid>();
+
+		var executor = Executors.newVirtualThreadPerTaskExecutor();
+		var pipeline = new StartupPipeline(executor)
+				.stage(ACCOUNTS_STAGE, this::loadAccounts)
+				.stage("tiledata", facetManager::getTileData)
+				.stage("npc templates", this::loadNpcTemplates)
+				.stage("mobiles", () -> mobiles.addAll(dataManager.loadMobiles()))
+				.stage("items", () -> items.addAll(dataManager.loadItems()))
+				.stage("map", () -> facetsOf(mobiles).parallel()
+						.forEach(facet -> maps.put(facet, facetManager.openMap(facet))), "mobiles")
+				.stage("statics", () -> facetsOf(mobiles).parallel()
+						.forEach(facet -> statics.put(facet, Optional.ofNullable(facetManager.openStatics(facet)))), "mobiles")
+				.stage("walk grid", () -> maps.keySet().parallelStream().forEach(facet -> {
+					var walkGrid = new UOWalkGrid(facet, maps.get(facet), statics.get(facet).orElse(null),
+							facetManager.getTileData());
+					mobiles.stream()
+							.filter(mobile -> mobile.getFacet() == facet)
+							.forEach(mobile -> walkGrid.precompute(mobile, WALK_GRID_PRECOMPUTED_RADIUS));
+					walkGrids.put(facet, walkGrid);
+				}), "map", "statics", "tiledata")
+				.stage("world data", () -> {
+					for (Mobile mobile : mobiles) {
+						mobilesBySerialId.put(mobile.getSerialId(), mobile);
+						mobileSerial.accumulateAndGet(mobile.getSerialId() + 1, Math::max);
+						registerItems(mobile.getItems().values());
+						if (!mobile.isNpc()) {
+							mobile.trackChanges(changes);
+						}
+					}
+					registerItems(items);
+					itemSerial.set(dataManager.getItemSerial());
+				}, "mobiles", "items", ACCOUNTS_STAGE)
+				.stage(WORLD_STAGE, () -> {
+					// Items first, so that the item locators index all of them once, when installing the facets
+					itemsBySerialId.values().forEach(facetManager::addItem);
+					walkGrids.forEach((facet, walkGrid) ->
+							facetManager.install(facet, maps.get(facet), statics.get(facet).orElse(null), walkGrid));
+					for (Mobile mobile : mobiles) {
+						facetManager.addMobile(mobile);
+						for (MobileListener listener : mobileListeners) {
+							listener.onMobileCreated(mobile);
+						}
+					}
+				}, "world data", "walk grid")
+				.start();
+		worldLoaded = pipeline.getStage(WORLD_STAGE);
+		pipeline.getCompletion().whenComplete((result, error) -> executor.shutdown());
+		return pipeline;
+	}
+
+	/**
+	 * Starts loading the accounts only, as the {@value #ACCOUNTS_STAGE} stage
+	 * of a {@link StartupPipeline}, for the processes serving the logins only,
+	 * which never play the world.
+	 *
+	 * @return the started pipeline
+	 */
+	public StartupPipeline startupAccounts() {
+		var executor = Executors.newSingleThreadExecutor();
+		var pipeline = new StartupPipeline(executor)
+				.stage(ACCOUNTS_STAGE, this::loadAccounts)
+				.start();
+		pipeline.getCompletion().whenComplete((result, error) -> executor.shutdown());
+		return pipeline;
+	}
+
+	private void loadAccounts() {
+		dataManager.loadAccounts().forEach(accounts::add);
+		// The characters may only be loaded on login, their serials must not be given to the NPCs meanwhile
+		for (int serial : accounts.characterSerials()) {
+			mobileSerial.accumulateAndGet(serial + 1, Math::max);
+		}
+	}
+
+	private static Stream<Facet> facetsOf(Collection<Mobile> mobiles) {
+		return mobiles.stream().map(Mobile::getFacet).distinct();
+	}
+
+	private void loadNpcTemplates() {
+		npcTemplates.reload();
 		try {
-			// TODO: coordinate the map index (the '0') with the number that we provide when we send
-			// the GeneralInformationSetCursorHueSetMap message.
-			var mulPath = configuration.getFiles().getMulPath();
-			if (mulPath == null || !Files.exists(Path.of(mulPath))) {
-				throw new LoadException("UO folder containing .mul files was not found, have you configured files.mulPath?");
-			}
-			mapReader = fileReadersFactory.createMapFileReader(new File(mulPath + File.separator + "map0.mul"), 4096);
-		} catch (FileNotFoundException e) {
-			throw new LoadException(e);
+			npcTemplates.watch();
+		} catch (IOException e) {
+			LOGGER.warn("NPC templates won't be reloaded on changes", e);
 		}
-		
-		loadData();
 	}
 
-	private void addItems(Point2D mob, Collection<? extends Item> items) {
+	private void awaitWorld() {
+		if (!worldLoaded.isDone()) {
+			worldLoaded.join();
+		}
+	}
+
+	/**
+	 * @return the manager of the facets' data, which must be scheduled in order
+	 *         to release the facets not in use
+	 */
+	public UOFacetManager getFacetManager() {
+		return facetManager;
+	}
+
+	/**
+	 * @return the cache of the characters in memory, which must be scheduled
+	 *         in order to evict the characters of the accounts logged out
+	 */
+	public CharacterCache getCharacterCache() {
+		return characterCache;
+	}
+
+	private void registerItems(Collection<? extends Item> items) {
 		for (Item it : items) {
-			addItem(it);
+			itemsBySerialId.put(it.getSerialId(), it);
+			it.trackChanges(changes);
 			if (it instanceof Container) {
 				Container container = (Container) it;
-				addItems(mob, container.getItems());
+				registerItems(container.getItems());
 				for (Item item : container.getItems()) {
 					containersByContainedItems.put(item, container);
 				}
@@ -106,56 +278,52 @@ public final class UOCore implements Core {
 		}
 	}
 
+	private static void forEachItem(Collection<? extends Item> items, Consumer<Item> action) {
+		for (Item item : items) {
+			action.accept(item);
+			if (item instanceof Container container) {
+				forEachItem(container.getItems(), action);
+			}
+		}
+	}
+
 	private void addItem(Item item) {
 		itemsBySerialId.put(item.getSerialId(), item);
-		item.addPropertyChangeListener(itemLocator);
+		facetManager.addItem(item);
+		item.trackChanges(changes);
+		changes.changed(item);
 	}
 
 	private void removeItem(Item item) {
-		item.removePropertyChangeListener(itemLocator);
+		facetManager.removeItem(item);
 		itemsBySerialId.remove(item.getSerialId());
+		changes.removed(item);
 	}
 
 	private void addMobile(Mobile mobile) {
 		this.mobilesBySerialId.put(mobile.getSerialId(), mobile);
+		facetManager.addMobile(mobile);
 		for (MobileListener listener : mobileListeners) {
 			listener.onMobileCreated(mobile);
 		}
 	}
 
-	private void loadData() {
-
-		for (Mobile mobile : dataManager.loadMobiles()) {
-			addMobile(mobile);
-		}
-		
-		for (Account account : dataManager.loadAccounts()) {
-			accounts.put(account.getUsername(), account);
-		}
-		
-		for (Mobile mob : mobilesBySerialId.values()) {
-			addItems(mob, mob.getItems().values());
-		}
-
-		addItems(null, dataManager.loadItems());
-		itemSerial.set(dataManager.getItemSerial());
-
-		itemLocator.init();
-	}
-	
 	/**
 	 * Retrieves the map tile definition of the given coordinates.
 	 * 
+	 * @param facet facet
 	 * @param x X coordinate
 	 * @param y Y coordinate
 	 * @return the map tile definition of the given coordinates
 	 */
 	@Override
-	public MapTile getTile(final int x, final int y) {
-		return mapReader.getEntryAt(new MapLocation() {
-			@Override public int getX() { return x; }
-			@Override public int getY() { return y; }
-		});
+	public MapTile getTile(Facet facet, final int x, final int y) {
+		return facetManager.getTile(facet, x, y);
+	}
+
+	@Override
+	public WalkGrid getWalkGrid(Facet facet) {
+		return facetManager.getWalkGrid(facet);
 	}
 	
 	@Override
@@ -163,22 +331,35 @@ public final class UOCore implements Core {
 		if (!isMobile(serialID)) {
 			return null;
 		}
+		awaitWorld();
 		return mobilesBySerialId.get(serialID);
 	}
 
 	@Override
 	public void removeMobile(Mobile mobile) {
 		mobilesBySerialId.remove(mobile.getSerialId());
+		facetManager.removeMobile(mobile);
 		for (MobileListener listener : mobileListeners) {
 			listener.onMobileRemoved(mobile);
 		}
 	}
 
+	@Override
+	public CompletableFuture<Void> loadCharacters(Account account) {
+		return characterCache.acquire(account);
+	}
+
+	@Override
+	public void releaseCharacters(Account account) {
+		characterCache.release(account);
+	}
+
 	@Override
 	public Item findItemByID(int serialID) {
 		if (!isItem(serialID)) {
 			return null;
 		}
+		awaitWorld();
 		return itemsBySerialId.get(serialID);
 	}
 	
@@ -200,11 +381,17 @@ public final class UOCore implements Core {
 	 */
 	@Override
 	public Account findAccountByUsername(String username) {
-		return accounts.get(username);
+		return accounts.findByUsername(username);
+	}
+
+	@Override
+	public Account registerAccount(String username, String password) {
+		return accounts.register(username, password);
 	}
 	
 	/**
-	 * Attempts to authenticate the given account with the specified password.
+	 * Attempts to authenticate the given account with the specified password,
+	 * hashing the password of the account if still in plaintext.
 	 * 
 	 * @param account account
 	 * @param password password
@@ -213,7 +400,14 @@ public final class UOCore implements Core {
 	 */
 	@Override
 	public boolean authenticate(Account account, String password) {
-		return password != null && password.equals( account.getPassword() ); 
+		String stored = account.getPassword();
+		if (!Passwords.matches(password, stored)) {
+			return false;
+		}
+		if (!Passwords.isHashed(stored)) {
+			account.setPassword(Passwords.hash(password));
+		}
+		return true;
 	}
 
 	@Override
@@ -239,46 +433,68 @@ public final class UOCore implements Core {
 	}
 
 	@Override
-	public Collection<Item> findItemsByDirection(Point2D myLocation, Direction direction, int distanceFromMe) {
-		return itemLocator.findItemsByDirection(myLocation, direction, distanceFromMe)
+	public Collection<Item> findItemsByDirection(Facet facet, Point2D myLocation, Direction direction, int distanceFromMe) {
+		return facetManager.getItemLocator(facet).findItemsByDirection(myLocation, direction, distanceFromMe)
 				.collect(Collectors.toList());
 	}
 
 	@Override
-	public Collection<Item> findItemsInRegion(Point2D location, int distance) {
-		return itemLocator.findItemsInRegion(location, distance)
+	public Collection<Item> findItemsInRegion(Facet facet, Point2D location, int distance) {
+		return facetManager.getItemLocator(facet).findItemsInRegion(location, distance)
 				.collect(Collectors.toList());
 	}
 
 	@Override
-	public NpcMobile createNpcAtLocation(int templateId, Point3D location) {
-		var mobile = (UONpcMobile) configFileReader.loadNpcs()
-				.stream()
-				.filter(npc->npc.getTemplateId() == templateId)
-				.findFirst()
-				.orElseThrow();
-		mobile.setSerialId(itemSerial.getAndIncrement());
-		mobile.setLocation(location);
-		mobile.setStatusFlag(StatusFlag.UOML);
-		mobile.setRaceFlag(RaceFlag.Human);
-		mobile.setSexRace(SexRace.MaleHuman);
-		mobile.setCurrentHitPoints(mobile.getMaxHitPoints());
-		addMobile(mobile);
-		return mobile;
+	public NpcMobile createNpcAtLocation(int templateId, Facet facet, Point3D location) {
+		return createNpcs(templateId, facet, List.of(location)).get(0);
 	}
 
 	@Override
-	public Collection<Mobile> findNpcInRange(Point2D location) {
-		return mobilesBySerialId.values()
-				.stream()
-				.filter(mobile-> mobile.isNpc() && MobileUtils.getDistance(location, mobile) < configuration.getClient().getLos())
+	public List<NpcMobile> createNpcs(int templateId, Facet facet, List<? extends Point3D> locations) {
+		var template = npcTemplates.get(templateId);
+		if (template == null) {
+			throw new NoSuchElementException("No NPC template " + templateId);
+		}
+		int firstSerial = reserveMobileSerials(locations.size());
+		var npcs = new ArrayList<NpcMobile>(locations.size());
+		for (int i = 0; i < locations.size(); i++) {
+			var mobile = template.newMobile();
+			mobile.setSerialId(firstSerial + i);
+			mobile.setLocation(locations.get(i));
+			mobile.setFacet(facet);
+			mobile.setStatusFlag(StatusFlag.UOML);
+			mobile.setRaceFlag(RaceFlag.Human);
+			mobile.setSexRace(SexRace.MaleHuman);
+			mobile.setCurrentHitPoints(mobile.getMaxHitPoints());
+			addMobile(mobile);
+			npcs.add(mobile);
+		}
+		return npcs;
+	}
+
+	private int reserveMobileSerials(int count) {
+		int first = mobileSerial.getAndAdd(count);
+		if (first < 0 || first > MOBILES_MAX_SERIAL_ID - count + 1) {
+			throw new IllegalStateException("No mobile serial IDs left for " + count + " mobiles");
+		}
+		return first;
+	}
+
+	@Override
+	public Collection<Mobile> findNpcInRange(Facet facet, Point2D location) {
+		return findMobilesInRange(facet, location)
+				.filter(Mobile::isNpc)
 				.collect(Collectors.toList());
 	}
 
 	@Override
-	public Stream<Mobile> findMobilesInRange(Point2D location) {
-		return mobilesBySerialId.values().stream()
-				.filter(mobile-> MobileUtils.getDistance(location, mobile) < configuration.getClient().getLos());
+	public Stream<Mobile> findMobilesInRange(Facet facet, Point2D location) {
+		return facetManager.findMobilesInRange(facet, location, configuration.getClient().getLos());
+	}
+
+	@Override
+	public void forEachMobileInRange(Facet facet, Point2D location, int distance, Consumer<Mobile> action) {
+		facetManager.forEachMobileInRange(facet, location, distance, action);
 	}
 
 	@Override
@@ -294,6 +510,150 @@ public final class UOCore implements Core {
 		return atomicCursor.getAndIncrement();
 	}
 
+	@Override
+	public void activateAround(Mobile player) {
+		facetManager.activateAround(player);
+	}
+
+	@Override
+	public void deactivateAround(Mobile player) {
+		facetManager.deactivateAround(player);
+	}
+
+	@Override
+	public boolean isDormant(Facet facet, Point2D location) {
+		return facetManager.isDormant(facet, location);
+	}
+
+	private void wakeUp(Mobile mobile) {
+		for (MobileListener listener : mobileListeners) {
+			listener.onMobileAwakened(mobile);
+		}
+	}
+
+	@Override
+	public CompletableFuture<SaveStats> saveWorld() {
+		awaitWorld();
+		int save = characterCache.saveCaptured();
+		var drained = changes.drain(itemSerial.get()); // Saved anyway, the removals along
+		var players = new ArrayList<Mobile>();
+		var worn = new HashSet<Item>();
+		for (Mobile mobile : mobilesBySerialId.values()) {
+			worn.addAll(mobile.getItems().values());
+			if (!mobile.isNpc()) {
+				players.add(mobile);
+			}
+		}
+		var groundItems = itemsBySerialId.values().parallelStream()
+				.filter(item -> !worn.contains(item) && !containersByContainedItems.containsKey(item))
+				.toList();
+		if (!isAnyCharacterOnDisk()) {
+			return save(save, WorldChanges.full(players, accounts.all(), groundItems, itemSerial.get()), null);
+		}
+		// Saved as changes, so that the characters left on disk are kept
+		return save(save, new WorldChanges(false, players, accounts.all(), groundItems, drained.removedMobiles(),
+				drained.removedItems(), itemSerial.get()), drained);
+	}
+
+	private boolean isAnyCharacterOnDisk() {
+		for (int serial : accounts.characterSerials()) {
+			if (!mobilesBySerialId.containsKey(serial)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public CompletableFuture<SaveStats> saveChanges() {
+		awaitWorld();
+		int save = characterCache.saveCaptured();
+		var drained = changes.drain(itemSerial.get());
+		return save(save, drained, drained);
+	}
+
+	/**
+	 * @param save number of the save, see {@link CharacterCache#saveCaptured()}
+	 * @param world what to save
+	 * @param drained changes to take back if the save fails, <tt>null</tt> if
+	 *                the next save saves the whole world anyway
+	 */
+	private CompletableFuture<SaveStats> save(int save, WorldChanges world, WorldChanges drained) {
+		var saved = dataManager.save(world);
+		saved.whenComplete((stats, error) -> {
+			if (error == null) {
+				characterCache.saveWritten(save);
+			} else if (drained != null) {
+				changes.restore(drained);
+			}
+		});
+		return saved;
+	}
+
+	@Override
+	public CompletableFuture<SaveStats> journalChanges() {
+		awaitWorld();
+		return dataManager.journal(changes.drainJournal(itemSerial.get()));
+	}
+
+	/**
+	 * The characters entering and leaving the world for the
+	 * {@link CharacterCache}.
+	 */
+	private final class Characters implements CharacterCache.World {
+		@Override
+		public CompletableFuture<List<Mobile>> load(Account account) {
+			return worldLoaded.thenCompose(loaded -> {
+				var missing = account.getCharactersSerials().stream()
+						.filter(serial -> !mobilesBySerialId.containsKey(serial))
+						.toList();
+				return missing.isEmpty() ? CompletableFuture.completedFuture(List.<Mobile>of())
+						: dataManager.loadCharacters(missing);
+			}).thenApply(loaded -> {
+				for (Mobile mobile : loaded) {
+					mobileSerial.accumulateAndGet(mobile.getSerialId() + 1, Math::max);
+					registerItems(mobile.getItems().values());
+					forEachItem(mobile.getItems().values(), facetManager::addItem);
+					mobile.trackChanges(changes);
+					addMobile(mobile);
+				}
+				return account.getCharactersSerials().stream()
+						.map(mobilesBySerialId::get)
+						.filter(Objects::nonNull)
+						.toList();
+			});
+		}
+
+		@Override
+		public void enter(List<Mobile> characters) {
+			characters.forEach(UOCore.this::addMobile);
+		}
+
+		@Override
+		public void leave(List<Mobile> characters) {
+			for (Mobile mobile : characters) {
+				facetManager.removeMobile(mobile);
+				for (MobileListener listener : mobileListeners) {
+					listener.onMobileRemoved(mobile);
+				}
+			}
+		}
+
+		@Override
+		public void unload(List<Mobile> characters) {
+			for (Mobile mobile : characters) {
+				mobilesBySerialId.remove(mobile.getSerialId());
+				mobile.trackChanges(ChangeTracker.NONE);
+				forEachItem(mobile.getItems().values(), item -> {
+					itemsBySerialId.remove(item.getSerialId());
+					containersByContainedItems.remove(item);
+					facetManager.removeItem(item);
+					item.trackChanges(ChangeTracker.NONE);
+				});
+			}
+		}
+	}
+
 	@Override
 	public void addMobileListener(MobileListener listener) {
 		this.mobileListeners.add(listener);
@@ -0,0 +1,75 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.Facet;
+import net.sf.juoserver.api.MapFileReader;
+import net.sf.juoserver.api.StaticsFileReader;
+
+/**
+ * Everything loaded in memory for a single facet: the map and statics
+ * readers, the walk grid, the mobiles and items indices and the sectors
+ * activation.
+ */
+final class UOFacet {
+    private final Facet facet;
+    private final MapFileReader mapReader;
+    private final StaticsFileReader staticsReader;
+    private final UOWalkGrid walkGrid;
+    private final MobileSectorIndex mobiles;
+    private final UOItemLocator items;
+    private final SectorActivation activation;
+    private volatile long lastUsed;
+
+    UOFacet(Facet facet, MapFileReader mapReader, StaticsFileReader staticsReader, UOWalkGrid walkGrid,
+            UOItemLocator items, int activationSectors, long now) {
+        this.facet = facet;
+        this.mapReader = mapReader;
+        this.staticsReader = staticsReader;
+        this.walkGrid = walkGrid;
+        this.mobiles = new MobileSectorIndex(facet);
+        this.items = items;
+        this.activation = new SectorActivation(facet, activationSectors);
+        this.lastUsed = now;
+    }
+
+    Facet getFacet() {
+        return facet;
+    }
+
+    MapFileReader getMapReader() {
+        return mapReader;
+    }
+
+    StaticsFileReader getStaticsReader() {
+        return staticsReader;
+    }
+
+    UOWalkGrid getWalkGrid() {
+        return walkGrid;
+    }
+
+    MobileSectorIndex getMobiles() {
+        return mobiles;
+    }
+
+    UOItemLocator getItems() {
+        return items;
+    }
+
+    SectorActivation getActivation() {
+        return activation;
+    }
+
+    void touch(long now) {
+        lastUsed = now;
+    }
+
+    /**
+     * @param now current time, in milliseconds
+     * @param timeout milliseconds a facet must stay empty to be idle
+     * @return <tt>true</tt> if and only if no mobile is in this facet and
+     *         nothing used it for the given time
+     */
+    boolean isIdle(long now, long timeout) {
+        return mobiles.size() == 0 && now - lastUsed >= timeout;
+    }
+}
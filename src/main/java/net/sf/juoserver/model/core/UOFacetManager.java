@@ -0,0 +1,416 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.protocol.MobileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Keeps in memory the data of the facets actually in use.
+ * <p/>
+ * A facet ({@link UOFacet}: map and statics readers, walk grid, mobiles and
+ * items indices) is loaded the first time a mobile enters it, or the first
+ * time its terrain is queried, and is released once no mobile has been in it,
+ * and nobody has queried it, for the configured
+ * {@link Configuration.FacetConfiguration#getEmptyTimeout() timeout}; the
+ * release check runs as a {@link SubSystem}.
+ * <p/>
+ * This manager listens to the mobiles and items property changes to keep the
+ * indices up to date.
+ * <p/>
+ * Players in game activate the sectors within
+ * {@link Configuration.NpcConfiguration#getActivationSectors()} sectors of
+ * their own; the AI of the NPCs in the other sectors is dormant, and the
+ * mobiles of the sectors becoming active are notified to the wake-up
+ * listener.
+ */
+public final class UOFacetManager implements SubSystem, PropertyChangeListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UOFacetManager.class);
+
+    private final FileReadersFactory fileReadersFactory;
+    private final Configuration configuration;
+    private final Map<Integer, Item> itemsBySerialId;
+    private final LongSupplier clock;
+    private final Map<Facet, UOFacet> facets = new ConcurrentHashMap<>();
+    private final Set<Mobile> activators = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<Mobile> wakeUpListener = mobile -> { };
+    private volatile TileDataFileReader tileData;
+
+    public UOFacetManager(FileReadersFactory fileReadersFactory, Configuration configuration,
+                          Map<Integer, Item> itemsBySerialId) {
+        this(fileReadersFactory, configuration, itemsBySerialId, System::currentTimeMillis);
+    }
+
+    UOFacetManager(FileReadersFactory fileReadersFactory, Configuration configuration,
+                   Map<Integer, Item> itemsBySerialId, LongSupplier clock) {
+        this.fileReadersFactory = fileReadersFactory;
+        this.configuration = configuration;
+        this.itemsBySerialId = itemsBySerialId;
+        this.clock = clock;
+    }
+
+    /**
+     * Releases the facets which have been empty for longer than the
+     * configured timeout.
+     */
+    @Override
+    public void execute(long uptime) {
+        var timeout = configuration.getFacet().getEmptyTimeout() * 1000L;
+        var now = clock.getAsLong();
+        for (Facet facet : facets.keySet()) {
+            var released = new boolean[1];
+            facets.computeIfPresent(facet, (f, data) -> {
+                released[0] = data.isIdle(now, timeout);
+                return released[0] ? null : data;
+            });
+            if (released[0]) {
+                LOGGER.info("Facet {} released after {} seconds without mobiles, facets in memory: {}",
+                        facet, timeout / 1000, getLoadedFacets());
+            }
+        }
+    }
+
+    /**
+     * @return the facets currently in memory
+     */
+    public Set<Facet> getLoadedFacets() {
+        var loaded = EnumSet.noneOf(Facet.class);
+        loaded.addAll(facets.keySet());
+        return Collections.unmodifiableSet(loaded);
+    }
+
+    public MapTile getTile(Facet facet, int x, int y) {
+        return acquire(facet).getMapReader().getEntryAt(new MapLocation() {
+            @Override public int getX() { return x; }
+            @Override public int getY() { return y; }
+        });
+    }
+
+    public WalkGrid getWalkGrid(Facet facet) {
+        return acquire(facet).getWalkGrid();
+    }
+
+    public ItemLocator getItemLocator(Facet facet) {
+        return acquire(facet).getItems();
+    }
+
+    /**
+     * Finds the mobiles of a facet within the given distance of a location.
+     *
+     * @param facet facet
+     * @param location center of the search
+     * @param distance maximum distance (exclusive)
+     * @return the mobiles found
+     */
+    public Stream<Mobile> findMobilesInRange(Facet facet, Point2D location, int distance) {
+        var data = facets.get(facet);
+        if (data == null) {
+            return Stream.empty(); // No mobiles in unloaded facets
+        }
+        return data.getMobiles().getCandidates(location, distance).stream()
+                .filter(mobile -> MobileUtils.getDistance(location, mobile) < distance);
+    }
+
+    /**
+     * Visits the mobiles of a facet within the given distance of a location,
+     * without collecting them.
+     *
+     * @param facet facet
+     * @param location center of the search
+     * @param distance maximum distance (exclusive)
+     * @param action action to be performed on every mobile found
+     */
+    public void forEachMobileInRange(Facet facet, Point2D location, int distance, Consumer<Mobile> action) {
+        var data = facets.get(facet);
+        if (data != null) {
+            data.getMobiles().forEachCandidate(location, distance, mobile -> {
+                if (MobileUtils.getDistance(location, mobile) < distance) {
+                    action.accept(mobile);
+                }
+            });
+        }
+    }
+
+    /**
+     * Starts tracking a mobile, loading its facet if needed.
+     *
+     * @param mobile mobile
+     */
+    public void addMobile(Mobile mobile) {
+        enter(mobile, mobile.getFacet());
+        mobile.addPropertyChangeListener(this);
+    }
+
+    public void removeMobile(Mobile mobile) {
+        mobile.removePropertyChangeListener(this);
+        deactivateAround(mobile);
+        leave(mobile, mobile.getFacet());
+    }
+
+    /**
+     * Starts activating the sectors around a player in game; the player must
+     * be tracked, see {@link #addMobile(Mobile)}.
+     *
+     * @param player player's mobile
+     */
+    public void activateAround(Mobile player) {
+        if (activators.add(player)) {
+            activate(acquire(player.getFacet()), player);
+        }
+    }
+
+    /**
+     * Stops activating the sectors around a player.
+     *
+     * @param player player's mobile
+     */
+    public void deactivateAround(Mobile player) {
+        if (activators.remove(player)) {
+            var data = facets.get(player.getFacet());
+            if (data != null) {
+                data.getActivation().deactivate(player);
+            }
+        }
+    }
+
+    /**
+     * @param facet facet
+     * @param location location
+     * @return <tt>true</tt> if and only if no player is close enough to the
+     *         location to keep its NPCs awake; always <tt>false</tt> when
+     *         dormancy is disabled
+     */
+    public boolean isDormant(Facet facet, Point2D location) {
+        if (configuration.getNpc().getActivationSectors() <= 0) {
+            return false;
+        }
+        var data = facets.get(facet);
+        return data == null || !data.getActivation().isActive(location.getX(), location.getY());
+    }
+
+    /**
+     * @param listener receives the mobiles standing in the sectors becoming
+     *                 active
+     */
+    void setWakeUpListener(Consumer<Mobile> listener) {
+        this.wakeUpListener = listener;
+    }
+
+    /**
+     * Starts tracking an item, indexing it if its facet is loaded (otherwise
+     * it will be indexed when the facet is).
+     *
+     * @param item item
+     */
+    public void addItem(Item item) {
+        item.addPropertyChangeListener(this);
+        var data = facets.get(item.getFacet());
+        if (data != null) {
+            data.getItems().index(item);
+        }
+    }
+
+    public void removeItem(Item item) {
+        item.removePropertyChangeListener(this);
+        var data = facets.get(item.getFacet());
+        if (data != null) {
+            data.getItems().unindex(item);
+        }
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (evt.getSource() instanceof Mobile mobile) {
+            mobileChanged(mobile, evt);
+        } else if (evt.getSource() instanceof Item item) {
+            itemChanged(item, evt);
+        }
+    }
+
+    private void mobileChanged(Mobile mobile, PropertyChangeEvent evt) {
+        switch (evt.getPropertyName()) {
+            case "location" -> {
+                var data = facets.get(mobile.getFacet());
+                if (data != null) {
+                    data.getMobiles().move(mobile, (Point2D) evt.getOldValue(), (Point2D) evt.getNewValue());
+                    if (activators.contains(mobile)) {
+                        data.getActivation().move((Point2D) evt.getOldValue(), (Point2D) evt.getNewValue(),
+                                sector -> data.getMobiles().forEachInSector(sector, wakeUpListener));
+                    }
+                }
+            }
+            case "facet" -> {
+                var activator = activators.contains(mobile);
+                var oldData = facets.get((Facet) evt.getOldValue());
+                if (activator && oldData != null) {
+                    oldData.getActivation().deactivate(mobile);
+                }
+                leave(mobile, (Facet) evt.getOldValue());
+                enter(mobile, (Facet) evt.getNewValue());
+                if (activator) {
+                    activate(facets.get((Facet) evt.getNewValue()), mobile);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private void itemChanged(Item item, PropertyChangeEvent evt) {
+        switch (evt.getPropertyName()) {
+            case "location" -> {
+                var data = facets.get(item.getFacet());
+                if (data != null) {
+                    data.getItems().propertyChange(evt);
+                }
+            }
+            case "facet" -> {
+                var oldData = facets.get((Facet) evt.getOldValue());
+                if (oldData != null) {
+                    oldData.getItems().unindex(item);
+                }
+                var newData = facets.get((Facet) evt.getNewValue());
+                if (newData != null) {
+                    newData.getItems().index(item);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private void enter(Mobile mobile, Facet facet) {
+        facets.compute(facet, (f, data) -> {
+            var facetData = data == null ? load(f) : data;
+            facetData.getMobiles().add(mobile);
+            return facetData;
+        });
+    }
+
+    private void activate(UOFacet data, Mobile player) {
+        data.getActivation().activate(player, sector -> data.getMobiles().forEachInSector(sector, wakeUpListener));
+    }
+
+    private void leave(Mobile mobile, Facet facet) {
+        var data = facets.get(facet);
+        if (data != null) {
+            data.getMobiles().remove(mobile);
+            data.touch(clock.getAsLong());
+        }
+    }
+
+    private UOFacet acquire(Facet facet) {
+        var data = facets.computeIfAbsent(facet, this::load);
+        data.touch(clock.getAsLong());
+        return data;
+    }
+
+    /**
+     * Installs the data of a facet loaded beforehand, e.g., by the startup
+     * pipeline; does nothing if the facet is already loaded.
+     *
+     * @param facet facet
+     * @param mapReader map reader, see {@link #openMap(Facet)}
+     * @param staticsReader statics reader, see {@link #openStatics(Facet)}
+     * @param walkGrid walk grid
+     */
+    void install(Facet facet, MapFileReader mapReader, StaticsFileReader staticsReader, UOWalkGrid walkGrid) {
+        facets.computeIfAbsent(facet, f -> create(f, mapReader, staticsReader, walkGrid, Instant.now()));
+    }
+
+    private UOFacet load(Facet facet) {
+        var initialInstant = Instant.now();
+        var mapReader = openMap(facet);
+        var staticsReader = openStatics(facet);
+        return create(facet, mapReader, staticsReader, new UOWalkGrid(facet, mapReader, staticsReader, getTileData()),
+                initialInstant);
+    }
+
+    private UOFacet create(Facet facet, MapFileReader mapReader, StaticsFileReader staticsReader, UOWalkGrid walkGrid,
+                           Instant initialInstant) {
+        var items = new UOItemLocator(facet, itemsBySerialId, configuration);
+        items.init();
+
+        var data = new UOFacet(facet, mapReader, staticsReader, walkGrid, items,
+                configuration.getNpc().getActivationSectors(), clock.getAsLong());
+        LOGGER.info("Facet {} loaded in {} millis, facets in memory: {}", facet,
+                Duration.between(initialInstant, Instant.now()).toMillis(), facets.size() + 1);
+        return data;
+    }
+
+    /**
+     * Opens the map of a facet, preferring the UOP container when available.
+     *
+     * @param facet facet
+     * @return the map reader
+     * @throws LoadException if the map file could not be found
+     */
+    MapFileReader openMap(Facet facet) {
+        var mulPath = configuration.getFiles().getMulPath();
+        var index = facet.getCode();
+        try {
+            var uopMapFile = new File(mulPath, "map" + index + "LegacyMUL.uop");
+            if (uopMapFile.exists()) {
+                return fileReadersFactory.createUopMapFileReader(uopMapFile, index, facet.getHeight());
+            }
+            return fileReadersFactory.createMapFileReader(new File(mulPath, "map" + index + ".mul"), facet.getHeight());
+        } catch (FileNotFoundException e) {
+            throw new LoadException(e);
+        }
+    }
+
+    /**
+     * Opens the statics of a facet.
+     *
+     * @param facet facet
+     * @return the statics reader, or <tt>null</tt> if the facet has no statics
+     */
+    StaticsFileReader openStatics(Facet facet) {
+        var mulPath = configuration.getFiles().getMulPath();
+        var index = facet.getCode();
+        var staticsIdxFile = new File(mulPath, "staidx" + index + ".mul");
+        var staticsFile = new File(mulPath, "statics" + index + ".mul");
+        if (!staticsIdxFile.exists() || !staticsFile.exists()) {
+            LOGGER.warn("No statics found for facet {}, only the land will be walkable", facet);
+            return null;
+        }
+        try {
+            return fileReadersFactory.createStaticsFileReader(staticsIdxFile, staticsFile, facet.getHeight());
+        } catch (FileNotFoundException e) {
+            throw new LoadException(e);
+        }
+    }
+
+    /**
+     * @return the tile data, shared by every facet and read only once
+     * @throws LoadException if the tile data file could not be found
+     */
+    TileDataFileReader getTileData() {
+        if (tileData == null) {
+            synchronized (this) {
+                if (tileData == null) {
+                    try {
+                        tileData = fileReadersFactory.createTileDataFileReader(
+                                new File(configuration.getFiles().getMulPath(), "tiledata.mul"));
+                    } catch (FileNotFoundException e) {
+                        throw new LoadException(e);
+                    }
+                }
+            }
+        }
+        return tileData;
+    }
+}
@@ -16,11 +16,23 @@ import java.util.stream.Stream;
 
 public class UOItemLocator implements ItemLocator {
     private static final Logger LOGGER = LoggerFactory.getLogger(UOItemLocator.class);
+    private final Facet facet;
     private final Map<Integer, Item> itemsBySerialId;
     private final Configuration configuration;
     private final Map<Point2D, Set<Item>> itemsByLocation;
 
     public UOItemLocator(Map<Integer, Item> itemsBySerialId, Configuration configuration) {
+        this(Facet.Felucca, itemsBySerialId, configuration);
+    }
+
+    /**
+     * @param facet the facet whose items are indexed; items lying on other
+     *              facets are ignored
+     * @param itemsBySerialId all the items
+     * @param configuration configuration
+     */
+    public UOItemLocator(Facet facet, Map<Integer, Item> itemsBySerialId, Configuration configuration) {
+        this.facet = facet;
         this.itemsBySerialId = itemsBySerialId;
         this.configuration = configuration;
         this.itemsByLocation = new HashMap<>();
@@ -34,13 +46,35 @@ public class UOItemLocator implements ItemLocator {
         var initialInstant = Instant.now();
 
         var grouped = itemsBySerialId.values().parallelStream()
+                .filter(item -> item.getFacet() == facet)
                 .flatMap(item->Stream.of(new AbstractMap.SimpleEntry<>(new Position(item.getX(), item.getY()), item)))
                 .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.mapping(Map.Entry::getValue, Collectors.toSet())));
         this.itemsByLocation.putAll(grouped);
 
         var finalInstant = Instant.now();
-        var numberOfItems = itemsBySerialId.keySet().size();
-        LOGGER.info("{} items indexed in {} millis", numberOfItems, Duration.between(initialInstant, finalInstant).toMillis());
+        var numberOfItems = grouped.values().stream().mapToInt(Set::size).sum();
+        LOGGER.info("{} items of {} indexed in {} millis", numberOfItems, facet, Duration.between(initialInstant, finalInstant).toMillis());
+    }
+
+    /**
+     * Adds an item (e.g., just created or moved to this facet) to the index.
+     *
+     * @param item item
+     */
+    void index(Item item) {
+        itemsByLocation.computeIfAbsent(new Position(item.getX(), item.getY()), location -> new HashSet<>()).add(item);
+    }
+
+    /**
+     * Removes an item (e.g., deleted or moved to another facet) from the index.
+     *
+     * @param item item
+     */
+    void unindex(Item item) {
+        itemsByLocation.computeIfPresent(new Position(item.getX(), item.getY()), (location, items) -> {
+            items.remove(item);
+            return items.isEmpty() ? null : items;
+        });
     }
 
     @Override
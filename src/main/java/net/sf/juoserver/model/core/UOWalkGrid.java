@@ -0,0 +1,137 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link WalkGrid} computed from the map, statics and tile data files.
+ * <p/>
+ * Walkability is computed lazily, one 8x8 map block at a time, the first time
+ * any of its cells is queried: the 64 cells of a block fit in a single
+ * <tt>long</tt> (bit <tt>(y % 8) * 8 + (x % 8)</tt> set = blocked), and a
+ * further bitset tells which blocks have already been computed. Concurrent
+ * queries of a block being computed just compute it again, with the same
+ * result.
+ * <p/>
+ * A cell is considered walkable when:
+ * <ul>
+ * <li>its land tile is passable, or a <i>surface</i> static (floor, bridge,
+ * ...) lies on it, and</li>
+ * <li>no <i>impassable</i> static overlaps the space a mobile standing on the
+ * ground (or on the highest surface) would take.</li>
+ * </ul>
+ * Only one walking level per cell is considered.
+ */
+final class UOWalkGrid implements WalkGrid {
+    /**
+     * Vertical space taken by a standing mobile.
+     */
+    static final int PERSON_HEIGHT = 16;
+
+    private final Facet facet;
+    private final MapFileReader mapReader;
+    private final StaticsFileReader staticsReader;
+    private final TileDataFileReader tileData;
+    private final int blocksHigh;
+    private final long[] blocked;
+    private final AtomicLongArray computed;
+
+    UOWalkGrid(Facet facet, MapFileReader mapReader, StaticsFileReader staticsReader, TileDataFileReader tileData) {
+        this.facet = facet;
+        this.mapReader = mapReader;
+        this.staticsReader = staticsReader;
+        this.tileData = tileData;
+        this.blocksHigh = facet.getHeight() / 8;
+        int blocks = facet.getWidth() / 8 * blocksHigh;
+        this.blocked = new long[blocks];
+        this.computed = new AtomicLongArray((blocks + 63) / 64);
+    }
+
+    @Override
+    public Facet getFacet() {
+        return facet;
+    }
+
+    @Override
+    public boolean isWalkable(int x, int y) {
+        if (!facet.contains(x, y)) {
+            return false;
+        }
+        int block = (x / 8) * blocksHigh + y / 8;
+        if ((computed.get(block >>> 6) & (1L << block)) == 0) {
+            compute(x / 8, y / 8, block);
+        }
+        return (blocked[block] & (1L << ((y % 8) * 8 + x % 8))) == 0;
+    }
+
+    /**
+     * Computes in advance the blocks within the given radius of a location,
+     * so that the first moves around it don't pay for reading the files.
+     *
+     * @param center center of the area
+     * @param radius area radius, in cells
+     */
+    void precompute(Point2D center, int radius) {
+        int fromX = Math.max(0, center.getX() - radius) / 8;
+        int toX = Math.min(facet.getWidth() - 1, center.getX() + radius) / 8;
+        int fromY = Math.max(0, center.getY() - radius) / 8;
+        int toY = Math.min(facet.getHeight() - 1, center.getY() + radius) / 8;
+        for (int blockX = fromX; blockX <= toX; blockX++) {
+            for (int blockY = fromY; blockY <= toY; blockY++) {
+                int block = blockX * blocksHigh + blockY;
+                if ((computed.get(block >>> 6) & (1L << block)) == 0) {
+                    compute(blockX, blockY, block);
+                }
+            }
+        }
+    }
+
+    private void compute(int blockX, int blockY, int block) {
+        int[] groundZ = new int[64];
+        long landBlocked = 0;
+        for (int cell = 0; cell < 64; cell++) {
+            var tile = mapReader.getEntryAt(location(blockX * 8 + cell % 8, blockY * 8 + cell / 8));
+            groundZ[cell] = tile.getZ();
+            if ((tileData.getLandFlags(tile.getTileID()) & TileDataFileReader.FLAG_IMPASSABLE) != 0) {
+                landBlocked |= 1L << cell;
+            }
+        }
+
+        List<StaticTile> statics = staticsReader == null ? List.of() : staticsReader.getBlockStatics(blockX, blockY);
+        // Surfaces first: they raise the ground and make impassable land walkable
+        for (StaticTile tile : statics) {
+            long flags = tileData.getItemFlags(tile.getTileID());
+            if ((flags & TileDataFileReader.FLAG_SURFACE) != 0 && (flags & TileDataFileReader.FLAG_IMPASSABLE) == 0) {
+                int cell = (tile.getY() % 8) * 8 + tile.getX() % 8;
+                groundZ[cell] = Math.max(groundZ[cell], tile.getZ() + tileData.getItemHeight(tile.getTileID()));
+                landBlocked &= ~(1L << cell);
+            }
+        }
+        long result = landBlocked;
+        for (StaticTile tile : statics) {
+            if ((tileData.getItemFlags(tile.getTileID()) & TileDataFileReader.FLAG_IMPASSABLE) != 0) {
+                int cell = (tile.getY() % 8) * 8 + tile.getX() % 8;
+                int top = tile.getZ() + Math.max(tileData.getItemHeight(tile.getTileID()), 1);
+                if (tile.getZ() < groundZ[cell] + PERSON_HEIGHT && top > groundZ[cell]) {
+                    result |= 1L << cell;
+                }
+            }
+        }
+
+        blocked[block] = result;
+        long bit = 1L << block;
+        long word;
+        do {
+            word = computed.get(block >>> 6);
+        } while (!computed.compareAndSet(block >>> 6, word, word | bit));
+    }
+
+    private static MapLocation location(int x, int y) {
+        return new MapLocation() {
+            @Override public int getX() { return x; }
+            @Override public int getY() { return y; }
+        };
+    }
+}
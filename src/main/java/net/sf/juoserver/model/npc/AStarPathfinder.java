@@ -0,0 +1,230 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.Direction;
+import net.sf.juoserver.api.Point2D;
+import net.sf.juoserver.api.WalkGrid;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * A* search over a {@link WalkGrid}, in the eight directions, every step
+ * costing the same as in UO.
+ * <p/>
+ * The search is bounded both in space, to a square window of
+ * {@link #WINDOW_RADIUS} cells around the start, and in time, by a budget of
+ * expanded nodes: when the target can't be reached within them, the path
+ * leads to the explored cell closest to the target. Diagonal steps are only
+ * allowed when both the adjacent orthogonal cells are walkable, so that paths
+ * don't cut corners through walls.
+ * <p/>
+ * The open and closed sets live in primitive arrays borrowed from a pool and
+ * reset by bumping a search stamp, so a search allocates nothing but the
+ * resulting path. The pool is shared rather than per-thread, as the NPC AI
+ * runs on short-lived virtual threads.
+ */
+final class AStarPathfinder {
+    /**
+     * Maximum distance, on either axis, of the explored cells from the start.
+     */
+    static final int WINDOW_RADIUS = 48;
+    /**
+     * Nodes expanded, at most, by a search.
+     */
+    static final int DEFAULT_NODE_BUDGET = 2048;
+
+    private static final int WINDOW_SIZE = WINDOW_RADIUS * 2 + 1;
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Direction[] NO_PATH = new Direction[0];
+    private static final Deque<SearchSpace> POOL = new ConcurrentLinkedDeque<>();
+
+    private AStarPathfinder() {
+    }
+
+    /**
+     * @param direction direction
+     * @return the X offset of a step in the given direction
+     */
+    static int dx(Direction direction) {
+        return DX[direction.ordinal()];
+    }
+
+    /**
+     * @param direction direction
+     * @return the Y offset of a step in the given direction
+     */
+    static int dy(Direction direction) {
+        return DY[direction.ordinal()];
+    }
+
+    /**
+     * Finds the path from a location to another one.
+     *
+     * @param grid walk grid
+     * @param from start location
+     * @param to target location
+     * @param nodeBudget maximum number of nodes to be expanded
+     * @return the steps leading to the target, or as close as possible to it;
+     *         empty if no step gets closer to the target
+     */
+    static Direction[] findPath(WalkGrid grid, Point2D from, Point2D to, int nodeBudget) {
+        var space = POOL.pollFirst();
+        if (space == null) {
+            space = new SearchSpace();
+        }
+        try {
+            return space.search(grid, from.getX(), from.getY(), to.getX(), to.getY(), nodeBudget);
+        } finally {
+            POOL.offerFirst(space);
+        }
+    }
+
+    static int distance(int x1, int y1, int x2, int y2) {
+        return Math.max(Math.abs(x1 - x2), Math.abs(y1 - y2));
+    }
+
+    /**
+     * Reusable search state: cells are indexed by their position in the
+     * window, <tt>y * WINDOW_SIZE + x</tt>.
+     */
+    private static final class SearchSpace {
+        private final int[] cost = new int[WINDOW_SIZE * WINDOW_SIZE];
+        private final int[] opened = new int[WINDOW_SIZE * WINDOW_SIZE];
+        private final int[] closed = new int[WINDOW_SIZE * WINDOW_SIZE];
+        private final byte[] parent = new byte[WINDOW_SIZE * WINDOW_SIZE];
+        private int[] heapCells = new int[1024];
+        private int[] heapKeys = new int[1024];
+        private int heapSize;
+        private int stamp;
+
+        private Direction[] search(WalkGrid grid, int fromX, int fromY, int toX, int toY, int nodeBudget) {
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(opened, 0);
+                Arrays.fill(closed, 0);
+                stamp = 1;
+            }
+            heapSize = 0;
+            int originX = fromX - WINDOW_RADIUS;
+            int originY = fromY - WINDOW_RADIUS;
+
+            int start = WINDOW_RADIUS * WINDOW_SIZE + WINDOW_RADIUS;
+            int best = start;
+            int bestDistance = distance(fromX, fromY, toX, toY);
+            cost[start] = 0;
+            opened[start] = stamp;
+            push(start, key(0, bestDistance));
+
+            int expanded = 0;
+            while (heapSize > 0 && expanded < nodeBudget) {
+                int cell = pop();
+                if (closed[cell] == stamp) {
+                    continue; // Stale entry, the cell was reached later through a cheaper path
+                }
+                closed[cell] = stamp;
+                expanded++;
+
+                int x = originX + cell % WINDOW_SIZE;
+                int y = originY + cell / WINDOW_SIZE;
+                int distance = distance(x, y, toX, toY);
+                if (distance < bestDistance || (distance == bestDistance && cost[cell] < cost[best])) {
+                    best = cell;
+                    bestDistance = distance;
+                }
+                if (distance == 0) {
+                    break;
+                }
+
+                for (int d = 0; d < 8; d++) {
+                    int nx = x + DX[d];
+                    int ny = y + DY[d];
+                    int wx = nx - originX;
+                    int wy = ny - originY;
+                    if (wx < 0 || wy < 0 || wx >= WINDOW_SIZE || wy >= WINDOW_SIZE) {
+                        continue;
+                    }
+                    int neighbour = wy * WINDOW_SIZE + wx;
+                    if (closed[neighbour] == stamp || !grid.isWalkable(nx, ny)) {
+                        continue;
+                    }
+                    if ((d & 1) == 1 && (!grid.isWalkable(nx, y) || !grid.isWalkable(x, ny))) {
+                        continue; // Diagonals must not cut corners
+                    }
+                    int neighbourCost = cost[cell] + 1;
+                    if (opened[neighbour] != stamp || neighbourCost < cost[neighbour]) {
+                        opened[neighbour] = stamp;
+                        cost[neighbour] = neighbourCost;
+                        parent[neighbour] = (byte) d;
+                        push(neighbour, key(neighbourCost, distance(nx, ny, toX, toY)));
+                    }
+                }
+            }
+            return path(start, best);
+        }
+
+        private Direction[] path(int start, int end) {
+            int length = cost[end];
+            if (length == 0) {
+                return NO_PATH;
+            }
+            var path = new Direction[length];
+            for (int cell = end, i = length - 1; cell != start; i--) {
+                int d = parent[cell];
+                path[i] = DIRECTIONS[d];
+                cell -= DY[d] * WINDOW_SIZE + DX[d];
+            }
+            return path;
+        }
+
+        /**
+         * Orders by estimated total cost, then by distance to the target.
+         */
+        private static int key(int cost, int distance) {
+            return ((cost + distance) << 10) | Math.min(distance, 1023);
+        }
+
+        private void push(int cell, int key) {
+            if (heapSize == heapCells.length) {
+                heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (heapKeys[up] <= key) {
+                    break;
+                }
+                heapCells[i] = heapCells[up];
+                heapKeys[i] = heapKeys[up];
+                i = up;
+            }
+            heapCells[i] = cell;
+            heapKeys[i] = key;
+        }
+
+        private int pop() {
+            int top = heapCells[0];
+            int cell = heapCells[--heapSize];
+            int key = heapKeys[heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (key <= heapKeys[child]) {
+                    break;
+                }
+                heapCells[i] = heapCells[child];
+                heapKeys[i] = heapKeys[child];
+                i = child;
+            }
+            heapCells[i] = cell;
+            heapKeys[i] = key;
+            return top;
+        }
+    }
+}
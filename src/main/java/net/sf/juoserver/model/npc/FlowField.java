@@ -0,0 +1,163 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.Direction;
+import net.sf.juoserver.api.WalkGrid;
+
+import java.util.Arrays;
+
+/**
+ * Distance field around a target: every cell within a square window knows
+ * its walking distance to the target and the direction of its best
+ * neighbour, so that any number of NPCs can chase the target with a single
+ * breadth-first search (all steps costing the same, it's Dijkstra's
+ * algorithm).
+ * <p/>
+ * When the target moves to a cell already in the field, the field is updated
+ * incrementally: distances are raised, all at once, by the old distance
+ * between the two locations, which keeps them valid upper bounds, then only
+ * the cells getting closer to the new location are visited. Directions
+ * always lead to the target, possibly along its trail; the field is rebuilt
+ * from scratch when the target drifts from the window center, after
+ * {@link #MAX_INCREMENTAL_UPDATES} updates, or when the target jumps
+ * somewhere unknown.
+ */
+final class FlowField {
+    static final int MAX_INCREMENTAL_UPDATES = 16;
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int radius;
+    private final int size;
+    /**
+     * Distances minus {@link #shift}, so that raising them all is O(1).
+     */
+    private final int[] distances;
+    /**
+     * Direction of the best neighbour, -1 for the target and unreached cells.
+     */
+    private final byte[] towards;
+    private final int[] queue;
+    private WalkGrid grid;
+    private int originX;
+    private int originY;
+    private int targetX;
+    private int targetY;
+    private int shift;
+    private int updates;
+
+    FlowField(int radius) {
+        this.radius = radius;
+        this.size = radius * 2 + 1;
+        this.distances = new int[size * size];
+        this.towards = new byte[size * size];
+        this.queue = new int[size * size];
+    }
+
+    /**
+     * Moves the target, updating or rebuilding the field.
+     *
+     * @param grid walk grid of the target's facet
+     * @param x target X coordinate
+     * @param y target Y coordinate
+     */
+    void moveTarget(WalkGrid grid, int x, int y) {
+        if (this.grid == grid && x == targetX && y == targetY) {
+            return;
+        }
+        int cell = cell(x, y);
+        if (this.grid != grid || cell < 0 || distances[cell] == UNREACHED || updates == MAX_INCREMENTAL_UPDATES
+                || AStarPathfinder.distance(x, y, originX + radius, originY + radius) > radius / 2) {
+            rebuild(grid, x, y);
+            return;
+        }
+        updates++;
+        int moved = distances[cell] + shift;
+        shift += moved;
+        // The old target gets its direction back from the propagation
+        distances[cell(targetX, targetY)] = UNREACHED;
+        targetX = x;
+        targetY = y;
+        propagate(cell);
+    }
+
+    private void rebuild(WalkGrid grid, int x, int y) {
+        this.grid = grid;
+        originX = x - radius;
+        originY = y - radius;
+        targetX = x;
+        targetY = y;
+        shift = 0;
+        updates = 0;
+        Arrays.fill(distances, UNREACHED);
+        Arrays.fill(towards, (byte) -1);
+        propagate(cell(x, y));
+    }
+
+    /**
+     * Breadth-first visit from the target, lowering the distances of the
+     * cells getting closer to it.
+     */
+    private void propagate(int target) {
+        distances[target] = -shift;
+        towards[target] = -1;
+        queue[0] = target;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = originX + cell % size;
+            int y = originY + cell / size;
+            int next = distances[cell] + 1;
+            for (int d = 0; d < 8; d++) {
+                int nx = x + DX[d];
+                int ny = y + DY[d];
+                int neighbour = cell(nx, ny);
+                if (neighbour < 0 || distances[neighbour] <= next || !grid.isWalkable(nx, ny)) {
+                    continue;
+                }
+                if ((d & 1) == 1 && (!grid.isWalkable(nx, y) || !grid.isWalkable(x, ny))) {
+                    continue; // Diagonals must not cut corners
+                }
+                distances[neighbour] = next;
+                towards[neighbour] = (byte) ((d + 4) % 8);
+                queue[tail++] = neighbour;
+            }
+        }
+    }
+
+    /**
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @return the direction of the next step towards the target, or
+     *         <tt>null</tt> if the cell is the target, is out of the field or
+     *         can't reach the target within it
+     */
+    Direction nextStep(int x, int y) {
+        int cell = cell(x, y);
+        if (cell < 0 || towards[cell] < 0) {
+            return null;
+        }
+        return DIRECTIONS[towards[cell]];
+    }
+
+    /**
+     * @return the distance of a cell from the target, as known by the field
+     *         (an upper bound after incremental updates), or -1 if unknown
+     */
+    int distance(int x, int y) {
+        int cell = cell(x, y);
+        return cell < 0 || distances[cell] == UNREACHED ? -1 : distances[cell] + shift;
+    }
+
+    private int cell(int x, int y) {
+        int wx = x - originX;
+        int wy = y - originY;
+        if (wx < 0 || wy < 0 || wx >= size || wy >= size) {
+            return -1;
+        }
+        return wy * size + wx;
+    }
+}
@@ -0,0 +1,98 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.Configuration;
+import net.sf.juoserver.api.Direction;
+import net.sf.juoserver.api.Mobile;
+import net.sf.juoserver.api.NpcMobile;
+import net.sf.juoserver.api.WalkGrid;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Flow-field pathfinding mode: once enough NPCs chase the same mobile (see
+ * {@link Configuration.NpcConfiguration#getFlowFieldChasers()}), they share a
+ * single {@link FlowField} around it, and each of their steps is a lookup.
+ * <p/>
+ * NPCs are registered as chasers of their latest target; they must be
+ * {@link #release(NpcMobile) released} when they stop chasing, or when they
+ * are removed from the world.
+ */
+final class FlowFields {
+    private final Configuration configuration;
+    private final Map<Mobile, Chase> chases = new ConcurrentHashMap<>();
+    private final Map<NpcMobile, Mobile> targets = new ConcurrentHashMap<>();
+
+    FlowFields(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Finds the next step of a chaser, registering it as chaser of the target.
+     *
+     * @param chaser chasing NPC
+     * @param grid walk grid of the target's facet
+     * @param target chased mobile
+     * @return the direction of the next step, or <tt>null</tt> if the target
+     *         doesn't have enough chasers to have a flow field, or if the
+     *         chaser is not in the target's flow field
+     */
+    Direction findNextStep(NpcMobile chaser, WalkGrid grid, Mobile target) {
+        var previous = targets.put(chaser, target);
+        if (previous != null && previous != target) {
+            leave(chaser, previous);
+        }
+        var chase = chases.compute(target, (t, current) -> {
+            var joined = current == null ? new Chase() : current;
+            joined.chasers.add(chaser);
+            return joined;
+        });
+
+        var npcConfiguration = configuration.getNpc();
+        int minChasers = npcConfiguration.getFlowFieldChasers();
+        if (minChasers <= 0 || chase.chasers.size() < minChasers || chaser.getFacet() != target.getFacet()) {
+            return null;
+        }
+        synchronized (chase) {
+            if (chase.field == null) {
+                chase.field = new FlowField(npcConfiguration.getFlowFieldRadius());
+            }
+            chase.field.moveTarget(grid, target.getX(), target.getY());
+            return chase.field.nextStep(chaser.getX(), chaser.getY());
+        }
+    }
+
+    /**
+     * Stops considering an NPC as chaser of its latest target.
+     *
+     * @param chaser NPC
+     */
+    void release(NpcMobile chaser) {
+        var target = targets.remove(chaser);
+        if (target != null) {
+            leave(chaser, target);
+        }
+    }
+
+    /**
+     * @param target mobile
+     * @return the number of NPCs chasing the given mobile
+     */
+    int getChasers(Mobile target) {
+        var chase = chases.get(target);
+        return chase == null ? 0 : chase.chasers.size();
+    }
+
+    private void leave(NpcMobile chaser, Mobile target) {
+        chases.computeIfPresent(target, (t, chase) -> {
+            chase.chasers.remove(chaser);
+            return chase.chasers.isEmpty() ? null : chase;
+        });
+    }
+
+    private static final class Chase {
+        private final Set<NpcMobile> chasers = ConcurrentHashMap.newKeySet();
+        private FlowField field;
+    }
+}
@@ -2,70 +2,82 @@ package net.sf.juoserver.model.npc;
 
 import net.sf.juoserver.api.Direction;
 import net.sf.juoserver.api.Point2D;
-import net.sf.juoserver.model.Position;
-
-import java.util.HashMap;
-import java.util.Map;
+import net.sf.juoserver.api.WalkGrid;
 
+/**
+ * Step by step pathfinding of a single NPC.
+ * <p/>
+ * The path towards the target is computed with {@link AStarPathfinder} and
+ * followed one step per call; it is only computed again when the target has
+ * moved farther than {@link #REPATH_DISTANCE} from where it was, when the NPC
+ * is no longer where the path expected it to be, or when the path ends short
+ * of the target.
+ */
 public class NextStepPathfinding {
-    // Fixed grid (0 = walkable path, 1 = obstacle)
-    private static final int[][] grid = {
-            { 0, 0, 0, 0 },
-            { 0, 0, 0, 0 },
-            { 0, 0, 0, 0 },
-            { 0, 0, 0, 0 }
-    };
-    // Heuristic function (Manhattan distance in 3D)
-    private static int heuristic(Point2D a, Point2D b) {
-        return Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY());
-    }
-
-    // Method to find the next best step from start towards end
-    public static Direction findNextStep(Point2D start, Point2D end) {
-        Map<Direction, Point2D> neighbors = getNeighbors(start);
+    /**
+     * Distance the target has to move for the path to be computed again.
+     */
+    static final int REPATH_DISTANCE = 3;
 
-        // Find the neighbor with the lowest heuristic cost to the end
-        Direction bestDirection = null;
-        int minHeuristic = Integer.MAX_VALUE;
+    private final int nodeBudget;
+    private Direction[] path;
+    private int step;
+    private int expectedX;
+    private int expectedY;
+    private int targetX;
+    private int targetY;
 
-        for (Map.Entry<Direction, Point2D> entry : neighbors.entrySet()) {
-            Point2D neighbor = entry.getValue();
-            int cost = heuristic(neighbor, end);
-            if (cost < minHeuristic) {
-                minHeuristic = cost;
-                bestDirection = entry.getKey();
-            }
-        }
-
-        // Return the direction of the best next step
-        return bestDirection;
+    public NextStepPathfinding() {
+        this(AStarPathfinder.DEFAULT_NODE_BUDGET);
     }
 
-    // Get valid neighbors in eight directions (North, Northeast, East, Southeast, South, Southwest, West, Northwest)
-    private static Map<Direction, Point2D> getNeighbors(Point2D node) {
-        Map<Direction, Point2D> neighbors = new HashMap<>();
+    NextStepPathfinding(int nodeBudget) {
+        this.nodeBudget = nodeBudget;
+    }
 
-        final int[][] directions = {
-                {0, -1}, {1, -1}, {1, 0}, {1, 1},
-                {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}
-        };
-        final Direction[] directionsNames = {
-                Direction.North, Direction.Northeast, Direction.East, Direction.Southeast,
-                Direction.South, Direction.Southwest, Direction.West, Direction.Northwest
-        };
+    /**
+     * Finds the next step towards a target.
+     *
+     * @param grid walk grid of the facet
+     * @param start current location
+     * @param end target location
+     * @return the direction of the next step, or <tt>null</tt> if the target
+     *         has been reached or no step gets closer to it
+     */
+    public Direction findNextStep(WalkGrid grid, Point2D start, Point2D end) {
+        if (start.getX() == end.getX() && start.getY() == end.getY()) {
+            return null;
+        }
+        if (!isPathValid(start, end)) {
+            path = AStarPathfinder.findPath(grid, start, end, nodeBudget);
+            step = 0;
+            targetX = end.getX();
+            targetY = end.getY();
+        }
+        expectedX = start.getX();
+        expectedY = start.getY();
+        if (step == path.length) {
+            return null; // Stuck: try again once either the NPC or the target moves
+        }
+        var direction = path[step++];
+        expectedX += AStarPathfinder.dx(direction);
+        expectedY += AStarPathfinder.dy(direction);
+        return direction;
+    }
 
-        for (int i = 0; i < directions.length; i++) {
-            int newX = node.getX() + directions[i][0];
-            int newY = node.getY() + directions[i][1];
+    /**
+     * Forgets the current path.
+     */
+    public void reset() {
+        path = null;
+    }
 
-            // Check if the new position is within bounds and walkable
-            // TODO verify map size newY < grid[0].length && newX < grid.length &&
-            // TODO verify obstacle grid[newX][newY] == 0
-            if (newX >= 0 && newY >= 0) {
-                neighbors.put(directionsNames[i], new Position(newX, newY));
-            }
+    private boolean isPathValid(Point2D start, Point2D end) {
+        if (path == null || start.getX() != expectedX || start.getY() != expectedY
+                || AStarPathfinder.distance(targetX, targetY, end.getX(), end.getY()) > REPATH_DISTANCE) {
+            return false;
         }
-
-        return neighbors;
+        // An exhausted path is only kept when it was empty and nothing moved
+        return step < path.length || (path.length == 0 && targetX == end.getX() && targetY == end.getY());
     }
 }
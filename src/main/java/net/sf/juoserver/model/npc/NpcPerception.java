@@ -0,0 +1,177 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.protocol.MobileUtils;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * What an NPC perceives of the mobiles around it.
+ * <p/>
+ * The spatial index is scanned at most once per perception period, which
+ * every NPC can tune, into a snapshot reused across scans; a query for a
+ * radius larger than the snapshot's one scans again at once. Queries filter
+ * the snapshot, against the current locations, into buffers owned by the
+ * caller. Mobiles entering the radius after a scan are only perceived from
+ * the next one; dead mobiles are never perceived.
+ * <p/>
+ * Not thread-safe: a session is never run by two workers at the same time.
+ */
+final class NpcPerception {
+    /**
+     * Default milliseconds between two scans.
+     */
+    static final long DEFAULT_PERIOD = 500;
+
+    private static final Set<Notoriety> AGGRESSIVE = EnumSet.of(Notoriety.Criminal, Notoriety.Enemy, Notoriety.Murderer);
+
+    private final NpcMobile npc;
+    private final Core core;
+    private final LongSupplier clock;
+    private final List<Mobile> snapshot = new ArrayList<>();
+    private final Consumer<Mobile> collector = this::collect;
+    private long period = DEFAULT_PERIOD;
+    private boolean scanned;
+    private long scannedAt;
+    private Facet scannedFacet;
+    private int scannedRadius;
+
+    NpcPerception(NpcMobile npc, Core core) {
+        this(npc, core, () -> System.nanoTime() / 1_000_000);
+    }
+
+    NpcPerception(NpcMobile npc, Core core, LongSupplier clock) {
+        this.npc = npc;
+        this.core = core;
+        this.clock = clock;
+    }
+
+    /**
+     * @param period milliseconds between two scans, 0 to scan on every query
+     */
+    void setPeriod(long period) {
+        this.period = period;
+    }
+
+    Mobile findNearestHostilePlayer(int radius) {
+        refresh(radius);
+        Mobile nearest = null;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (Mobile mobile : snapshot) {
+            if (isHostile(npc, mobile)) {
+                int distance = MobileUtils.getDistance(npc, mobile);
+                if (distance <= radius && distance < nearestDistance) {
+                    nearest = mobile;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    int findPlayersInRange(int radius, List<Mobile> result) {
+        result.clear();
+        refresh(radius);
+        for (Mobile mobile : snapshot) {
+            if (!mobile.isNpc() && !mobile.isDeath() && MobileUtils.getDistance(npc, mobile) <= radius) {
+                result.add(mobile);
+            }
+        }
+        return result.size();
+    }
+
+    int findTargetsInSight(int radius, List<Mobile> result) {
+        result.clear();
+        refresh(radius);
+        WalkGrid grid = null;
+        for (Mobile mobile : snapshot) {
+            if (isHostile(npc, mobile) && MobileUtils.getDistance(npc, mobile) <= radius) {
+                if (grid == null) {
+                    grid = core.getWalkGrid(npc.getFacet());
+                }
+                if (hasLineOfSight(grid, npc, mobile)) {
+                    result.add(mobile);
+                }
+            }
+        }
+        return result.size();
+    }
+
+    private void refresh(int radius) {
+        var now = clock.getAsLong();
+        if (scanned && now - scannedAt < period && radius <= scannedRadius && npc.getFacet() == scannedFacet) {
+            return;
+        }
+        snapshot.clear();
+        scanned = true;
+        scannedAt = now;
+        scannedFacet = npc.getFacet();
+        scannedRadius = Math.max(scannedRadius, radius);
+        core.forEachMobileInRange(scannedFacet, npc, scannedRadius + 1, collector);
+    }
+
+    private void collect(Mobile mobile) {
+        if (mobile != npc) {
+            snapshot.add(mobile);
+        }
+    }
+
+    /**
+     * Aggressive NPCs (criminals, enemies and murderers) are hostile to every
+     * player; the other ones only to the aggressive players.
+     *
+     * @param npc NPC
+     * @param mobile perceived mobile
+     * @return <tt>true</tt> if and only if the mobile is an alive player the
+     *         NPC is hostile to
+     */
+    static boolean isHostile(Mobile npc, Mobile mobile) {
+        return !mobile.isNpc() && !mobile.isDeath()
+                && (AGGRESSIVE.contains(npc.getNotoriety()) || AGGRESSIVE.contains(mobile.getNotoriety()));
+    }
+
+    /**
+     * Traces a line between two locations: the sight is blocked by the cells
+     * in between which can't be walked on. Without heights, this is an
+     * approximation: walls block the sight, but so does water.
+     *
+     * @param grid walk grid
+     * @param from observer location
+     * @param to observed location
+     * @return <tt>true</tt> if and only if nothing blocks the sight
+     */
+    static boolean hasLineOfSight(WalkGrid grid, Point2D from, Point2D to) {
+        int x = from.getX();
+        int y = from.getY();
+        int dx = Math.abs(to.getX() - x);
+        int dy = -Math.abs(to.getY() - y);
+        int sx = x < to.getX() ? 1 : -1;
+        int sy = y < to.getY() ? 1 : -1;
+        int error = dx + dy;
+        if (dx == 0 && dy == 0) {
+            return true;
+        }
+        while (true) {
+            int doubled = 2 * error;
+            if (doubled >= dy) {
+                error += dy;
+                x += sx;
+            }
+            if (doubled <= dx) {
+                error += dx;
+                y += sy;
+            }
+            if (x == to.getX() && y == to.getY()) {
+                return true;
+            }
+            if (!grid.isWalkable(x, y)) {
+                return false;
+            }
+        }
+    }
+}
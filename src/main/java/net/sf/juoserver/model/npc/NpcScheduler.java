@@ -0,0 +1,193 @@
+package net.sf.juoserver.model.npc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Timer queue of the NPCs AI.
+ * <p/>
+ * Every scheduled session has a single wake-up in a priority queue ordered by
+ * due time; {@link #dispatch()} takes the due ones and runs them, in batches
+ * of {@link #BATCH_SIZE}, on a bounded pool of workers. Running a session
+ * returns the delay of its next wake-up, so a session is never run by two
+ * workers at the same time.
+ * <p/>
+ * The CPU time spent by every AI script class is accounted, so that costly
+ * scripts can be spotted.
+ */
+@Slf4j
+final class NpcScheduler {
+    static final int BATCH_SIZE = 32;
+    /**
+     * Delay of the next run of a session whose run failed.
+     */
+    static final long ERROR_DELAY = 1000;
+    /**
+     * Returned by the runner to stop running a session until it is scheduled
+     * again.
+     */
+    static final long SUSPEND = -1;
+
+    private final Executor workers;
+    private final ToLongFunction<ContextBasedNpcSession> runner;
+    private final LongSupplier clock;
+    private final PriorityQueue<Wakeup> queue = new PriorityQueue<>(Comparator.comparingLong(wakeup -> wakeup.due));
+    private final Map<ContextBasedNpcSession, Wakeup> wakeups = new HashMap<>();
+    private final Map<Class<?>, ScriptStats> stats = new ConcurrentHashMap<>();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+
+    /**
+     * @param workers pool running the sessions
+     * @param runner runs a session once, returning the milliseconds until its
+     *               next run, or {@link #SUSPEND}
+     * @param clock milliseconds clock
+     */
+    NpcScheduler(Executor workers, ToLongFunction<ContextBasedNpcSession> runner, LongSupplier clock) {
+        this.workers = workers;
+        this.runner = runner;
+        this.clock = clock;
+    }
+
+    /**
+     * Schedules a session, replacing its current wake-up if any.
+     *
+     * @param session session
+     * @param delay milliseconds until the run
+     */
+    synchronized void schedule(ContextBasedNpcSession session, long delay) {
+        cancel(session);
+        var wakeup = new Wakeup(session, clock.getAsLong() + delay);
+        wakeups.put(session, wakeup);
+        queue.add(wakeup);
+    }
+
+    /**
+     * Stops running a session; a run in progress completes, but is not
+     * followed by other ones.
+     *
+     * @param session session
+     */
+    synchronized void cancel(ContextBasedNpcSession session) {
+        var wakeup = wakeups.remove(session);
+        if (wakeup != null) {
+            wakeup.cancelled = true; // Left in the queue, skipped once due
+        }
+    }
+
+    synchronized int size() {
+        return wakeups.size();
+    }
+
+    /**
+     * Runs the sessions whose wake-up is due.
+     *
+     * @return the number of sessions submitted to the workers
+     */
+    int dispatch() {
+        List<Wakeup> due = new ArrayList<>();
+        synchronized (this) {
+            var now = clock.getAsLong();
+            while (!queue.isEmpty() && queue.peek().due <= now) {
+                var wakeup = queue.poll();
+                if (!wakeup.cancelled) {
+                    due.add(wakeup);
+                }
+            }
+        }
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            var batch = due.subList(from, Math.min(from + BATCH_SIZE, due.size()));
+            workers.execute(() -> run(batch));
+        }
+        return due.size();
+    }
+
+    private void run(List<Wakeup> batch) {
+        for (Wakeup wakeup : batch) {
+            var session = wakeup.session;
+            var script = session.getMobile().getAIScript();
+            var start = cpuTime();
+            long delay;
+            try {
+                delay = runner.applyAsLong(session);
+            } catch (RuntimeException e) {
+                log.error("Error to handle {} AI", session.getMobile(), e);
+                delay = ERROR_DELAY;
+            }
+            stats.computeIfAbsent(script.getClass(), type -> new ScriptStats()).add(cpuTime() - start);
+            synchronized (this) {
+                if (!wakeup.cancelled && delay == SUSPEND) {
+                    wakeups.remove(session);
+                } else if (!wakeup.cancelled) {
+                    wakeup.due = clock.getAsLong() + Math.max(delay, 1);
+                    queue.add(wakeup);
+                }
+            }
+        }
+    }
+
+    private long cpuTime() {
+        return cpuTimeSupported ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * @return the CPU time spent by every AI script class
+     */
+    Map<Class<?>, ScriptStats> getScriptStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private static final class Wakeup {
+        private final ContextBasedNpcSession session;
+        private long due;
+        private boolean cancelled;
+
+        private Wakeup(ContextBasedNpcSession session, long due) {
+            this.session = session;
+            this.due = due;
+        }
+    }
+
+    /**
+     * Runs and CPU time of an AI script class.
+     */
+    static final class ScriptStats {
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private void add(long nanos) {
+            runs.increment();
+            cpuNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        long getRuns() {
+            return runs.sum();
+        }
+
+        long getCpuNanos() {
+            return cpuNanos.sum();
+        }
+
+        long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            var runs = getRuns();
+            return runs + " runs, " + getCpuNanos() / 1_000_000 + " ms CPU, " + (runs == 0 ? 0 : getCpuNanos() / runs / 1_000)
+                    + " us/run, max " + getMaxNanos() / 1_000 + " us";
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.model.UONpcMobile;
+
+/**
+ * Immutable NPC template, as read from the NPCs configuration: new NPCs are
+ * created by copying its prototype, which is never handed out.
+ */
+public final class NpcTemplate {
+    private final UONpcMobile prototype;
+
+    NpcTemplate(UONpcMobile prototype) {
+        this.prototype = new UONpcMobile(prototype);
+    }
+
+    public int getTemplateId() {
+        return prototype.getTemplateId();
+    }
+
+    public String getName() {
+        return prototype.getName();
+    }
+
+    /**
+     * @return a new NPC, not yet placed in the world, with the attributes of
+     *         this template
+     */
+    public UONpcMobile newMobile() {
+        return new UONpcMobile(prototype);
+    }
+}
@@ -0,0 +1,188 @@
+package net.sf.juoserver.model.npc;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.juoserver.api.ConfigFileReader;
+import net.sf.juoserver.api.NpcMobile;
+import net.sf.juoserver.model.UONpcMobile;
+import net.sf.juoserver.model.ai.BehaviourTreeCompiler;
+import net.sf.juoserver.model.ai.TickBudget;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The NPC templates, parsed once and indexed by template ID.
+ * <p/>
+ * The templates are replaced all at once by {@link #reload()}, which keeps the
+ * previous ones if the configuration is broken; once {@link #watch() watching},
+ * the registry reloads by itself every time the NPCs file or the behaviours
+ * file changes.
+ * <p/>
+ * The behaviour trees are compiled along with the templates, and set as the
+ * AI script of the templates naming them.
+ */
+@Slf4j
+public final class NpcTemplateRegistry implements Closeable {
+    /**
+     * Highest template ID, which bounds the size of the templates table.
+     */
+    static final int MAX_TEMPLATE_ID = 0xFFFF;
+
+    private final ConfigFileReader configFileReader;
+    private final BehaviourTreeCompiler behaviourTreeCompiler;
+    private volatile NpcTemplate[] templates = new NpcTemplate[0];
+    private WatchService watchService;
+
+    public NpcTemplateRegistry(ConfigFileReader configFileReader) {
+        this(configFileReader, new BehaviourTreeCompiler(TickBudget.UNLIMITED));
+    }
+
+    public NpcTemplateRegistry(ConfigFileReader configFileReader, BehaviourTreeCompiler behaviourTreeCompiler) {
+        this.configFileReader = configFileReader;
+        this.behaviourTreeCompiler = behaviourTreeCompiler;
+    }
+
+    /**
+     * Parses the templates again, keeping the current ones in case of errors.
+     *
+     * @return <tt>true</tt> if and only if the templates could be read
+     */
+    public boolean reload() {
+        try {
+            var trees = behaviourTreeCompiler.compileAll(configFileReader.loadBehaviourTrees());
+            var loaded = configFileReader.loadNpcs();
+            // Validated before sizing the table, which a wrong ID would make huge or negative
+            for (NpcMobile npc : loaded) {
+                if (npc.getTemplateId() < 0 || npc.getTemplateId() > MAX_TEMPLATE_ID) {
+                    throw new IllegalArgumentException("Invalid NPC template ID " + npc.getTemplateId());
+                }
+            }
+            int maxTemplateId = loaded.stream().mapToInt(NpcMobile::getTemplateId).max().orElse(-1);
+            var table = new NpcTemplate[maxTemplateId + 1];
+            for (NpcMobile npc : loaded) {
+                int templateId = npc.getTemplateId();
+                if (table[templateId] != null) {
+                    log.warn("Duplicated NPC template {}, the first one is kept", templateId);
+                    continue;
+                }
+                var prototype = (UONpcMobile) npc;
+                if (prototype.getBehaviour() != null) {
+                    var tree = trees.get(prototype.getBehaviour());
+                    if (tree == null) {
+                        throw new IllegalArgumentException("Unknown behaviour " + prototype.getBehaviour()
+                                + " of NPC template " + templateId);
+                    }
+                    prototype.setAiScript(tree);
+                }
+                table[templateId] = new NpcTemplate(prototype);
+            }
+            templates = table;
+            log.info("{} NPC templates and {} behaviour trees loaded", loaded.size(), trees.size());
+            return true;
+        } catch (RuntimeException e) {
+            // Whatever the error, a broken edit must neither stop the watcher nor lose the templates
+            log.warn("NPC templates could not be read, keeping the {} current ones", size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * @param templateId template ID
+     * @return the template with the given ID, or <tt>null</tt> if there is no
+     *         such template
+     */
+    public NpcTemplate get(int templateId) {
+        var table = templates;
+        return templateId >= 0 && templateId < table.length ? table[templateId] : null;
+    }
+
+    /**
+     * Creates a new NPC from a template.
+     *
+     * @param templateId template ID
+     * @return the new NPC
+     * @throws NoSuchElementException if there is no such template
+     */
+    public UONpcMobile create(int templateId) {
+        var template = get(templateId);
+        if (template == null) {
+            throw new NoSuchElementException("No NPC template " + templateId);
+        }
+        return template.newMobile();
+    }
+
+    public int size() {
+        int size = 0;
+        for (NpcTemplate template : templates) {
+            if (template != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Starts reloading the templates whenever the NPCs file or the behaviours
+     * file changes; does nothing if they don't come from files, or if already
+     * watching.
+     *
+     * @throws IOException if the files could not be watched
+     */
+    public synchronized void watch() throws IOException {
+        Set<Path> files = new HashSet<>();
+        for (Path path : new Path[] {configFileReader.getNpcsPath(), configFileReader.getBehavioursPath()}) {
+            if (path != null) {
+                files.add(path.toAbsolutePath());
+            }
+        }
+        if (files.isEmpty() || watchService != null) {
+            return;
+        }
+        watchService = files.iterator().next().getFileSystem().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (Path file : files) {
+            if (directories.add(file.getParent())) {
+                file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+        var watcher = new Thread(() -> watch(watchService, files), "NPC templates watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for NPC templates changes", files);
+    }
+
+    private void watch(WatchService watchService, Set<Path> files) {
+        try {
+            while (true) {
+                var key = watchService.take();
+                var directory = (Path) key.watchable();
+                boolean changed = key.pollEvents().stream()
+                        .anyMatch(event -> event.context() instanceof Path name && files.contains(directory.resolve(name)));
+                key.reset();
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed, stop watching
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+}
@@ -1,28 +1,61 @@
 package net.sf.juoserver.model.npc;
 
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import net.sf.juoserver.api.*;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 @Getter
 @Setter
 @ToString(onlyExplicitlyIncluded = true)
-@RequiredArgsConstructor
 class UONpcSession implements ContextBasedNpcSession {
 
     @ToString.Include
     private final NpcMobile mobile;
     private final InterClientNetwork network;
     private final Core core;
+    private final FlowFields flowFields;
     private NpcContext context;
+    private final NextStepPathfinding pathfinding = new NextStepPathfinding();
+    @Getter(AccessLevel.NONE)
+    private final NpcPerception perception;
+
+    UONpcSession(NpcMobile mobile, InterClientNetwork network, Core core, FlowFields flowFields) {
+        this.mobile = mobile;
+        this.network = network;
+        this.core = core;
+        this.flowFields = flowFields;
+        this.perception = new NpcPerception(mobile, core);
+    }
 
     @Override
     public Stream<Mobile> findMobilesInRange(boolean includeNpc) {
-        return core.findMobilesInRange(mobile);
+        return core.findMobilesInRange(mobile.getFacet(), mobile)
+                .filter(other -> other != mobile && (includeNpc || !other.isNpc()));
+    }
+
+    @Override
+    public Mobile findNearestHostilePlayer(int radius) {
+        return perception.findNearestHostilePlayer(radius);
+    }
+
+    @Override
+    public int findPlayersInRange(int radius, List<Mobile> result) {
+        return perception.findPlayersInRange(radius, result);
+    }
+
+    @Override
+    public int findTargetsInSight(int radius, List<Mobile> result) {
+        return perception.findTargetsInSight(radius, result);
+    }
+
+    @Override
+    public void setPerceptionPeriod(long millis) {
+        perception.setPeriod(millis);
     }
 
     @Override
@@ -36,8 +69,17 @@ class UONpcSession implements ContextBasedNpcSession {
 
     @Override
     public void moveTowards(Point2D location) {
-        var direction = NextStepPathfinding.findNextStep(this.mobile, location);
-        move(direction,false);
+        var grid = core.getWalkGrid(mobile.getFacet());
+        Direction direction = null;
+        if (location instanceof Mobile target) {
+            direction = flowFields.findNextStep(mobile, grid, target);
+        }
+        if (direction == null) {
+            direction = pathfinding.findNextStep(grid, this.mobile, location);
+        }
+        if (direction != null) {
+            move(direction, false);
+        }
     }
 
     @Override
@@ -45,6 +87,7 @@ class UONpcSession implements ContextBasedNpcSession {
         mobile.setCurrentHitPoints( Math.max(mobile.getCurrentHitPoints() - damage, 0) );
         if (mobile.getCurrentHitPoints() == 0) {
             mobile.kill();
+            core.removeMobile(mobile);
             network.notifyOtherKilled(mobile);
         } else {
             network.notifyOtherDamaged(mobile, damage);
@@ -2,6 +2,7 @@ package net.sf.juoserver.model.npc;
 
 import lombok.RequiredArgsConstructor;
 import net.sf.juoserver.api.AIScript;
+import net.sf.juoserver.api.NpcContext;
 import net.sf.juoserver.api.NpcSessionCycle;
 
 @RequiredArgsConstructor
@@ -15,21 +16,31 @@ public class UONpcSessionCycle implements NpcSessionCycle {
      * Delay value when dexterity is zero
      */
     private static final int INTERCEPT = 500;
+    /**
+     * Minimum delay between two runs of a script
+     */
+    private static final int MIN_DELAY = 50;
+    /**
+     * Delay until scripts which yielded are resumed, so that they run again
+     * on the next tick
+     */
+    static final int YIELD_DELAY = 1;
 
+    /**
+     * Runs the script once.
+     *
+     * @return the delay until the next run, the higher the dexterity the shorter,
+     *         or {@link #YIELD_DELAY} if the script yielded
+     */
     @Override
-    public void execute(AIScript script, ContextBasedNpcSession session) {
-        while (script.isActive(session) && !session.getMobile().isDeath()) {
-            try {
-                var dexterity = session.getMobile().getDexterity();
-                script.execute(session.getContext(), session);
-
-                var delay = SLOPE * dexterity + INTERCEPT;
-
-                Thread.sleep(delay);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+    public long execute(AIScript script, ContextBasedNpcSession session) {
+        var context = session.getContext();
+        script.execute(context, session);
+        if (context.getEntry(NpcContext.YIELDED, false)) {
+            context.addEntry(NpcContext.YIELDED, false);
+            return YIELD_DELAY;
         }
+        return Math.max(SLOPE * session.getMobile().getDexterity() + INTERCEPT, MIN_DELAY);
     }
 
 }
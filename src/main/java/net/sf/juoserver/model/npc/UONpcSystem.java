@@ -4,69 +4,111 @@ import lombok.extern.slf4j.Slf4j;
 import net.sf.juoserver.api.*;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Runs the NPCs AI: every NPC session is woken up by a {@link NpcScheduler}
+ * when its script is due, its script run once by the {@link NpcSessionCycle},
+ * which tells when to wake the session up again. Sessions whose script is not
+ * active, or whose NPC is dead, are checked again every {@link #IDLE_DELAY}
+ * milliseconds.
+ * <p/>
+ * NPCs with no player around are dormant (see
+ * {@link Core#isDormant(Facet, Point2D)}): their sessions are not scheduled
+ * at all until a player comes close, when they are woken up and run at once;
+ * the scripts measure their timers on the clock, so waking up is only a
+ * reschedule.
+ * <p/>
+ * As a {@link SubSystem}, it dispatches the due sessions to the executor, and
+ * periodically logs the CPU time spent by every AI script class.
+ */
 @Slf4j
 public class UONpcSystem implements NpcSystem, SubSystem, MobileListener {
+    /**
+     * Milliseconds between the checks of the inactive scripts.
+     */
+    static final long IDLE_DELAY = 250;
+    /**
+     * Milliseconds of uptime between the logs of the AI scripts CPU time.
+     */
+    private static final long STATS_PERIOD = 60_000;
 
     private final Core core;
     private final InterClientNetwork network;
     private final Configuration configuration;
     private final NpcSessionCycle sessionCycle;
-    private final ExecutorService executorService;
-    private final Map<NpcMobile, ContextBasedNpcSession> npcSessionMap = new HashMap<>();
+    private final Map<NpcMobile, ContextBasedNpcSession> npcSessionMap = new ConcurrentHashMap<>();
     private final List<NpcSessionListener> sessionListeners = new ArrayList<>();
+    private final FlowFields flowFields;
+    private final NpcScheduler scheduler;
+    /**
+     * Dormant sessions.
+     */
+    private final Set<ContextBasedNpcSession> sleeping = ConcurrentHashMap.newKeySet();
+    private long lastStatsUptime;
 
-    public UONpcSystem(Core core, InterClientNetwork network, Configuration configuration, NpcSessionCycle sessionCycle, ExecutorService executorService) {
+    /**
+     * @param executor bounded pool running the AI scripts, which must not block
+     */
+    public UONpcSystem(Core core, InterClientNetwork network, Configuration configuration, NpcSessionCycle sessionCycle, Executor executor) {
+        this(core, network, configuration, sessionCycle, executor, () -> System.nanoTime() / 1_000_000);
+    }
+
+    UONpcSystem(Core core, InterClientNetwork network, Configuration configuration, NpcSessionCycle sessionCycle, Executor executor,
+                LongSupplier clock) {
         this.core = requireNonNull(core, "Core must not be null");
         this.core.addMobileListener(this);
         this.network = network;
         this.configuration = configuration;
         this.sessionCycle = sessionCycle;
-        this.executorService = executorService;
+        this.flowFields = new FlowFields(configuration);
+        this.scheduler = new NpcScheduler(executor, this::run, clock);
     }
 
     @Override
     public void execute(long uptime) {
-        final var lock = new ReentrantLock();
-        for (ContextBasedNpcSession session : npcSessionMap.values()) {
-            if (lock.tryLock()) {
-                try {
-                    var npc = session.getMobile();
-                    var aiScript = npc.getAIScript();
-
-                    if (aiScript.isActive(session) && session.getContext() == null) {
-                        session.setContext(new UONpcContext());
-
-                        var future = CompletableFuture.runAsync(()-> sessionCycle.execute(aiScript, session), executorService);
+        scheduler.dispatch();
+        if (uptime - lastStatsUptime >= STATS_PERIOD) {
+            lastStatsUptime = uptime;
+            log.info("NPC sessions: {} scheduled, {} dormant", scheduler.size(), sleeping.size());
+            scheduler.getScriptStats().forEach((script, stats) -> log.info("AI script {}: {}", script.getSimpleName(), stats));
+        }
+    }
 
-                        future.whenComplete((a, throwable)-> {
-                            if (throwable != null) {
-                                log.error("Error to handle {} AI", npc, throwable);
-                            }
-                            session.setContext(null);
-                        });
-                    }
-                } finally {
-                    lock.unlock();
-                }
+    private long run(ContextBasedNpcSession session) {
+        var npc = session.getMobile();
+        if (core.isDormant(npc.getFacet(), npc)) {
+            sleeping.add(session);
+            // Checked again, as a player could have come close without finding the session asleep
+            if (core.isDormant(npc.getFacet(), npc)) {
+                return NpcScheduler.SUSPEND;
             }
+            if (!sleeping.remove(session)) {
+                return NpcScheduler.SUSPEND; // Awakened meanwhile, and scheduled again by the awakener
+            }
+        }
+        var aiScript = npc.getAIScript();
+        if (npc.isDeath() || !aiScript.isActive(session)) {
+            return IDLE_DELAY;
         }
+        return sessionCycle.execute(aiScript, session);
     }
 
     @Override
     public void onMobileCreated(Mobile mobile) {
         if (mobile.isNpc()) {
             var npc = (NpcMobile) mobile;
-            var session = new UONpcSession(npc, network, core);
+            var session = new UONpcSession(npc, network, core, flowFields);
+            session.setContext(new UONpcContext());
             npcSessionMap.put(npc, session);
+            scheduler.schedule(session, 0);
             for (NpcSessionListener listener: sessionListeners) {
                 listener.onSessionCreated(npc, session);
             }
@@ -79,12 +121,27 @@ public class UONpcSystem implements NpcSystem, SubSystem, MobileListener {
             final var npc = (NpcMobile) mobile;
             final var session = npcSessionMap.get(npc);
             npcSessionMap.remove(npc);
+            flowFields.release(npc);
+            if (session != null) {
+                scheduler.cancel(session);
+                sleeping.remove(session);
+            }
             for (NpcSessionListener listener: sessionListeners) {
                 listener.onSessionClosed(npc, session);
             }
         }
     }
 
+    @Override
+    public void onMobileAwakened(Mobile mobile) {
+        if (mobile.isNpc()) {
+            var session = npcSessionMap.get((NpcMobile) mobile);
+            if (session != null && sleeping.remove(session)) {
+                scheduler.schedule(session, 0);
+            }
+        }
+    }
+
     @Override
     public void addNpcSessionListener(NpcSessionListener listener) {
         this.sessionListeners.add(listener);
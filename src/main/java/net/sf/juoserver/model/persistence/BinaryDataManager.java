@@ -0,0 +1,384 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the world in a binary save file (see {@link BinaryWorldFormat}).
+ * <p/>
+ * The save is read once, by the first load; until the first save, the world
+ * is loaded from a fallback data manager. Saves capture a
+ * {@link WorldSnapshot} on the calling thread, then write it to a temporary
+ * file by the writer executor, replacing the save once complete and synced to
+ * the disk, so that a failed save never corrupts the previous one. Saves of
+ * the changes only are merged into the previous save by the writer.
+ * <p/>
+ * With a journal writer, the changes made between two saves are appended to
+ * a {@link Journal} next to the save: the journal writer appends all the
+ * records captured meanwhile and syncs them at once (group commit). Every
+ * record has a sequence number, and every save the number of the last record
+ * it includes: the first load replays the newer records on top of the save,
+ * and the records included in a save are dropped once it is written.
+ * <p/>
+ * Loading the characters on demand, the first load leaves the player
+ * characters and their items on disk, and {@link #loadCharacters(Collection)}
+ * reads them from the save by the writer, once the saves queued before are
+ * written; the requests queued meanwhile are served by a single read of the
+ * save. The journal records replayed by the first load are then saved at
+ * once, for the characters to be read up to date.
+ */
+public class BinaryDataManager implements DataManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryDataManager.class);
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+    private final DataManager fallback;
+    private final Executor writer;
+    private final Journal journal;
+    private final Executor journalWriter;
+    private final Queue<JournalRecord> journalQueue = new ConcurrentLinkedQueue<>();
+    private final boolean charactersOnDemand;
+    private final Queue<CharactersRequest> charactersQueue = new ConcurrentLinkedQueue<>();
+    private WorldSnapshot.World world;
+    private boolean journalOpen;
+    /**
+     * Sequence number of the last journal record
+     */
+    private int journalSequence;
+
+    /**
+     * @param file save file
+     * @param fallback data manager loading the world while there is no save
+     * @param writer executor writing the saves, one at a time
+     */
+    public BinaryDataManager(Path file, DataManager fallback, Executor writer) {
+        this(file, fallback, writer, null);
+    }
+
+    /**
+     * @param file save file
+     * @param fallback data manager loading the world while there is no save
+     * @param writer executor writing the saves, one at a time
+     * @param journalWriter executor writing the journal, one task at a time;
+     *                      <tt>null</tt> not to journal the changes
+     */
+    public BinaryDataManager(Path file, DataManager fallback, Executor writer, Executor journalWriter) {
+        this(file, fallback, writer, journalWriter, false);
+    }
+
+    /**
+     * @param file save file
+     * @param fallback data manager loading the world while there is no save
+     * @param writer executor writing the saves, one at a time
+     * @param journalWriter executor writing the journal, one task at a time;
+     *                      <tt>null</tt> not to journal the changes
+     * @param charactersOnDemand whether to leave the player characters out of
+     *                           the first load, to be loaded on demand
+     */
+    public BinaryDataManager(Path file, DataManager fallback, Executor writer, Executor journalWriter,
+                             boolean charactersOnDemand) {
+        this.file = file;
+        this.fallback = fallback;
+        this.writer = writer;
+        this.journalWriter = journalWriter;
+        this.journal = journalWriter != null ? new Journal(file.resolveSibling(file.getFileName() + ".journal")) : null;
+        this.charactersOnDemand = charactersOnDemand;
+    }
+
+    @Override
+    public List<Mobile> loadMobiles() {
+        return world().mobiles();
+    }
+
+    @Override
+    public List<Account> loadAccounts() {
+        return world().accounts();
+    }
+
+    @Override
+    public List<Item> loadItems() {
+        return world().groundItems();
+    }
+
+    @Override
+    public Integer getItemSerial() {
+        return world().itemSerial();
+    }
+
+    private synchronized WorldSnapshot.World world() {
+        if (world == null) {
+            world = Files.exists(file) ? read() : readFallback();
+        }
+        return world;
+    }
+
+    private WorldSnapshot.World readFallback() {
+        try {
+            if (!openJournal().isEmpty()) {
+                LOGGER.warn("Dropping the journal {}, as there is no save to replay it on", journal);
+                journal.compact(Integer.MAX_VALUE);
+            }
+        } catch (IOException e) {
+            throw new LoadException("Cannot read the world journal " + journal, e);
+        }
+        return new WorldSnapshot.World(fallback.loadMobiles(), fallback.loadAccounts(), fallback.loadItems(),
+                fallback.getItemSerial());
+    }
+
+    private WorldSnapshot.World read() {
+        long start = System.nanoTime();
+        try {
+            var snapshot = BinaryWorldFormat.read(file);
+            int saved = snapshot.journalSequence();
+            journalSequence = Math.max(journalSequence, saved);
+            WorldSnapshot changes = null;
+            int replayed = 0;
+            for (Journal.Record record : openJournal()) {
+                if (record.sequence() > saved) {
+                    changes = changes != null ? record.changes().applyTo(changes) : record.changes();
+                    replayed++;
+                }
+            }
+            if (changes != null) {
+                snapshot = changes.applyTo(snapshot);
+                if (charactersOnDemand) {
+                    saveReplayed(snapshot);
+                }
+            }
+            var loaded = snapshot.restore(!charactersOnDemand);
+            LOGGER.info("World loaded from {} in {} ms, with {} journal records: {} mobiles, {} accounts, {} ground items",
+                    file, (System.nanoTime() - start) / 1_000_000, replayed, loaded.mobiles().size(),
+                    loaded.accounts().size(), loaded.groundItems().size());
+            return loaded;
+        } catch (IOException e) {
+            throw new LoadException("Cannot read the world save " + file, e);
+        }
+    }
+
+    /**
+     * Saves the world replayed from the journal, before the characters it
+     * holds are read from the save.
+     */
+    private void saveReplayed(WorldSnapshot snapshot) {
+        int saved = snapshot.journalSequence();
+        writer.execute(() -> {
+            var stats = write(snapshot);
+            LOGGER.info("World replayed from the journal saved to {} in {} ms, {} bytes", file, stats.writeMillis(),
+                    stats.bytes());
+            journalWriter.execute(() -> compactJournal(saved));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Mobile>> loadCharacters(Collection<Integer> serials) {
+        if (!charactersOnDemand) {
+            return DataManager.super.loadCharacters(serials);
+        }
+        var request = new CharactersRequest(serials, new CompletableFuture<>());
+        charactersQueue.add(request);
+        writer.execute(this::readCharacters);
+        return request.loaded();
+    }
+
+    /**
+     * Reads the characters of all the requests queued so far.
+     */
+    private void readCharacters() {
+        List<CharactersRequest> group = new ArrayList<>();
+        CharactersRequest request;
+        while ((request = charactersQueue.poll()) != null) {
+            group.add(request);
+        }
+        if (group.isEmpty()) {
+            return; // Served along with a previous group
+        }
+        long start = System.nanoTime();
+        try {
+            if (!Files.exists(file)) {
+                // Loaded from the fallback until the first save, along with the world
+                group.forEach(empty -> empty.loaded().complete(List.of()));
+                return;
+            }
+            var serials = new HashSet<Integer>();
+            group.forEach(queued -> serials.addAll(queued.serials()));
+            Map<Integer, Mobile> characters = new HashMap<>();
+            for (Mobile character : BinaryWorldFormat.read(file).restoreCharacters(serials)) {
+                characters.put(character.getSerialId(), character);
+            }
+            for (CharactersRequest queued : group) {
+                queued.loaded().complete(queued.serials().stream()
+                        .map(characters::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+            }
+            LOGGER.debug("{} characters read from {} in {} ms", characters.size(), file,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Cannot read the characters from {}", file, e);
+            group.forEach(failed -> failed.loaded().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Opens the journal the first time.
+     *
+     * @return the records of the journal
+     */
+    private synchronized List<Journal.Record> openJournal() throws IOException {
+        if (journal == null || journalOpen) {
+            return List.of();
+        }
+        journalOpen = true;
+        var records = journal.open();
+        for (Journal.Record record : records) {
+            journalSequence = Math.max(journalSequence, record.sequence());
+        }
+        return records;
+    }
+
+    @Override
+    public CompletableFuture<SaveStats> save(WorldChanges changes) {
+        long start = System.nanoTime();
+        WorldSnapshot snapshot;
+        int saved;
+        synchronized (this) {
+            try {
+                openJournal();
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            // The journal records captured before are included, the ones captured after are not
+            saved = journalSequence;
+            snapshot = WorldSnapshot.capture(changes, saved);
+        }
+        long captured = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            var stats = write(snapshot);
+            LOGGER.info("World {} to {}: captured in {} ms, written in {} ms, {} bytes",
+                    snapshot.isPartial() ? "changes saved" : "saved", file, (captured - start) / 1_000_000,
+                    stats.writeMillis(), stats.bytes());
+            if (journal != null) {
+                journalWriter.execute(() -> compactJournal(saved));
+            }
+            return stats;
+        }, writer);
+    }
+
+    private SaveStats write(WorldSnapshot snapshot) {
+        long start = System.nanoTime();
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (snapshot.isPartial()) {
+                if (!Files.exists(file)) {
+                    throw new IllegalStateException("Changes cannot be saved before the whole world is saved once");
+                }
+                snapshot = snapshot.applyTo(BinaryWorldFormat.read(file));
+            }
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            long bytes;
+            try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                var out = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+                BinaryWorldFormat.write(snapshot, out);
+                out.flush();
+                channel.force(true); // On disk before replacing the previous save
+                bytes = channel.size();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new SaveStats(bytes, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            LOGGER.error("Cannot save the world to {}", file, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<SaveStats> journal(WorldChanges changes) {
+        if (journal == null) {
+            return CompletableFuture.completedFuture(new SaveStats(0, 0));
+        }
+        JournalRecord record;
+        synchronized (this) {
+            try {
+                openJournal();
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            journalSequence++;
+            record = new JournalRecord(journalSequence, WorldSnapshot.capture(changes, journalSequence),
+                    new CompletableFuture<>());
+        }
+        journalQueue.add(record);
+        journalWriter.execute(this::commitJournal);
+        return record.committed();
+    }
+
+    /**
+     * Appends all the records queued so far, then syncs them at once.
+     */
+    private void commitJournal() {
+        List<JournalRecord> group = new ArrayList<>();
+        JournalRecord record;
+        while ((record = journalQueue.poll()) != null) {
+            group.add(record);
+        }
+        if (group.isEmpty()) {
+            return; // Committed along with a previous group
+        }
+        long start = System.nanoTime();
+        try {
+            long bytes = 0;
+            for (JournalRecord queued : group) {
+                var out = new ByteArrayOutputStream(4096);
+                BinaryWorldFormat.write(queued.changes(), out);
+                bytes += journal.append(queued.sequence(), out.toByteArray());
+            }
+            journal.sync();
+            var stats = new SaveStats(bytes, (System.nanoTime() - start) / 1_000_000);
+            group.forEach(committed -> committed.committed().complete(stats));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Cannot append the world changes to {}", journal, e);
+            group.forEach(failed -> failed.committed().completeExceptionally(e));
+        }
+    }
+
+    private void compactJournal(int saved) {
+        try {
+            int kept = journal.compact(saved);
+            LOGGER.debug("Journal {} compacted, {} records kept", journal, kept);
+        } catch (IOException e) {
+            LOGGER.error("Cannot compact the journal {}", journal, e);
+        }
+    }
+
+    private record CharactersRequest(Collection<Integer> serials, CompletableFuture<List<Mobile>> loaded) {
+    }
+
+    private record JournalRecord(int sequence, WorldSnapshot changes, CompletableFuture<SaveStats> committed) {
+    }
+}
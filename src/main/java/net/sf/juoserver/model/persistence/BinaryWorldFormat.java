@@ -0,0 +1,309 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.LoadException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary format of the {@link WorldSnapshot}s:
+ * <pre>
+ * magic   "JUOW"
+ * version varint
+ * count   varint, number of sections
+ * section id (byte), length (varint), content
+ * </pre>
+ * The first section is the string table: the number of strings, then each
+ * string as its length and UTF-8 bytes. Each distinct string is stored once
+ * and read back as a single instance, so that, for example, the names shared
+ * by many items are only kept once in memory.
+ * <p/>
+ * The other sections hold the rows of a kind, ordered by their first column:
+ * the number of rows, of integer columns and of string columns, then every
+ * column in turn. Integer columns start with their encoding (plain or as
+ * differences from the previous row, for the first column), followed by the
+ * values as zigzag varints; string columns are indices in the string table,
+ * 0 standing for <tt>null</tt>. Unknown sections are skipped, and columns
+ * missing from a section read as 0 and <tt>null</tt>, so that sections and
+ * columns can be added without changing the version. The version is only
+ * increased by changes older readers would misread, such as moving data to
+ * another section: saves of a newer version are refused rather than loaded
+ * partially.
+ * <p/>
+ * Saves are read through memory mapping. Partial snapshots are applied to the
+ * previous save before being written, so that every save is complete; only
+ * the {@link Journal} records are partial, with their touched section.
+ */
+final class BinaryWorldFormat {
+    static final int MAGIC = 0x4A554F57; // JUOW
+    /**
+     * 2: worn items in their own section, rather than in item columns
+     */
+    static final int VERSION = 2;
+    private static final int STRINGS = 0;
+    private static final int PLAIN = 0;
+    private static final int DELTA = 1;
+
+    private BinaryWorldFormat() {
+    }
+
+    /**
+     * Writes the snapshot, ordering its rows.
+     *
+     * @param snapshot snapshot
+     * @param out output, not closed
+     * @throws IOException if the snapshot cannot be written
+     */
+    static void write(WorldSnapshot snapshot, OutputStream out) throws IOException {
+        // Encoded first, as the string table is filled while encoding the other sections
+        var strings = new StringTable();
+        var sections = snapshot.sectionsToWrite();
+        var encoded = new Buffer[sections.length];
+        int count = 1;
+        for (int id = 0; id < sections.length; id++) {
+            if (sections[id] != null) {
+                encoded[id] = encode(sections[id], strings);
+                count++;
+            }
+        }
+
+        var header = new Buffer(16);
+        header.putInt(MAGIC);
+        header.putVarInt(VERSION);
+        header.putVarInt(count);
+        header.writeTo(out);
+        writeSection(STRINGS, strings.encode(), out);
+        for (int id = 0; id < encoded.length; id++) {
+            if (encoded[id] != null) {
+                writeSection(id, encoded[id], out);
+            }
+        }
+    }
+
+    private static Buffer encode(WorldSnapshot.Section section, StringTable strings) {
+        section.sort();
+        int size = section.size();
+        var content = new Buffer(16 + size * (section.intColumns() + section.stringColumns()) * 2);
+        content.putVarInt(size);
+        content.putVarInt(section.intColumns());
+        content.putVarInt(section.stringColumns());
+        for (int column = 0; column < section.intColumns(); column++) {
+            int encoding = column == 0 ? DELTA : PLAIN;
+            content.putVarInt(encoding);
+            int previous = 0;
+            for (int row = 0; row < size; row++) {
+                int value = section.getInt(column, row);
+                content.putZigZag(encoding == DELTA ? value - previous : value);
+                previous = value;
+            }
+        }
+        for (int column = 0; column < section.stringColumns(); column++) {
+            for (int row = 0; row < size; row++) {
+                content.putVarInt(strings.indexOf(section.getString(column, row)));
+            }
+        }
+        return content;
+    }
+
+    private static void writeSection(int id, Buffer content, OutputStream out) throws IOException {
+        var header = new Buffer(6);
+        header.putByte(id);
+        header.putVarInt(content.size);
+        header.writeTo(out);
+        content.writeTo(out);
+    }
+
+    /**
+     * @param file save
+     * @return the snapshot read from the save
+     * @throws IOException if the save cannot be read
+     * @throws LoadException if the save is not valid
+     */
+    static WorldSnapshot read(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static WorldSnapshot read(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new LoadException("Not a world save");
+            }
+            int version = getVarInt(buffer);
+            if (version > VERSION) {
+                throw new LoadException("Unsupported world save version " + version);
+            }
+            int count = getVarInt(buffer);
+            String[] strings = {};
+            var sections = new WorldSnapshot.Section[WorldSnapshot.SECTIONS];
+            for (int i = 0; i < count; i++) {
+                int id = buffer.get();
+                int length = getVarInt(buffer);
+                int end = buffer.position() + length;
+                if (id == STRINGS) {
+                    strings = readStrings(buffer);
+                } else if (id > 0 && id < sections.length) {
+                    sections[id] = readSection(buffer, strings);
+                }
+                buffer.position(end);
+            }
+            return new WorldSnapshot(sections);
+        } catch (RuntimeException e) {
+            if (e instanceof LoadException) {
+                throw e;
+            }
+            throw new LoadException("Corrupted world save", e);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        var strings = new String[getVarInt(buffer) + 1];
+        var bytes = new byte[64];
+        for (int i = 1; i < strings.length; i++) {
+            int length = getVarInt(buffer);
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            buffer.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static WorldSnapshot.Section readSection(ByteBuffer buffer, String[] strings) {
+        int size = getVarInt(buffer);
+        var section = new WorldSnapshot.Section(getVarInt(buffer), getVarInt(buffer), size);
+        for (int row = 0; row < size; row++) {
+            section.addRow();
+        }
+        for (int column = 0; column < section.intColumns(); column++) {
+            boolean delta = getVarInt(buffer) == DELTA;
+            int previous = 0;
+            for (int row = 0; row < size; row++) {
+                int value = getZigZag(buffer);
+                if (delta) {
+                    value += previous;
+                }
+                section.setInt(column, row, value);
+                previous = value;
+            }
+        }
+        for (int column = 0; column < section.stringColumns(); column++) {
+            for (int row = 0; row < size; row++) {
+                section.setString(column, row, strings[getVarInt(buffer)]);
+            }
+        }
+        return section;
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new LoadException("Malformed varint");
+    }
+
+    private static int getZigZag(ByteBuffer buffer) {
+        int value = getVarInt(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Strings by their index, 0 being <tt>null</tt>.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        private int indexOf(String string) {
+            if (string == null) {
+                return 0;
+            }
+            return indices.computeIfAbsent(string, s -> {
+                strings.add(s);
+                return strings.size();
+            });
+        }
+
+        private Buffer encode() {
+            var buffer = new Buffer(16 + strings.size() * 16);
+            buffer.putVarInt(strings.size());
+            for (String string : strings) {
+                var bytes = string.getBytes(StandardCharsets.UTF_8);
+                buffer.putVarInt(bytes.length);
+                buffer.put(bytes, bytes.length);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Growable byte buffer.
+     */
+    static final class Buffer {
+        private byte[] bytes;
+        private int size;
+
+        Buffer(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        private void ensure(int more) {
+            if (size + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+            }
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void putVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void putZigZag(int value) {
+            putVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void put(byte[] other, int length) {
+            ensure(length);
+            System.arraycopy(other, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The entities changed and removed since the previous save, reported by the
+ * entities themselves from any thread.
+ * <p/>
+ * Draining clears the change flag of every entity before it is captured, so
+ * that a change made during the capture is saved again by the next save
+ * rather than lost. The changes drained for the journal are kept until the
+ * next save, which saves them along with the newer ones.
+ */
+public class ChangedEntities implements ChangeTracker {
+    private final Changes pending = new Changes();
+    private final Changes journaled = new Changes();
+
+    @Override
+    public void changed(Persistent entity) {
+        pending.add(entity);
+    }
+
+    @Override
+    public synchronized void removed(Persistent entity) {
+        pending.remove(entity);
+        journaled.remove(entity);
+    }
+
+    /**
+     * @return the number of changed and removed entities not journaled yet
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Takes the changes since the previous drain, to be journaled; they are
+     * taken again by the next {@link #drain(int)}.
+     *
+     * @param itemSerial serial of the next created item
+     * @return the changes since the previous drain
+     */
+    public synchronized WorldChanges drainJournal(int itemSerial) {
+        var changes = new Changes();
+        pending.drainTo(changes, true);
+        changes.addTo(journaled);
+        return changes.toWorldChanges(itemSerial);
+    }
+
+    /**
+     * Takes the changes since the previous save, to be saved.
+     *
+     * @param itemSerial serial of the next created item
+     * @return the changes since the previous save
+     */
+    public synchronized WorldChanges drain(int itemSerial) {
+        var changes = new Changes();
+        journaled.drainTo(changes, false);
+        pending.drainTo(changes, true);
+        return changes.toWorldChanges(itemSerial);
+    }
+
+    /**
+     * Takes back the changes of a failed save, to be saved by the next one.
+     *
+     * @param failed changes taken by the failed save
+     */
+    public synchronized void restore(WorldChanges failed) {
+        failed.mobiles().forEach(pending::add);
+        failed.accounts().forEach(pending::add);
+        failed.items().forEach(pending::add);
+        pending.removedMobiles.addAll(failed.removedMobiles());
+        pending.removedItems.addAll(failed.removedItems());
+    }
+
+    /**
+     * Changed entities and serials of the removed ones.
+     */
+    private static final class Changes {
+        private final Set<Mobile> mobiles = ConcurrentHashMap.newKeySet();
+        private final Set<Item> items = ConcurrentHashMap.newKeySet();
+        private final Set<Account> accounts = ConcurrentHashMap.newKeySet();
+        private final Set<Integer> removedMobiles = ConcurrentHashMap.newKeySet();
+        private final Set<Integer> removedItems = ConcurrentHashMap.newKeySet();
+
+        private void add(Persistent entity) {
+            if (entity instanceof Mobile mobile) {
+                mobiles.add(mobile);
+            } else if (entity instanceof Item item) {
+                items.add(item);
+            } else if (entity instanceof Account account) {
+                accounts.add(account);
+            }
+        }
+
+        private void remove(Persistent entity) {
+            if (entity instanceof Mobile mobile) {
+                mobiles.remove(mobile);
+                removedMobiles.add(mobile.getSerialId());
+            } else if (entity instanceof Item item) {
+                items.remove(item);
+                removedItems.add(item.getSerialId());
+                if (item instanceof Container container) {
+                    for (Item content : container.getItems()) {
+                        remove(content);
+                    }
+                }
+            }
+        }
+
+        private int size() {
+            return mobiles.size() + items.size() + accounts.size() + removedMobiles.size() + removedItems.size();
+        }
+
+        private void drainTo(Changes target, boolean clearChanges) {
+            drainTo(mobiles, target.mobiles, clearChanges);
+            drainTo(items, target.items, clearChanges);
+            drainTo(accounts, target.accounts, clearChanges);
+            drainTo(removedMobiles, target.removedMobiles, false);
+            drainTo(removedItems, target.removedItems, false);
+        }
+
+        private static <T> void drainTo(Set<T> source, Set<T> target, boolean clearChanges) {
+            for (var iterator = source.iterator(); iterator.hasNext(); ) {
+                var element = iterator.next();
+                iterator.remove();
+                if (clearChanges) {
+                    ((Persistent) element).clearChanges();
+                }
+                target.add(element);
+            }
+        }
+
+        private void addTo(Changes target) {
+            target.mobiles.addAll(mobiles);
+            target.items.addAll(items);
+            target.accounts.addAll(accounts);
+            target.removedMobiles.addAll(removedMobiles);
+            target.removedItems.addAll(removedItems);
+        }
+
+        private WorldChanges toWorldChanges(int itemSerial) {
+            return new WorldChanges(false, List.copyOf(mobiles), List.copyOf(accounts), List.copyOf(items),
+                    new ArrayList<>(removedMobiles), new ArrayList<>(removedItems), itemSerial);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.Passwords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.sf.juoserver.model.persistence.WorldSnapshot.*;
+
+/**
+ * Keeps the world in an embedded database, such as H2 or SQLite, through
+ * JDBC: every {@link WorldSnapshot} section is a table, named after its
+ * {@link WorldSnapshot#LAYOUTS layout}, whose first column is the key of the
+ * rows.
+ * <p/>
+ * The world is read once, by the first load, every table by its own
+ * connection in parallel, the rows being streamed into the snapshot columns;
+ * until the first save, the world is loaded from a fallback data manager.
+ * <p/>
+ * Saves and journal records capture a {@link WorldSnapshot} on the calling
+ * thread and queue it; the writer flushes the queue after the flush period,
+ * merging the snapshots queued meanwhile and writing them in one transaction
+ * through batches of prepared statements: the rows of the changed and
+ * removed entities are deleted by key and inserted again, the tables of a
+ * whole world replaced. Game threads never wait for the database.
+ * <p/>
+ * Loading the characters on demand, the first load leaves the player
+ * characters and their items in the database, and
+ * {@link #loadCharacters(Collection)} selects them by the writer, once the
+ * queued snapshots are written.
+ */
+public class JdbcDataManager implements DataManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcDataManager.class);
+    private static final int BATCH_SIZE = 1000;
+    private static final int FETCH_SIZE = 1000;
+    /**
+     * Keys per <tt>IN</tt> list
+     */
+    private static final int IN_SIZE = 500;
+    /**
+     * Longest username, as sent by the clients in the login requests
+     */
+    private static final int USERNAME_LENGTH = 30;
+    private static final int STRING_LENGTH = 255;
+
+    private final String url;
+    private final DataManager fallback;
+    private final Executor writer;
+    private final long flushPeriodMillis;
+    private final boolean charactersOnDemand;
+    private final Queue<QueuedWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private WorldSnapshot.World world;
+    /**
+     * Connection of the writer
+     */
+    private Connection connection;
+
+    /**
+     * @param url JDBC URL of the database
+     * @param fallback data manager loading the world while there is no save
+     * @param writer executor writing to the database, one task at a time
+     * @param flushPeriodMillis milliseconds the snapshots are queued before
+     *                          being written; 0 to write them at once
+     */
+    public JdbcDataManager(String url, DataManager fallback, Executor writer, long flushPeriodMillis) {
+        this(url, fallback, writer, flushPeriodMillis, false);
+    }
+
+    /**
+     * @param url JDBC URL of the database
+     * @param fallback data manager loading the world while there is no save
+     * @param writer executor writing to the database, one task at a time
+     * @param flushPeriodMillis milliseconds the snapshots are queued before
+     *                          being written; 0 to write them at once
+     * @param charactersOnDemand whether to leave the player characters out of
+     *                           the first load, to be loaded on demand
+     */
+    public JdbcDataManager(String url, DataManager fallback, Executor writer, long flushPeriodMillis,
+                           boolean charactersOnDemand) {
+        this.url = url;
+        this.fallback = fallback;
+        this.writer = writer;
+        this.flushPeriodMillis = flushPeriodMillis;
+        this.charactersOnDemand = charactersOnDemand;
+    }
+
+    @Override
+    public List<Mobile> loadMobiles() {
+        return world().mobiles();
+    }
+
+    @Override
+    public List<Account> loadAccounts() {
+        return world().accounts();
+    }
+
+    @Override
+    public List<Item> loadItems() {
+        return world().groundItems();
+    }
+
+    @Override
+    public Integer getItemSerial() {
+        return world().itemSerial();
+    }
+
+    private synchronized WorldSnapshot.World world() {
+        if (world == null) {
+            try {
+                world = isSaved() ? read() : new WorldSnapshot.World(fallback.loadMobiles(), fallback.loadAccounts(),
+                        fallback.loadItems(), fallback.getItemSerial());
+            } catch (SQLException e) {
+                throw new LoadException("Cannot read the world from " + url, e);
+            }
+        }
+        return world;
+    }
+
+    private boolean isSaved() throws SQLException {
+        try (var connection = DriverManager.getConnection(url)) {
+            return isSaved(connection);
+        }
+    }
+
+    private static boolean isSaved(Connection connection) throws SQLException {
+        createTables(connection);
+        try (var statement = connection.createStatement();
+             var rows = statement.executeQuery("SELECT COUNT(*) FROM " + LAYOUTS[WORLD].name())) {
+            return rows.next() && rows.getInt(1) > 0;
+        }
+    }
+
+    private static void createTables(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            for (int id = WORLD; id < TOUCHED; id++) {
+                var layout = LAYOUTS[id];
+                var columns = new StringBuilder();
+                for (String column : layout.ints()) {
+                    columns.append(column).append(" INT NOT NULL, ");
+                }
+                for (int column = 0; column < layout.strings().length; column++) {
+                    columns.append(layout.strings()[column]).append(" VARCHAR(").append(length(id, column)).append("), ");
+                }
+                columns.setLength(columns.length() - 2);
+                statement.execute("CREATE TABLE IF NOT EXISTS " + layout.name() + " (" + columns + ")");
+                statement.execute("CREATE INDEX IF NOT EXISTS " + layout.name() + "_key ON " + layout.name()
+                        + " (" + layout.ints()[0] + ")");
+            }
+        }
+    }
+
+    /**
+     * @return the length of a string column: the passwords are sized for
+     *         the hashed ones, longer than the plaintext ones of older saves
+     */
+    private static int length(int section, int column) {
+        if (section == ACCOUNTS && column == USERNAME) {
+            return USERNAME_LENGTH;
+        }
+        if (section == ACCOUNTS && column == PASSWORD) {
+            return Passwords.MAX_HASHED_LENGTH;
+        }
+        return STRING_LENGTH;
+    }
+
+    private WorldSnapshot.World read() {
+        long start = System.nanoTime();
+        var sections = new Section[SECTIONS];
+        var readers = Executors.newFixedThreadPool(TOUCHED - WORLD);
+        try {
+            var reads = new ArrayList<CompletableFuture<Void>>();
+            for (int id = WORLD; id < TOUCHED; id++) {
+                int section = id;
+                if (!charactersOnDemand || section != MOBILES) {
+                    reads.add(CompletableFuture.runAsync(() -> sections[section] = readTable(section), readers));
+                }
+            }
+            CompletableFuture.allOf(reads.toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            throw new LoadException("Cannot read the world from " + url, e.getCause());
+        } finally {
+            readers.shutdown();
+        }
+        var loaded = new WorldSnapshot(sections).restore(!charactersOnDemand);
+        LOGGER.info("World loaded from {} in {} ms: {} mobiles, {} accounts, {} ground items", url,
+                (System.nanoTime() - start) / 1_000_000, loaded.mobiles().size(), loaded.accounts().size(),
+                loaded.groundItems().size());
+        return loaded;
+    }
+
+    /**
+     * Reads a whole table by its own connection.
+     */
+    private Section readTable(int id) {
+        try (var connection = DriverManager.getConnection(url)) {
+            connection.setReadOnly(true);
+            try (var statement = connection.createStatement()) {
+                return select(statement, id, "");
+            }
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Streams the selected rows of a table into a section.
+     */
+    private static Section select(Statement statement, int id, String where) throws SQLException {
+        var layout = LAYOUTS[id];
+        var section = new Section(layout.ints().length, layout.strings().length, FETCH_SIZE);
+        statement.setFetchSize(FETCH_SIZE);
+        try (var rows = statement.executeQuery("SELECT " + columns(layout) + " FROM " + layout.name() + where)) {
+            addRows(rows, section);
+        }
+        section.sort();
+        return section;
+    }
+
+    private static void addRows(ResultSet rows, Section section) throws SQLException {
+        while (rows.next()) {
+            int row = section.addRow();
+            int column = 1;
+            for (int i = 0; i < section.intColumns(); i++) {
+                section.setInt(i, row, rows.getInt(column++));
+            }
+            for (int i = 0; i < section.stringColumns(); i++) {
+                var value = rows.getString(column++);
+                section.setString(i, row, value != null ? value.intern() : null);
+            }
+        }
+    }
+
+    private static String columns(Layout layout) {
+        var columns = new ArrayList<String>(List.of(layout.ints()));
+        columns.addAll(List.of(layout.strings()));
+        return String.join(", ", columns);
+    }
+
+    @Override
+    public CompletableFuture<SaveStats> save(WorldChanges changes) {
+        return queue(WorldSnapshot.capture(changes));
+    }
+
+    /**
+     * Queues the changes like a save of the changes, the database being
+     * durable at every flush.
+     */
+    @Override
+    public CompletableFuture<SaveStats> journal(WorldChanges changes) {
+        return queue(WorldSnapshot.capture(changes));
+    }
+
+    private CompletableFuture<SaveStats> queue(WorldSnapshot snapshot) {
+        var write = new QueuedWrite(snapshot, new CompletableFuture<>());
+        queue.add(write);
+        if (flushScheduled.compareAndSet(false, true)) {
+            var flusher = flushPeriodMillis > 0
+                    ? CompletableFuture.delayedExecutor(flushPeriodMillis, TimeUnit.MILLISECONDS, writer) : writer;
+            flusher.execute(this::flush);
+        }
+        return write.written();
+    }
+
+    /**
+     * Writes all the snapshots queued so far in one transaction.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        List<QueuedWrite> group = new ArrayList<>();
+        QueuedWrite write;
+        while ((write = queue.poll()) != null) {
+            group.add(write);
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        WorldSnapshot merged = null;
+        for (QueuedWrite queued : group) {
+            merged = merged != null ? queued.snapshot().applyTo(merged) : queued.snapshot();
+        }
+        try {
+            var connection = connection();
+            try {
+                if (merged.isPartial() && !isSaved(connection)) {
+                    throw new IllegalStateException("Changes cannot be saved before the whole world is saved once");
+                }
+                long bytes = write(connection, merged);
+                connection.commit();
+                var stats = new SaveStats(bytes, (System.nanoTime() - start) / 1_000_000);
+                LOGGER.info("World {} to {} ({} queued): written in {} ms, {} bytes",
+                        merged.isPartial() ? "changes saved" : "saved", url, group.size(), stats.writeMillis(),
+                        stats.bytes());
+                group.forEach(written -> written.written().complete(stats));
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.error("Cannot save the world to {}", url, e);
+            group.forEach(failed -> failed.written().completeExceptionally(e));
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(url);
+            connection.setAutoCommit(false);
+            createTables(connection);
+            connection.commit();
+        }
+        return connection;
+    }
+
+    /**
+     * Replaces the rows of the snapshot.
+     *
+     * @return bytes of the values written
+     */
+    private static long write(Connection connection, WorldSnapshot snapshot) throws SQLException {
+        long bytes = 0;
+        var sections = snapshot.sections();
+        for (int id = WORLD; id < TOUCHED; id++) {
+            var rows = sections[id];
+            var keys = snapshot.touchedKeys(id);
+            if (rows == null || keys != null && keys.length == 0) {
+                continue; // Unchanged
+            }
+            var layout = LAYOUTS[id];
+            if (keys == null) {
+                try (var statement = connection.createStatement()) {
+                    statement.executeUpdate("DELETE FROM " + layout.name());
+                }
+            } else {
+                try (var delete = connection.prepareStatement(
+                        "DELETE FROM " + layout.name() + " WHERE " + layout.ints()[0] + " = ?")) {
+                    for (int i = 0; i < keys.length; i++) {
+                        delete.setInt(1, keys[i]);
+                        addBatch(delete, i);
+                    }
+                    delete.executeBatch();
+                }
+            }
+            bytes += insert(connection, layout, rows);
+        }
+        return bytes;
+    }
+
+    private static long insert(Connection connection, Layout layout, Section rows) throws SQLException {
+        long bytes = 0;
+        int columns = layout.ints().length + layout.strings().length;
+        try (var insert = connection.prepareStatement("INSERT INTO " + layout.name() + " (" + columns(layout)
+                + ") VALUES (" + "?, ".repeat(columns - 1) + "?)")) {
+            for (int row = 0; row < rows.size(); row++) {
+                int column = 1;
+                for (int i = 0; i < layout.ints().length; i++) {
+                    insert.setInt(column++, rows.getInt(i, row));
+                }
+                bytes += layout.ints().length * 4L;
+                for (int i = 0; i < layout.strings().length; i++) {
+                    var value = rows.getString(i, row);
+                    insert.setString(column++, value);
+                    bytes += value != null ? value.length() : 0;
+                }
+                addBatch(insert, row);
+            }
+            insert.executeBatch();
+        }
+        return bytes;
+    }
+
+    private static void addBatch(PreparedStatement statement, int index) throws SQLException {
+        statement.addBatch();
+        if ((index + 1) % BATCH_SIZE == 0) {
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<Mobile>> loadCharacters(Collection<Integer> serials) {
+        if (!charactersOnDemand) {
+            return DataManager.super.loadCharacters(serials);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            flush(); // The characters are read as last saved
+            try {
+                if (!isSaved(connection())) {
+                    return List.of(); // Loaded from the fallback until the first save, along with the world
+                }
+                return selectCharacters(serials);
+            } catch (SQLException e) {
+                LOGGER.error("Cannot read the characters from {}", url, e);
+                throw new CompletionException(e);
+            }
+        }, writer);
+    }
+
+    /**
+     * Selects the characters with the items they wear, then the content of
+     * these items, level by level.
+     */
+    private List<Mobile> selectCharacters(Collection<Integer> serials) throws SQLException {
+        var sections = new Section[SECTIONS];
+        try (var statement = connection().createStatement()) {
+            sections[MOBILES] = selectIn(statement, MOBILES, serials);
+            sections[EQUIPMENT] = selectIn(statement, EQUIPMENT, serials);
+            Set<Integer> items = new HashSet<>();
+            for (int row = 0; row < sections[EQUIPMENT].size(); row++) {
+                items.add(sections[EQUIPMENT].getInt(2, row));
+            }
+            var containers = new Section(LAYOUTS[CONTAINERS].ints().length, 0, 16);
+            Collection<Integer> level = items;
+            while (!level.isEmpty()) {
+                var content = selectIn(statement, CONTAINERS, level);
+                Set<Integer> next = new HashSet<>();
+                for (int row = 0; row < content.size(); row++) {
+                    containers.copyRow(content, row);
+                    if (items.add(content.getInt(1, row))) {
+                        next.add(content.getInt(1, row));
+                    }
+                }
+                level = next;
+            }
+            sections[CONTAINERS] = containers;
+            sections[ITEMS] = selectIn(statement, ITEMS, items);
+        }
+        connection().commit();
+        return new WorldSnapshot(sections).restoreCharacters(serials);
+    }
+
+    /**
+     * @return the rows of a table whose key is one of the given ones
+     */
+    private static Section selectIn(Statement statement, int id, Collection<Integer> keys) throws SQLException {
+        var layout = LAYOUTS[id];
+        var section = new Section(layout.ints().length, layout.strings().length, keys.size());
+        var chunk = new ArrayList<Integer>(IN_SIZE);
+        var iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == IN_SIZE || !iterator.hasNext()) {
+                var in = chunk.stream().map(String::valueOf).toList();
+                var rows = select(statement, id, " WHERE " + layout.ints()[0] + " IN (" + String.join(", ", in) + ")");
+                for (int row = 0; row < rows.size(); row++) {
+                    section.copyRow(rows, row);
+                }
+                chunk.clear();
+            }
+        }
+        section.sort();
+        return section;
+    }
+
+    private record QueuedWrite(WorldSnapshot snapshot, CompletableFuture<SaveStats> written) {
+    }
+}
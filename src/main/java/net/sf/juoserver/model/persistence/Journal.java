@@ -0,0 +1,186 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.LoadException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the world changes made since the last save, each
+ * record being a partial {@link WorldSnapshot} in the
+ * {@link BinaryWorldFormat}:
+ * <pre>
+ * magic   "JUOJ"
+ * version int
+ * record  length (int), sequence number (int), CRC32 of the content (int), content
+ * </pre>
+ * Records are appended without syncing, the writer syncing once for a whole
+ * group of them. A crash may leave an incomplete record at the end, which is
+ * dropped when the journal is opened again.
+ */
+final class Journal implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Journal.class);
+    static final int MAGIC = 0x4A554F4A; // JUOJ
+    static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 12;
+
+    private final Path file;
+    private FileChannel channel;
+
+    Journal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the records, drops the incomplete ones left by a crash and opens
+     * the journal for appending.
+     *
+     * @return the records, in order
+     * @throws IOException if the journal cannot be read
+     * @throws LoadException if the file is not a journal
+     */
+    List<Record> open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        List<Record> records = new ArrayList<>();
+        if (channel.size() < HEADER) {
+            channel.truncate(0);
+            channel.write(header(), 0);
+        } else {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new LoadException("Not a world journal: " + file);
+            }
+            int version = buffer.getInt();
+            if (version > VERSION) {
+                throw new LoadException("Unsupported world journal version " + version);
+            }
+            long valid = HEADER;
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int length = buffer.getInt();
+                int sequence = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    break;
+                }
+                var content = buffer.slice(buffer.position(), length);
+                if (checksum(content) != checksum) {
+                    break;
+                }
+                records.add(new Record(sequence, BinaryWorldFormat.read(content)));
+                buffer.position(buffer.position() + length);
+                valid = buffer.position();
+            }
+            if (valid < channel.size()) {
+                LOGGER.warn("Dropping {} bytes of incomplete records at the end of {}", channel.size() - valid, file);
+                channel.truncate(valid);
+            }
+        }
+        channel.position(channel.size());
+        return records;
+    }
+
+    /**
+     * Appends a record, not synced yet.
+     *
+     * @param sequence sequence number of the record
+     * @param content record content
+     * @return bytes appended
+     * @throws IOException if the record cannot be appended
+     */
+    int append(int sequence, byte[] content) throws IOException {
+        var header = ByteBuffer.allocate(RECORD_HEADER);
+        header.putInt(content.length).putInt(sequence).putInt(checksum(ByteBuffer.wrap(content))).flip();
+        var buffers = new ByteBuffer[] {header, ByteBuffer.wrap(content)};
+        while (buffers[1].hasRemaining()) {
+            channel.write(buffers);
+        }
+        return RECORD_HEADER + content.length;
+    }
+
+    /**
+     * Syncs the appended records to the disk.
+     *
+     * @throws IOException if the records cannot be synced
+     */
+    void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Drops the records included in a save.
+     *
+     * @param saved sequence number of the last record included in the save
+     * @return the number of records kept
+     * @throws IOException if the journal cannot be rewritten
+     */
+    int compact(int saved) throws IOException {
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int kept = 0;
+        try (var out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(header());
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int position = HEADER;
+            while (position < buffer.limit()) {
+                int length = buffer.getInt(position);
+                if (buffer.getInt(position + 4) > saved) {
+                    var record = buffer.slice(position, RECORD_HEADER + length);
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                    kept++;
+                }
+                position += RECORD_HEADER + length;
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return kept;
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).flip();
+    }
+
+    private static int checksum(ByteBuffer content) {
+        var crc = new CRC32();
+        crc.update(content.duplicate());
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+
+    /**
+     * A record of the journal.
+     *
+     * @param sequence sequence number, increasing with every record
+     * @param changes world changes
+     */
+    record Record(int sequence, WorldSnapshot changes) {
+    }
+}
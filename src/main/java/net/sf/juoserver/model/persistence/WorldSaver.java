@@ -0,0 +1,110 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.Core;
+import net.sf.juoserver.api.SaveStats;
+import net.sf.juoserver.api.SubSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Periodically saves the world in the background.
+ * <p/>
+ * The first save, and the one following a failed save, writes the whole
+ * world; the others only the players and items changed since the previous
+ * save. Only the changes are captured within the tick, the merge with the
+ * previous save and the writing being done by the writer of the data
+ * manager; a save is skipped while the previous one is still being written.
+ * <p/>
+ * When journaling, every run between two saves journals the changes since the
+ * previous run, once the whole world has been saved, so that a crash only
+ * loses the changes of the last run; runs are skipped while the previous
+ * changes are being journaled, which are then journaled along with the next
+ * ones.
+ * <p/>
+ * The time the tick spent capturing the world (which doesn't stop the other
+ * threads, see {@link WorldSnapshot}), the bytes written and the write
+ * duration of every save are logged.
+ */
+public class WorldSaver implements SubSystem {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorldSaver.class);
+
+    private final Core core;
+    private final long periodMillis;
+    private final boolean journal;
+    private long lastSaveUptime;
+    private CompletableFuture<SaveStats> pending = CompletableFuture.completedFuture(null);
+    private CompletableFuture<SaveStats> journaling = CompletableFuture.completedFuture(null);
+    private volatile boolean saved;
+    private volatile long lastCaptureMillis;
+    private volatile SaveStats lastStats;
+
+    /**
+     * @param core core
+     * @param periodMillis milliseconds between two saves
+     */
+    public WorldSaver(Core core, long periodMillis) {
+        this(core, periodMillis, false);
+    }
+
+    /**
+     * @param core core
+     * @param periodMillis milliseconds between two saves
+     * @param journal whether to journal the changes at every run between two
+     *                saves
+     */
+    public WorldSaver(Core core, long periodMillis, boolean journal) {
+        this.core = core;
+        this.periodMillis = periodMillis;
+        this.journal = journal;
+    }
+
+    @Override
+    public void execute(long uptime) {
+        if (uptime - lastSaveUptime >= periodMillis && pending.isDone()) {
+            save(uptime);
+        } else if (journal && saved && journaling.isDone()) {
+            journaling = core.journalChanges();
+            journaling.whenComplete((stats, error) -> {
+                if (error != null) {
+                    LOGGER.error("World changes not journaled, they will be saved by the next save", error);
+                }
+            });
+        }
+    }
+
+    private void save(long uptime) {
+        lastSaveUptime = uptime;
+        boolean full = !saved;
+        long start = System.nanoTime();
+        pending = full ? core.saveWorld() : core.saveChanges();
+        long capture = (System.nanoTime() - start) / 1_000_000;
+        lastCaptureMillis = capture;
+        pending.whenComplete((stats, error) -> {
+            if (error != null) {
+                saved = false; // The changes taken by the failed save are only saved by a whole save
+                LOGGER.error("World not saved", error);
+            } else {
+                saved = true;
+                lastStats = stats;
+                LOGGER.info("World {}: captured in {} ms, {} bytes written in {} ms", full ? "saved" : "changes saved",
+                        capture, stats.bytes(), stats.writeMillis());
+            }
+        });
+    }
+
+    /**
+     * @return milliseconds the tick spent capturing the last save
+     */
+    long getLastCaptureMillis() {
+        return lastCaptureMillis;
+    }
+
+    /**
+     * @return statistics of the last successful save, <tt>null</tt> if none
+     */
+    SaveStats getLastStats() {
+        return lastStats;
+    }
+}
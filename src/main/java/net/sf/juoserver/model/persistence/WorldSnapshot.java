@@ -0,0 +1,904 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.PointInSpace;
+import net.sf.juoserver.model.UOAccount;
+import net.sf.juoserver.model.UOContainer;
+import net.sf.juoserver.model.UOItem;
+import net.sf.juoserver.model.UOPlayer;
+import net.sf.juoserver.protocol.EnumUtils;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * The saved state of the world, in columns: every {@link Section} holds a
+ * kind of rows (accounts, mobiles, items...) as one array per field.
+ * <p/>
+ * Capturing a snapshot only copies the fields of the live objects, the
+ * ground items in parallel chunks, while merging the chunks, encoding and
+ * writing can be done by another thread. The world is not stopped meanwhile:
+ * the worn items, the content of the containers and the characters of the
+ * accounts are copied under the lock of their owner, so every object is saved
+ * whole, but the snapshot is not a consistent point in time, as objects
+ * changed during the capture may be saved before or after the change. Items are captured with where they are: on the
+ * ground, worn by a mobile (a row of the equipment section) or within a
+ * container (a row of the containers section). Enum fields are stored by
+ * their {@link Coded} code.
+ * <p/>
+ * A partial snapshot only holds the entities changed since the previous one,
+ * with the keys of the changed and removed ones (the <i>touched</i> section
+ * once written), and is merged into the previous snapshot, complete or
+ * partial, by {@link #applyTo(WorldSnapshot)}; the world section is always
+ * captured whole.
+ * <p/>
+ * NPCs are not captured, as the spawners create them again, and neither are
+ * the item scripts and the skills.
+ */
+public final class WorldSnapshot {
+    static final int WORLD = 1;
+    static final int ACCOUNTS = 2;
+    static final int CHARACTERS = 3;
+    static final int MOBILES = 4;
+    static final int ITEMS = 5;
+    static final int CONTAINERS = 6;
+    static final int EQUIPMENT = 7;
+    static final int TOUCHED = 8;
+    static final int SECTIONS = 9;
+
+    // World
+    private static final int ITEM_SERIAL = 0;
+    private static final int JOURNAL_SEQUENCE = 1;
+
+    // Accounts
+    private static final int ACCOUNT_ID = 0;
+    static final int USERNAME = 0;
+    static final int PASSWORD = 1;
+
+    // Characters, in the order of the login screen
+    private static final int CHARACTER_ACCOUNT = 0;
+    private static final int CHARACTER_SERIAL = 1;
+
+    // Mobiles
+    private static final int MOBILE_SERIAL = 0;
+    private static final int HIT_POINTS = 1;
+    private static final int MAX_HIT_POINTS = 2;
+    private static final int MOBILE_FLAGS = 3;
+    private static final int STATUS_FLAG = 4;
+    private static final int SEX_RACE = 5;
+    private static final int STRENGTH = 6;
+    private static final int DEXTERITY = 7;
+    private static final int INTELLIGENCE = 8;
+    private static final int STAMINA = 9;
+    private static final int MAX_STAMINA = 10;
+    private static final int MANA = 11;
+    private static final int MAX_MANA = 12;
+    private static final int GOLD = 13;
+    private static final int ARMOR_RATING = 14;
+    private static final int WEIGHT = 15;
+    private static final int MAX_WEIGHT = 16;
+    private static final int RACE_FLAG = 17;
+    private static final int MOBILE_X = 18;
+    private static final int MOBILE_Y = 19;
+    private static final int MOBILE_Z = 20;
+    private static final int MOBILE_FACET = 21;
+    private static final int DIRECTION = 22;
+    private static final int NOTORIETY = 23;
+    private static final int MOBILE_HUE = 24;
+    private static final int MOBILE_INTS = 25;
+    private static final int MOBILE_NAME = 0;
+
+    private static final int NAME_CHANGE_FLAG = 1;
+    private static final int DEATH_FLAG = 2;
+
+    // Items
+    private static final int ITEM_SERIAL_ID = 0;
+    private static final int MODEL = 1;
+    private static final int ITEM_HUE = 2;
+    private static final int BASE_DAMAGE = 3;
+    private static final int SPEED = 4;
+    private static final int AMOUNT = 5;
+    private static final int ITEM_X = 6;
+    private static final int ITEM_Y = 7;
+    private static final int ITEM_Z = 8;
+    private static final int ITEM_FACET = 9;
+    /**
+     * Gump of the containers, -1 for the other items
+     */
+    private static final int GUMP = 10;
+    private static final int ITEM_INTS = 11;
+    /**
+     * Serial of the mobile wearing the item, 0 if none, in the saves of
+     * version 1 only, which had no equipment section
+     */
+    private static final int WEARER = 11;
+    private static final int LAYER = 12;
+    private static final int ITEM_NAME = 0;
+
+    // Containers content, in the order of the containers
+    private static final int CONTAINER = 0;
+    private static final int CONTAINED = 1;
+    private static final int CONTAINED_X = 2;
+    private static final int CONTAINED_Y = 3;
+
+    // Equipment, in the order of the mobiles
+    private static final int WEARER_SERIAL = 0;
+    private static final int WORN_LAYER = 1;
+    private static final int WORN_ITEM = 2;
+
+    // Touched keys of a partial snapshot, by section
+    private static final int TOUCHED_SECTION = 0;
+    private static final int TOUCHED_KEY = 1;
+
+    /**
+     * Names of the sections and of their columns by section ID, for the
+     * formats storing them by name; the first column is the key of the rows
+     */
+    static final Layout[] LAYOUTS = {
+            null,
+            new Layout("world", new String[] {"item_serial", "journal_sequence"}, new String[0]),
+            new Layout("accounts", new String[] {"account_id"}, new String[] {"username", "password"}),
+            new Layout("characters", new String[] {"account_id", "serial"}, new String[0]),
+            new Layout("mobiles", new String[] {"serial", "hit_points", "max_hit_points", "flags", "status_flag",
+                    "sex_race", "strength", "dexterity", "intelligence", "stamina", "max_stamina", "mana", "max_mana",
+                    "gold", "armor_rating", "weight", "max_weight", "race_flag", "x", "y", "z", "facet", "direction",
+                    "notoriety", "hue"}, new String[] {"name"}),
+            new Layout("items", new String[] {"serial", "model", "hue", "base_damage", "speed", "amount", "x", "y", "z",
+                    "facet", "gump"}, new String[] {"name"}),
+            new Layout("containers", new String[] {"container", "contained", "x", "y"}, new String[0]),
+            new Layout("equipment", new String[] {"wearer", "layer", "item"}, new String[0])
+    };
+
+    /**
+     * Ground items captured by every task
+     */
+    private static final int CAPTURE_CHUNK = 1 << 16;
+
+    /**
+     * Parts of every section, merged on first access
+     */
+    private final Section[][] parts;
+    /**
+     * Sorted keys of the rows replaced by a partial snapshot, by section;
+     * <tt>null</tt> for the sections replaced whole, and altogether for the
+     * complete snapshots
+     */
+    private final int[][] touched;
+    private Section[] sections;
+
+    /**
+     * @param sections sections read, with the touched keys of a partial
+     *                 snapshot
+     */
+    WorldSnapshot(Section[] sections) {
+        this(null, sections, sections[TOUCHED] != null ? touchedKeys(sections[TOUCHED]) : null);
+        sections[TOUCHED] = null;
+    }
+
+    private WorldSnapshot(Section[][] parts, Section[] sections, int[][] touched) {
+        this.parts = parts;
+        this.sections = sections;
+        this.touched = touched;
+    }
+
+    private static int[][] touchedKeys(Section rows) {
+        var keys = new int[SECTIONS][];
+        var counts = new int[SECTIONS];
+        for (int row = 0; row < rows.size(); row++) {
+            counts[rows.getInt(TOUCHED_SECTION, row)]++;
+        }
+        for (int row = 0; row < rows.size(); row++) {
+            int id = rows.getInt(TOUCHED_SECTION, row);
+            if (keys[id] == null) {
+                keys[id] = new int[counts[id]];
+                counts[id] = 0;
+            }
+            keys[id][counts[id]++] = rows.getInt(TOUCHED_KEY, row);
+        }
+        for (int[] sectionKeys : keys) {
+            if (sectionKeys != null) {
+                Arrays.sort(sectionKeys);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return whether this snapshot only holds the changes since the previous
+     *         one
+     */
+    public boolean isPartial() {
+        return touched != null;
+    }
+
+    /**
+     * Applies the changes of this partial snapshot to the previous one: the
+     * rows of the changed and removed entities are replaced, the sections this
+     * snapshot does not hold are kept.
+     *
+     * @param previous previous snapshot
+     * @return the complete snapshot, or the partial snapshot of the changes of
+     *         both if the previous one is partial
+     */
+    public WorldSnapshot applyTo(WorldSnapshot previous) {
+        if (!isPartial()) {
+            return this;
+        }
+        var merged = new Section[SECTIONS];
+        var mergedTouched = previous.isPartial() ? new int[SECTIONS][] : null;
+        for (int id = 1; id < TOUCHED; id++) {
+            var changed = sections()[id];
+            var base = previous.sections()[id];
+            var keys = touched[id];
+            if (changed == null || keys != null && keys.length == 0) {
+                merged[id] = base;
+                if (mergedTouched != null) {
+                    mergedTouched[id] = previous.touched[id];
+                }
+            } else if (keys == null || base == null) {
+                merged[id] = changed;
+                if (mergedTouched != null) {
+                    mergedTouched[id] = keys;
+                }
+            } else {
+                merged[id] = merge(base, changed, keys);
+                if (mergedTouched != null) {
+                    mergedTouched[id] = previous.touched[id] != null ? union(previous.touched[id], keys) : null;
+                }
+            }
+        }
+        return new WorldSnapshot(null, merged, mergedTouched);
+    }
+
+    private static Section merge(Section base, Section changed, int[] keys) {
+        var section = new Section(changed.intColumns(), changed.stringColumns(), base.size() + changed.size());
+        for (int row = 0; row < base.size(); row++) {
+            if (Arrays.binarySearch(keys, base.getInt(0, row)) < 0) {
+                section.copyRow(base, row);
+            }
+        }
+        for (int row = 0; row < changed.size(); row++) {
+            section.copyRow(changed, row);
+        }
+        section.sort();
+        return section;
+    }
+
+    private static int[] union(int[] first, int[] second) {
+        var keys = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, keys, first.length, second.length);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * @param id section ID
+     * @return the sorted keys of the rows of the section replaced by this
+     *         partial snapshot, <tt>null</tt> if the section is replaced whole
+     */
+    int[] touchedKeys(int id) {
+        return touched != null ? touched[id] : null;
+    }
+
+    /**
+     * @return sequence number of the last journal record included in the
+     *         snapshot, 0 if none
+     */
+    int journalSequence() {
+        var world = section(WORLD);
+        return world.size() > 0 ? world.getInt(JOURNAL_SEQUENCE, 0) : 0;
+    }
+
+    /**
+     * Captures the state of the world, or of the changed part of it; the
+     * world must not change until this returns.
+     *
+     * @param changes whole world or changes since the previous capture
+     * @return the snapshot, to be {@link #applyTo(WorldSnapshot) applied} to
+     *         the previous one if partial
+     */
+    public static WorldSnapshot capture(WorldChanges changes) {
+        return capture(changes, 0);
+    }
+
+    /**
+     * @param journalSequence sequence number of the last journal record the
+     *                        world includes
+     */
+    static WorldSnapshot capture(WorldChanges changes, int journalSequence) {
+        return changes.full() ? captureAll(changes, journalSequence) : captureChanges(changes, journalSequence);
+    }
+
+    private static WorldSnapshot captureAll(WorldChanges changes, int journalSequence) {
+        var mobileRows = new Section(MOBILE_INTS, 1, changes.mobiles().size());
+        var equipmentRows = new Section(3, 0, changes.mobiles().size() * 16);
+        var wornRows = new Section(ITEM_INTS, 1, changes.mobiles().size() * 16);
+        var wornContainerRows = new Section(4, 0, 16);
+        for (Mobile mobile : changes.mobiles()) {
+            captureMobile(mobile, mobileRows, equipmentRows, wornRows, wornContainerRows, null);
+        }
+
+        List<? extends Item> ground = changes.items() instanceof List<? extends Item> list
+                ? list : new ArrayList<>(changes.items());
+        int chunks = (ground.size() + CAPTURE_CHUNK - 1) / CAPTURE_CHUNK;
+        var itemParts = new Section[chunks + 1];
+        var containerParts = new Section[chunks + 1];
+        itemParts[0] = wornRows;
+        containerParts[0] = wornContainerRows;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            var chunkItems = ground.subList(chunk * CAPTURE_CHUNK, Math.min((chunk + 1) * CAPTURE_CHUNK, ground.size()));
+            var itemRows = new Section(ITEM_INTS, 1, chunkItems.size());
+            var containerRows = new Section(4, 0, 16);
+            for (Item item : chunkItems) {
+                captureItem(item, itemRows, containerRows, null);
+            }
+            itemParts[chunk + 1] = itemRows;
+            containerParts[chunk + 1] = containerRows;
+        });
+
+        var parts = captureAccounts(changes, journalSequence);
+        parts[MOBILES] = new Section[] {mobileRows};
+        parts[EQUIPMENT] = new Section[] {equipmentRows};
+        parts[ITEMS] = itemParts;
+        parts[CONTAINERS] = containerParts;
+        return new WorldSnapshot(parts, null, null);
+    }
+
+    private static WorldSnapshot captureChanges(WorldChanges changes, int journalSequence) {
+        var mobileRows = new Section(MOBILE_INTS, 1, changes.mobiles().size());
+        var equipmentRows = new Section(3, 0, changes.mobiles().size() * 16);
+        var itemRows = new Section(ITEM_INTS, 1, changes.items().size() + changes.mobiles().size() * 16);
+        var containerRows = new Section(4, 0, 16);
+        // Items are captured with their content, which may have changed as well
+        Set<Integer> captured = new HashSet<>();
+        for (Mobile mobile : changes.mobiles()) {
+            captureMobile(mobile, mobileRows, equipmentRows, itemRows, containerRows, captured);
+        }
+        for (Item item : changes.items()) {
+            captureItem(item, itemRows, containerRows, captured);
+        }
+
+        var parts = captureAccounts(changes, journalSequence);
+        parts[MOBILES] = new Section[] {mobileRows};
+        parts[EQUIPMENT] = new Section[] {equipmentRows};
+        parts[ITEMS] = new Section[] {itemRows};
+        parts[CONTAINERS] = new Section[] {containerRows};
+
+        var touched = new int[SECTIONS][];
+        var accounts = keys(changes.accounts().stream().map(Account::getAccountId).toList(), List.of());
+        touched[ACCOUNTS] = accounts;
+        touched[CHARACTERS] = accounts;
+        var mobiles = keys(changes.mobiles().stream().map(Mobile::getSerialId).toList(), changes.removedMobiles());
+        var items = keys(captured, changes.removedItems());
+        touched[MOBILES] = mobiles;
+        touched[EQUIPMENT] = mobiles;
+        touched[ITEMS] = items;
+        touched[CONTAINERS] = items;
+        return new WorldSnapshot(parts, null, touched);
+    }
+
+    /**
+     * @return the parts of a snapshot, with the world and the accounts
+     */
+    private static Section[][] captureAccounts(WorldChanges changes, int journalSequence) {
+        var world = new Section(2, 0, 1);
+        int worldRow = world.addRow();
+        world.setInt(ITEM_SERIAL, worldRow, changes.itemSerial());
+        world.setInt(JOURNAL_SEQUENCE, worldRow, journalSequence);
+
+        var accounts = changes.accounts();
+        var accountRows = new Section(1, 2, accounts.size());
+        var characterRows = new Section(2, 0, accounts.size());
+        for (Account account : accounts) {
+            int row = accountRows.addRow();
+            accountRows.setInt(ACCOUNT_ID, row, account.getAccountId());
+            accountRows.setString(USERNAME, row, account.getUsername());
+            accountRows.setString(PASSWORD, row, account.getPassword());
+            for (int serial : account.getCharactersSerials()) {
+                int character = characterRows.addRow();
+                characterRows.setInt(CHARACTER_ACCOUNT, character, account.getAccountId());
+                characterRows.setInt(CHARACTER_SERIAL, character, serial);
+            }
+        }
+
+        var parts = new Section[SECTIONS][];
+        parts[WORLD] = new Section[] {world};
+        parts[ACCOUNTS] = new Section[] {accountRows};
+        parts[CHARACTERS] = new Section[] {characterRows};
+        return parts;
+    }
+
+    private static int[] keys(Collection<Integer> first, Collection<Integer> second) {
+        var keys = new int[first.size() + second.size()];
+        int i = 0;
+        for (int key : first) {
+            keys[i++] = key;
+        }
+        for (int key : second) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static void captureMobile(Mobile mobile, Section rows, Section equipmentRows, Section itemRows,
+                                      Section containerRows, Set<Integer> captured) {
+        int row = rows.addRow();
+        rows.setInt(MOBILE_SERIAL, row, mobile.getSerialId());
+        rows.setInt(HIT_POINTS, row, mobile.getCurrentHitPoints());
+        rows.setInt(MAX_HIT_POINTS, row, mobile.getMaxHitPoints());
+        rows.setInt(MOBILE_FLAGS, row, (mobile.isNameChangeFlag() ? NAME_CHANGE_FLAG : 0) | (mobile.isDeath() ? DEATH_FLAG : 0));
+        rows.setInt(STATUS_FLAG, row, mobile.getStatusFlag().getCode());
+        rows.setInt(SEX_RACE, row, mobile.getSexRace().getCode());
+        rows.setInt(STRENGTH, row, mobile.getStrength());
+        rows.setInt(DEXTERITY, row, mobile.getDexterity());
+        rows.setInt(INTELLIGENCE, row, mobile.getIntelligence());
+        rows.setInt(STAMINA, row, mobile.getCurrentStamina());
+        rows.setInt(MAX_STAMINA, row, mobile.getMaxStamina());
+        rows.setInt(MANA, row, mobile.getCurrentMana());
+        rows.setInt(MAX_MANA, row, mobile.getMaxMana());
+        rows.setInt(GOLD, row, mobile.getGoldInPack());
+        rows.setInt(ARMOR_RATING, row, mobile.getArmorRating());
+        rows.setInt(WEIGHT, row, mobile.getWeight());
+        rows.setInt(MAX_WEIGHT, row, mobile.getMaxWeight());
+        rows.setInt(RACE_FLAG, row, mobile.getRaceFlag().getCode());
+        rows.setInt(MOBILE_X, row, mobile.getX());
+        rows.setInt(MOBILE_Y, row, mobile.getY());
+        rows.setInt(MOBILE_Z, row, mobile.getZ());
+        rows.setInt(MOBILE_FACET, row, mobile.getFacet().getCode());
+        rows.setInt(DIRECTION, row, mobile.getDirection().getCode());
+        rows.setInt(NOTORIETY, row, mobile.getNotoriety().getCode());
+        rows.setInt(MOBILE_HUE, row, mobile.getHue());
+        rows.setString(MOBILE_NAME, row, mobile.getName());
+        for (Map.Entry<Layer, Item> worn : mobile.getItems().entrySet()) {
+            captureItem(worn.getValue(), itemRows, containerRows, captured);
+            int equipment = equipmentRows.addRow();
+            equipmentRows.setInt(WEARER_SERIAL, equipment, mobile.getSerialId());
+            equipmentRows.setInt(WORN_LAYER, equipment, worn.getKey().getCode());
+            equipmentRows.setInt(WORN_ITEM, equipment, worn.getValue().getSerialId());
+        }
+    }
+
+    /**
+     * Captures an item along with its content.
+     *
+     * @param captured serials of the items already captured, <tt>null</tt> if
+     *                 every item is only captured once
+     */
+    private static void captureItem(Item item, Section rows, Section containerRows, Set<Integer> captured) {
+        if (captured != null && !captured.add(item.getSerialId())) {
+            return;
+        }
+        int row = rows.addRow();
+        rows.setInt(ITEM_SERIAL_ID, row, item.getSerialId());
+        rows.setInt(MODEL, row, item.getModelId());
+        rows.setInt(ITEM_HUE, row, item.getHue());
+        rows.setInt(BASE_DAMAGE, row, item.baseDamage());
+        rows.setInt(SPEED, row, item.speed());
+        rows.setInt(AMOUNT, row, item.amount());
+        rows.setInt(ITEM_X, row, item.getX());
+        rows.setInt(ITEM_Y, row, item.getY());
+        rows.setInt(ITEM_Z, row, item.getZ());
+        rows.setInt(ITEM_FACET, row, item.getFacet().getCode());
+        rows.setString(ITEM_NAME, row, item.getName());
+        if (item instanceof Container container) {
+            rows.setInt(GUMP, row, container.getGumpId());
+            for (Item content : container.getItems()) {
+                captureItem(content, rows, containerRows, captured);
+                var position = container.getPositionWithinContainer(content);
+                int contained = containerRows.addRow();
+                containerRows.setInt(CONTAINER, contained, container.getSerialId());
+                containerRows.setInt(CONTAINED, contained, content.getSerialId());
+                containerRows.setInt(CONTAINED_X, contained, position != null ? position.getX() : 0);
+                containerRows.setInt(CONTAINED_Y, contained, position != null ? position.getY() : 0);
+            }
+        } else {
+            rows.setInt(GUMP, row, -1);
+        }
+    }
+
+    /**
+     * Creates the objects of the snapshot.
+     *
+     * @return the restored world
+     */
+    public World restore() {
+        return restore(true);
+    }
+
+    /**
+     * Creates the objects of the snapshot, possibly leaving out the player
+     * characters and the items they wear, to be restored by
+     * {@link #restoreCharacters(Collection)}.
+     *
+     * @param characters whether to restore the characters
+     * @return the restored world
+     */
+    public World restore(boolean characters) {
+        var accountRows = section(ACCOUNTS);
+        Map<Integer, UOAccount> accounts = new LinkedHashMap<>();
+        for (int row = 0; row < accountRows.size(); row++) {
+            int id = accountRows.getInt(ACCOUNT_ID, row);
+            accounts.put(id, new UOAccount(id, accountRows.getString(USERNAME, row), accountRows.getString(PASSWORD, row)));
+        }
+        var characterRows = section(CHARACTERS);
+        for (int row = 0; row < characterRows.size(); row++) {
+            var account = accounts.get(characterRows.getInt(CHARACTER_ACCOUNT, row));
+            if (account != null) {
+                account.addMobileSerialId(characterRows.getInt(CHARACTER_SERIAL, row));
+            }
+        }
+
+        Map<Integer, Mobile> mobiles = characters ? restoreMobiles(serial -> true) : Map.of();
+        var itemRows = section(ITEMS);
+        itemRows.sort();
+        var worn = characters ? null : wornItems(itemRows, serial -> true);
+        var items = new Item[itemRows.size()];
+        for (int row = 0; row < items.length; row++) {
+            if (worn == null || !worn[row]) {
+                items[row] = restoreItem(itemRows, row);
+            }
+        }
+        var groundItems = placeItems(itemRows, items, mobiles);
+
+        var world = section(WORLD);
+        return new World(new ArrayList<>(mobiles.values()), new ArrayList<>(accounts.values()), groundItems,
+                world.size() > 0 ? world.getInt(ITEM_SERIAL, 0) : 0);
+    }
+
+    /**
+     * Creates some of the player characters of the snapshot, wearing their
+     * items.
+     *
+     * @param serials serial IDs of the characters
+     * @return the characters found
+     */
+    public List<Mobile> restoreCharacters(Collection<Integer> serials) {
+        var mobiles = restoreMobiles(serials::contains);
+        var itemRows = section(ITEMS);
+        itemRows.sort();
+        var worn = wornItems(itemRows, mobiles::containsKey);
+        var items = new Item[itemRows.size()];
+        for (int row = 0; row < items.length; row++) {
+            if (worn[row]) {
+                items[row] = restoreItem(itemRows, row);
+            }
+        }
+        placeItems(itemRows, items, mobiles);
+        return new ArrayList<>(mobiles.values());
+    }
+
+    private Map<Integer, Mobile> restoreMobiles(IntPredicate serials) {
+        var mobileRows = section(MOBILES);
+        Map<Integer, Mobile> mobiles = new LinkedHashMap<>();
+        for (int row = 0; row < mobileRows.size(); row++) {
+            if (serials.test(mobileRows.getInt(MOBILE_SERIAL, row))) {
+                var mobile = restoreMobile(mobileRows, row);
+                mobiles.put(mobile.getSerialId(), mobile);
+            }
+        }
+        return mobiles;
+    }
+
+    /**
+     * @param itemRows items, sorted
+     * @param wearers serials of the mobiles whose items to find
+     * @return the rows of the items worn by the given mobiles, directly or
+     *         within the containers they wear
+     */
+    private boolean[] wornItems(Section itemRows, IntPredicate wearers) {
+        var worn = new boolean[itemRows.size()];
+        var equipmentRows = section(EQUIPMENT);
+        for (int row = 0; row < equipmentRows.size(); row++) {
+            int item = itemRows.find(equipmentRows.getInt(WORN_ITEM, row));
+            if (item >= 0 && wearers.test(equipmentRows.getInt(WEARER_SERIAL, row))) {
+                worn[item] = true;
+            }
+        }
+        for (int row = 0; row < worn.length; row++) {
+            int wearer = itemRows.getInt(WEARER, row);
+            if (wearer != 0 && wearers.test(wearer)) {
+                worn[row] = true;
+            }
+        }
+        // Containers are mostly captured before their content, so that one pass is usually enough
+        var containerRows = section(CONTAINERS);
+        for (boolean found = true; found; ) {
+            found = false;
+            for (int row = 0; row < containerRows.size(); row++) {
+                int container = itemRows.find(containerRows.getInt(CONTAINER, row));
+                int contained = itemRows.find(containerRows.getInt(CONTAINED, row));
+                if (container >= 0 && contained >= 0 && worn[container] && !worn[contained]) {
+                    worn[contained] = true;
+                    found = true;
+                }
+            }
+        }
+        return worn;
+    }
+
+    /**
+     * Puts the restored items where they are, <tt>null</tt> standing for the
+     * items not restored.
+     *
+     * @return the restored items on the ground
+     */
+    private List<Item> placeItems(Section itemRows, Item[] items, Map<Integer, Mobile> mobiles) {
+        var placed = new boolean[items.length];
+        var equipmentRows = section(EQUIPMENT);
+        for (int row = 0; row < equipmentRows.size(); row++) {
+            var wearer = mobiles.get(equipmentRows.getInt(WEARER_SERIAL, row));
+            int worn = itemRows.find(equipmentRows.getInt(WORN_ITEM, row));
+            if (wearer != null && worn >= 0 && items[worn] != null) {
+                wearer.setItemOnLayer(EnumUtils.byCode(equipmentRows.getInt(WORN_LAYER, row), Layer.class), items[worn]);
+                placed[worn] = true;
+            }
+        }
+        var containerRows = section(CONTAINERS);
+        for (int row = 0; row < containerRows.size(); row++) {
+            int container = itemRows.find(containerRows.getInt(CONTAINER, row));
+            int contained = itemRows.find(containerRows.getInt(CONTAINED, row));
+            if (container >= 0 && contained >= 0 && items[container] instanceof Container parent
+                    && items[contained] != null) {
+                parent.addItem(items[contained], new PointInSpace(containerRows.getInt(CONTAINED_X, row),
+                        containerRows.getInt(CONTAINED_Y, row), 0));
+                placed[contained] = true;
+            }
+        }
+        List<Item> groundItems = new ArrayList<>();
+        for (int row = 0; row < items.length; row++) {
+            var wearer = placed[row] ? null : mobiles.get(itemRows.getInt(WEARER, row));
+            if (wearer != null) {
+                wearer.setItemOnLayer(EnumUtils.byCode(itemRows.getInt(LAYER, row), Layer.class), items[row]);
+            } else if (!placed[row] && items[row] != null) {
+                groundItems.add(items[row]);
+            }
+        }
+        return groundItems;
+    }
+
+    private static Mobile restoreMobile(Section rows, int row) {
+        int flags = rows.getInt(MOBILE_FLAGS, row);
+        var mobile = new UOPlayer(rows.getInt(MOBILE_SERIAL, row), rows.getString(MOBILE_NAME, row),
+                rows.getInt(HIT_POINTS, row), rows.getInt(MAX_HIT_POINTS, row), (flags & NAME_CHANGE_FLAG) != 0,
+                EnumUtils.byCode(rows.getInt(STATUS_FLAG, row), StatusFlag.class),
+                EnumUtils.byCode(rows.getInt(SEX_RACE, row), SexRace.class),
+                rows.getInt(STRENGTH, row), rows.getInt(DEXTERITY, row), rows.getInt(INTELLIGENCE, row),
+                rows.getInt(STAMINA, row), rows.getInt(MAX_STAMINA, row), rows.getInt(MANA, row), rows.getInt(MAX_MANA, row),
+                rows.getInt(GOLD, row), rows.getInt(ARMOR_RATING, row), rows.getInt(WEIGHT, row), rows.getInt(MAX_WEIGHT, row),
+                EnumUtils.byCode(rows.getInt(RACE_FLAG, row), RaceFlag.class),
+                new PointInSpace(rows.getInt(MOBILE_X, row), rows.getInt(MOBILE_Y, row), rows.getInt(MOBILE_Z, row)));
+        mobile.setFacet(EnumUtils.byCode(rows.getInt(MOBILE_FACET, row), Facet.class));
+        mobile.setDirection(EnumUtils.byCode(rows.getInt(DIRECTION, row), Direction.class));
+        mobile.setNotoriety(EnumUtils.byCode(rows.getInt(NOTORIETY, row), Notoriety.class));
+        mobile.setHue(rows.getInt(MOBILE_HUE, row));
+        if ((flags & DEATH_FLAG) != 0) {
+            mobile.kill();
+        }
+        return mobile;
+    }
+
+    private static Item restoreItem(Section rows, int row) {
+        int gump = rows.getInt(GUMP, row);
+        var item = gump >= 0
+                ? new UOContainer(rows.getInt(ITEM_SERIAL_ID, row), rows.getInt(MODEL, row), rows.getInt(ITEM_HUE, row),
+                        rows.getString(ITEM_NAME, row), gump, List.of(), new HashMap<>())
+                : new UOItem(rows.getInt(ITEM_SERIAL_ID, row), rows.getInt(MODEL, row), rows.getInt(ITEM_HUE, row),
+                        rows.getString(ITEM_NAME, row), rows.getInt(BASE_DAMAGE, row));
+        item.speed(rows.getInt(SPEED, row))
+                .amount(rows.getInt(AMOUNT, row))
+                .location(rows.getInt(ITEM_X, row), rows.getInt(ITEM_Y, row), rows.getInt(ITEM_Z, row))
+                .facet(EnumUtils.byCode(rows.getInt(ITEM_FACET, row), Facet.class));
+        return item;
+    }
+
+    Section section(int id) {
+        var section = sections()[id];
+        return section != null ? section : new Section(0, 0, 0);
+    }
+
+    /**
+     * @return the sections to write by ID, with the touched keys of a partial
+     *         snapshot, whose unchanged sections are left out
+     */
+    Section[] sectionsToWrite() {
+        var written = sections().clone();
+        if (isPartial()) {
+            var keys = new Section(2, 0, 16);
+            for (int id = 1; id < TOUCHED; id++) {
+                if (touched[id] != null && touched[id].length == 0) {
+                    written[id] = null;
+                } else if (touched[id] != null) {
+                    for (int key : touched[id]) {
+                        int row = keys.addRow();
+                        keys.setInt(TOUCHED_SECTION, row, id);
+                        keys.setInt(TOUCHED_KEY, row, key);
+                    }
+                }
+            }
+            written[TOUCHED] = keys;
+        }
+        return written;
+    }
+
+    /**
+     * @return the sections by ID, <tt>null</tt> for the missing ones
+     */
+    Section[] sections() {
+        if (sections == null) {
+            sections = new Section[parts.length];
+            for (int id = 0; id < parts.length; id++) {
+                sections[id] = parts[id] != null ? Section.concat(parts[id]) : null;
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * The restored world.
+     *
+     * @param mobiles mobiles, wearing their items
+     * @param accounts accounts
+     * @param groundItems items on the ground, with their content
+     * @param itemSerial serial of the next created item
+     */
+    public record World(List<Mobile> mobiles, List<Account> accounts, List<Item> groundItems, int itemSerial) {
+    }
+
+    /**
+     * Names of a section and of its columns.
+     *
+     * @param name section name
+     * @param ints names of the integer columns
+     * @param strings names of the string columns
+     */
+    record Layout(String name, String[] ints, String[] strings) {
+    }
+
+    /**
+     * Rows of the same kind, by column: integer columns and string columns.
+     * Columns missing from older saves read as 0 and <tt>null</tt>.
+     */
+    static final class Section {
+        private int[][] ints;
+        private String[][] strings;
+        private int size;
+
+        Section(int intColumns, int stringColumns, int capacity) {
+            capacity = Math.max(capacity, 1);
+            ints = new int[intColumns][capacity];
+            strings = new String[stringColumns][capacity];
+        }
+
+        /**
+         * @param parts parts with the same columns
+         * @return the rows of all the parts
+         */
+        static Section concat(Section[] parts) {
+            if (parts.length == 1) {
+                return parts[0];
+            }
+            int size = 0;
+            for (Section part : parts) {
+                size += part.size;
+            }
+            var section = new Section(parts[0].ints.length, parts[0].strings.length, size);
+            for (Section part : parts) {
+                for (int column = 0; column < part.ints.length; column++) {
+                    System.arraycopy(part.ints[column], 0, section.ints[column], section.size, part.size);
+                }
+                for (int column = 0; column < part.strings.length; column++) {
+                    System.arraycopy(part.strings[column], 0, section.strings[column], section.size, part.size);
+                }
+                section.size += part.size;
+            }
+            return section;
+        }
+
+        int addRow() {
+            if (size == capacity()) {
+                int capacity = capacity() * 2;
+                for (int column = 0; column < ints.length; column++) {
+                    ints[column] = Arrays.copyOf(ints[column], capacity);
+                }
+                for (int column = 0; column < strings.length; column++) {
+                    strings[column] = Arrays.copyOf(strings[column], capacity);
+                }
+            }
+            return size++;
+        }
+
+        private int capacity() {
+            return ints.length > 0 ? ints[0].length : strings.length > 0 ? strings[0].length : Integer.MAX_VALUE;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int intColumns() {
+            return ints.length;
+        }
+
+        int stringColumns() {
+            return strings.length;
+        }
+
+        int getInt(int column, int row) {
+            return column < ints.length ? ints[column][row] : 0;
+        }
+
+        void setInt(int column, int row, int value) {
+            ints[column][row] = value;
+        }
+
+        String getString(int column, int row) {
+            return column < strings.length ? strings[column][row] : null;
+        }
+
+        void setString(int column, int row, String value) {
+            strings[column][row] = value;
+        }
+
+        /**
+         * Adds a row of another section, whose missing columns read as 0 and
+         * <tt>null</tt>.
+         */
+        void copyRow(Section other, int otherRow) {
+            int row = addRow();
+            for (int column = 0; column < ints.length; column++) {
+                ints[column][row] = other.getInt(column, otherRow);
+            }
+            for (int column = 0; column < strings.length; column++) {
+                strings[column][row] = other.getString(column, otherRow);
+            }
+        }
+
+        /**
+         * Orders the rows by their first column, keeping the order of the rows
+         * with the same value.
+         */
+        void sort() {
+            if (ints.length == 0 || isSorted()) {
+                return;
+            }
+            var keys = new long[size];
+            for (int row = 0; row < size; row++) {
+                keys[row] = (long) ints[0][row] << 32 | row;
+            }
+            Arrays.sort(keys);
+            for (int column = 0; column < ints.length; column++) {
+                var sorted = new int[size];
+                for (int row = 0; row < size; row++) {
+                    sorted[row] = ints[column][(int) keys[row]];
+                }
+                ints[column] = sorted;
+            }
+            for (int column = 0; column < strings.length; column++) {
+                var sorted = new String[size];
+                for (int row = 0; row < size; row++) {
+                    sorted[row] = strings[column][(int) keys[row]];
+                }
+                strings[column] = sorted;
+            }
+        }
+
+        private boolean isSorted() {
+            for (int row = 1; row < size; row++) {
+                if (ints[0][row - 1] > ints[0][row]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the row with the given value in the first column, which must
+         *         be sorted, or a negative value if there is none
+         */
+        int find(int key) {
+            return Arrays.binarySearch(ints[0], 0, size, key);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package net.sf.juoserver.model.shard;
+
+import net.sf.juoserver.api.ShardRouter;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Routes the clients to the game nodes reporting their load through a shared
+ * directory, by {@link NodeReporter}: every node whose last report is fresh
+ * is advertised as a shard of its own, playing its own world, by name; the
+ * nodes sharing a name are told apart by their address.
+ * <p/>
+ * The shards are listed least loaded first. The reports are read again at
+ * most once per report period; the clients redirected to a node meanwhile
+ * are counted as its players, so that a login storm is spread over the nodes
+ * rather than sent to the one that was the least loaded at the last read.
+ */
+public final class FileShardRouter implements ShardRouter {
+    private final Path directory;
+    private final LongSupplier clock;
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param directory directory shared with the game nodes
+     */
+    public FileShardRouter(Path directory) {
+        this(directory, System::currentTimeMillis);
+    }
+
+    FileShardRouter(Path directory, LongSupplier clock) {
+        this.directory = directory;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<String> getShards() {
+        return snapshot().nodes().entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, Node> entry) -> entry.getValue().load(),
+                        NodeReport.BY_LOAD).thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Override
+    public InetSocketAddress route(String shard) {
+        var node = snapshot().nodes().get(shard);
+        if (node == null) {
+            return null;
+        }
+        node.routed().incrementAndGet();
+        return new InetSocketAddress(node.report().host(), node.report().port());
+    }
+
+    private Snapshot snapshot() {
+        long now = clock.getAsLong();
+        var current = snapshot;
+        if (current != null && now - current.readAt() < NodeReporter.PERIOD) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == current) {
+                snapshot = read(now);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return the fresh reports, by shard
+     */
+    private Snapshot read(long now) {
+        var reports = NodeReporter.read(directory, now);
+        var names = reports.stream().collect(Collectors.groupingBy(NodeReport::shard, Collectors.counting()));
+        Map<String, Node> nodes = new HashMap<>();
+        for (NodeReport report : reports) {
+            nodes.put(names.get(report.shard()) > 1
+                    ? report.shard() + " @" + report.host() + ":" + report.port() : report.shard(), new Node(report));
+        }
+        return new Snapshot(nodes, now);
+    }
+
+    private record Snapshot(Map<String, Node> nodes, long readAt) {
+    }
+
+    private record Node(NodeReport report, AtomicInteger routed) {
+        Node(NodeReport report) {
+            this(report, new AtomicInteger());
+        }
+
+        NodeReport load() {
+            return report.withRouted(routed.get());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package net.sf.juoserver.model.shard;
+
+import net.sf.juoserver.api.Configuration.ServerConfiguration;
+import net.sf.juoserver.api.ShardRouter;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Advertises this server only, redirecting the clients to its own game
+ * listener.
+ */
+public final class LocalShard implements ShardRouter {
+    private final ServerConfiguration server;
+
+    public LocalShard(ServerConfiguration server) {
+        this.server = server;
+    }
+
+    @Override
+    public List<String> getShards() {
+        return List.of(server.getName());
+    }
+
+    @Override
+    public InetSocketAddress route(String shard) {
+        if (!server.getName().equals(shard)) {
+            return null;
+        }
+        return new InetSocketAddress(server.getHost(), server.getGamePort() != 0 ? server.getGamePort()
+                : server.getPort());
+    }
+}
@@ -0,0 +1,71 @@
+package net.sf.juoserver.model.shard;
+
+import java.util.Comparator;
+
+/**
+ * Load of a game node, reported to the login listener.
+ *
+ * @param shard name of the shard served by the node
+ * @param host host the clients are redirected to
+ * @param port port of the game listener of the node
+ * @param world save path or database URL of the world played by the node,
+ *              <tt>null</tt> if kept in memory
+ * @param players players in the game
+ * @param tickLoad share of its period the busiest subsystem runs for, in percent
+ * @param reportedAt time of the report, in milliseconds
+ */
+record NodeReport(String shard, String host, int port, String world, int players, int tickLoad, long reportedAt) {
+    /**
+     * Tick load beyond which the ticks overrun, and the node is only chosen if
+     * all the others do too
+     */
+    static final int OVERLOADED = 100;
+    /**
+     * The nodes whose ticks keep up first, then the ones with the fewest
+     * players, then the least busy ones
+     */
+    static final Comparator<NodeReport> BY_LOAD = Comparator
+            .comparing((NodeReport report) -> report.tickLoad() >= OVERLOADED)
+            .thenComparingInt(NodeReport::players)
+            .thenComparingInt(NodeReport::tickLoad);
+
+    private static final String IN_MEMORY = "-";
+
+    /**
+     * @return the report as a line of tab separated fields
+     */
+    String format() {
+        return String.join("\t", shard, host, Integer.toString(port), world != null ? world : IN_MEMORY,
+                Integer.toString(players), Integer.toString(tickLoad), Long.toString(reportedAt));
+    }
+
+    /**
+     * @param line line written by {@link #format()}
+     * @return the report
+     * @throws IllegalArgumentException if the line is not a report
+     */
+    static NodeReport parse(String line) {
+        var fields = line.strip().split("\t");
+        if (fields.length != 7) {
+            throw new IllegalArgumentException("Not a node report: " + line);
+        }
+        return new NodeReport(fields[0], fields[1], Integer.parseInt(fields[2]),
+                fields[3].equals(IN_MEMORY) ? null : fields[3], Integer.parseInt(fields[4]),
+                Integer.parseInt(fields[5]), Long.parseLong(fields[6]));
+    }
+
+    /**
+     * @return whether the report is of the node with the given address
+     */
+    boolean isOf(String host, int port) {
+        return this.host.equals(host) && this.port == port;
+    }
+
+    /**
+     * @param routed clients redirected to the node since the report
+     * @return the report, counting the redirected clients as players
+     */
+    NodeReport withRouted(int routed) {
+        return new NodeReport(shard, host, port, world, players + routed, tickLoad, reportedAt);
+    }
+}
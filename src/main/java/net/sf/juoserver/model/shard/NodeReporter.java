@@ -0,0 +1,141 @@
+package net.sf.juoserver.model.shard;
+
+import net.sf.juoserver.api.SubSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Reports the players and the tick load of a game node to the login listener,
+ * replacing the file of the node in the directory shared with it at every
+ * run; the report is written aside and moved atomically, never to be read
+ * half written.
+ * <p/>
+ * A node stopped, or too busy to report, is no longer advertised once its
+ * last report is stale.
+ * <p/>
+ * Every node plays its own world: a node refuses to start on the world of
+ * another node of the same host still reporting, which would overwrite its
+ * saves.
+ */
+public final class NodeReporter implements SubSystem {
+    /**
+     * Milliseconds between two reports
+     */
+    public static final long PERIOD = 1000;
+    /**
+     * Reports missed before a node is no longer advertised
+     */
+    static final int MISSED_REPORTS = 5;
+    static final String SUFFIX = ".node";
+    private static final Logger LOGGER = LoggerFactory.getLogger(NodeReporter.class);
+
+    private final Path file;
+    private final Path pending;
+    private final String shard;
+    private final String host;
+    private final int port;
+    private final String world;
+    private final IntSupplier players;
+    private final IntSupplier tickLoad;
+    private final LongSupplier clock;
+
+    /**
+     * @param directory directory shared with the login listener
+     * @param shard name of the shard served by the node
+     * @param host host the clients are redirected to
+     * @param port port of the game listener of the node
+     * @param world save path or database URL of the world played by the node,
+     *              <tt>null</tt> if kept in memory
+     * @param players players in the game
+     * @param tickLoad tick load of the node, in percent
+     */
+    public NodeReporter(Path directory, String shard, String host, int port, String world, IntSupplier players,
+            IntSupplier tickLoad) {
+        this(directory, shard, host, port, world, players, tickLoad, System::currentTimeMillis);
+    }
+
+    NodeReporter(Path directory, String shard, String host, int port, String world, IntSupplier players,
+            IntSupplier tickLoad, LongSupplier clock) {
+        this.file = directory.resolve(host + "-" + port + SUFFIX);
+        this.pending = directory.resolve(host + "-" + port + SUFFIX + ".tmp");
+        this.shard = shard;
+        this.host = host;
+        this.port = port;
+        this.world = world;
+        this.players = players;
+        this.tickLoad = tickLoad;
+        this.clock = clock;
+    }
+
+    /**
+     * Reports the node for the first time, unless its world is played by
+     * another node.
+     *
+     * @throws IllegalStateException if another node of the same host, still
+     *                               reporting, plays the same world
+     */
+    public void start() {
+        if (world != null) {
+            for (NodeReport other : read(file.getParent(), clock.getAsLong())) {
+                // The save paths of the other hosts are on their own disks
+                if (!other.isOf(host, port) && other.host().equals(host) && world.equals(other.world())) {
+                    throw new IllegalStateException(String.format("The world %s is played by the node %s:%d",
+                            world, other.host(), other.port()));
+                }
+            }
+        }
+        execute(0);
+    }
+
+    @Override
+    public void execute(long uptime) {
+        var report = new NodeReport(shard, host, port, world, players.getAsInt(), tickLoad.getAsInt(),
+                clock.getAsLong());
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(pending, report.format(), StandardCharsets.UTF_8);
+            Files.move(pending, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot report the load of the node to {}", file.getParent(), e);
+        }
+    }
+
+    /**
+     * @param directory directory shared by the nodes
+     * @param now current time, in milliseconds
+     * @return the reports of the nodes still reporting
+     */
+    static List<NodeReport> read(Path directory, long now) {
+        var reports = new ArrayList<NodeReport>();
+        try (var files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    var report = NodeReport.parse(Files.readString(file, StandardCharsets.UTF_8));
+                    if (now - report.reportedAt() <= MISSED_REPORTS * PERIOD) {
+                        reports.add(report);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Removed meanwhile
+                } catch (IOException | IllegalArgumentException e) {
+                    LOGGER.warn("Cannot read the node report {}", file, e);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // No node reported yet
+        } catch (IOException e) {
+            LOGGER.error("Cannot read the node reports in {}", directory, e);
+        }
+        return reports;
+    }
+}
@@ -0,0 +1,25 @@
+package net.sf.juoserver.model.spawn;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.sf.juoserver.api.Facet;
+import net.sf.juoserver.api.SpawnDefinition;
+
+/**
+ * {@link SpawnDefinition} read from the configuration.
+ */
+@Getter
+@Setter
+@ToString
+public class UOSpawnDefinition implements SpawnDefinition {
+    private String name;
+    private int templateId;
+    private Facet facet = Facet.Felucca;
+    private int x;
+    private int y;
+    private int width = 1;
+    private int height = 1;
+    private int count;
+    private int respawnDelay;
+}
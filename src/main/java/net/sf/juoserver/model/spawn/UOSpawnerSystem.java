@@ -0,0 +1,192 @@
+package net.sf.juoserver.model.spawn;
+
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.PointInSpace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Creates the NPCs of the {@link SpawnDefinition}s and replaces the dead ones.
+ * <p/>
+ * At startup the NPCs are created in parallel, in batches of
+ * {@link #SPAWN_BATCH} NPCs of the same spawner, each batch reserving its
+ * serial IDs at once (see {@link Core#createNpcs(int, Facet, List)}); the
+ * NPCs system and the combat system register them as they are added to the
+ * core.
+ * <p/>
+ * When a spawned NPC is removed from the world, its replacement is queued in
+ * a timer queue ordered by due time; as a {@link SubSystem}, only the due
+ * replacements are taken from the queue and spawned. The replacements which
+ * could not be spawned, e.g. finding no walkable cell, are queued again to be
+ * retried after {@link #RETRY_DELAY} milliseconds.
+ */
+public final class UOSpawnerSystem implements SpawnerSystem, SubSystem, MobileListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UOSpawnerSystem.class);
+    static final int SPAWN_BATCH = 1024;
+    /**
+     * Random cells tried for every NPC before falling back to the region's
+     * first walkable cell.
+     */
+    private static final int LOCATION_ATTEMPTS = 16;
+    /**
+     * Milliseconds before retrying the replacements which could not be spawned.
+     */
+    static final long RETRY_DELAY = 1000;
+
+    private final Core core;
+    private final ConfigFileReader configFileReader;
+    private final LongSupplier clock;
+    private final Map<NpcMobile, SpawnDefinition> definitionsByNpc = new ConcurrentHashMap<>();
+    private final PriorityQueue<Respawn> respawns = new PriorityQueue<>(Comparator.comparingLong(respawn -> respawn.due));
+
+    public UOSpawnerSystem(Core core, ConfigFileReader configFileReader) {
+        this(core, configFileReader, () -> System.nanoTime() / 1_000_000);
+    }
+
+    UOSpawnerSystem(Core core, ConfigFileReader configFileReader, LongSupplier clock) {
+        this.core = core;
+        this.core.addMobileListener(this);
+        this.configFileReader = configFileReader;
+        this.clock = clock;
+    }
+
+    @Override
+    public void spawn() {
+        var start = System.nanoTime();
+        List<Batch> batches = new ArrayList<>();
+        for (SpawnDefinition definition : configFileReader.loadSpawns()) {
+            for (int from = 0; from < definition.getCount(); from += SPAWN_BATCH) {
+                batches.add(new Batch(definition, Math.min(SPAWN_BATCH, definition.getCount() - from)));
+            }
+        }
+        int spawned = batches.parallelStream()
+                .mapToInt(batch -> spawn(batch.definition, batch.count))
+                .sum();
+        LOGGER.info("{} NPCs spawned in {} millis", spawned, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int spawn(SpawnDefinition definition, int count) {
+        try {
+            var grid = core.getWalkGrid(definition.getFacet());
+            List<Point3D> locations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                var location = findLocation(grid, definition);
+                if (location != null) {
+                    locations.add(location);
+                }
+            }
+            if (locations.size() < count) {
+                LOGGER.warn("No walkable cell for {} NPCs of spawner {}", count - locations.size(), definition.getName());
+            }
+            for (NpcMobile npc : core.createNpcs(definition.getTemplateId(), definition.getFacet(), locations)) {
+                definitionsByNpc.put(npc, definition);
+            }
+            return locations.size();
+        } catch (RuntimeException e) {
+            LOGGER.error("Error spawning {} NPCs of spawner {}", count, definition.getName(), e);
+            return 0;
+        }
+    }
+
+    private Point3D findLocation(WalkGrid grid, SpawnDefinition definition) {
+        var random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < LOCATION_ATTEMPTS; attempt++) {
+            int x = definition.getX() + random.nextInt(Math.max(definition.getWidth(), 1));
+            int y = definition.getY() + random.nextInt(Math.max(definition.getHeight(), 1));
+            if (grid.isWalkable(x, y)) {
+                return location(definition.getFacet(), x, y);
+            }
+        }
+        for (int y = definition.getY(); y < definition.getY() + definition.getHeight(); y++) {
+            for (int x = definition.getX(); x < definition.getX() + definition.getWidth(); x++) {
+                if (grid.isWalkable(x, y)) {
+                    return location(definition.getFacet(), x, y);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Point3D location(Facet facet, int x, int y) {
+        return new PointInSpace(x, y, core.getTile(facet, x, y).getZ());
+    }
+
+    /**
+     * Spawns the due replacements of the dead NPCs.
+     */
+    @Override
+    public void execute(long uptime) {
+        Map<SpawnDefinition, Integer> due = new HashMap<>();
+        synchronized (respawns) {
+            var now = clock.getAsLong();
+            while (!respawns.isEmpty() && respawns.peek().due <= now) {
+                due.merge(respawns.poll().definition, 1, Integer::sum);
+            }
+        }
+        due.forEach((definition, count) -> {
+            int missing = count - spawn(definition, count);
+            if (missing > 0) {
+                requeue(definition, missing);
+            }
+        });
+    }
+
+    private void requeue(SpawnDefinition definition, int count) {
+        var due = clock.getAsLong() + RETRY_DELAY;
+        synchronized (respawns) {
+            for (int i = 0; i < count; i++) {
+                respawns.add(new Respawn(definition, due));
+            }
+        }
+    }
+
+    @Override
+    public void onMobileCreated(Mobile mobile) {
+    }
+
+    @Override
+    public void onMobileRemoved(Mobile mobile) {
+        if (!mobile.isNpc()) {
+            return;
+        }
+        var definition = definitionsByNpc.remove((NpcMobile) mobile);
+        if (definition != null) {
+            var respawn = new Respawn(definition, clock.getAsLong() + definition.getRespawnDelay() * 1000L);
+            synchronized (respawns) {
+                respawns.add(respawn);
+            }
+        }
+    }
+
+    @Override
+    public int getSpawnedCount() {
+        return definitionsByNpc.size();
+    }
+
+    /**
+     * @return the replacements waiting to be spawned
+     */
+    int getPendingRespawns() {
+        synchronized (respawns) {
+            return respawns.size();
+        }
+    }
+
+    private record Batch(SpawnDefinition definition, int count) {
+    }
+
+    private static final class Respawn {
+        private final SpawnDefinition definition;
+        private final long due;
+
+        private Respawn(SpawnDefinition definition, long due) {
+            this.definition = definition;
+            this.due = due;
+        }
+    }
+}
@@ -11,16 +11,14 @@ import java.util.List;
 
 public abstract class AbstractProtocolIoPort implements ProtocolIoPort {
 	private final String clientName;
-	private final ProtocolController authenticationController;
-	private final ProtocolController gameController;
+	private final List<ProtocolController> controllers;
 	private final ProtocolRouter router;
 	
 	public AbstractProtocolIoPort(String clientName, ControllerFactory controllerFactory) {
 		super();
 		this.clientName = clientName;
-		authenticationController = controllerFactory.createAuthenticationController(this);
-		gameController = controllerFactory.createGameController(this);
-		router = new PriorityBasedProtocolRouter(authenticationController, gameController);
+		controllers = controllerFactory.createControllers(this);
+		router = new PriorityBasedProtocolRouter(controllers.toArray(new ProtocolController[controllers.size()]));
 	}
 
 	@Override
@@ -35,6 +33,15 @@ public abstract class AbstractProtocolIoPort implements ProtocolIoPort {
 		controllerInstance.postProcess(message);
 	}
 
+	/**
+	 * Tells the controllers that the client is gone.
+	 */
+	public final void connectionClosed() {
+		for (ProtocolController controller : controllers) {
+			controller.connectionClosed();
+		}
+	}
+
 	@Override
 	public String getName() {
 		return clientName;
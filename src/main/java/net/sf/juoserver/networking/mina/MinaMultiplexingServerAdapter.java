@@ -19,17 +19,35 @@ public class MinaMultiplexingServerAdapter implements Server {
 
 	private final Configuration configuration;
 	private final ControllerFactory controllerFactory;
+	private final int port;
+	private final int processors;
+	private final int readTimeout;
 	
 	public MinaMultiplexingServerAdapter(Configuration configuration, ControllerFactory controllerFactory) {
+		this(configuration, controllerFactory, configuration.getServer().getPort(), 0, 0);
+	}
+
+	/**
+	 * @param port port to listen on
+	 * @param processors I/O processor threads serving the connections; 0 for
+	 *                   Mina's default
+	 * @param readTimeout seconds a connection may stay silent before being
+	 *                    closed; 0 for no limit
+	 */
+	public MinaMultiplexingServerAdapter(Configuration configuration, ControllerFactory controllerFactory, int port,
+			int processors, int readTimeout) {
 		super();
 		this.configuration = configuration;
 		this.controllerFactory = controllerFactory;
+		this.port = port;
+		this.processors = processors;
+		this.readTimeout = readTimeout;
 	}
 	
 	@Override
 	public void acceptClientConnections() throws IOException {
 		LOGGER.info("Starting multiplexing server...");
-		NioSocketAcceptor acceptor = new NioSocketAcceptor();
+		NioSocketAcceptor acceptor = processors > 0 ? new NioSocketAcceptor(processors) : new NioSocketAcceptor();
 		if (configuration.getPacket().isLogging()) {
 			acceptor.getFilterChain().addLast("transport logger", new LoggingFilter());
 		}
@@ -39,10 +57,11 @@ public class MinaMultiplexingServerAdapter implements Server {
 			acceptor.getFilterChain().addLast("packets logger", new UOProtocolLoggingFilter());
 		}
 		acceptor.getSessionConfig().setIdleTime(IdleStatus.BOTH_IDLE, 10);
+		acceptor.getSessionConfig().setIdleTime(IdleStatus.READER_IDLE, readTimeout);
 		acceptor.getSessionConfig().setReadBufferSize(BUF_SIZE);
 		acceptor.getSessionConfig().setReuseAddress(true);
 		acceptor.setHandler(new UOIoHandler(acceptor, controllerFactory));
-		acceptor.bind(new InetSocketAddress(configuration.getServer().getPort()));
-		LOGGER.info("Listening on port " + configuration.getServer().getPort());
+		acceptor.bind(new InetSocketAddress(port));
+		LOGGER.info("Listening on port " + port);
 	}
 }
@@ -4,6 +4,7 @@ import net.sf.juoserver.api.Message;
 import net.sf.juoserver.protocol.ControllerFactory;
 import org.apache.mina.core.service.IoAcceptor;
 import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IdleStatus;
 import org.apache.mina.core.session.IoSession;
 
 import java.util.HashMap;
@@ -27,7 +28,18 @@ public class UOIoHandler extends IoHandlerAdapter {
 
 	@Override
 	public void sessionClosed(IoSession session) throws Exception {
-		handlers.remove(session.getId());
+		MinaProtocolIoPortAdapter handler = handlers.remove(session.getId());
+		if (handler != null) {
+			handler.connectionClosed();
+		}
+	}
+
+	// Only the connections with a read timeout become reader idle
+	@Override
+	public void sessionIdle(IoSession session, IdleStatus status) throws Exception {
+		if (status == IdleStatus.READER_IDLE) {
+			session.close(true);
+		}
 	}
 
 	@Override
@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,6 +37,8 @@ public class ClientThreadsManager {
 			public void run() {
 				try {
 					client.startUp();
+				} catch (SocketTimeoutException e) {
+					LOGGER.info("{} silent for too long, closing its connection", client.getName());
 				} catch (IOException e) {
 					LOGGER.error("I/O error occurred", e);
 				} finally {
@@ -8,6 +8,11 @@ import java.util.List;
 public interface MessageWire {
 	void init() throws IOException;
 	void shutDown() throws IOException;
+	/**
+	 * Stops reading, so that {@link #readMessages()} returns <tt>null</tt>,
+	 * even if waiting for messages, while the messages can still be sent.
+	 */
+	void shutDownInput() throws IOException;
 	List<? extends Message> readMessages() throws IOException;
 	void sendMessages(List<Message> replies) throws IOException;
 }
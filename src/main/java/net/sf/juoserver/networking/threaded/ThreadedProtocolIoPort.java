@@ -3,12 +3,15 @@ package net.sf.juoserver.networking.threaded;
 import net.sf.juoserver.api.Message;
 import net.sf.juoserver.networking.AbstractProtocolIoPort;
 import net.sf.juoserver.protocol.ControllerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
 public class ThreadedProtocolIoPort extends AbstractProtocolIoPort {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThreadedProtocolIoPort.class);
 	private final ThreadedServerAdapter server;
 	private final MessageWire wire;
 
@@ -43,14 +46,21 @@ public class ThreadedProtocolIoPort extends AbstractProtocolIoPort {
 		}
 	}
 	
+	// Wakes the client thread up if waiting for messages, which then shuts the connection down
 	@Override
 	public void deactivate() {
 		this.active = false;
+		try {
+			wire.shutDownInput();
+		} catch (IOException e) {
+			LOGGER.warn("Cannot stop reading from {}", getName(), e);
+		}
 	}
 	
 	public final void shutDown() throws IOException {
 		active = false;
 		wire.shutDown();
 		server.detachClient( this );
+		connectionClosed();
 	}
 }
@@ -15,6 +15,7 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
 
 public final class ThreadedServerAdapter implements Server {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ThreadedServerAdapter.class);
@@ -24,26 +25,54 @@ public final class ThreadedServerAdapter implements Server {
 	private final List<ThreadedProtocolIoPort> clients = new CopyOnWriteArrayList<ThreadedProtocolIoPort>();
 	private final Configuration configuration;
 	private final ControllerFactory controllerFactory;
+	private final int port;
+	/**
+	 * Connections that can still be served, <tt>null</tt> for no limit
+	 */
+	private final Semaphore connections;
+	/**
+	 * Milliseconds a connection may stay silent before being closed, 0 for no limit
+	 */
+	private final int readTimeout;
 
 	private ServerSocket serverSocket;
 	private volatile boolean active;
 	private int nextClientId = FIRST_CLIENT_ID;
 	
 	public ThreadedServerAdapter(Configuration configuration, ControllerFactory controllerFactory) {
+		this(configuration, controllerFactory, configuration.getServer().getPort(), 0, 0);
+	}
+
+	/**
+	 * @param port port to listen on
+	 * @param maxConnections connections served at once, each by its own thread,
+	 *                       the next ones waiting to be accepted; 0 for no limit
+	 * @param readTimeout seconds a connection may stay silent before being
+	 *                    closed, releasing its thread; 0 for no limit
+	 */
+	public ThreadedServerAdapter(Configuration configuration, ControllerFactory controllerFactory, int port,
+			int maxConnections, int readTimeout) {
 		super();
 		this.configuration = configuration;
 		this.controllerFactory = controllerFactory;
+		this.port = port;
+		this.connections = maxConnections > 0 ? new Semaphore(maxConnections) : null;
+		this.readTimeout = readTimeout * 1000;
 	}
 	
 	@Override
 	public void acceptClientConnections() throws IOException {
 		LOGGER.info("Starting threaded server...");
-		serverSocket = new ServerSocket(configuration.getServer().getPort());
+		serverSocket = new ServerSocket(port);
 		active = true;
-		LOGGER.info("Listening on port " + configuration.getServer().getPort());
+		LOGGER.info("Listening on port " + port);
 		try {
 			while (active) {
+				if (connections != null) {
+					connections.acquireUninterruptibly();
+				}
 				Socket connection = waitForConnection();
+				connection.setSoTimeout(readTimeout);
 				attachClient(createHandler(connection, "client-" + nextClientId++));
 			}
 		} finally {
@@ -72,6 +101,9 @@ public final class ThreadedServerAdapter implements Server {
 	
 	public void detachClient(ProtocolIoPort client) {
 		if (clients.remove( client )) {
+			if (connections != null) {
+				connections.release();
+			}
 			LOGGER.info(getClientsString());
 		}
 	}
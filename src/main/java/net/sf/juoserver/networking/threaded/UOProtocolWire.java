@@ -62,6 +62,13 @@ public class UOProtocolWire implements MessageWire {
 		}
 	}
 
+	@Override
+	public void shutDownInput() throws IOException {
+		if (!socket.isClosed() && !socket.isInputShutdown()) {
+			socket.shutdownInput();
+		}
+	}
+
 	@Override
 	public void sendMessages(List<Message> messages) throws IOException {
 		for (Message reply : messages) {
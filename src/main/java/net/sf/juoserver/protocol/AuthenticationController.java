@@ -2,50 +2,114 @@ package net.sf.juoserver.protocol;
 
 import net.sf.juoserver.api.*;
 import net.sf.juoserver.model.ServerInfo;
+import net.sf.juoserver.model.shard.LocalShard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class AuthenticationController extends AbstractProtocolController {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationController.class);
 	private final ProtocolIoPort clientHandler;
 	private final Configuration configuration;
 	private final LoginManager loginManager;
+	private final ShardRouter shardRouter;
 	
-	private Account account;
+	private volatile Account account;
+	/**
+	 * Shards sent to the client, selected by their position
+	 */
+	private volatile List<String> advertised = List.of();
 	
 	public AuthenticationController(ProtocolIoPort clientHandler, Configuration configuration, LoginManager loginManager) {
+		this(clientHandler, configuration, loginManager, new LocalShard(configuration.getServer()));
+	}
+
+	public AuthenticationController(ProtocolIoPort clientHandler, Configuration configuration, LoginManager loginManager,
+			ShardRouter shardRouter) {
 		this.clientHandler = clientHandler;
 		this.configuration = configuration;
 		this.loginManager = loginManager;
+		this.shardRouter = shardRouter;
 	}
 	
 	public void handle(LoginSeed seed) {
 	}
 	
-	public Message handle(LoginRequest request) {
-		try {
-			account = loginManager.login(request.getUser(), request.getPassword());
-		} catch (NoSuchCharacterException e) {
+	// The server list is sent once the password is verified
+	public void handle(LoginRequest request) {
+		loginManager.login(request.getUser(), request.getPassword()).whenComplete((account, error) -> {
+			if (error == null) {
+				this.account = account;
+				advertiseShards();
+				return;
+			}
+			Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+			if (cause instanceof NoSuchCharacterException) {
+				reply(LoginReject.loginRejectDueToNoSuchCharacter());
+			} else if (cause instanceof WrongPasswordException) {
+				reply(LoginReject.loginRejectDueToBadPassword());
+			} else {
+				if (cause instanceof RejectedExecutionException) {
+					LOGGER.warn("Login of {} rejected, too many logins being verified", request.getUser());
+				} else {
+					LOGGER.error("Cannot log {} in", request.getUser(), cause);
+				}
+				reply(LoginReject.loginRejectDueToBusyServer());
+			}
 			clientHandler.deactivate();
-			return LoginReject.loginRejectDueToNoSuchCharacter();
-		} catch (WrongPasswordException e) {
+		});
+	}
+
+	private void advertiseShards() {
+		List<String> shards = shardRouter.getShards();
+		if (shards.isEmpty()) {
+			LOGGER.warn("No game node up, login of {} rejected", account.getUsername());
+			reply(LoginReject.loginRejectDueToBusyServer());
 			clientHandler.deactivate();
-			return LoginReject.loginRejectDueToBadPassword();
+			return;
 		}
-		
 		try {
-			return new ServerList(new ServerInfo(configuration.getServer().getName(), InetAddress.getByName(configuration.getServer().getHost())));
+			InetAddress address = InetAddress.getByName(configuration.getServer().getHost());
+			ServerInfo[] servers = new ServerInfo[shards.size()];
+			for (int i = 0; i < servers.length; i++) {
+				servers[i] = new ServerInfo(shards.get(i), address);
+			}
+			advertised = shards;
+			reply(new ServerList(servers));
 		} catch (UnknownHostException e) {
-			throw new ProtocolException(e);
+			LOGGER.error("Cannot resolve the server host", e);
+			clientHandler.deactivate();
+		}
+	}
+
+	private void reply(Message message) {
+		try {
+			clientHandler.sendToClient(message);
+		} catch (IOException e) {
+			LOGGER.error("Cannot send {}", message, e);
+			clientHandler.deactivate();
 		}
 	}
 	
+	// The client is redirected to the node of the selected shard
 	public Message handle(SelectServer request) {
-		try {
-			int key = loginManager.generateAuthenticationKey(account);
-			return new ServerConnect(InetAddress.getByName(configuration.getServer().getHost()), configuration.getServer().getPort(), key);
-		} catch (UnknownHostException e) {
-			throw new ProtocolException(e);
+		List<String> shards = advertised;
+		int number = request.getServerNumber();
+		InetSocketAddress node = number >= 0 && number < shards.size() ? shardRouter.route(shards.get(number)) : null;
+		if (node == null || node.isUnresolved()) {
+			LOGGER.warn("No game node to redirect {} to, for server {}", account != null ? account.getUsername() : null,
+					number);
+			clientHandler.deactivate();
+			return LoginReject.loginRejectDueToBusyServer();
 		}
+		int key = loginManager.generateAuthenticationKey(account);
+		return new ServerConnect(node.getAddress(), node.getPort(), key);
 	}
 }
@@ -1,30 +1,69 @@
 package net.sf.juoserver.protocol;
 
 import net.sf.juoserver.api.*;
-import net.sf.juoserver.model.UOLoginManager;
+import net.sf.juoserver.api.Configuration.ServerConfiguration.Listeners;
 import net.sf.juoserver.protocol.generalinfo.GeneralInfoManagerImpl;
 import net.sf.juoserver.protocol.item.ItemManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Creates the controllers serving a connection, the authentication and the
+ * game ones, or only the ones of a login or a game listener.
+ */
 public final class ControllerFactory {
 	private final Core core;
 	private final Configuration configuration;
 	private final LoginManager loginManager;
+	private final ShardRouter shardRouter;
 	private final InterClientNetwork network;
 	private final List<Command> commands;
 	private final CombatSystem combatSystem;
 	private final NpcSystem npcSystem;
+	private final Listeners listeners;
 	
-	public ControllerFactory(Core core, Configuration configuration, List<Command> commands, CombatSystem combatSystem, InterClientNetwork network, NpcSystem npcSystem) {
+	public ControllerFactory(Core core, Configuration configuration, LoginManager loginManager, ShardRouter shardRouter,
+			List<Command> commands, CombatSystem combatSystem, InterClientNetwork network, NpcSystem npcSystem) {
+		this(core, configuration, loginManager, shardRouter, commands, combatSystem, network, npcSystem, Listeners.ALL);
+	}
+
+	private ControllerFactory(Core core, Configuration configuration, LoginManager loginManager,
+			ShardRouter shardRouter, List<Command> commands, CombatSystem combatSystem, InterClientNetwork network,
+			NpcSystem npcSystem, Listeners listeners) {
 		super();
 		this.core = core;
 		this.configuration = configuration;
-		this.loginManager = new UOLoginManager(core);
+		this.loginManager = loginManager;
+		this.shardRouter = shardRouter;
 		this.network = network;
 		this.commands = commands;
 		this.combatSystem = combatSystem;
 		this.npcSystem = npcSystem;
+		this.listeners = listeners;
+	}
+
+	/**
+	 * @param listeners listener the connections are accepted by
+	 * @return a factory of the controllers of the listener
+	 */
+	public ControllerFactory forListeners(Listeners listeners) {
+		return new ControllerFactory(core, configuration, loginManager, shardRouter, commands, combatSystem, network,
+				npcSystem, listeners);
+	}
+
+	/**
+	 * @return the controllers serving a connection, by priority
+	 */
+	public List<ProtocolController> createControllers(ProtocolIoPort clientHandler) {
+		List<ProtocolController> controllers = new ArrayList<ProtocolController>(2);
+		if (listeners != Listeners.GAME) {
+			controllers.add(createAuthenticationController(clientHandler));
+		}
+		if (listeners != Listeners.LOGIN) {
+			controllers.add(createGameController(clientHandler));
+		}
+		return controllers;
 	}
 
 	public ProtocolController createGameController(ProtocolIoPort clientHandler) {
@@ -37,6 +76,6 @@ public final class ControllerFactory {
 	}
 	
 	public ProtocolController createAuthenticationController(ProtocolIoPort clientHandler) {
-		return new AuthenticationController(clientHandler, configuration, loginManager);
+		return new AuthenticationController(clientHandler, configuration, loginManager, shardRouter);
 	}
 }
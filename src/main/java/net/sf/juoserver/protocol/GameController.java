@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Game controller. A different instance of this class will be associated
@@ -38,7 +39,15 @@ public class GameController extends AbstractProtocolController implements ModelO
 	private final CombatSystem combatSystem;
 
 	private ClientVersion clientVersion;
-	private PlayerSession session;
+	// Set by the thread loading the characters, read by the client's one
+	private volatile Account account;
+	private volatile PlayerSession session;
+	/**
+	 * Start of the session once the characters are loaded, <tt>null</tt> until
+	 * the client logs in
+	 */
+	private volatile CompletableFuture<Void> loading;
+	private volatile boolean closed;
 
 	public GameController(String clientName, ProtocolIoPort clientHandler, Core core, Configuration configuration,
 			ClientMovementTracker movementTracker, LoginManager loginManager, InterClientNetwork network, NpcSystem npcSystem,
@@ -70,16 +79,37 @@ public class GameController extends AbstractProtocolController implements ModelO
 		System.out.println(loginSeed);
 	}
 
-	// This message is sent in the second connection right after the new seed
-	public CharacterList handle(ServerLoginRequest request) throws IOException {
+	// This message is sent in the second connection right after the new seed;
+	// the character list is sent once the characters are loaded
+	public void handle(ServerLoginRequest request) {
 		Account account = loginManager.getAuthorizedAccount(request.getAuthenticationKey());
 		if (account == null) {
 			clientHandler.deactivate();
-			return null;
+			return;
 		}
 		
-		session = new UOPlayerSession(core, account, this, network);
-		network.addIntercomListener(session);
+		this.account = account;
+		loading = core.loadCharacters(account).thenRun(() -> startSession(account));
+		loading.exceptionally(error -> {
+			// Cancelled if the connection closed meanwhile
+			if (!closed) {
+				LOGGER.error("Cannot load the characters of " + account.getUsername(), error);
+				clientHandler.deactivate();
+			}
+			return null;
+		});
+	}
+
+	private void startSession(Account account) {
+		var session = new UOPlayerSession(core, account, this, network);
+		synchronized (this) {
+			// The connection closed while the characters were loading
+			if (closed) {
+				return;
+			}
+			this.session = session;
+			network.addIntercomListener(session);
+		}
 
 		// Context Initialization
 		var context = new UOPlayerContext(session, core, clientHandler);
@@ -90,12 +120,41 @@ public class GameController extends AbstractProtocolController implements ModelO
 		List<String> names = session.getCharacterNames();
 		List<PlayingCharacter> chars = new ArrayList<>();
 		for (String name : names) {
-			chars.add(new PlayingCharacter(name, account.getPassword()));
+			chars.add(new PlayingCharacter(name, "")); // Not to send the password hash
+		}
+		try {
+			clientHandler.sendToClient(new CharacterList(chars, new ArrayList<>(),
+					// TODO: create constants/enum for the following two flags
+					new Flag(0x14),   // 1-char only 
+					new Flag(0x1A8))); // Mondain's Legacy
+		} catch (IOException e) {
+			throw new ProtocolException(e);
+		}
+	}
+
+	@Override
+	public void connectionClosed() {
+		// From now on, no session is started
+		synchronized (this) {
+			closed = true;
+		}
+		var loading = this.loading;
+		if (loading != null) {
+			loading.cancel(false);
+		}
+		var account = this.account;
+		if (account == null) {
+			return;
+		}
+		var session = this.session;
+		if (session != null) {
+			network.removeIntercomListener(session);
+			if (session.getMobile() != null) {
+				combatSystem.removeMobile(session.getMobile());
+			}
 		}
-		return new CharacterList(chars, new ArrayList<>(),
-				// TODO: create constants/enum for the following two flags
-				new Flag(0x14),   // 1-char only 
-				new Flag(0x1A8)); // Mondain's Legacy
+		core.releaseCharacters(account);
+		this.account = null;
 	}
 	
 	public Message handle(CharacterSelect request) {
@@ -122,14 +181,15 @@ public class GameController extends AbstractProtocolController implements ModelO
 
 		// Register selected mobile to combat system
 		combatSystem.registerMobile(mobile, session);
+		// Wake up the NPCs around
+		core.activateAround(mobile);
 
 		List<Message> response = new ArrayList<>(asList(
 				new LoginConfirm(mobile.getSerialId(), (short) mobile.getModelId(),
 						(short) mobile.getX(), (short) mobile.getY(), (byte) mobile.getZ(),
 						(byte) mobile.getDirection().getCode(), (byte) mobile.getNotoriety().getCode(),
-						(short) 7168, (short) 4096),
-				// TODO: don't hard-code the map size (7168 x 4096) and index (0), see Core#init() [@ RunUo source]
-				new GeneralInformation(new GeneralInformation.SetCursorHueSetMap((byte) 0)),
+						(short) mobile.getFacet().getWidth(), (short) mobile.getFacet().getHeight()),
+				new GeneralInformation(new GeneralInformation.SetCursorHueSetMap((byte) mobile.getFacet().getCode())),
 				new SeasonalInformation(season, true),
 				new DrawGamePlayer(mobile),
 				new CharacterDraw(mobile),
@@ -139,7 +199,7 @@ public class GameController extends AbstractProtocolController implements ModelO
 				new CharacterWarmode((byte) 0),
 				new LoginComplete()
 		));
-		response.addAll(core.findItemsInRegion(mobile, 20)
+		response.addAll(core.findItemsInRegion(mobile.getFacet(), mobile, 20)
 				.stream().map(ObjectInfo::new)
 				.toList());
 		response.addAll( mobileObjectsRevisions( mobile ) );
@@ -56,8 +56,12 @@ public class LoginReject extends AbstractMessage {
 		return new LoginReject(LoginRejectReasons.NoSuchCharacter);
 	}
 
+	public static AbstractMessage loginRejectDueToBusyServer() {
+		return new LoginReject(LoginRejectReasons.CommunicationProblem);
+	}
+
 	private static enum LoginRejectReasons implements Coded {
-		BadPassword, NoSuchCharacter, CharAlreadyLoggedIn;
+		BadPassword, NoSuchCharacter, CharAlreadyLoggedIn, InvalidCredentials, CommunicationProblem;
 
 		@Override
 		public int getCode() {
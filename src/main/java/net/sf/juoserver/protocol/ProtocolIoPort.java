@@ -13,5 +13,9 @@ public interface ProtocolIoPort {
 	String getName();
 	void handleClientMessage(Message msg) throws IOException;
 	void sendToClient(Message... messages) throws IOException;
+	/**
+	 * Stops serving the client and closes its connection, even if called by
+	 * another thread while the client's one waits for messages.
+	 */
 	void deactivate();
 }
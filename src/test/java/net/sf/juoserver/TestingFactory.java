@@ -84,7 +84,57 @@ class TestConfiguration implements Configuration {
 
 	@Override
 	public ServerConfiguration getServer() {
-		return null;
+		return new ServerConfiguration() {
+			@Override
+			public int getPort() {
+				return 7775;
+			}
+
+			@Override
+			public String getName() {
+				return "Test";
+			}
+
+			@Override
+			public String getHost() {
+				return "localhost";
+			}
+
+			@Override
+			public boolean isAccountAutoRegistration() {
+				return false;
+			}
+
+			@Override
+			public int getGamePort() {
+				return 0;
+			}
+
+			@Override
+			public Listeners getListeners() {
+				return Listeners.ALL;
+			}
+
+			@Override
+			public int getLoginThreads() {
+				return 0;
+			}
+
+			@Override
+			public int getLoginTimeout() {
+				return 0;
+			}
+
+			@Override
+			public String getAuthenticationKeysPath() {
+				return null;
+			}
+
+			@Override
+			public String getNodesPath() {
+				return null;
+			}
+		};
 	}
 
 	@Override
@@ -116,4 +166,14 @@ class TestConfiguration implements Configuration {
 	public ClientConfiguration getClient() {
 		return null;
 	}
+
+	@Override
+	public FacetConfiguration getFacet() {
+		return null;
+	}
+
+	@Override
+	public NpcConfiguration getNpc() {
+		return null;
+	}
 }
\ No newline at end of file
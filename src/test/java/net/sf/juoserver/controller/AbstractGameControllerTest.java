@@ -29,9 +29,10 @@ public class AbstractGameControllerTest {
 	protected final InterClientNetwork intercom = context.mock(InterClientNetwork.class);
 	protected final ProtocolIoPort clientHandler = context.mock(ProtocolIoPort.class);
 	protected final CommandManager commandManager = context.mock(CommandManager.class);
+	protected final GeneralInfoManager generalInfoManager = context.mock(GeneralInfoManager.class);
 
 	protected final GameController gameController = 
-			new GameController("client", clientHandler, core, null, new CircularClientMovementTracker(),  loginManager, intercom, context.mock(NpcSystem.class),new ItemManager(), new CommandManagerImpl(null, null), new UOCombatSystem(new PhysicalDamageCalculatorImpl(null)), null);
+			new GameController("client", clientHandler, core, null, new CircularClientMovementTracker(),  loginManager, intercom, context.mock(NpcSystem.class),new ItemManager(), new CommandManagerImpl(null, null), new UOCombatSystem(new PhysicalDamageCalculatorImpl(null)), generalInfoManager);
 	
 	@Before
 	public final void createComponents() throws IOException {
@@ -42,6 +43,7 @@ public class AbstractGameControllerTest {
 				will(returnValue(mobile));
 			allowing(core).findMobileByID(mobile.getSerialId());
 				will(returnValue(mobile));
+			ignoring(generalInfoManager);
 		}});
 	}
 }
@@ -3,6 +3,9 @@ package net.sf.juoserver.controller;
 import net.sf.juoserver.TestingFactory;
 import net.sf.juoserver.api.Account;
 import net.sf.juoserver.api.LoginManager;
+import net.sf.juoserver.api.Message;
+import net.sf.juoserver.api.ShardRouter;
+import net.sf.juoserver.api.WrongPasswordException;
 import net.sf.juoserver.model.UOAccount;
 import net.sf.juoserver.protocol.*;
 import org.apache.commons.codec.DecoderException;
@@ -13,7 +16,11 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.Assert.assertEquals;
 
@@ -33,8 +40,35 @@ public class AuthenticationControllerTest {
 	
 	@Test
 	public void login() throws IOException {
+		final Account account = new UOAccount(42, "myuser", "mypsw");
+		context.checking(new Expectations() {{
+			oneOf(loginManager).login("myuser", "mypsw");
+				will(returnValue(CompletableFuture.completedFuture(account)));
+			oneOf(clientHandler).sendToClient(with(any(Message[].class)));
+		}});
+		
+		controller.handle( new LoginRequest("myuser", "mypsw"));
+	}
+
+	@Test
+	public void wrongPasswordRejectsTheLogin() throws IOException {
+		context.checking(new Expectations() {{
+			oneOf(loginManager).login("myuser", "wrong");
+				will(returnValue(CompletableFuture.failedFuture(new WrongPasswordException("myuser"))));
+			oneOf(clientHandler).sendToClient(LoginReject.loginRejectDueToBadPassword());
+			oneOf(clientHandler).deactivate();
+		}});
+		
+		controller.handle( new LoginRequest("myuser", "wrong"));
+	}
+
+	@Test
+	public void loginIsRejectedWhileTooManyLoginsAreVerified() throws IOException {
 		context.checking(new Expectations() {{
 			oneOf(loginManager).login("myuser", "mypsw");
+				will(returnValue(CompletableFuture.failedFuture(new RejectedExecutionException())));
+			oneOf(clientHandler).sendToClient(LoginReject.loginRejectDueToBusyServer());
+			oneOf(clientHandler).deactivate();
 		}});
 		
 		controller.handle( new LoginRequest("myuser", "mypsw"));
@@ -46,13 +80,57 @@ public class AuthenticationControllerTest {
 		
 		context.checking(new Expectations() {{
 			oneOf(loginManager).login("myuser", "mypsw");
-				will(returnValue(account));
+				will(returnValue(CompletableFuture.completedFuture(account)));
+			oneOf(clientHandler).sendToClient(with(any(Message[].class)));
 			oneOf(loginManager).generateAuthenticationKey(account);
 				will(returnValue(12345678));
 		}});
 		
 		controller.handle( new LoginRequest("myuser", "mypsw"));
-		ServerConnect message = (ServerConnect) controller.handle( new SelectServer(12) );
+		ServerConnect message = (ServerConnect) controller.handle( new SelectServer(0) );
 		assertEquals(12345678, message.getAuthenticationKey());
 	}
+
+	@Test
+	public void selectServerRedirectsToTheNodeOfTheSelectedShard() throws IOException {
+		final Account account = new UOAccount(42, "myuser", "mypsw");
+		final ShardRouter shardRouter = context.mock(ShardRouter.class);
+		AuthenticationController shardedController = new AuthenticationController(clientHandler,
+				TestingFactory.createTestConfiguration(), loginManager, shardRouter);
+		
+		context.checking(new Expectations() {{
+			oneOf(loginManager).login("myuser", "mypsw");
+				will(returnValue(CompletableFuture.completedFuture(account)));
+			oneOf(shardRouter).getShards();
+				will(returnValue(List.of("Felucca", "Trammel")));
+			oneOf(clientHandler).sendToClient(with(any(Message[].class)));
+			oneOf(shardRouter).route("Trammel");
+				will(returnValue(new InetSocketAddress("127.0.0.1", 7777)));
+			oneOf(loginManager).generateAuthenticationKey(account);
+				will(returnValue(12345678));
+		}});
+		
+		shardedController.handle( new LoginRequest("myuser", "mypsw"));
+		ServerConnect message = (ServerConnect) shardedController.handle( new SelectServer(1) );
+		assertEquals(7777, message.getPort());
+		assertEquals(12345678, message.getAuthenticationKey());
+	}
+
+	@Test
+	public void loginIsRejectedWhileNoGameNodeIsUp() throws IOException {
+		final ShardRouter shardRouter = context.mock(ShardRouter.class);
+		AuthenticationController shardedController = new AuthenticationController(clientHandler,
+				TestingFactory.createTestConfiguration(), loginManager, shardRouter);
+		
+		context.checking(new Expectations() {{
+			oneOf(loginManager).login("myuser", "mypsw");
+				will(returnValue(CompletableFuture.completedFuture(new UOAccount(42, "myuser", "mypsw"))));
+			oneOf(shardRouter).getShards();
+				will(returnValue(List.of()));
+			oneOf(clientHandler).sendToClient(LoginReject.loginRejectDueToBusyServer());
+			oneOf(clientHandler).deactivate();
+		}});
+		
+		shardedController.handle( new LoginRequest("myuser", "mypsw"));
+	}
 }
@@ -0,0 +1,44 @@
+package net.sf.juoserver.controller;
+
+import net.sf.juoserver.api.PlayerSession;
+import net.sf.juoserver.protocol.ServerLoginRequest;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.*;
+
+public class ConnectionClosedTest extends MockitoAbstractGameControllerTest {
+    private static final int SECRET_KEY = 12345678;
+
+    @Test
+    public void closingTheConnectionReleasesTheCharacters() {
+        when(loginManager.getAuthorizedAccount(SECRET_KEY)).thenReturn(account);
+        when(core.loadCharacters(account)).thenReturn(CompletableFuture.completedFuture(null));
+        gameController.handle(new ServerLoginRequest(SECRET_KEY, "user", "psw"));
+        var started = ArgumentCaptor.forClass(PlayerSession.class);
+        verify(intercom).addIntercomListener(started.capture());
+
+        gameController.connectionClosed();
+        gameController.connectionClosed();
+
+        verify(intercom).removeIntercomListener(started.getValue());
+        verify(core).releaseCharacters(account);
+    }
+
+    @Test
+    public void closingTheConnectionWhileTheCharactersLoadStartsNoSession() {
+        var loading = new CompletableFuture<Void>();
+        when(loginManager.getAuthorizedAccount(SECRET_KEY)).thenReturn(account);
+        when(core.loadCharacters(account)).thenReturn(loading);
+        gameController.handle(new ServerLoginRequest(SECRET_KEY, "user", "psw"));
+
+        gameController.connectionClosed();
+        loading.complete(null);
+
+        verify(core).releaseCharacters(account);
+        verify(intercom, never()).addIntercomListener(any());
+        verifyNoInteractions(clientHandler);
+    }
+}
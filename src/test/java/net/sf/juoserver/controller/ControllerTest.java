@@ -12,6 +12,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 
@@ -22,12 +23,28 @@ public class ControllerTest extends AbstractGameControllerTest {
 		context.checking(new Expectations() {{
 			oneOf(loginManager).getAuthorizedAccount(secretKey);
 				will(returnValue(account));
+			oneOf(core).loadCharacters(account);
+				will(returnValue(CompletableFuture.completedFuture(null)));
 			oneOf(intercom).addIntercomListener(with(aNewSession()));
+			oneOf(clientHandler).sendToClient(with(aCharacterListOf(mobile.getName())));
 		}});
 		
-		CharacterList chars = gameController.handle(new ServerLoginRequest(secretKey, "user", "psw"));
+		gameController.handle(new ServerLoginRequest(secretKey, "user", "psw"));
+	}
+
+	private Matcher<Message[]> aCharacterListOf(final String name) {
+		return new TypeSafeMatcher<Message[]>() {
+			@Override
+			public void describeTo(Description description) {
+				description.appendText("a character list of " + name);
+			}
 
-		assertEquals(mobile.getName(), chars.getPcs().get(0).getUser());
+			@Override
+			protected boolean matchesSafely(Message[] messages) {
+				return messages.length == 1 && messages[0] instanceof CharacterList
+						&& name.equals(((CharacterList) messages[0]).getPcs().get(0).getUser());
+			}
+		};
 	}
 
 	private Matcher<PlayerSession> aNewSession() {
@@ -58,6 +75,7 @@ public class ControllerTest extends AbstractGameControllerTest {
 		context.checking(new Expectations() {{
 			oneOf(session).startGame();
 				will(returnValue(new UOGameStatus(LightLevels.OsiNight, Season.Winter)));
+			oneOf(core).activateAround(mobile);
 		}});
 		
 		gameController.handle( new ClientVersion("42") );
@@ -68,6 +86,7 @@ public class ControllerTest extends AbstractGameControllerTest {
 		context.checking(new Expectations() {{
 			oneOf(session).startGame();
 				will(returnValue(new UOGameStatus(LightLevels.OsiNight, Season.Winter)));
+			oneOf(core).activateAround(mobile);
 		}});
 		
 		gameController.handle( new ClientVersion("42") );
@@ -39,12 +39,14 @@ public class MockitoAbstractGameControllerTest {
     protected CombatSystem combatSystem;
     @Mock
     protected NpcSystem npcSystem;
+    @Mock
+    protected GeneralInfoManager generalInfoManager;
 
     protected GameController gameController;
 
     @BeforeEach
     public final void createComponents() throws IOException {
-        this.gameController = new GameController("client", clientHandler, core, null, new CircularClientMovementTracker(),  loginManager, intercom, npcSystem, new ItemManager(), commandManager, combatSystem, null);
+        this.gameController = new GameController("client", clientHandler, core, null, new CircularClientMovementTracker(),  loginManager, intercom, npcSystem, new ItemManager(), commandManager, combatSystem, generalInfoManager);
         gameController.setSession(session);
 
         lenient().when(session.getMobile())
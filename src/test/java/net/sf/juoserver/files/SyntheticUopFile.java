@@ -0,0 +1,111 @@
+package net.sf.juoserver.files;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Builds small, synthetic UOP containers for tests.
+ * <p/>
+ * The table blocks are laid out exactly like in the real containers (header,
+ * chain of fixed-capacity blocks with unused slots, per-entry headers), so
+ * the reader is exercised on block chaining too.
+ */
+public class SyntheticUopFile {
+	private static final int ENTRY_HEADER_LENGTH = 8;
+
+	private final Map<String, byte[]> entries = new LinkedHashMap<>();
+	private final List<String> compressed = new ArrayList<>();
+	private int blockCapacity = 100;
+
+	public SyntheticUopFile entry(String name, byte[] contents) {
+		entries.put(name, contents);
+		return this;
+	}
+
+	public SyntheticUopFile compressedEntry(String name, byte[] contents) {
+		compressed.add(name);
+		return entry(name, contents);
+	}
+
+	public SyntheticUopFile blockCapacity(int blockCapacity) {
+		this.blockCapacity = blockCapacity;
+		return this;
+	}
+
+	public Path writeTo(Path file) throws IOException {
+		Files.write(file, toByteArray());
+		return file;
+	}
+
+	public byte[] toByteArray() {
+		var names = new ArrayList<>(entries.keySet());
+		var blocks = (names.size() + blockCapacity - 1) / blockCapacity;
+		var blockSize = 12 + blockCapacity * UopFileReader.ENTRY_SIZE;
+
+		var payloads = new ByteArrayOutputStream();
+		var payloadOffsets = new long[names.size()];
+		var storedLengths = new int[names.size()];
+		var payloadStart = UopFileReader.HEADER_SIZE + (long) blocks * blockSize;
+		for (int i = 0; i < names.size(); i++) {
+			var contents = entries.get(names.get(i));
+			var stored = compressed.contains(names.get(i)) ? deflate(contents) : contents;
+			payloadOffsets[i] = payloadStart + payloads.size();
+			storedLengths[i] = stored.length;
+			payloads.writeBytes(new byte[ENTRY_HEADER_LENGTH]); // unknown entry header
+			payloads.writeBytes(stored);
+		}
+
+		var bb = ByteBuffer.allocate((int) payloadStart + payloads.size()).order(ByteOrder.LITTLE_ENDIAN);
+		bb.putInt(UopFileReader.MAGIC);
+		bb.putInt(5); // version
+		bb.putInt(0xFD23EC43); // signature
+		bb.putLong(names.isEmpty() ? 0 : UopFileReader.HEADER_SIZE);
+		bb.putInt(blockCapacity);
+		bb.putInt(names.size());
+
+		for (int block = 0; block < blocks; block++) {
+			var blockStart = UopFileReader.HEADER_SIZE + block * blockSize;
+			var first = block * blockCapacity;
+			var filesInBlock = Math.min(blockCapacity, names.size() - first);
+			bb.position(blockStart);
+			bb.putInt(filesInBlock);
+			bb.putLong(block + 1 < blocks ? blockStart + blockSize : 0);
+			for (int i = first; i < first + filesInBlock; i++) {
+				var name = names.get(i);
+				bb.putLong(payloadOffsets[i]);
+				bb.putInt(ENTRY_HEADER_LENGTH);
+				bb.putInt(storedLengths[i]);
+				bb.putInt(entries.get(name).length);
+				bb.putLong(UopFileReader.hash(name));
+				bb.putInt(0); // data hash, not checked
+				bb.putShort(compressed.contains(name) ? UopFileReader.COMPRESSION_ZLIB : UopFileReader.COMPRESSION_NONE);
+			}
+			// remaining slots of the last block are left zeroed (unused)
+		}
+		bb.position((int) payloadStart);
+		bb.put(payloads.toByteArray());
+		return bb.array();
+	}
+
+	private static byte[] deflate(byte[] contents) {
+		var deflater = new Deflater();
+		deflater.setInput(contents);
+		deflater.finish();
+		var out = new ByteArrayOutputStream();
+		var buffer = new byte[1024];
+		while (!deflater.finished()) {
+			out.write(buffer, 0, deflater.deflate(buffer));
+		}
+		deflater.end();
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,98 @@
+package net.sf.juoserver.files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UopFileReaderTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void shouldServeEntriesByName() throws IOException {
+        var file = new SyntheticUopFile()
+                .entry("build/test/00000000.dat", bytes("first"))
+                .entry("build/test/00000001.dat", bytes("second"))
+                .writeTo(folder.resolve("test.uop"));
+
+        var reader = new UopFileReader(file.toFile());
+
+        assertEquals(2, reader.size());
+        assertEquals("first", string(reader.getEntry("build/test/00000000.dat")));
+        assertEquals("second", string(reader.getEntry(UopFileReader.hash("build/test/00000001.dat"))));
+        assertNull(reader.getEntry("build/test/00000002.dat"));
+        assertFalse(reader.contains("build/test/00000002.dat"));
+    }
+
+    @Test
+    public void shouldFollowTableBlocksChain() throws IOException {
+        var uop = new SyntheticUopFile().blockCapacity(3);
+        for (int i = 0; i < 10; i++) {
+            uop.entry(String.format("build/chain/%08d.dat", i), bytes("entry " + i));
+        }
+        var reader = new UopFileReader(uop.writeTo(folder.resolve("chain.uop")).toFile());
+
+        assertEquals(10, reader.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("entry " + i, string(reader.getEntry(String.format("build/chain/%08d.dat", i))));
+        }
+    }
+
+    @Test
+    public void shouldServeUncompressedEntriesAsReadOnlySlices() throws IOException {
+        var file = new SyntheticUopFile()
+                .entry("build/test/00000000.dat", new byte[] {1, 0, 2, 0})
+                .writeTo(folder.resolve("slice.uop"));
+
+        var entry = new UopFileReader(file.toFile()).getEntry("build/test/00000000.dat");
+
+        assertTrue(entry.isReadOnly());
+        assertTrue(entry.isDirect());
+        assertEquals(1, entry.getShort(0));
+        assertEquals(2, entry.getShort(2));
+    }
+
+    @Test
+    public void shouldInflateCompressedEntries() throws IOException {
+        var contents = "compressed ".repeat(50);
+        var file = new SyntheticUopFile()
+                .compressedEntry("build/test/00000000.dat", bytes(contents))
+                .writeTo(folder.resolve("zlib.uop"));
+
+        assertEquals(contents, string(new UopFileReader(file.toFile()).getEntry("build/test/00000000.dat")));
+    }
+
+    @Test
+    public void shouldRejectFilesWithoutMagic() throws IOException {
+        var file = Files.write(folder.resolve("bad.uop"), new byte[UopFileReader.HEADER_SIZE]);
+
+        assertThrows(FileReaderException.class, () -> new UopFileReader(file.toFile()));
+    }
+
+    @Test
+    public void shouldHashNamesOfAnyLength() {
+        assertNotEquals(UopFileReader.hash("build/map0legacymul/00000000.dat"),
+                UopFileReader.hash("build/map0legacymul/00000001.dat"));
+        assertEquals(UopFileReader.hash("build/map0legacymul/00000000.dat"),
+                UopFileReader.hash("build/map0legacymul/00000000.dat"));
+        assertNotEquals(UopFileReader.hash("abcdefghijkl"), UopFileReader.hash("abcdefghijk"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        var bytes = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
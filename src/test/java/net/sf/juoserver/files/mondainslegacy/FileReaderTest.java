@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -121,4 +122,25 @@ public class FileReaderTest {
 			assertEquals(skills[i++], entry.getSkillName());
 		}
 	}
+	@Test
+	public void getIdxSize() throws FileNotFoundException {
+		IdxFileReader idxReader = fileReadersFactory.createSkillsIdxFileReader(new File("src/test/resources/myskills.idx"));
+		assertEquals(skills.length, idxReader.size());
+		assertNull(idxReader.getEntryAt(skills.length));
+	}
+	@Test
+	public void getMulSliceAt() throws FileNotFoundException {
+		IdxFileReader idxReader = fileReadersFactory.createSkillsIdxFileReader(new File("src/test/resources/myskills.idx"));
+		MondainsLegacySkillsMulFileReader mulReader = new MondainsLegacySkillsMulFileReader(new File("src/test/resources/myskills.mul"),
+				idxReader);
+		
+		IdxFileEntry peaceMakingEntry = idxReader.getEntryAt(9);
+		ByteBuffer slice = mulReader.getSliceAt(peaceMakingEntry);
+		assertEquals(peaceMakingEntry.getLength(), slice.remaining());
+		assertTrue(slice.isReadOnly());
+		
+		byte[] name = new byte[slice.remaining() - 2];
+		slice.get(1, name);
+		assertEquals("Peacemaking", new String(name));
+	}
 }
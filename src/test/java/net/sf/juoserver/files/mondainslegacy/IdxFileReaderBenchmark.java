@@ -0,0 +1,130 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.IdxFileEntry;
+import net.sf.juoserver.files.BaseIdxFileReader;
+import net.sf.juoserver.files.IdxFileEntryEncoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the memory-mapped, bulk-decoded readers against the previous
+ * seek-and-read-per-entry implementation.
+ * <p/>
+ * Art and gump indices are only benchmarked when a UO folder is provided with
+ * <tt>-Djuoserver.mulPath=...</tt>.
+ */
+@Tag("benchmark")
+class IdxFileReaderBenchmark {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IdxFileReaderBenchmark.class);
+	private static final int WARM_UP_ITERATIONS = 200;
+	private static final File SKILLS_IDX = new File("src/test/resources/myskills.idx");
+	private static final File SKILLS_MUL = new File("src/test/resources/myskills.mul");
+
+	@Test
+	public void loadSkills() throws Exception {
+		var iterations = 5_000;
+		var legacy = measure("skills (legacy seek)", iterations, () -> {
+			var idx = new SeekingIdxFileReader(SKILLS_IDX, SkillsIdxFileReader.IDX_BLOCK_SIZE, new SkillsIdxFileEntryEncoder());
+			try (var mul = new RandomAccessFile(SKILLS_MUL, "r")) {
+				var names = new ArrayList<String>();
+				for (IdxFileEntry entry : idx.getAllEntries()) {
+					var buffer = new byte[entry.getLength()];
+					mul.seek(entry.getStart());
+					mul.read(buffer, 0, buffer.length);
+					names.add(new String(buffer, 1, buffer.length - 2));
+				}
+				idx.close();
+				return names.size();
+			}
+		});
+		var mapped = measure("skills (mapped)", iterations, () -> {
+			var idx = new SkillsIdxFileReader(SKILLS_IDX);
+			return new MondainsLegacySkillsMulFileReader(SKILLS_MUL, idx).getAllEntries().size();
+		});
+		assertEquals(legacy, mapped);
+	}
+
+	@Test
+	public void loadArtIndex() throws Exception {
+		benchmarkIndex("artidx.mul", 20);
+	}
+
+	@Test
+	public void loadGumpIndex() throws Exception {
+		benchmarkIndex("gumpidx.mul", 20);
+	}
+
+	private void benchmarkIndex(String fileName, int iterations) throws Exception {
+		var mulPath = System.getProperty("juoserver.mulPath", "");
+		var file = new File(mulPath, fileName);
+		assumeTrue(!mulPath.isEmpty() && file.exists(), "juoserver.mulPath does not contain " + fileName);
+
+		var legacy = measure(fileName + " (legacy seek)", iterations, () -> {
+			var reader = new SeekingIdxFileReader(file, SkillsIdxFileReader.IDX_BLOCK_SIZE, new SkillsIdxFileEntryEncoder());
+			var size = reader.getAllEntries().size();
+			reader.close();
+			return size;
+		});
+		var mapped = measure(fileName + " (mapped)", iterations, () ->
+				new BaseIdxFileReader(file, SkillsIdxFileReader.IDX_BLOCK_SIZE, new SkillsIdxFileEntryEncoder()).size());
+		assertEquals(legacy, mapped);
+	}
+
+	private int measure(String name, int iterations, Callable<Integer> loader) throws Exception {
+		int result = 0;
+		for (int i = 0; i < Math.min(iterations, WARM_UP_ITERATIONS); i++) {
+			result = loader.call();
+		}
+		var start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			result = loader.call();
+		}
+		var elapsed = System.nanoTime() - start;
+		LOGGER.info("{}: {} entries, {} us/load over {} loads", name, result, elapsed / 1_000 / iterations, iterations);
+		return result;
+	}
+
+	/**
+	 * The index reader as it was before memory mapping: one seek, one
+	 * <tt>byte[]</tt> and one entry per row.
+	 */
+	private static final class SeekingIdxFileReader {
+		private final RandomAccessFile raf;
+		private final int blockSize;
+		private final IdxFileEntryEncoder entryEncoder;
+
+		private SeekingIdxFileReader(File file, int blockSize, IdxFileEntryEncoder entryEncoder) throws IOException {
+			this.raf = new RandomAccessFile(file, "r");
+			this.blockSize = blockSize;
+			this.entryEncoder = entryEncoder;
+		}
+
+		private List<IdxFileEntry> getAllEntries() throws IOException {
+			List<IdxFileEntry> entries = new ArrayList<>();
+			for (int i = 0; ; i++) {
+				raf.seek((long) i * blockSize);
+				byte[] buffer = new byte[blockSize];
+				if (raf.read(buffer, 0, blockSize) != blockSize) {
+					return entries;
+				}
+				entries.add(entryEncoder.encode(buffer).index(i));
+			}
+		}
+
+		private void close() throws IOException {
+			raf.close();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.MapLocation;
+import net.sf.juoserver.api.StaticTile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MondainsLegacyStaticsFileReaderTest {
+    private static final int MAP_HEIGHT = 64;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void shouldReadBlockStatics() throws IOException {
+        var blocks = (MAP_HEIGHT / 8) * (MAP_HEIGHT / 8);
+        var idx = ByteBuffer.allocate(blocks * 12).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < blocks; i++) {
+            idx.putInt(i * 12, -1);
+        }
+        // Block (1, 2) holds two statics
+        var block = 1 * (MAP_HEIGHT / 8) + 2;
+        idx.putInt(block * 12, 0).putInt(block * 12 + 4, 14);
+        var statics = ByteBuffer.allocate(14).order(ByteOrder.LITTLE_ENDIAN);
+        statics.putShort((short) 0x0080).put((byte) 3).put((byte) 4).put((byte) -5).putShort((short) 0x21);
+        statics.putShort((short) 0x0081).put((byte) 3).put((byte) 4).put((byte) 10).putShort((short) 0);
+
+        var reader = new MondainsLegacyStaticsFileReader(
+                Files.write(folder.resolve("staidx0.mul"), idx.array()).toFile(),
+                Files.write(folder.resolve("statics0.mul"), statics.array()).toFile(), MAP_HEIGHT);
+
+        var blockStatics = reader.getBlockStatics(1, 2);
+        assertEquals(2, blockStatics.size());
+        StaticTile first = blockStatics.get(0);
+        assertEquals(0x80, first.getTileID());
+        assertEquals(11, first.getX());
+        assertEquals(20, first.getY());
+        assertEquals(-5, first.getZ());
+        assertEquals(0x21, first.getHue());
+
+        assertEquals(2, reader.getEntryAt(location(11, 20)).size());
+        assertTrue(reader.getEntryAt(location(12, 20)).isEmpty());
+        assertTrue(reader.getBlockStatics(0, 0).isEmpty());
+    }
+
+    private static MapLocation location(int x, int y) {
+        return new MapLocation() {
+            @Override public int getX() { return x; }
+            @Override public int getY() { return y; }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.TileDataFileReader;
+import net.sf.juoserver.files.FileReaderException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MondainsLegacyTileDataFileReaderTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void shouldReadOldLayout() throws IOException {
+        var reader = new MondainsLegacyTileDataFileReader(tileData(false, 0x4000).toFile());
+
+        assertEquals(TileDataFileReader.FLAG_IMPASSABLE, reader.getLandFlags(0xA8));
+        assertEquals(0, reader.getLandFlags(0x3));
+        assertEquals(TileDataFileReader.FLAG_SURFACE, reader.getItemFlags(0x40));
+        assertEquals(20, reader.getItemHeight(0x40));
+        assertEquals(0, reader.getItemFlags(0x4000), "unknown tiles have no flags");
+    }
+
+    @Test
+    public void shouldReadNewLayout() throws IOException {
+        var reader = new MondainsLegacyTileDataFileReader(tileData(true, 0x10000).toFile());
+
+        assertEquals(TileDataFileReader.FLAG_IMPASSABLE, reader.getLandFlags(0xA8));
+        assertEquals(TileDataFileReader.FLAG_SURFACE, reader.getItemFlags(0x40));
+        assertEquals(20, reader.getItemHeight(0x40));
+        assertEquals(1L << 40, reader.getItemFlags(0xFFFF));
+    }
+
+    @Test
+    public void shouldRejectUnknownLayouts() throws IOException {
+        var file = Files.write(folder.resolve("tiledata.mul"), new byte[1000]);
+
+        assertThrows(FileReaderException.class, () -> new MondainsLegacyTileDataFileReader(file.toFile()));
+    }
+
+    private Path tileData(boolean newLayout, int items) throws IOException {
+        var flagsSize = newLayout ? 8 : 4;
+        var landSize = flagsSize + 22;
+        var itemSize = flagsSize + 33;
+        var landSectionSize = 0x4000 / 32 * (4 + 32 * landSize);
+        var bb = ByteBuffer.allocate(landSectionSize + items / 32 * (4 + 32 * itemSize)).order(ByteOrder.LITTLE_ENDIAN);
+
+        putFlags(bb, (0xA8 / 32 + 1) * 4 + 0xA8 * landSize, TileDataFileReader.FLAG_IMPASSABLE, newLayout);
+        var item = landSectionSize + (0x40 / 32 + 1) * 4 + 0x40 * itemSize;
+        putFlags(bb, item, TileDataFileReader.FLAG_SURFACE, newLayout);
+        bb.put(item + flagsSize + 12, (byte) 20);
+        if (newLayout) {
+            putFlags(bb, landSectionSize + (0xFFFF / 32 + 1) * 4 + 0xFFFF * itemSize, 1L << 40, true);
+        }
+        return Files.write(folder.resolve("tiledata.mul"), bb.array());
+    }
+
+    private static void putFlags(ByteBuffer bb, int position, long flags, boolean newLayout) {
+        if (newLayout) {
+            bb.putLong(position, flags);
+        } else {
+            bb.putInt(position, (int) flags);
+        }
+    }
+}
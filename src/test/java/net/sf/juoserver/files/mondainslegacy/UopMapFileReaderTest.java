@@ -0,0 +1,63 @@
+package net.sf.juoserver.files.mondainslegacy;
+
+import net.sf.juoserver.api.MapLocation;
+import net.sf.juoserver.files.SyntheticUopFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UopMapFileReaderTest {
+    private static final int MAP_HEIGHT = 64;
+    private static final int BLOCK_SIZE = 196;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void shouldReadTilesAcrossContainerEntries() throws IOException {
+        // Two entries: the second one starts at block #4096, i.e. x = 4096 / (64 / 8) * 8 = 4096
+        var first = new byte[UopMapFileReader.BLOCKS_PER_ENTRY * BLOCK_SIZE];
+        var second = new byte[BLOCK_SIZE];
+        setCell(first, 0, 0, 0, 0x0003, 5);
+        setCell(first, 10, 20, 0, 0x00A8, -5);
+        setCell(second, 4097, 3, UopMapFileReader.BLOCKS_PER_ENTRY, 0x1234, 20);
+
+        var file = new SyntheticUopFile()
+                .entry("build/map9legacymul/00000000.dat", first)
+                .entry("build/map9legacymul/00000001.dat", second)
+                .writeTo(folder.resolve("map9LegacyMUL.uop"));
+
+        var reader = new MondainsLegacyFileReadersFactory().createUopMapFileReader(file.toFile(), 9, MAP_HEIGHT);
+
+        assertTile(reader.getEntryAt(location(0, 0)), 0x0003, 5);
+        assertTile(reader.getEntryAt(location(10, 20)), 0x00A8, -5);
+        assertTile(reader.getEntryAt(location(4097, 3)), 0x1234, 20);
+        assertTile(reader.getEntryAt(location(1, 1)), 0, 0);
+    }
+
+    private static void setCell(byte[] entry, int x, int y, int firstBlock, int tileId, int z) {
+        var blockNumber = (x / 8) * (MAP_HEIGHT / 8) + (y / 8) - firstBlock;
+        var offset = blockNumber * BLOCK_SIZE + 4 + ((y % 8) * 8 + (x % 8)) * 3;
+        ByteBuffer.wrap(entry).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort(offset, (short) tileId)
+                .put(offset + 2, (byte) z);
+    }
+
+    private static void assertTile(net.sf.juoserver.api.MapTile tile, int tileId, int z) {
+        assertEquals(tileId, tile.getTileID());
+        assertEquals(z, tile.getZ());
+    }
+
+    private static MapLocation location(int x, int y) {
+        return new MapLocation() {
+            @Override public int getX() { return x; }
+            @Override public int getY() { return y; }
+        };
+    }
+}
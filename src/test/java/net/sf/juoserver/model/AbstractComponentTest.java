@@ -3,6 +3,7 @@ package net.sf.juoserver.model;
 import net.sf.juoserver.TestingFactory;
 import net.sf.juoserver.api.Account;
 import net.sf.juoserver.api.Core;
+import net.sf.juoserver.api.Facet;
 import net.sf.juoserver.api.InterClientNetwork;
 import net.sf.juoserver.api.Mobile;
 import net.sf.juoserver.files.mondainslegacy.MondainsLegacyMapTile;
@@ -31,7 +32,7 @@ public class AbstractComponentTest {
 		network.addIntercomListener(lollerSession);
 		
 		context.checking(new Expectations() {{
-			allowing(core).getTile(with(any(int.class)), with(any(int.class)));
+			allowing(core).getTile(with(any(Facet.class)), with(any(int.class)), with(any(int.class)));
 				will(returnValue(new MondainsLegacyMapTile(0, 42)));
 			allowing(core).findMobileByID(100);
 				will(returnValue(asder));
@@ -0,0 +1,83 @@
+package net.sf.juoserver.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticationKeysTest {
+    private static final long TTL = 30_000;
+
+    private final String username = "user";
+    private long now = 1_000_000;
+    private final AuthenticationKeys keys = new AuthenticationKeys(TTL, () -> now);
+
+    @Test
+    public void shouldRedeemAKeyOnce() {
+        int key = keys.issue(username);
+
+        assertEquals(username, keys.redeem(key));
+        assertNull(keys.redeem(key));
+        assertEquals(0, keys.size());
+        assertEquals(1, keys.getRedeemed());
+        assertEquals(1, keys.getRejected());
+    }
+
+    @Test
+    public void shouldRejectTheExpiredKeys() {
+        int key = keys.issue(username);
+
+        now += TTL;
+
+        assertNull(keys.redeem(key));
+        assertEquals(1, keys.getRejected());
+    }
+
+    @Test
+    public void shouldSweepTheExpiredKeys() {
+        for (int i = 0; i < 100; i++) {
+            keys.issue(username);
+        }
+        now += TTL / 2;
+        int kept = keys.issue(username);
+
+        now += TTL / 2;
+        keys.issue(username);
+
+        assertEquals(2, keys.size());
+        assertEquals(100, keys.getExpired());
+        assertEquals(username, keys.redeem(kept));
+    }
+
+    @Test
+    public void shouldKeepASteadySizeUnderAConstantLoginRate() {
+        var issued = new HashSet<Integer>();
+        for (int second = 0; second < 600; second++) {
+            for (int i = 0; i < 167; i++) { // 10k logins per minute, half of them never redeemed
+                int key = keys.issue(username);
+                if (i % 2 == 0) {
+                    assertEquals(username, keys.redeem(key));
+                }
+                issued.add(key);
+            }
+            now += 1000;
+        }
+
+        assertTrue(keys.size() <= 84 * (TTL / 1000 + 1));
+        assertTrue(issued.size() > 99_000);
+    }
+
+    @Test
+    public void shouldSweepAllTheSlotsAfterALongPause() {
+        keys.issue(username);
+        now += TTL / 3;
+        keys.issue(username);
+
+        now += 10 * TTL;
+        keys.issue(username);
+
+        assertEquals(1, keys.size());
+        assertEquals(2, keys.getExpired());
+    }
+}
@@ -0,0 +1,92 @@
+package net.sf.juoserver.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileAuthenticationKeysTest {
+    private static final long TTL = 30_000;
+
+    @TempDir
+    Path directory;
+    private long offset;
+
+    private FileAuthenticationKeys newKeys() {
+        return new FileAuthenticationKeys(directory, TTL, () -> System.currentTimeMillis() + offset);
+    }
+
+    @Test
+    public void shouldRedeemAKeyOnceInAnyProcess() {
+        var login = newKeys();
+        var game = newKeys();
+
+        int key = login.issue("user");
+
+        assertEquals("user", game.redeem(key));
+        assertNull(game.redeem(key));
+        assertNull(login.redeem(key));
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void shouldRejectTheExpiredKeys() {
+        var keys = newKeys();
+        int key = keys.issue("user");
+
+        offset = TTL;
+
+        assertNull(keys.redeem(key));
+        assertEquals(0, count());
+    }
+
+    @Test
+    public void shouldSweepTheExpiredKeys() {
+        var keys = newKeys();
+        for (int i = 0; i < 10; i++) {
+            keys.issue("user");
+        }
+
+        offset = TTL;
+        int kept = keys.issue("user");
+
+        assertEquals(1, count());
+        offset = 0;
+        assertEquals("user", keys.redeem(kept));
+    }
+
+    @Test
+    public void shouldLetASingleGameListenerRedeemAKey() {
+        var login = newKeys();
+        var keys = IntStream.range(0, 200).map(i -> login.issue("user" + i)).toArray();
+        var redeemed = new ConcurrentLinkedQueue<String>();
+
+        CompletableFuture.allOf(IntStream.range(0, 4).mapToObj(listener -> CompletableFuture.runAsync(() -> {
+            var game = newKeys();
+            for (int key : keys) {
+                var username = game.redeem(key);
+                if (username != null) {
+                    redeemed.add(username);
+                }
+            }
+        })).toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(200, redeemed.size());
+        assertEquals(200, redeemed.stream().distinct().count());
+    }
+
+    private long count() {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
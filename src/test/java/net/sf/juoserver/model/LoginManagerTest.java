@@ -8,12 +8,18 @@ import org.jmock.integration.junit4.JUnitRuleMockery;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
 public class LoginManagerTest {
 	@Rule public final JUnitRuleMockery context = new JUnitRuleMockery();
 	
 	private final Core core = context.mock(Core.class);
 	private final Account account = new UOAccount(42, "user", "psw");
-	private final LoginManager loginManager = new UOLoginManager(core);
+	private final AuthenticationKeys keys = new AuthenticationKeys(UOLoginManager.KEY_TTL);
+	private final LoginManager loginManager = new UOLoginManager(core, false, keys, Runnable::run);
 	
 	@Test
 	public void successfulLoginAuthenticatesAccount() {
@@ -23,6 +29,84 @@ public class LoginManagerTest {
 			oneOf(core).authenticate(account, "psw");
 				will(returnValue(true));
 		}});
-		loginManager.login("user", "psw");
+		assertSame(account, loginManager.login("user", "psw").join());
+	}
+
+	@Test
+	public void unknownAccountsAreRegisteredWithAutoRegistration() {
+		context.checking(new Expectations() {{
+			oneOf(core).findAccountByUsername("user");
+				will(returnValue(null));
+			oneOf(core).registerAccount("user", "psw");
+				will(returnValue(account));
+		}});
+		LoginManager registeringLoginManager = new UOLoginManager(core, true, keys, Runnable::run);
+		
+		assertSame(account, registeringLoginManager.login("user", "psw").join());
+	}
+
+	@Test
+	public void unknownAccountsAreRejectedWithoutAutoRegistration() {
+		context.checking(new Expectations() {{
+			oneOf(core).findAccountByUsername("user");
+				will(returnValue(null));
+		}});
+		
+		assertTrue(loginManager.login("user", "psw").isCompletedExceptionally());
+	}
+
+	@Test
+	public void blankUsernamesAreNotRegistered() {
+		context.checking(new Expectations() {{
+			oneOf(core).findAccountByUsername(" ");
+				will(returnValue(null));
+			never(core).registerAccount(with(any(String.class)), with(any(String.class)));
+		}});
+		LoginManager registeringLoginManager = new UOLoginManager(core, true, keys, Runnable::run);
+		
+		assertTrue(registeringLoginManager.login(" ", "psw").isCompletedExceptionally());
+	}
+
+	@Test
+	public void loginsBeyondTheVerifierCapacityAreRejected() {
+		context.checking(new Expectations() {{
+			oneOf(core).findAccountByUsername("user");
+				will(returnValue(account));
+		}});
+		LoginManager busyLoginManager = new UOLoginManager(core, false, keys, task -> {
+			throw new RejectedExecutionException();
+		});
+		
+		CompletableFuture<Account> login = busyLoginManager.login("user", "psw");
+		
+		assertTrue(login.isCompletedExceptionally());
+	}
+
+	@Test
+	public void authenticationKeysAreRedeemedOnce() {
+		context.checking(new Expectations() {{
+			oneOf(core).findAccountByUsername("user");
+				will(returnValue(account));
+		}});
+		int key = loginManager.generateAuthenticationKey(account);
+		
+		assertSame(account, loginManager.getAuthorizedAccount(key));
+		assertNull(loginManager.getAuthorizedAccount(key));
+	}
+
+	@Test
+	public void authenticationKeysAreRedeemedByTheGameListenersSharingTheStore() {
+		Core gameCore = context.mock(Core.class, "gameCore");
+		Account loaded = new UOAccount(42, "user", "psw");
+		context.checking(new Expectations() {{
+			oneOf(gameCore).findAccountByUsername("user");
+				will(returnValue(loaded));
+		}});
+		LoginManager gameLoginManager = new UOLoginManager(gameCore, false, keys, Runnable::run);
+		
+		int key = loginManager.generateAuthenticationKey(account);
+		
+		assertSame(loaded, gameLoginManager.getAuthorizedAccount(key));
+		assertNull(loginManager.getAuthorizedAccount(key));
 	}
 }
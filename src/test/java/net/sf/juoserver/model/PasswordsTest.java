@@ -0,0 +1,34 @@
+package net.sf.juoserver.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordsTest {
+    @Test
+    public void shouldMatchTheHashedPasswords() {
+        var hashed = Passwords.hash("psw");
+
+        assertTrue(Passwords.isHashed(hashed));
+        assertTrue(Passwords.matches("psw", hashed));
+        assertFalse(Passwords.matches("psw2", hashed));
+        assertFalse(Passwords.matches(null, hashed));
+    }
+
+    @Test
+    public void shouldSaltEveryHash() {
+        assertNotEquals(Passwords.hash("psw"), Passwords.hash("psw"));
+    }
+
+    @Test
+    public void shouldMatchThePlaintextPasswords() {
+        assertFalse(Passwords.isHashed("psw"));
+        assertTrue(Passwords.matches("psw", "psw"));
+        assertFalse(Passwords.matches("psw2", "psw"));
+    }
+
+    @Test
+    public void shouldBoundTheLengthOfTheHashes() {
+        assertTrue(Passwords.hash("a much longer password than usual").length() <= Passwords.MAX_HASHED_LENGTH);
+    }
+}
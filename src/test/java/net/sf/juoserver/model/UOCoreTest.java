@@ -1,15 +1,19 @@
 package net.sf.juoserver.model;
 
-import net.sf.juoserver.api.ConfigFileReader;
-import net.sf.juoserver.api.Configuration;
-import net.sf.juoserver.api.DataManager;
-import net.sf.juoserver.api.FileReadersFactory;
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.*;
 import net.sf.juoserver.model.core.UOCore;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,4 +40,50 @@ class UOCoreTest {
         core.init();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldHashThePlaintextPasswordsOnceAuthenticated() {
+        var account = new UOAccount(42, "user", "psw");
+
+        assertFalse(core.authenticate(account, "wrong"));
+        assertFalse(Passwords.isHashed(account.getPassword()));
+        assertTrue(core.authenticate(account, "psw"));
+        assertTrue(Passwords.isHashed(account.getPassword()));
+        assertTrue(core.authenticate(account, "psw"));
+        assertFalse(core.authenticate(account, "wrong"));
+    }
+
+    @Test
+    public void shouldNotGiveTheSerialsOfTheCharactersNotLoadedToTheNpcs() {
+        var account = new UOAccount(1, "user", "psw");
+        account.addMobileSerialId(10);
+        var character = TestingFactory.createTestMobile(10, "character");
+        var template = new UONpcMobile();
+        template.setTemplateId(2);
+        when(dataManager.loadAccounts()).thenReturn(List.of(account));
+        when(dataManager.loadCharacters(List.of(10))).thenReturn(CompletableFuture.completedFuture(List.of(character)));
+        when(configFileReader.loadNpcs()).thenReturn(List.of(template));
+        when(configuration.getNpc()).thenReturn(mock(Configuration.NpcConfiguration.class));
+        core = new UOCore(fileReadersFactory, dataManager, configuration, configFileReader);
+        core.init();
+
+        var npcs = core.createNpcs(2, Facet.Felucca, Collections.nCopies(20, new PointInSpace(1, 1, 0)));
+        core.loadCharacters(account).join();
+
+        assertSame(character, core.findMobileByID(10));
+        assertTrue(npcs.stream().allMatch(npc -> npc.getSerialId() > 10));
+    }
+
+    @Test
+    public void shouldLoadTheAccountsOnlyForTheLoginListeners() {
+        var account = new UOAccount(1, "user", "psw");
+        when(dataManager.loadAccounts()).thenReturn(List.of(account));
+        clearInvocations(dataManager, configFileReader); // Loaded by the setup
+        core = new UOCore(fileReadersFactory, dataManager, configuration, configFileReader);
+
+        core.startupAccounts().await();
+
+        assertSame(account, core.findAccountByUsername("user"));
+        verify(dataManager, never()).loadMobiles();
+        verify(configFileReader, never()).loadNpcs();
+    }
+}
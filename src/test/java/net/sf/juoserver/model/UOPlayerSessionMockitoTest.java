@@ -3,6 +3,7 @@ package net.sf.juoserver.model;
 import net.sf.juoserver.TestingFactory;
 import net.sf.juoserver.api.Account;
 import net.sf.juoserver.api.Core;
+import net.sf.juoserver.api.Facet;
 import net.sf.juoserver.api.InterClientNetwork;
 import net.sf.juoserver.api.Mobile;
 import net.sf.juoserver.files.mondainslegacy.MondainsLegacyMapTile;
@@ -38,7 +39,7 @@ public class UOPlayerSessionMockitoTest {
             .when(core.findMobileByID(mobile.getSerialId()))
             .thenReturn(mobile);
         lenient()
-                .when(core.getTile(anyInt(), anyInt()))
+                .when(core.getTile(any(Facet.class), anyInt(), anyInt()))
                 .thenReturn(new MondainsLegacyMapTile(0, 42));
         account.addMobileSerialId(mobile.getSerialId());
         session.selectCharacterById(0);
@@ -26,7 +26,7 @@ public class UOPlayerSessionTest {
 	@Before
 	public void createMobiles() {
 		context.checking(new Expectations() {{
-			allowing(core).getTile(with(any(int.class)), with(any(int.class)));
+			allowing(core).getTile(with(any(Facet.class)), with(any(int.class)), with(any(int.class)));
 				will(returnValue(new MondainsLegacyMapTile(0, 42)));
 			allowing(core).findMobileByID(100);
 				will(returnValue(asder));
@@ -0,0 +1,194 @@
+package net.sf.juoserver.model.ai;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.NpcContext;
+import net.sf.juoserver.api.NpcSession;
+import net.sf.juoserver.model.npc.UONpcContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BehaviourTreeTest {
+    @Mock
+    private NpcSession session;
+    private final List<String> ticked = new ArrayList<>();
+    private long nanos;
+    private BehaviourTreeCompiler compiler = new BehaviourTreeCompiler(TickBudget.UNLIMITED);
+
+    @BeforeEach
+    public void setUp() {
+        register(compiler);
+    }
+
+    @Test
+    public void shouldFlattenTheTreeInPreOrder() {
+        var tree = compiler.compile("test", node("selector", List.of(
+                node("sequence", List.of(leaf("fail"), leaf("a"))),
+                node("inverter", leaf("fail")),
+                leaf("b"))));
+
+        assertEquals(7, tree.size());
+        assertEquals(BehaviourStatus.SUCCESS, tree.run(session, new BehaviourTree.State(tree)));
+        assertEquals(List.of("fail", "fail"), ticked);
+    }
+
+    @Test
+    public void shouldRunSequencesUntilAChildFails() {
+        var tree = compiler.compile("test", node("sequence", List.of(leaf("a"), leaf("fail"), leaf("b"))));
+
+        assertEquals(BehaviourStatus.FAILURE, tree.run(session, new BehaviourTree.State(tree)));
+        assertEquals(List.of("a", "fail"), ticked);
+    }
+
+    @Test
+    public void shouldResumeFromTheRunningLeaf() {
+        var tree = compiler.compile("test", node("sequence", List.of(leaf("a"), leaf("twice"), leaf("b"))));
+        var state = new BehaviourTree.State(tree);
+
+        assertEquals(BehaviourStatus.RUNNING, tree.run(session, state));
+        assertEquals(List.of("a", "twice"), ticked);
+        assertEquals(BehaviourStatus.SUCCESS, tree.run(session, state));
+        assertEquals(List.of("a", "twice", "twice", "b"), ticked);
+        assertEquals(0, state.getCursor());
+    }
+
+    @Test
+    public void shouldYieldOnceTheBudgetIsSpentAndResumeOnTheNextTick() {
+        var budget = new TickBudget(10, 1, () -> nanos);
+        compiler = new BehaviourTreeCompiler(budget);
+        register(compiler);
+        var tree = compiler.compile("test", node("sequence", List.of(leaf("slow"), leaf("a"), leaf("b"))));
+        var context = new UONpcContext();
+
+        tree.execute(context, session);
+        assertEquals(List.of("slow"), ticked);
+        assertTrue(context.getEntry(NpcContext.YIELDED, false));
+        assertTrue(budget.isExhausted());
+
+        nanos = 1_000_000; // Next tick
+        context.addEntry(NpcContext.YIELDED, false);
+        tree.execute(context, session);
+        assertEquals(List.of("slow", "a", "b"), ticked);
+        assertFalse(context.getEntry(NpcContext.YIELDED, false));
+    }
+
+    @Test
+    public void shouldOnlySpendTheCpuTimeOfTheLeaves() {
+        var budget = new TickBudget(10, 1_000, () -> nanos, () -> 0L); // The slow leaf waits without using the CPU
+        compiler = new BehaviourTreeCompiler(budget);
+        register(compiler);
+        var tree = compiler.compile("test", node("sequence", List.of(leaf("slow"), leaf("a"), leaf("b"))));
+
+        assertEquals(BehaviourStatus.SUCCESS, tree.run(session, new BehaviourTree.State(tree)));
+        assertEquals(List.of("slow", "a", "b"), ticked);
+        assertFalse(budget.isExhausted());
+    }
+
+    @Test
+    public void shouldAlwaysRunOneLeafEvenWithoutBudget() {
+        var budget = new TickBudget(10, 1, () -> nanos);
+        compiler = new BehaviourTreeCompiler(budget);
+        register(compiler);
+        var tree = compiler.compile("test", node("sequence", List.of(leaf("a"), leaf("b"))));
+        var state = new BehaviourTree.State(tree);
+        budget.spend(10_000);
+
+        assertEquals(BehaviourStatus.RUNNING, tree.run(session, state));
+        assertTrue(state.isYielded());
+        assertEquals(BehaviourStatus.SUCCESS, tree.run(session, state));
+        assertEquals(List.of("a", "b"), ticked);
+    }
+
+    @Test
+    public void shouldGiveEveryNpcItsOwnBlackboard() {
+        compiler.register("count", (parameters, layout) -> {
+            int slot = layout.longSlot("count");
+            return (session, blackboard) -> {
+                blackboard.setLong(slot, blackboard.getLong(slot) + 1);
+                return BehaviourStatus.SUCCESS;
+            };
+        });
+        var tree = compiler.compile("test", leaf("count"));
+        var first = new BehaviourTree.State(tree);
+        var second = new BehaviourTree.State(tree);
+
+        tree.run(session, first);
+        tree.run(session, first);
+        tree.run(session, second);
+
+        assertEquals(2, first.getBlackboard().getLong(0));
+        assertEquals(1, second.getBlackboard().getLong(0));
+    }
+
+    @Test
+    public void shouldChaseTheHostilePlayerFound() {
+        var npc = TestingFactory.createTestNpcMobile(1, null).location(0, 0, 0);
+        var player = TestingFactory.createTestMobile(2, "player").location(5, 0, 0);
+        when(session.getMobile()).thenReturn(npc);
+        when(session.findNearestHostilePlayer(12)).thenReturn(player);
+        var tree = compiler.compile("chaser", node("sequence", List.of(leaf("findHostile"), leaf("chase"))));
+
+        assertEquals(BehaviourStatus.RUNNING, tree.run(session, new BehaviourTree.State(tree)));
+        verify(session).moveTowards(player);
+    }
+
+    @Test
+    public void shouldRejectInvalidTrees() {
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("test", leaf("unknown")));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("test", node("sequence", List.of())));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("test", Map.of("a", Map.of(), "b", Map.of())));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("test", node("sequence", List.of("a"))));
+    }
+
+    @Test
+    public void shouldRejectEntriesOfDifferentTypes() {
+        var layout = new BlackboardLayout();
+        layout.longSlot("target");
+
+        assertThrows(IllegalArgumentException.class, () -> layout.referenceSlot("target"));
+    }
+
+    private void register(BehaviourTreeCompiler compiler) {
+        compiler.register("a", (parameters, layout) -> record("a", BehaviourStatus.SUCCESS));
+        compiler.register("b", (parameters, layout) -> record("b", BehaviourStatus.SUCCESS));
+        compiler.register("fail", (parameters, layout) -> record("fail", BehaviourStatus.FAILURE));
+        compiler.register("slow", (parameters, layout) -> (session, blackboard) -> {
+            ticked.add("slow");
+            nanos += 20_000;
+            return BehaviourStatus.SUCCESS;
+        });
+        compiler.register("twice", (parameters, layout) -> {
+            int runs = layout.newLongSlot();
+            return (session, blackboard) -> {
+                ticked.add("twice");
+                blackboard.setLong(runs, blackboard.getLong(runs) + 1);
+                return blackboard.getLong(runs) % 2 == 1 ? BehaviourStatus.RUNNING : BehaviourStatus.SUCCESS;
+            };
+        });
+    }
+
+    private BehaviourLeaf record(String name, BehaviourStatus status) {
+        return (session, blackboard) -> {
+            ticked.add(name);
+            return status;
+        };
+    }
+
+    private static Map<String, Object> node(String type, Object value) {
+        return Map.of(type, value);
+    }
+
+    private static Map<String, Object> leaf(String type) {
+        return Map.of(type, Map.of());
+    }
+}
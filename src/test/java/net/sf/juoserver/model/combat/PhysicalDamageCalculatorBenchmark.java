@@ -0,0 +1,91 @@
+package net.sf.juoserver.model.combat;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.Configuration;
+import net.sf.juoserver.api.Layer;
+import net.sf.juoserver.model.PointInSpace;
+import net.sf.juoserver.model.UOItem;
+import net.sf.juoserver.model.UOMobile;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * 10k fighters swinging at each other; compares reading the cached combat
+ * stats against deriving them on every swing, as when the stats change
+ * between two swings.
+ */
+@Tag("benchmark")
+class PhysicalDamageCalculatorBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhysicalDamageCalculatorBenchmark.class);
+    private static final int FIGHTERS = 10_000;
+    private static final int ROUNDS = 500;
+
+    @Test
+    public void calculateWithCachedStats() {
+        var total = run("cached stats", false);
+        assertTrue(total > 0);
+    }
+
+    @Test
+    public void calculateDerivingStatsEverySwing() {
+        var total = run("derived every swing", true);
+        assertTrue(total > 0);
+    }
+
+    private long run(String name, boolean invalidate) {
+        var calculator = new PhysicalDamageCalculatorImpl(configuration());
+        var fighters = new UOMobile[FIGHTERS];
+        for (int i = 0; i < FIGHTERS; i++) {
+            fighters[i] = (UOMobile) TestingFactory.createTestMobile(i + 1, "fighter" + i, new PointInSpace(i, 0, 0));
+            fighters[i].setStrength(50 + i % 50);
+            fighters[i].setDexterity(50 + i % 30);
+            fighters[i].setItemOnLayer(Layer.FirstValid, new UOItem(FIGHTERS + i, 0x143A, 0, "maul", 5).speed(32));
+        }
+
+        long total = 0;
+        for (int round = 0; round < ROUNDS / 10; round++) { // Warm up
+            total += round(calculator, fighters, invalidate);
+        }
+        var start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            total += round(calculator, fighters, invalidate);
+        }
+        var elapsed = System.nanoTime() - start;
+        LOGGER.info("{}: {} swings, {} ns/swing, {} swings/s", name, (long) ROUNDS * FIGHTERS,
+                elapsed / ((long) ROUNDS * FIGHTERS), (long) ROUNDS * FIGHTERS * 1_000_000_000L / elapsed);
+        return total;
+    }
+
+    private static long round(PhysicalDamageCalculatorImpl calculator, UOMobile[] fighters, boolean invalidate) {
+        long total = 0;
+        for (int i = 0; i < fighters.length; i++) {
+            var attacker = fighters[i];
+            var attacked = fighters[(i + 1) % fighters.length];
+            if (invalidate) {
+                attacker.setDexterity(attacker.getDexterity());
+                attacked.setDexterity(attacked.getDexterity());
+            }
+            total += calculator.calculate(attacker, attacked);
+        }
+        return total;
+    }
+
+    private static Configuration configuration() {
+        var configuration = mock(Configuration.class);
+        var stats = mock(Configuration.StatsConfiguration.class);
+        var combat = mock(Configuration.CombatConfiguration.class);
+        when(configuration.getStats()).thenReturn(stats);
+        when(configuration.getCombat()).thenReturn(combat);
+        when(stats.getMaxHitPoints()).thenReturn(100);
+        when(combat.getStrAttackDivisorModifier()).thenReturn(2);
+        when(combat.getStrDefenseDivisorModifier()).thenReturn(2);
+        when(combat.getDexAttackDivisorModifier()).thenReturn(5);
+        when(combat.getDexDefenseDivisorModifier()).thenReturn(5);
+        return configuration;
+    }
+}
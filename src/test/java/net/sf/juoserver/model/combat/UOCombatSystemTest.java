@@ -0,0 +1,241 @@
+package net.sf.juoserver.model.combat;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.PointInSpace;
+import net.sf.juoserver.model.UOItem;
+import net.sf.juoserver.model.UOMobile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UOCombatSystemTest {
+    @Mock
+    private PhysicalDamageCalculator damageCalculator;
+    @Mock
+    private CombatSession attackerSession;
+    @Mock
+    private CombatSession attackedSession;
+    private final UOMobile attacker = mobile(1, 100, 100);
+    private final UOMobile attacked = mobile(2, 101, 100);
+    private long now;
+    private UOCombatSystem combatSystem;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(damageCalculator.calculate(any(), any())).thenReturn(10);
+        lenient().when(damageCalculator.statsOf(any())).then(invocation -> {
+            Mobile mobile = invocation.getArgument(0);
+            return new CombatStats(mobile.getRevision(), 0, 0, mobile.getWeaponSpeed());
+        });
+        combatSystem = new UOCombatSystem(damageCalculator, () -> now);
+        combatSystem.registerMobile(attacker, attackerSession);
+        combatSystem.registerMobile(attacked, attackedSession);
+    }
+
+    @Test
+    public void shouldDelaySwingsByWeaponSpeedAndStamina() {
+        var slow = mobile(3, 0, 0);
+        slow.setDexterity(100);
+        slow.setItemOnLayer(Layer.FirstValid, new UOItem(10, 0x143A).speed(25));
+        var weak = mobile(4, 0, 0);
+        weak.setDexterity(100);
+        weak.setCurrentStamina(20);
+
+        assertEquals(UOCombatSystem.MIN_SWING_DELAY, UOCombatSystem.swingDelay(attacker, attacker.getWeaponSpeed()));
+        assertEquals(2000, UOCombatSystem.swingDelay(slow, slow.getWeaponSpeed()));
+        assertEquals(1500, UOCombatSystem.swingDelay(weak, weak.getWeaponSpeed()));
+    }
+
+    @Test
+    public void shouldOnlyResolveTheDueSwings() {
+        attacked.setDexterity(0);
+        combatSystem.beginCombat(attacker, attacked);
+        combatSystem.execute(now);
+        assertEquals(2, combatSystem.size());
+
+        now = UOCombatSystem.MIN_SWING_DELAY - 1;
+        combatSystem.execute(now);
+        verifyNoInteractions(attackerSession, attackedSession);
+
+        now = UOCombatSystem.MIN_SWING_DELAY;
+        combatSystem.execute(now);
+        verify(attackedSession).attackWithDamage(attacker, 10);
+        verifyNoInteractions(attackerSession); // Slower to fight back
+
+        now = 2000;
+        combatSystem.execute(now);
+        verify(attackerSession).attackWithDamage(attacked, 10);
+        assertEquals(2, combatSystem.getStats().getSwings());
+    }
+
+    @Test
+    public void shouldMeasureTheSchedulingLatency() {
+        combatSystem.beginCombat(attacker, attacked);
+
+        now = UOCombatSystem.MIN_SWING_DELAY + 30;
+        combatSystem.execute(now);
+
+        assertEquals(2, combatSystem.getStats().getSwings());
+        assertEquals(30, combatSystem.getStats().getMaxLatency());
+    }
+
+    @Test
+    public void shouldWaitForOpponentsOutOfRange() {
+        attacked.location(110, 100, 0);
+        combatSystem.beginCombat(attacker, attacked);
+
+        now = UOCombatSystem.MIN_SWING_DELAY;
+        combatSystem.execute(now);
+        attacked.location(101, 100, 0);
+        now += UOCombatSystem.OUT_OF_RANGE_DELAY;
+        combatSystem.execute(now);
+
+        verify(attackedSession).attackWithDamage(attacker, 10);
+    }
+
+    @Test
+    public void shouldEndTheFightOnceTheOpponentIsKilled() {
+        attacked.setCurrentHitPoints(10);
+        doAnswer(invocation -> {
+            attacked.kill();
+            return null;
+        }).when(attackedSession).receiveDamage(10);
+        combatSystem.beginCombat(attacker, attacked);
+        combatSystem.combatFinished(attacked, attacker);
+
+        now = UOCombatSystem.MIN_SWING_DELAY;
+        combatSystem.execute(now);
+        now += 10 * UOCombatSystem.MIN_SWING_DELAY;
+        combatSystem.execute(now);
+
+        verify(attackedSession).receiveDamage(10);
+        verifyNoInteractions(attackerSession);
+        assertEquals(0, combatSystem.size());
+    }
+
+    @Test
+    public void shouldStopSwingingWhenRemoved() {
+        combatSystem.beginCombat(attacker, attacked);
+        combatSystem.removeMobile(attacker);
+
+        now = 10 * UOCombatSystem.MIN_SWING_DELAY;
+        combatSystem.execute(now);
+
+        verifyNoInteractions(attackerSession, attackedSession);
+        assertEquals(0, combatSystem.size());
+    }
+
+    @Test
+    public void shouldKeepTheCurrentSwingOnRepeatedRequests() {
+        combatSystem.beginCombat(attacker, attacked);
+        combatSystem.execute(now);
+        now = UOCombatSystem.MIN_SWING_DELAY - 1;
+        combatSystem.beginCombat(attacker, attacked);
+        combatSystem.beginCombat(attacker, attacked);
+
+        now = UOCombatSystem.MIN_SWING_DELAY;
+        combatSystem.execute(now);
+
+        verify(attackedSession).attackWithDamage(attacker, 10);
+        assertEquals(2, combatSystem.size());
+    }
+
+    @Test
+    public void shouldResolveTheShardsInParallel() {
+        var executor = Executors.newFixedThreadPool(3);
+        try {
+            combatSystem = new UOCombatSystem(damageCalculator, 4, executor, () -> now);
+            List<CombatSession> sessions = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                var first = mobile(100 + 2 * i, i * 10, 100);
+                var second = mobile(101 + 2 * i, i * 10 + 1, 100);
+                var firstSession = mock(CombatSession.class);
+                var secondSession = mock(CombatSession.class);
+                combatSystem.registerMobile(first, firstSession);
+                combatSystem.registerMobile(second, secondSession);
+                sessions.add(firstSession);
+                sessions.add(secondSession);
+                combatSystem.beginCombat(first, second);
+            }
+
+            now = UOCombatSystem.MIN_SWING_DELAY;
+            combatSystem.execute(now);
+
+            assertEquals(128, combatSystem.getStats().getSwings());
+            for (CombatSession session : sessions) {
+                verify(session).attackWithDamage(any(), eq(10));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldShardTheFightsByAttackedMobile() {
+        combatSystem = new UOCombatSystem(damageCalculator, 4, Runnable::run, () -> now);
+        var target = mobile(3, 63, 100);
+        int shard = combatSystem.shardOf(target);
+
+        target.location(64, 100, 0);
+
+        assertEquals(shard, combatSystem.shardOf(target));
+        assertEquals(4, IntStream.range(0, 16)
+                .map(i -> combatSystem.shardOf(mobile(10 + i, 0, 0)))
+                .distinct().count());
+    }
+
+    @Test
+    public void shouldResolveTheSwingsOfAttackersInDifferentRegionsInOneShard() {
+        var executor = Executors.newFixedThreadPool(3);
+        try {
+            combatSystem = new UOCombatSystem(damageCalculator, 4, executor, () -> now);
+            var target = mobile(3, 63, 100);
+            var west = mobile(4, 63, 101);
+            var east = mobile(5, 64, 101);
+            var targetSession = mock(CombatSession.class);
+            combatSystem.registerMobile(target, targetSession);
+            combatSystem.registerMobile(west, mock(CombatSession.class));
+            combatSystem.registerMobile(east, mock(CombatSession.class));
+            List<String> threads = new ArrayList<>();
+            doAnswer(invocation -> {
+                synchronized (threads) {
+                    threads.add(Thread.currentThread().getName());
+                }
+                return null;
+            }).when(targetSession).attackWithDamage(any(), eq(10));
+
+            combatSystem.beginCombat(west, target);
+            combatSystem.execute(now);
+            target.location(64, 100, 0); // Into the region of the other attacker
+            combatSystem.beginCombat(east, target);
+            now = UOCombatSystem.MIN_SWING_DELAY;
+            combatSystem.execute(now);
+
+            verify(targetSession).attackWithDamage(west, 10);
+            verify(targetSession).attackWithDamage(east, 10);
+            assertEquals(1, threads.stream().distinct().count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static UOMobile mobile(int serialId, int x, int y) {
+        var mobile = (UOMobile) TestingFactory.createTestMobile(serialId, "mobile" + serialId, new PointInSpace(x, y, 0));
+        mobile.setDexterity(100);
+        mobile.setCurrentHitPoints(100);
+        return mobile;
+    }
+}
@@ -0,0 +1,87 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.Account;
+import net.sf.juoserver.model.Passwords;
+import net.sf.juoserver.model.UOAccount;
+import net.sf.juoserver.model.persistence.ChangedEntities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountStoreTest {
+    private final ChangedEntities changes = new ChangedEntities();
+    private final AccountStore store = new AccountStore(changes);
+    private final Account account = UOAccount.createAccount(7, "User", "psw", 42, 43);
+
+    @BeforeEach
+    public void setUp() {
+        store.add(account);
+    }
+
+    @Test
+    public void shouldFindTheAccountsByUsernameInAnyCase() {
+        assertSame(account, store.findByUsername("user"));
+        assertSame(account, store.findByUsername("USER"));
+        assertNull(store.findByUsername("admin"));
+        assertNull(store.findByUsername(null));
+    }
+
+    @Test
+    public void shouldKeepTheCharacterSerials() {
+        assertEquals(Set.of(42, 43), store.characterSerials());
+    }
+
+    @Test
+    public void shouldKeepTheFirstOfTheUsernamesDifferingInCase() {
+        store.add(UOAccount.createAccount(9, "USER", "other", 44));
+
+        assertSame(account, store.findByUsername("user"));
+        assertEquals(1, store.all().size());
+        assertEquals(Set.of(42, 43, 44), store.characterSerials());
+        assertEquals(10, store.register("Admin", "secret").getAccountId());
+    }
+
+    @Test
+    public void shouldNotRegisterBlankUsernames() {
+        assertThrows(IllegalArgumentException.class, () -> store.register(" ", "psw"));
+        assertThrows(IllegalArgumentException.class, () -> store.register(null, "psw"));
+        assertEquals(1, store.all().size());
+    }
+
+    @Test
+    public void shouldRegisterNewAccountsToBeSaved() {
+        var registered = store.register("Admin", "secret");
+
+        assertEquals(8, registered.getAccountId());
+        assertTrue(Passwords.matches("secret", registered.getPassword()));
+        assertSame(registered, store.findByUsername("admin"));
+        assertNull(store.register("USER", "other"));
+        assertEquals(1, changes.size());
+        assertEquals(2, store.all().size());
+    }
+
+    @Test
+    public void shouldRegisterAUsernameOnce() {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Account>> registrations = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                var username = i % 2 == 0 ? "newcomer" : "NEWCOMER";
+                registrations.add(CompletableFuture.supplyAsync(() -> store.register(username, "psw"), executor));
+            }
+
+            assertEquals(1, registrations.stream().map(CompletableFuture::join).filter(Objects::nonNull).count());
+            assertEquals(2, store.all().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.Account;
+import net.sf.juoserver.api.Mobile;
+import net.sf.juoserver.model.UOAccount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterCacheTest {
+    private static final long EVICTION_DELAY = 60_000;
+
+    @Mock
+    private CharacterCache.World world;
+
+    private final Mobile mobile = TestingFactory.createTestMobile(42, "asder");
+    private final Account account = UOAccount.createAccount(0, "user", "psw", mobile.getSerialId());
+    private final List<Mobile> characters = List.of(mobile);
+    private long now;
+    private CharacterCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(world.load(account)).thenReturn(CompletableFuture.completedFuture(characters));
+        cache = new CharacterCache(world, EVICTION_DELAY, () -> now);
+    }
+
+    @Test
+    public void shouldLoadTheCharactersOnceWhileInMemory() {
+        cache.acquire(account).join();
+        cache.acquire(account).join();
+
+        verify(world).load(account);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldEvictTheCharactersOnceSavedAfterLeavingTheWorld() {
+        cache.acquire(account).join();
+        cache.release(account);
+
+        now = EVICTION_DELAY - 1;
+        cache.execute(now);
+        verify(world, never()).leave(any());
+
+        int before = cache.saveCaptured();
+        now = EVICTION_DELAY;
+        cache.execute(now);
+        verify(world).leave(characters);
+
+        cache.saveWritten(before);
+        cache.execute(now);
+        verify(world, never()).unload(any());
+
+        cache.saveWritten(cache.saveCaptured());
+        cache.execute(now);
+        verify(world).unload(characters);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldKeepTheCharactersOfTheAccountsLoggingInAgain() {
+        cache.acquire(account).join();
+        cache.release(account);
+        now = EVICTION_DELAY;
+        cache.execute(now);
+
+        cache.acquire(account).join();
+        cache.saveWritten(cache.saveCaptured());
+        now = 2 * EVICTION_DELAY;
+        cache.execute(now);
+
+        verify(world).load(account);
+        verify(world).enter(characters);
+        verify(world, never()).unload(any());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldLoadTheCharactersAgainAfterAFailedLoad() {
+        when(world.load(account))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("disk error")))
+                .thenReturn(CompletableFuture.completedFuture(characters));
+
+        assertThrows(Exception.class, () -> cache.acquire(account).join());
+        cache.acquire(account).join();
+
+        verify(world, times(2)).load(account);
+    }
+
+    @Test
+    public void shouldNeverEvictWithoutDelay() {
+        cache = new CharacterCache(world, 0, () -> now);
+        cache.acquire(account).join();
+        cache.release(account);
+        cache.saveWritten(cache.saveCaptured());
+        now = EVICTION_DELAY;
+        cache.execute(now);
+
+        verify(world, never()).leave(any());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,66 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.Facet;
+import net.sf.juoserver.model.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.sf.juoserver.model.core.MobileSectorIndex.SECTOR_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectorActivationTest {
+    private final SectorActivation activation = new SectorActivation(Facet.Felucca, 1);
+    private final List<Integer> activated = new ArrayList<>();
+
+    @Test
+    public void shouldActivateTheSectorsWithinTheRadius() {
+        activation.activate(new Position(10 * SECTOR_SIZE, 10 * SECTOR_SIZE), activated::add);
+
+        assertEquals(9, activated.size());
+        assertTrue(activation.isActive(9 * SECTOR_SIZE, 11 * SECTOR_SIZE + SECTOR_SIZE - 1));
+        assertFalse(activation.isActive(12 * SECTOR_SIZE, 10 * SECTOR_SIZE));
+        assertFalse(activation.isActive(10 * SECTOR_SIZE, 8 * SECTOR_SIZE + SECTOR_SIZE - 1));
+    }
+
+    @Test
+    public void shouldKeepSectorsActiveWhileAnyActivatorIsAround() {
+        var first = new Position(10 * SECTOR_SIZE, 10 * SECTOR_SIZE);
+        var second = new Position(11 * SECTOR_SIZE, 10 * SECTOR_SIZE);
+        activation.activate(first, activated::add);
+        activated.clear();
+
+        activation.activate(second, activated::add);
+        assertEquals(3, activated.size()); // Only the column at the east
+
+        activation.deactivate(first);
+        assertTrue(activation.isActive(10 * SECTOR_SIZE, 10 * SECTOR_SIZE));
+        assertFalse(activation.isActive(9 * SECTOR_SIZE, 10 * SECTOR_SIZE));
+        activation.deactivate(second);
+        assertFalse(activation.isActive(11 * SECTOR_SIZE, 10 * SECTOR_SIZE));
+    }
+
+    @Test
+    public void shouldReportOnlyTheNewSectorsWhenMoving() {
+        var from = new Position(10 * SECTOR_SIZE, 10 * SECTOR_SIZE);
+        activation.activate(from, activated::add);
+        activated.clear();
+
+        activation.move(from, new Position(10 * SECTOR_SIZE + 5, 10 * SECTOR_SIZE), activated::add);
+        assertTrue(activated.isEmpty());
+
+        activation.move(from, new Position(10 * SECTOR_SIZE, 11 * SECTOR_SIZE), activated::add);
+        assertEquals(3, activated.size());
+        assertTrue(activation.isActive(10 * SECTOR_SIZE, 12 * SECTOR_SIZE));
+        assertFalse(activation.isActive(10 * SECTOR_SIZE, 9 * SECTOR_SIZE));
+    }
+
+    @Test
+    public void shouldClampTheRadiusAtTheFacetEdges() {
+        activation.activate(new Position(0, 0), activated::add);
+
+        assertEquals(4, activated.size());
+        assertTrue(activation.isActive(0, 0));
+    }
+}
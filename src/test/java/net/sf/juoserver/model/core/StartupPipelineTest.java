@@ -0,0 +1,109 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.LoadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupPipelineTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunStagesAfterTheirDependencies() {
+        List<String> done = new CopyOnWriteArrayList<>();
+        var pipeline = new StartupPipeline(executor)
+                .stage("a", () -> done.add("a"))
+                .stage("b", () -> done.add("b"), "a")
+                .stage("c", () -> done.add("c"), "a", "b")
+                .start();
+
+        pipeline.await();
+
+        assertEquals(List.of("a", "b", "c"), done);
+        assertEquals(3, pipeline.getTimings().size());
+    }
+
+    @Test
+    public void shouldRunIndependentStagesInParallel() throws InterruptedException {
+        var bothRunning = new CountDownLatch(2);
+        var pipeline = new StartupPipeline(executor)
+                .stage("a", () -> awaitOther(bothRunning))
+                .stage("b", () -> awaitOther(bothRunning))
+                .start();
+
+        pipeline.await();
+
+        assertTrue(bothRunning.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldCompleteStagesBeforeTheWholePipeline() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var pipeline = new StartupPipeline(executor)
+                .stage("accounts", () -> { })
+                .stage("world", () -> awaitRelease(release))
+                .start();
+
+        pipeline.await("accounts");
+
+        assertFalse(pipeline.getCompletion().isDone());
+        release.countDown();
+        pipeline.await();
+    }
+
+    @Test
+    public void shouldNotRunStagesDependingOnFailedOnes() {
+        var dependentRan = new AtomicBoolean();
+        var pipeline = new StartupPipeline(executor)
+                .stage("a", () -> { throw new LoadException("broken"); })
+                .stage("b", () -> dependentRan.set(true), "a")
+                .start();
+
+        var e = assertThrows(LoadException.class, pipeline::await);
+
+        assertEquals("broken", e.getMessage());
+        assertFalse(dependentRan.get());
+    }
+
+    @Test
+    public void shouldRejectUndeclaredDependencies() {
+        var pipeline = new StartupPipeline(executor);
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.stage("b", () -> { }, "a"));
+    }
+
+    private static void awaitOther(CountDownLatch bothRunning) {
+        bothRunning.countDown();
+        awaitRelease(bothRunning);
+    }
+
+    private static void awaitRelease(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
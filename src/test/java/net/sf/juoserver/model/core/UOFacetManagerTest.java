@@ -0,0 +1,206 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.files.mondainslegacy.MondainsLegacyMapTile;
+import net.sf.juoserver.model.PointInSpace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UOFacetManagerTest {
+    private static final int EMPTY_TIMEOUT_SECONDS = 60;
+
+    @TempDir
+    Path mulPath;
+    @Mock
+    private FileReadersFactory fileReadersFactory;
+    @Mock
+    private Configuration configuration;
+    @Mock
+    private Configuration.FilesConfiguration filesConfiguration;
+    @Mock
+    private Configuration.FacetConfiguration facetConfiguration;
+    @Mock
+    private Configuration.NpcConfiguration npcConfiguration;
+    @Mock
+    private MapFileReader mapReader;
+    @Mock
+    private TileDataFileReader tileData;
+
+    private final Map<Integer, Item> itemsBySerialId = new HashMap<>();
+    private long now;
+    private UOFacetManager facetManager;
+
+    @BeforeEach
+    public void setUp() throws FileNotFoundException {
+        lenient().when(configuration.getFiles()).thenReturn(filesConfiguration);
+        lenient().when(configuration.getFacet()).thenReturn(facetConfiguration);
+        lenient().when(filesConfiguration.getMulPath()).thenReturn(mulPath.toString());
+        lenient().when(facetConfiguration.getEmptyTimeout()).thenReturn(EMPTY_TIMEOUT_SECONDS);
+        lenient().when(configuration.getNpc()).thenReturn(npcConfiguration);
+        lenient().when(npcConfiguration.getActivationSectors()).thenReturn(1);
+        lenient().when(fileReadersFactory.createMapFileReader(any(File.class), anyInt())).thenReturn(mapReader);
+        lenient().when(fileReadersFactory.createTileDataFileReader(any(File.class))).thenReturn(tileData);
+        facetManager = new UOFacetManager(fileReadersFactory, configuration, itemsBySerialId, () -> now);
+    }
+
+    @Test
+    public void shouldLoadFacetWhenFirstMobileEntersIt() throws FileNotFoundException {
+        assertTrue(facetManager.getLoadedFacets().isEmpty());
+
+        facetManager.addMobile(mobile(1, Facet.Malas, 100, 100));
+        facetManager.addMobile(mobile(2, Facet.Malas, 200, 200));
+
+        assertEquals(Set.of(Facet.Malas), facetManager.getLoadedFacets());
+        verify(fileReadersFactory).createMapFileReader(new File(mulPath.toFile(), "map3.mul"), Facet.Malas.getHeight());
+    }
+
+    @Test
+    public void shouldReadTilesFromTheRequestedFacet() throws FileNotFoundException {
+        var ilshenarReader = mock(MapFileReader.class);
+        when(fileReadersFactory.createMapFileReader(new File(mulPath.toFile(), "map2.mul"), 1600)).thenReturn(ilshenarReader);
+        when(ilshenarReader.getEntryAt(any())).thenReturn(new MondainsLegacyMapTile(7, 42));
+
+        var tile = facetManager.getTile(Facet.Ilshenar, 10, 10);
+
+        assertEquals(42, tile.getTileID());
+        assertEquals(Set.of(Facet.Ilshenar), facetManager.getLoadedFacets());
+    }
+
+    @Test
+    public void shouldReleaseFacetOnlyAfterBeingEmptyForTheTimeout() {
+        var mobile = mobile(1, Facet.Tokuno, 100, 100);
+        facetManager.addMobile(mobile);
+
+        now = 1_000_000;
+        facetManager.execute(now);
+        assertEquals(Set.of(Facet.Tokuno), facetManager.getLoadedFacets(), "facet with mobiles released");
+
+        facetManager.removeMobile(mobile);
+        now += EMPTY_TIMEOUT_SECONDS * 1000 - 1;
+        facetManager.execute(now);
+        assertEquals(Set.of(Facet.Tokuno), facetManager.getLoadedFacets(), "facet released before the timeout");
+
+        now += 1;
+        facetManager.execute(now);
+        assertTrue(facetManager.getLoadedFacets().isEmpty());
+    }
+
+    @Test
+    public void shouldFindMobilesInRangeAfterMovements() {
+        var center = mobile(1, Facet.Felucca, 1000, 1000);
+        var walker = mobile(2, Facet.Felucca, 1010, 1000);
+        var farAway = mobile(3, Facet.Felucca, 3000, 3000);
+        facetManager.addMobile(center);
+        facetManager.addMobile(walker);
+        facetManager.addMobile(farAway);
+
+        assertEquals(Set.of(center, walker), findMobilesInRange(Facet.Felucca, center));
+
+        walker.location(1100, 1000, 0);
+        assertEquals(Set.of(center), findMobilesInRange(Facet.Felucca, center));
+
+        farAway.location(1001, 1001, 0);
+        assertEquals(Set.of(center, farAway), findMobilesInRange(Facet.Felucca, center));
+    }
+
+    @Test
+    public void shouldMoveMobileIndexBetweenFacets() {
+        var mobile = mobile(1, Facet.Felucca, 1000, 1000);
+        var trammelResident = mobile(2, Facet.Trammel, 1000, 1000);
+        facetManager.addMobile(mobile);
+        facetManager.addMobile(trammelResident);
+
+        mobile.setFacet(Facet.Trammel);
+
+        assertEquals(Set.of(mobile, trammelResident), findMobilesInRange(Facet.Trammel, trammelResident));
+        assertEquals(Set.of(), findMobilesInRange(Facet.Felucca, mobile));
+
+        now = EMPTY_TIMEOUT_SECONDS * 1000;
+        facetManager.execute(now);
+        assertEquals(Set.of(Facet.Trammel), facetManager.getLoadedFacets());
+    }
+
+    @Test
+    public void shouldMoveItemIndexBetweenFacets() {
+        facetManager.addMobile(mobile(1, Facet.Felucca, 100, 100));
+        var item = TestingFactory.createTestItem(0x40000001, 0x0E75).location(new PointInSpace(100, 101, 0));
+        itemsBySerialId.put(item.getSerialId(), item);
+        facetManager.addItem(item);
+
+        assertEquals(Set.of(item), facetManager.getItemLocator(Facet.Felucca)
+                .findItemsInRegion(new PointInSpace(100, 100, 0), 5).collect(Collectors.toSet()));
+
+        item.facet(Facet.Trammel);
+
+        assertEquals(Set.of(), facetManager.getItemLocator(Facet.Felucca)
+                .findItemsInRegion(new PointInSpace(100, 100, 0), 5).collect(Collectors.toSet()));
+        assertEquals(Set.of(item), facetManager.getItemLocator(Facet.Trammel)
+                .findItemsInRegion(new PointInSpace(100, 100, 0), 5).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void shouldWakeUpTheMobilesAroundApproachingPlayers() {
+        var awakened = new ArrayList<Mobile>();
+        facetManager.setWakeUpListener(awakened::add);
+        var player = mobile(1, Facet.Felucca, 1000, 1000);
+        var near = mobile(2, Facet.Felucca, 1020, 1000);
+        var far = mobile(3, Facet.Felucca, 1070, 1000);
+        facetManager.addMobile(player);
+        facetManager.addMobile(near);
+        facetManager.addMobile(far);
+        assertTrue(facetManager.isDormant(Facet.Felucca, near));
+
+        facetManager.activateAround(player);
+        assertFalse(facetManager.isDormant(Facet.Felucca, near));
+        assertTrue(facetManager.isDormant(Facet.Felucca, far));
+        assertTrue(awakened.containsAll(List.of(player, near)));
+        assertFalse(awakened.contains(far));
+
+        awakened.clear();
+        player.location(1040, 1000, 0);
+        assertTrue(awakened.contains(far));
+        assertFalse(awakened.contains(near));
+        assertTrue(facetManager.isDormant(Facet.Felucca, new PointInSpace(980, 1000, 0)));
+
+        facetManager.deactivateAround(player);
+        assertTrue(facetManager.isDormant(Facet.Felucca, far));
+    }
+
+    @Test
+    public void shouldNeverBeDormantWhenDisabled() {
+        when(npcConfiguration.getActivationSectors()).thenReturn(0);
+
+        assertFalse(facetManager.isDormant(Facet.Felucca, new PointInSpace(1000, 1000, 0)));
+    }
+
+    private Set<Mobile> findMobilesInRange(Facet facet, Mobile center) {
+        return facetManager.findMobilesInRange(facet, center, 24).collect(Collectors.toSet());
+    }
+
+    private static Mobile mobile(int serialId, Facet facet, int x, int y) {
+        var mobile = TestingFactory.createTestMobile(serialId, "mobile" + serialId, new PointInSpace(x, y, 0));
+        mobile.setFacet(facet);
+        return mobile;
+    }
+}
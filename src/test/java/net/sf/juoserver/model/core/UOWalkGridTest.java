@@ -0,0 +1,87 @@
+package net.sf.juoserver.model.core;
+
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.files.mondainslegacy.MondainsLegacyMapTile;
+import net.sf.juoserver.files.mondainslegacy.MondainsLegacyStaticTile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UOWalkGridTest {
+    private static final int GRASS = 0x3;
+    private static final int WATER = 0xA8;
+    private static final int WALL = 0x1;
+    private static final int FLOOR = 0x2;
+    private static final int LOW_WALL_TOP = 0x3;
+
+    @Mock
+    private MapFileReader mapReader;
+    @Mock
+    private StaticsFileReader staticsReader;
+    @Mock
+    private TileDataFileReader tileData;
+    private UOWalkGrid walkGrid;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(mapReader.getEntryAt(any())).thenAnswer(invocation -> {
+            MapLocation location = invocation.getArgument(0);
+            return new MondainsLegacyMapTile(0, location.getX() == 3 ? WATER : GRASS);
+        });
+        lenient().when(tileData.getLandFlags(WATER)).thenReturn(TileDataFileReader.FLAG_IMPASSABLE | TileDataFileReader.FLAG_WET);
+        lenient().when(tileData.getItemFlags(WALL)).thenReturn(TileDataFileReader.FLAG_IMPASSABLE);
+        lenient().when(tileData.getItemHeight(WALL)).thenReturn(20);
+        lenient().when(tileData.getItemFlags(FLOOR)).thenReturn(TileDataFileReader.FLAG_SURFACE);
+        lenient().when(tileData.getItemFlags(LOW_WALL_TOP)).thenReturn(TileDataFileReader.FLAG_IMPASSABLE);
+        lenient().when(tileData.getItemHeight(LOW_WALL_TOP)).thenReturn(5);
+        walkGrid = new UOWalkGrid(Facet.Tokuno, mapReader, staticsReader, tileData);
+    }
+
+    @Test
+    public void shouldBlockImpassableLandAndStatics() {
+        when(staticsReader.getBlockStatics(0, 0)).thenReturn(List.of(
+                new MondainsLegacyStaticTile(WALL, 5, 5, 0, 0),
+                new MondainsLegacyStaticTile(FLOOR, 3, 4, 0, 0),
+                new MondainsLegacyStaticTile(LOW_WALL_TOP, 6, 6, 30, 0)));
+
+        assertTrue(walkGrid.isWalkable(0, 0));
+        assertFalse(walkGrid.isWalkable(3, 3), "water");
+        assertTrue(walkGrid.isWalkable(3, 4), "bridge over water");
+        assertFalse(walkGrid.isWalkable(5, 5), "wall");
+        assertTrue(walkGrid.isWalkable(6, 6), "impassable static high above the ground");
+    }
+
+    @Test
+    public void shouldComputeEveryBlockOnce() {
+        when(staticsReader.getBlockStatics(anyInt(), anyInt())).thenReturn(List.of());
+
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                walkGrid.isWalkable(x, y);
+            }
+        }
+        walkGrid.isWalkable(8, 0);
+
+        verify(staticsReader).getBlockStatics(0, 0);
+        verify(staticsReader).getBlockStatics(1, 0);
+        verify(mapReader, times(128)).getEntryAt(any());
+    }
+
+    @Test
+    public void shouldNotWalkOutsideTheFacet() {
+        assertFalse(walkGrid.isWalkable(-1, 0));
+        assertFalse(walkGrid.isWalkable(0, Facet.Tokuno.getHeight()));
+        verifyNoInteractions(staticsReader);
+    }
+}
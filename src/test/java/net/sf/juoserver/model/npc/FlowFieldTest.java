@@ -0,0 +1,90 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.Direction;
+import net.sf.juoserver.api.WalkGrid;
+import org.junit.jupiter.api.Test;
+
+import static net.sf.juoserver.model.npc.NextStepPathfindingTest.grid;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowFieldTest {
+    private static final WalkGrid ROOM = grid(
+            "..........",
+            "....#.....",
+            "....#.....",
+            "....#.....",
+            "....#.....",
+            "..........");
+
+    @Test
+    public void shouldPointEveryCellTowardsTheTarget() {
+        var field = new FlowField(16);
+        field.moveTarget(ROOM, 7, 3);
+
+        assertNull(field.nextStep(7, 3));
+        assertEquals(Direction.West, field.nextStep(8, 3));
+        assertEquals(6, field.distance(2, 3));
+        assertEquals(Direction.Southeast, field.nextStep(6, 2));
+        for (int y = 0; y < 6; y++) {
+            for (int x = 0; x < 10; x++) {
+                if (ROOM.isWalkable(x, y)) {
+                    assertArrayEquals(at(7, 3), follow(field, x, y), "From " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotPointOutsideTheField() {
+        var field = new FlowField(2);
+        field.moveTarget(ROOM, 7, 3);
+
+        assertNull(field.nextStep(2, 3));
+        assertEquals(-1, field.distance(2, 3));
+        assertNull(field.nextStep(4, 3)); // Wall
+    }
+
+    @Test
+    public void shouldFollowTheTargetIncrementally() {
+        var field = new FlowField(16);
+        field.moveTarget(ROOM, 7, 3);
+        field.moveTarget(ROOM, 6, 3);
+        field.moveTarget(ROOM, 5, 2);
+
+        assertEquals(1, field.distance(6, 3));
+        for (int y = 0; y < 6; y++) {
+            for (int x = 0; x < 10; x++) {
+                if (ROOM.isWalkable(x, y)) {
+                    assertArrayEquals(at(5, 2), follow(field, x, y), "From " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRebuildWhenTheTargetJumpsAway() {
+        var field = new FlowField(6);
+        field.moveTarget(ROOM, 7, 3);
+        field.moveTarget(ROOM, 1, 1);
+
+        assertEquals(7, field.distance(7, 3));
+        assertArrayEquals(at(1, 1), follow(field, 7, 5));
+    }
+
+    private static int[] at(int x, int y) {
+        return new int[] {x, y};
+    }
+
+    private static int[] follow(FlowField field, int x, int y) {
+        for (int steps = 0; steps < 100; steps++) {
+            var direction = field.nextStep(x, y);
+            if (direction == null) {
+                return at(x, y);
+            }
+            x += AStarPathfinder.dx(direction);
+            y += AStarPathfinder.dy(direction);
+            assertTrue(ROOM.isWalkable(x, y), "Walked into a wall at " + x + "," + y);
+        }
+        return fail("Loop at " + x + "," + y);
+    }
+}
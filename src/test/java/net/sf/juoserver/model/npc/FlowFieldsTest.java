@@ -0,0 +1,88 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static net.sf.juoserver.model.npc.NextStepPathfindingTest.grid;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlowFieldsTest {
+    private static final WalkGrid CORRIDOR = grid("..........");
+
+    @Mock
+    private Configuration configuration;
+    @Mock
+    private Configuration.NpcConfiguration npcConfiguration;
+    @Mock
+    private Mobile target;
+    @Mock
+    private Mobile otherTarget;
+    private FlowFields flowFields;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(configuration.getNpc()).thenReturn(npcConfiguration);
+        lenient().when(npcConfiguration.getFlowFieldChasers()).thenReturn(2);
+        lenient().when(npcConfiguration.getFlowFieldRadius()).thenReturn(16);
+        lenient().when(target.getX()).thenReturn(9);
+        lenient().when(target.getFacet()).thenReturn(Facet.Felucca);
+        flowFields = new FlowFields(configuration);
+    }
+
+    @Test
+    public void shouldNotUseFlowFieldsForSingleChasers() {
+        assertNull(flowFields.findNextStep(chaser(0), CORRIDOR, target));
+        assertEquals(1, flowFields.getChasers(target));
+    }
+
+    @Test
+    public void shouldShareTheFlowFieldOnceEnoughChasersFollowTheSameTarget() {
+        flowFields.findNextStep(chaser(0), CORRIDOR, target);
+
+        assertEquals(Direction.East, flowFields.findNextStep(chaser(3), CORRIDOR, target));
+        assertEquals(2, flowFields.getChasers(target));
+    }
+
+    @Test
+    public void shouldNotUseFlowFieldsWhenDisabled() {
+        when(npcConfiguration.getFlowFieldChasers()).thenReturn(0);
+        flowFields.findNextStep(chaser(0), CORRIDOR, target);
+
+        assertNull(flowFields.findNextStep(chaser(3), CORRIDOR, target));
+    }
+
+    @Test
+    public void shouldForgetReleasedChasers() {
+        var chaser = chaser(0);
+        flowFields.findNextStep(chaser, CORRIDOR, target);
+        flowFields.findNextStep(chaser(3), CORRIDOR, target);
+
+        flowFields.release(chaser);
+
+        assertEquals(1, flowFields.getChasers(target));
+    }
+
+    @Test
+    public void shouldLeaveThePreviousTargetWhenChasingAnotherOne() {
+        var chaser = chaser(0);
+        flowFields.findNextStep(chaser, CORRIDOR, target);
+
+        flowFields.findNextStep(chaser, CORRIDOR, otherTarget);
+
+        assertEquals(0, flowFields.getChasers(target));
+        assertEquals(1, flowFields.getChasers(otherTarget));
+    }
+
+    private NpcMobile chaser(int x) {
+        var chaser = mock(NpcMobile.class);
+        lenient().when(chaser.getX()).thenReturn(x);
+        lenient().when(chaser.getFacet()).thenReturn(Facet.Felucca);
+        return chaser;
+    }
+}
@@ -0,0 +1,136 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.Direction;
+import net.sf.juoserver.api.Facet;
+import net.sf.juoserver.api.WalkGrid;
+import net.sf.juoserver.model.Position;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 10k NPCs chasing 100 wandering players, all at once, on a 1024x1024 area
+ * with random walls; compares following cached paths against searching a
+ * path on every step.
+ */
+@Tag("benchmark")
+class NextStepPathfindingBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NextStepPathfindingBenchmark.class);
+    private static final int SIZE = 1024;
+    private static final int CHASERS = 10_000;
+    private static final int TARGETS = 100;
+    private static final int TICKS = 50;
+
+    @Test
+    public void chaseWithCachedPaths() {
+        var pathfindings = new NextStepPathfinding[CHASERS];
+        for (int i = 0; i < CHASERS; i++) {
+            pathfindings[i] = new NextStepPathfinding();
+        }
+        var moves = run("cached paths", i -> pathfindings[i]);
+        assertTrue(moves > 0);
+    }
+
+    @Test
+    public void chaseSearchingEveryStep() {
+        var moves = run("search every step", i -> new NextStepPathfinding());
+        assertTrue(moves > 0);
+    }
+
+    private int run(String name, PathfindingProvider pathfindings) {
+        var random = new Random(42);
+        var grid = new RandomWalls(random);
+        var chasers = new int[CHASERS][2];
+        var targets = new int[TARGETS][2];
+        for (int[] target : targets) {
+            place(target, grid, random, SIZE / 2, SIZE / 2, SIZE / 2 - 64);
+        }
+        for (int i = 0; i < CHASERS; i++) {
+            var target = targets[i % TARGETS];
+            place(chasers[i], grid, random, target[0], target[1], 32);
+        }
+
+        var moves = new AtomicInteger();
+        var start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int[] target : targets) {
+                wander(target, grid, random);
+            }
+            IntStream.range(0, CHASERS).parallel().forEach(i -> {
+                var chaser = chasers[i];
+                var target = targets[i % TARGETS];
+                var direction = pathfindings.get(i).findNextStep(grid, new Position(chaser[0], chaser[1]),
+                        new Position(target[0], target[1]));
+                if (direction != null) {
+                    chaser[0] += AStarPathfinder.dx(direction);
+                    chaser[1] += AStarPathfinder.dy(direction);
+                    moves.incrementAndGet();
+                }
+            });
+        }
+        var elapsed = System.nanoTime() - start;
+        LOGGER.info("{}: {} steps over {} ticks of {} chasers, {} ms/tick, {} ns/step", name, moves.get(), TICKS,
+                CHASERS, elapsed / 1_000_000 / TICKS, elapsed / ((long) TICKS * CHASERS));
+        return moves.get();
+    }
+
+    private static void place(int[] location, WalkGrid grid, Random random, int x, int y, int radius) {
+        do {
+            location[0] = x - radius + random.nextInt(radius * 2);
+            location[1] = y - radius + random.nextInt(radius * 2);
+        } while (!grid.isWalkable(location[0], location[1]));
+    }
+
+    private static void wander(int[] location, WalkGrid grid, Random random) {
+        var direction = Direction.values()[random.nextInt(8)];
+        int x = location[0] + AStarPathfinder.dx(direction);
+        int y = location[1] + AStarPathfinder.dy(direction);
+        if (grid.isWalkable(x, y)) {
+            location[0] = x;
+            location[1] = y;
+        }
+    }
+
+    private interface PathfindingProvider {
+        NextStepPathfinding get(int chaser);
+    }
+
+    /**
+     * Open area with short horizontal and vertical walls.
+     */
+    private static final class RandomWalls implements WalkGrid {
+        private final boolean[] blocked = new boolean[SIZE * SIZE];
+
+        private RandomWalls(Random random) {
+            for (int wall = 0; wall < SIZE * SIZE / 200; wall++) {
+                int x = random.nextInt(SIZE);
+                int y = random.nextInt(SIZE);
+                boolean horizontal = random.nextBoolean();
+                for (int i = 0; i < 8; i++) {
+                    int wx = horizontal ? x + i : x;
+                    int wy = horizontal ? y : y + i;
+                    if (wx < SIZE && wy < SIZE) {
+                        blocked[wy * SIZE + wx] = true;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Facet getFacet() {
+            return Facet.Felucca;
+        }
+
+        @Override
+        public boolean isWalkable(int x, int y) {
+            return x >= 0 && y >= 0 && x < SIZE && y < SIZE && !blocked[y * SIZE + x];
+        }
+    }
+}
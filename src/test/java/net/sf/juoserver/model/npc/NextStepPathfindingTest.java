@@ -0,0 +1,164 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.Direction;
+import net.sf.juoserver.api.Facet;
+import net.sf.juoserver.api.Point2D;
+import net.sf.juoserver.api.WalkGrid;
+import net.sf.juoserver.model.Position;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NextStepPathfindingTest {
+
+    @Test
+    public void shouldWalkStraightToTheTarget() {
+        assertEquals(Direction.East, new NextStepPathfinding().findNextStep(grid("....."), at(0, 0), at(4, 0)));
+        assertEquals(Direction.Southeast, new NextStepPathfinding().findNextStep(grid(
+                "...",
+                "...",
+                "..."), at(0, 0), at(2, 2)));
+    }
+
+    @Test
+    public void shouldWalkAroundWalls() {
+        var grid = grid(
+                "..#..",
+                "..#..",
+                "..#..",
+                ".....");
+
+        var path = walk(grid, at(1, 0), at(3, 0), 20);
+
+        assertEquals(at(3, 0), path);
+    }
+
+    @Test
+    public void shouldNotCutCorners() {
+        var grid = grid(
+                ".#",
+                "..");
+
+        var pathfinding = new NextStepPathfinding();
+
+        assertEquals(Direction.South, pathfinding.findNextStep(grid, at(0, 0), at(1, 1)));
+    }
+
+    @Test
+    public void shouldNotMoveWhenTheTargetIsReached() {
+        var grid = grid("..");
+
+        assertNull(new NextStepPathfinding().findNextStep(grid, at(1, 0), at(1, 0)));
+    }
+
+    @Test
+    public void shouldGetAsCloseAsPossibleToUnreachableTargets() {
+        var grid = grid(
+                "...#.",
+                "...#.",
+                "...#.");
+
+        var position = walk(grid, at(0, 1), at(4, 1), 20);
+
+        assertEquals(2, position.getX());
+        assertNull(new NextStepPathfinding().findNextStep(grid, position, at(4, 1)));
+    }
+
+    @Test
+    public void shouldReuseThePathWhileTheTargetIsClose() {
+        var grid = new CountingWalkGrid(grid(".........."));
+        var pathfinding = new NextStepPathfinding();
+
+        pathfinding.findNextStep(grid, at(0, 0), at(9, 0));
+        var queries = grid.queries;
+        pathfinding.findNextStep(grid, at(1, 0), at(9, 1));
+
+        assertEquals(queries, grid.queries);
+    }
+
+    @Test
+    public void shouldComputeThePathAgainWhenTheTargetMovesAway() {
+        var grid = new CountingWalkGrid(grid(
+                "..........",
+                "..........",
+                "..........",
+                "..........",
+                ".........."));
+        var pathfinding = new NextStepPathfinding();
+
+        pathfinding.findNextStep(grid, at(0, 0), at(9, 0));
+        var queries = grid.queries;
+        var direction = pathfinding.findNextStep(grid, at(1, 0), at(1, 4));
+
+        assertTrue(grid.queries > queries);
+        assertEquals(1, AStarPathfinder.dy(direction));
+    }
+
+    @Test
+    public void shouldStopAtTheNodeBudget() {
+        var grid = new CountingWalkGrid(grid(
+                "..........",
+                "..........",
+                "..........",
+                ".........."));
+
+        new NextStepPathfinding(2).findNextStep(grid, at(0, 0), at(9, 3));
+
+        assertTrue(grid.queries <= 2 * 8 * 3);
+    }
+
+    private static Point2D walk(WalkGrid grid, Point2D from, Point2D to, int maxSteps) {
+        var pathfinding = new NextStepPathfinding();
+        var position = from;
+        for (int i = 0; i < maxSteps; i++) {
+            var direction = pathfinding.findNextStep(grid, position, to);
+            if (direction == null) {
+                break;
+            }
+            position = at(position.getX() + AStarPathfinder.dx(direction), position.getY() + AStarPathfinder.dy(direction));
+            assertTrue(grid.isWalkable(position.getX(), position.getY()), "Walked into a wall at " + position);
+        }
+        return position;
+    }
+
+    private static Position at(int x, int y) {
+        return new Position(x, y);
+    }
+
+    /**
+     * @param rows walkable cells as '.', anything else is blocked
+     */
+    static WalkGrid grid(String... rows) {
+        return new WalkGrid() {
+            @Override
+            public Facet getFacet() {
+                return Facet.Felucca;
+            }
+
+            @Override
+            public boolean isWalkable(int x, int y) {
+                return y >= 0 && y < rows.length && x >= 0 && x < rows[y].length() && rows[y].charAt(x) == '.';
+            }
+        };
+    }
+
+    private static final class CountingWalkGrid implements WalkGrid {
+        private final WalkGrid grid;
+        private int queries;
+
+        private CountingWalkGrid(WalkGrid grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public Facet getFacet() {
+            return grid.getFacet();
+        }
+
+        @Override
+        public boolean isWalkable(int x, int y) {
+            queries++;
+            return grid.isWalkable(x, y);
+        }
+    }
+}
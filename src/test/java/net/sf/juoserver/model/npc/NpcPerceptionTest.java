@@ -0,0 +1,123 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.PointInSpace;
+import net.sf.juoserver.model.UOMobile;
+import net.sf.juoserver.protocol.MobileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NpcPerceptionTest {
+    @Mock
+    private Core core;
+    private final List<Mobile> world = new ArrayList<>();
+    private final List<Mobile> result = new ArrayList<>();
+    private final NpcMobile npc = TestingFactory.createTestNpcMobile(1, mock(AIScript.class));
+    private long now;
+    private NpcPerception perception;
+
+    @BeforeEach
+    public void setUp() {
+        npc.location(0, 0, 0);
+        world.add(npc);
+        lenient().doAnswer(invocation -> {
+            Point2D location = invocation.getArgument(1);
+            int distance = invocation.getArgument(2);
+            Consumer<Mobile> action = invocation.getArgument(3);
+            world.stream().filter(mobile -> MobileUtils.getDistance(location, mobile) < distance).forEach(action);
+            return null;
+        }).when(core).forEachMobileInRange(any(), any(), anyInt(), any());
+        perception = new NpcPerception(npc, core, () -> now);
+    }
+
+    @Test
+    public void shouldFindTheNearestAlivePlayerOfAnAggressiveNpc() {
+        notoriety(npc, Notoriety.Murderer);
+        player(2, 5, 0);
+        var near = player(3, 3, 0);
+        player(4, 2, 0).kill();
+        world.add(TestingFactory.createTestNpcMobile(5, mock(AIScript.class)).location(1, 0, 0));
+
+        assertSame(near, perception.findNearestHostilePlayer(10));
+        assertNull(perception.findNearestHostilePlayer(2));
+    }
+
+    @Test
+    public void shouldOnlyBeHostileToAggressivePlayersWhenInnocent() {
+        notoriety(npc, Notoriety.Innocent);
+        player(2, 2, 0);
+        var murderer = player(3, 4, 0);
+        notoriety(murderer, Notoriety.Murderer);
+
+        assertSame(murderer, perception.findNearestHostilePlayer(10));
+    }
+
+    @Test
+    public void shouldFillTheGivenBuffer() {
+        var inRange = player(2, 3, 0);
+        player(3, 30, 0);
+        result.add(npc);
+
+        assertEquals(1, perception.findPlayersInRange(10, result));
+        assertEquals(List.of(inRange), result);
+    }
+
+    @Test
+    public void shouldScanOncePerPeriod() {
+        perception.setPeriod(100);
+        perception.findPlayersInRange(10, result);
+        var newcomer = player(2, 3, 0);
+        now = 99;
+        assertEquals(0, perception.findPlayersInRange(10, result));
+
+        now = 100;
+        assertEquals(1, perception.findPlayersInRange(10, result));
+        assertEquals(List.of(newcomer), result);
+        verify(core, times(2)).forEachMobileInRange(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void shouldScanAgainForALargerRadius() {
+        perception.findPlayersInRange(5, result);
+        var farther = player(2, 8, 0);
+
+        assertEquals(1, perception.findPlayersInRange(10, result));
+        assertEquals(List.of(farther), result);
+    }
+
+    @Test
+    public void shouldNotSeeTargetsBehindWalls() {
+        notoriety(npc, Notoriety.Murderer);
+        when(core.getWalkGrid(npc.getFacet())).thenReturn(NextStepPathfindingTest.grid(
+                "..#..",
+                "....."));
+        player(2, 4, 0);
+        var visible = player(3, 1, 1);
+
+        assertEquals(1, perception.findTargetsInSight(10, result));
+        assertEquals(List.of(visible), result);
+    }
+
+    private Mobile player(int serialId, int x, int y) {
+        var player = TestingFactory.createTestMobile(serialId, "player" + serialId, new PointInSpace(x, y, 0));
+        world.add(player);
+        return player;
+    }
+
+    private static void notoriety(Mobile mobile, Notoriety notoriety) {
+        ((UOMobile) mobile).setNotoriety(notoriety);
+    }
+}
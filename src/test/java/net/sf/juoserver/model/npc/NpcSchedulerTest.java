@@ -0,0 +1,110 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.AIScript;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NpcSchedulerTest {
+    private long now;
+    private final List<Runnable> batches = new ArrayList<>();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    public void shouldRunDueSessionsInBatches() {
+        var scheduler = new NpcScheduler(batches::add, session -> {
+            runs.incrementAndGet();
+            return 100;
+        }, () -> now);
+        for (int i = 0; i < NpcScheduler.BATCH_SIZE + 1; i++) {
+            scheduler.schedule(session(i), 10);
+        }
+
+        assertEquals(0, scheduler.dispatch());
+        now = 10;
+        assertEquals(NpcScheduler.BATCH_SIZE + 1, scheduler.dispatch());
+        assertEquals(2, batches.size());
+        assertEquals(0, scheduler.dispatch()); // Running, not in the queue
+        batches.forEach(Runnable::run);
+
+        assertEquals(NpcScheduler.BATCH_SIZE + 1, runs.get());
+        now = 109;
+        assertEquals(0, scheduler.dispatch());
+        now = 110;
+        assertEquals(NpcScheduler.BATCH_SIZE + 1, scheduler.dispatch());
+    }
+
+    @Test
+    public void shouldAccountCpuTimePerScript() {
+        var scheduler = new NpcScheduler(Runnable::run, session -> 100, () -> now);
+        var session = session(1);
+        scheduler.schedule(session, 0);
+
+        scheduler.dispatch();
+
+        var stats = scheduler.getScriptStats().get(session.getMobile().getAIScript().getClass());
+        assertEquals(1, stats.getRuns());
+        assertTrue(stats.getCpuNanos() >= 0);
+    }
+
+    @Test
+    public void shouldRetryFailedSessionsLater() {
+        var scheduler = new NpcScheduler(Runnable::run, session -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("Broken script");
+        }, () -> now);
+        scheduler.schedule(session(1), 0);
+
+        scheduler.dispatch();
+        now = NpcScheduler.ERROR_DELAY - 1;
+        scheduler.dispatch();
+        now = NpcScheduler.ERROR_DELAY;
+        scheduler.dispatch();
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void shouldNotRescheduleSessionsCancelledWhileRunning() {
+        var session = session(1);
+        var scheduler = new NpcScheduler(batches::add, s -> 1, () -> now);
+        scheduler.schedule(session, 0);
+        scheduler.dispatch();
+
+        scheduler.cancel(session);
+        batches.forEach(Runnable::run);
+        now = 10;
+
+        assertEquals(0, scheduler.dispatch());
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void shouldNotRescheduleSuspendedSessionsUntilScheduledAgain() {
+        var session = session(1);
+        var scheduler = new NpcScheduler(Runnable::run, s -> {
+            runs.incrementAndGet();
+            return NpcScheduler.SUSPEND;
+        }, () -> now);
+        scheduler.schedule(session, 0);
+
+        scheduler.dispatch();
+        now = 10_000;
+        assertEquals(0, scheduler.dispatch());
+        assertEquals(0, scheduler.size());
+
+        scheduler.schedule(session, 0);
+        assertEquals(1, scheduler.dispatch());
+        assertEquals(2, runs.get());
+    }
+
+    private static ContextBasedNpcSession session(int serialId) {
+        return new UONpcSession(TestingFactory.createTestNpcMobile(serialId, mock(AIScript.class)), null, null, null);
+    }
+}
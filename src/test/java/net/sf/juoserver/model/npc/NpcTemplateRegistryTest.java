@@ -0,0 +1,167 @@
+package net.sf.juoserver.model.npc;
+
+import net.sf.juoserver.api.NpcMobile;
+import net.sf.juoserver.api.Notoriety;
+import net.sf.juoserver.configuration.YamlConfigFileReader;
+import net.sf.juoserver.model.UONpcMobile;
+import net.sf.juoserver.model.ai.BehaviourTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NpcTemplateRegistryTest {
+    private static final String OGRE = """
+            - templateId: 0x3
+              name: Ogre
+              modelId: 0x1
+              strength: 150
+              maxHitPoints: 120
+              notoriety: Murderer
+              hue: 0x83EA
+            """;
+    private static final String SKELETON = """
+            - templateId: 0x2
+              name: Skeleton
+              modelId: 0x93
+              maxHitPoints: 80
+            """;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void shouldCreateNpcsCopyingTheTemplate() throws IOException {
+        var registry = registry(OGRE + SKELETON);
+
+        assertTrue(registry.reload());
+        UONpcMobile ogre = registry.create(3);
+        UONpcMobile other = registry.create(3);
+
+        assertEquals(2, registry.size());
+        assertEquals("Ogre", ogre.getName());
+        assertEquals(3, ogre.getTemplateId());
+        assertEquals(0x1, ogre.getModelId());
+        assertEquals(150, ogre.getStrength());
+        assertEquals(120, ogre.getMaxHitPoints());
+        assertEquals(Notoriety.Murderer, ogre.getNotoriety());
+        assertNotSame(ogre, other);
+        assertTrue(ogre.isNpc());
+    }
+
+    @Test
+    public void shouldNotShareStateBetweenNpcs() throws IOException {
+        var registry = registry(OGRE);
+        registry.reload();
+
+        registry.create(3).setName("Renamed");
+
+        assertEquals("Ogre", registry.create(3).getName());
+    }
+
+    @Test
+    public void shouldFailOnUnknownTemplates() throws IOException {
+        var registry = registry(OGRE);
+        registry.reload();
+
+        assertNull(registry.get(1));
+        assertNull(registry.get(-1));
+        assertThrows(NoSuchElementException.class, () -> registry.create(0x10000));
+    }
+
+    @Test
+    public void shouldKeepTheCurrentTemplatesWhenTheConfigurationIsBroken() throws IOException {
+        var registry = registry(OGRE);
+        registry.reload();
+        Files.writeString(folder.resolve("npcs.yaml"), "- templateId: [");
+
+        assertFalse(registry.reload());
+        assertEquals("Ogre", registry.create(3).getName());
+    }
+
+    @Test
+    public void shouldKeepTheCurrentTemplatesWhenAnIdIsOutOfRange() throws IOException {
+        var registry = registry(OGRE);
+        registry.reload();
+
+        Files.writeString(folder.resolve("npcs.yaml"), OGRE + SKELETON.replace("0x2", "0x7FFFFFFF"));
+        assertFalse(registry.reload());
+        Files.writeString(folder.resolve("npcs.yaml"), OGRE + SKELETON.replace("0x2", "-5"));
+        assertFalse(registry.reload());
+
+        assertEquals(1, registry.size());
+        assertEquals("Ogre", registry.create(3).getName());
+    }
+
+    @Test
+    public void shouldRunTheBehaviourTreeNamedByTheTemplate() throws IOException {
+        var npcs = folder.resolve("npcs.yaml");
+        var behaviours = folder.resolve("behaviours.yaml");
+        Files.writeString(npcs, SKELETON + "  behaviour: guard\n" + OGRE + "  behaviour: unknown\n");
+        Files.writeString(behaviours, """
+                guard:
+                  sequence:
+                    - findHostile: {radius: 6}
+                    - chase: {}
+                """);
+        var registry = new NpcTemplateRegistry(new YamlConfigFileReader(npcs, folder.resolve("spawns.yaml"), behaviours));
+
+        assertFalse(registry.reload());
+
+        Files.writeString(npcs, SKELETON + "  behaviour: guard\n" + OGRE);
+        assertTrue(registry.reload());
+        var tree = assertInstanceOf(BehaviourTree.class, registry.create(2).getAIScript());
+        assertEquals("guard", tree.getName());
+        assertSame(tree, registry.create(2).getAIScript());
+    }
+
+    @Test
+    public void shouldReloadWhenTheFileChanges() throws Exception {
+        try (var registry = registry(OGRE)) {
+            registry.reload();
+            registry.watch();
+
+            Files.writeString(folder.resolve("npcs.yaml"), OGRE + SKELETON);
+
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (registry.get(2) == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            NpcMobile skeleton = registry.get(2).newMobile();
+            assertEquals("Skeleton", skeleton.getName());
+        }
+    }
+
+    @Test
+    public void shouldReloadWhenTheBehavioursChange() throws Exception {
+        var npcs = folder.resolve("npcs.yaml");
+        var behaviours = folder.resolve("behaviours.yaml");
+        Files.writeString(npcs, SKELETON + "  behaviour: guard\n");
+        try (var registry = new NpcTemplateRegistry(new YamlConfigFileReader(npcs, folder.resolve("spawns.yaml"), behaviours))) {
+            assertFalse(registry.reload());
+            registry.watch();
+
+            Files.writeString(behaviours, """
+                    guard:
+                      findHostile: {radius: 6}
+                    """);
+
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (registry.get(2) == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertInstanceOf(BehaviourTree.class, registry.create(2).getAIScript());
+        }
+    }
+
+    private NpcTemplateRegistry registry(String yaml) throws IOException {
+        var file = folder.resolve("npcs.yaml");
+        Files.writeString(file, yaml);
+        return new NpcTemplateRegistry(new YamlConfigFileReader(file));
+    }
+}
@@ -1,6 +1,7 @@
 package net.sf.juoserver.model.npc;
 
 import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.Position;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,6 +9,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -24,6 +26,8 @@ class UONpcSessionTest {
     private Core core;
     @Mock
     private NpcContext context;
+    @Mock
+    private FlowFields flowFields;
     @InjectMocks
     private UONpcSession session;
 
@@ -34,10 +38,29 @@ class UONpcSessionTest {
 
     @Test
     public void shouldFindMobilesInRange() {
-        var result = Stream.of(mock(Mobile.class));
-        when(core.findMobilesInRange(mobile))
-                .thenReturn(result);
-        assertEquals(result, session.findMobilesInRange(false));
+        var player = mock(Mobile.class);
+        var npc = mock(Mobile.class);
+        when(npc.isNpc()).thenReturn(true);
+        when(core.findMobilesInRange(mobile.getFacet(), mobile))
+                .thenReturn(Stream.of(mobile, player, npc));
+        assertEquals(List.of(player), session.findMobilesInRange(false).toList());
+    }
+
+    @Test
+    public void shouldIncludeNpcsInRangeOnRequest() {
+        var npc = mock(Mobile.class);
+        when(core.findMobilesInRange(mobile.getFacet(), mobile))
+                .thenReturn(Stream.of(mobile, npc));
+        assertEquals(List.of(npc), session.findMobilesInRange(true).toList());
+    }
+
+    @Test
+    public void shouldRemoveKilledNpcs() {
+        when(mobile.getCurrentHitPoints()).thenReturn(5, 0);
+        session.receiveDamage(5);
+        verify(mobile).kill();
+        verify(core).removeMobile(mobile);
+        verify(network).notifyOtherKilled(mobile);
     }
 
     @Test
@@ -49,4 +72,31 @@ class UONpcSessionTest {
         verify(network).notifyOtherMobileMovement(mobile);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldMoveTowardsLocationAlongWalkablePath() {
+        when(core.getWalkGrid(mobile.getFacet())).thenReturn(NextStepPathfindingTest.grid("....#"));
+        session.moveTowards(new Position(3, 0));
+        verify(mobile).setDirection(Direction.East);
+        verify(mobile).moveForward();
+        verify(network).notifyOtherMobileMovement(mobile);
+    }
+
+    @Test
+    public void shouldNotMoveWhenTargetIsUnreachable() {
+        when(core.getWalkGrid(mobile.getFacet())).thenReturn(NextStepPathfindingTest.grid(".#.."));
+        session.moveTowards(new Position(3, 0));
+        verify(mobile, never()).moveForward();
+    }
+
+    @Test
+    public void shouldFollowTheFlowFieldWhenChasingWithOthers() {
+        var target = mock(Mobile.class);
+        var grid = NextStepPathfindingTest.grid("...");
+        when(core.getWalkGrid(mobile.getFacet())).thenReturn(grid);
+        when(flowFields.findNextStep(mobile, grid, target)).thenReturn(Direction.South);
+        session.moveTowards(target);
+        verify(mobile).setDirection(Direction.South);
+        verify(mobile).moveForward();
+    }
+
+}
@@ -2,17 +2,16 @@ package net.sf.juoserver.model.npc;
 
 import net.sf.juoserver.TestingFactory;
 import net.sf.juoserver.api.*;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UONpcSystemTest {
@@ -25,9 +24,14 @@ class UONpcSystemTest {
     private Configuration configuration;
     @Mock
     private NpcSessionCycle npcSessionCycle;
-    @InjectMocks
+    private long now;
     private UONpcSystem uoNpcSystem;
 
+    @BeforeEach
+    public void setUp() {
+        uoNpcSystem = new UONpcSystem(core, network, configuration, npcSessionCycle, Runnable::run, () -> now);
+    }
+
     @Test
     public void teste() {
         var aiScript = Mockito.mock(AIScript.class);
@@ -42,4 +46,105 @@ class UONpcSystemTest {
         verify(npcSessionCycle).execute(eq(aiScript), any(ContextBasedNpcSession.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldRunScriptsAgainOnlyWhenDue() {
+        var aiScript = Mockito.mock(AIScript.class);
+        when(aiScript.isActive(any(NpcSession.class))).thenReturn(true);
+        when(npcSessionCycle.execute(eq(aiScript), any(ContextBasedNpcSession.class))).thenReturn(200L);
+        uoNpcSystem.onMobileCreated(TestingFactory.createTestNpcMobile(1, aiScript));
+
+        uoNpcSystem.execute(0);
+        now = 199;
+        uoNpcSystem.execute(199);
+        verify(npcSessionCycle, times(1)).execute(eq(aiScript), any(ContextBasedNpcSession.class));
+
+        now = 200;
+        uoNpcSystem.execute(200);
+        verify(npcSessionCycle, times(2)).execute(eq(aiScript), any(ContextBasedNpcSession.class));
+    }
+
+    @Test
+    public void shouldCheckInactiveScriptsAgainLater() {
+        var aiScript = Mockito.mock(AIScript.class);
+        when(aiScript.isActive(any(NpcSession.class))).thenReturn(false, true);
+        uoNpcSystem.onMobileCreated(TestingFactory.createTestNpcMobile(1, aiScript));
+
+        uoNpcSystem.execute(0);
+        verify(npcSessionCycle, never()).execute(any(), any());
+
+        now = UONpcSystem.IDLE_DELAY;
+        uoNpcSystem.execute(now);
+        verify(npcSessionCycle).execute(eq(aiScript), any(ContextBasedNpcSession.class));
+    }
+
+    @Test
+    public void shouldSleepWithoutPlayersAroundAndRunAtOnceAwakened() {
+        var aiScript = Mockito.mock(AIScript.class);
+        when(aiScript.isActive(any(NpcSession.class))).thenReturn(true);
+        when(npcSessionCycle.execute(eq(aiScript), any(ContextBasedNpcSession.class))).thenReturn(100L);
+        var mobile = TestingFactory.createTestNpcMobile(1, aiScript);
+        when(core.isDormant(mobile.getFacet(), mobile)).thenReturn(true, true, false);
+        uoNpcSystem.onMobileCreated(mobile);
+
+        uoNpcSystem.execute(0);
+        now = 5_000;
+        uoNpcSystem.execute(now);
+        verify(npcSessionCycle, never()).execute(any(), any());
+
+        uoNpcSystem.onMobileAwakened(mobile);
+        uoNpcSystem.execute(now);
+        verify(npcSessionCycle, times(1)).execute(eq(aiScript), any(ContextBasedNpcSession.class));
+        now += 100;
+        uoNpcSystem.execute(now);
+        verify(npcSessionCycle, times(2)).execute(eq(aiScript), any(ContextBasedNpcSession.class));
+    }
+
+    @Test
+    public void shouldRunOnceNpcsAwakenedWhileFallingAsleep() {
+        var aiScript = Mockito.mock(AIScript.class);
+        when(aiScript.isActive(any(NpcSession.class))).thenReturn(true);
+        when(npcSessionCycle.execute(eq(aiScript), any(ContextBasedNpcSession.class))).thenReturn(100L);
+        var mobile = TestingFactory.createTestNpcMobile(1, aiScript);
+        when(core.isDormant(mobile.getFacet(), mobile)).thenReturn(true).then(invocation -> {
+            uoNpcSystem.onMobileAwakened(mobile); // A player comes close between the two checks
+            return false;
+        }).thenReturn(false);
+        uoNpcSystem.onMobileCreated(mobile);
+
+        uoNpcSystem.execute(0);
+        uoNpcSystem.execute(0);
+        now = 50;
+        uoNpcSystem.execute(now);
+
+        verify(npcSessionCycle, times(1)).execute(eq(aiScript), any(ContextBasedNpcSession.class));
+    }
+
+    @Test
+    public void shouldNotWakeUpAwakeNpcs() {
+        var aiScript = Mockito.mock(AIScript.class);
+        when(aiScript.isActive(any(NpcSession.class))).thenReturn(true);
+        when(npcSessionCycle.execute(eq(aiScript), any(ContextBasedNpcSession.class))).thenReturn(200L);
+        var mobile = TestingFactory.createTestNpcMobile(1, aiScript);
+        uoNpcSystem.onMobileCreated(mobile);
+        uoNpcSystem.execute(0);
+
+        uoNpcSystem.onMobileAwakened(mobile);
+        now = 199;
+        uoNpcSystem.execute(now);
+
+        verify(npcSessionCycle, times(1)).execute(eq(aiScript), any(ContextBasedNpcSession.class));
+    }
+
+    @Test
+    public void shouldStopRunningRemovedNpcs() {
+        var aiScript = Mockito.mock(AIScript.class);
+        var mobile = TestingFactory.createTestNpcMobile(1, aiScript);
+        uoNpcSystem.onMobileCreated(mobile);
+
+        uoNpcSystem.onMobileRemoved(mobile);
+        uoNpcSystem.execute(0);
+
+        verify(aiScript, never()).isActive(any());
+    }
+
+}
@@ -0,0 +1,76 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.Item;
+import net.sf.juoserver.api.WorldChanges;
+import net.sf.juoserver.model.UOItem;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Saves and loads 3M ground items; logs how long the world is held still to
+ * capture them, how long the save takes and how long they take to load, then
+ * how long it is held still to save the changes of 1% of them.
+ */
+@Tag("benchmark")
+class BinaryDataManagerBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryDataManagerBenchmark.class);
+    private static final int ITEMS = 3_000_000;
+    private static final int CHANGED = ITEMS / 100;
+    private static final String[] NAMES = {"gold coin", "dagger", "robe", "shirt", "bread", "arrow", "bandage"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void saveAndLoadMillionsOfItems() throws Exception {
+        List<Item> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new UOItem(0x40000000 + i, 0x0EED + i % NAMES.length, i % 3, NAMES[i % NAMES.length], 0)
+                    .amount(1 + i % 50)
+                    .location(i % 6144, i / 6144 % 4096, i % 20));
+        }
+        var file = directory.resolve("world.bin");
+
+        long start = System.nanoTime();
+        var snapshot = WorldSnapshot.capture(WorldChanges.full(List.of(), List.of(), items, ITEMS));
+        long captured = System.nanoTime();
+        try (var out = Files.newOutputStream(file)) {
+            BinaryWorldFormat.write(snapshot, out);
+        }
+        long saved = System.nanoTime();
+        var loaded = new BinaryDataManager(file, null, Runnable::run).loadItems();
+        long end = System.nanoTime();
+
+        LOGGER.info("{} items: captured in {} ms, written in {} ms ({} bytes), loaded in {} ms", ITEMS,
+                (captured - start) / 1_000_000, (saved - captured) / 1_000_000, Files.size(file),
+                (end - saved) / 1_000_000);
+        assertEquals(ITEMS, loaded.size());
+
+        var changes = new ChangedEntities();
+        items.forEach(item -> item.trackChanges(changes));
+        for (int i = 0; i < CHANGED; i++) {
+            items.get(i * 100).amount(1000);
+        }
+        var dataManager = new BinaryDataManager(file, null, Runnable::run);
+        long changesStart = System.nanoTime();
+        var drained = changes.drain(ITEMS);
+        var partial = WorldSnapshot.capture(drained);
+        long changesCaptured = System.nanoTime();
+        var stats = dataManager.save(drained).join();
+
+        LOGGER.info("{} changed items: captured in {} ms, merged and written in {} ms ({} bytes)", CHANGED,
+                (changesCaptured - changesStart) / 1_000_000, stats.writeMillis(), stats.bytes());
+        assertEquals(CHANGED, partial.section(WorldSnapshot.ITEMS).size());
+        assertEquals(1000, new BinaryDataManager(file, null, Runnable::run).loadItems().get(100).amount());
+    }
+}
@@ -0,0 +1,294 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.InMemoryDataManager;
+import net.sf.juoserver.model.PointInSpace;
+import net.sf.juoserver.model.UOItem;
+import net.sf.juoserver.model.UOMobile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryDataManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void shouldLoadTheFallbackWorldUntilTheFirstSave() {
+        var dataManager = new BinaryDataManager(directory.resolve("world.bin"), new InMemoryDataManager(), Runnable::run);
+
+        assertEquals(2, dataManager.loadMobiles().size());
+        assertEquals("admin", dataManager.loadAccounts().get(0).getUsername());
+        assertEquals(6, dataManager.loadItems().size());
+    }
+
+    @Test
+    public void shouldRestoreTheSavedWorld() {
+        var file = directory.resolve("world.bin");
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        var accounts = source.loadAccounts();
+        List<Item> groundItems = new ArrayList<>(source.loadItems());
+        var chest = TestingFactory.createTestContainer(0x50000000, 0x0E43);
+        chest.addItem(new UOItem(0x50000001, 0x0EED, 0, "gold", 0).amount(100), new PointInSpace(20, 30, 0));
+        chest.location(750, 2150, 0).facet(Facet.Trammel);
+        groundItems.add(chest);
+        ((UOMobile) mobiles.get(1)).setStrength(77);
+
+        new BinaryDataManager(file, null, Runnable::run).save(WorldChanges.full(mobiles, accounts, groundItems, 42)).join();
+        var loaded = new BinaryDataManager(file, null, Runnable::run);
+
+        var mobile = loaded.loadMobiles().get(1);
+        assertEquals("Asder", mobile.getName());
+        assertEquals(77, mobile.getStrength());
+        assertEquals(6100, mobile.getX());
+        assertEquals(RaceFlag.Human, mobile.getRaceFlag());
+        assertEquals(32, mobile.getItemByLayer(Layer.FirstValid).speed());
+        var backpack = (Container) mobile.getItemByLayer(Layer.Backpack);
+        assertEquals("pitcher of water", backpack.getItems().get(0).getName());
+        assertEquals(0x68, backpack.getPositionWithinContainer(backpack.getItems().get(0)).getX());
+
+        var account = loaded.loadAccounts().get(1);
+        assertEquals("user", account.getUsername());
+        assertEquals("user", account.getPassword());
+        assertEquals(List.of(2), account.getCharactersSerials());
+
+        var items = loaded.loadItems();
+        assertEquals(7, items.size());
+        var loadedChest = (Container) items.get(items.size() - 1);
+        assertEquals(Facet.Trammel, loadedChest.getFacet());
+        assertEquals(750, loadedChest.getX());
+        assertEquals(100, loadedChest.getItems().get(0).amount());
+        assertEquals(30, loadedChest.getPositionWithinContainer(loadedChest.getItems().get(0)).getY());
+        assertEquals(42, loaded.getItemSerial().intValue());
+    }
+
+    @Test
+    public void shouldInternTheStrings() {
+        var file = directory.resolve("world.bin");
+        List<Item> groundItems = List.of(new UOItem(0x50000000, 0x0EED, 0, new String("gold"), 0),
+                new UOItem(0x50000001, 0x0EED, 0, new String("gold"), 0));
+
+        new BinaryDataManager(file, null, Runnable::run).save(WorldChanges.full(List.of(), List.of(), groundItems, 0)).join();
+        var items = new BinaryDataManager(file, null, Runnable::run).loadItems();
+
+        assertSame(items.get(0).getName(), items.get(1).getName());
+    }
+
+    @Test
+    public void shouldMergeTheChangesIntoThePreviousSave() {
+        var file = directory.resolve("world.bin");
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        var accounts = source.loadAccounts();
+        List<Item> groundItems = new ArrayList<>(source.loadItems());
+        var chest = TestingFactory.createTestContainer(0x50000000, 0x0E43);
+        var gold = new UOItem(0x50000001, 0x0EED, 0, "gold", 0).amount(100);
+        chest.addItem(gold, new PointInSpace(20, 30, 0));
+        groundItems.add(chest);
+        var dataManager = new BinaryDataManager(file, null, Runnable::run);
+        var full = dataManager.save(WorldChanges.full(mobiles, accounts, groundItems, 42)).join();
+
+        var changes = new ChangedEntities();
+        mobiles.forEach(mobile -> mobile.trackChanges(changes));
+        groundItems.forEach(item -> item.trackChanges(changes));
+        gold.trackChanges(changes);
+        ((UOMobile) mobiles.get(1)).setStrength(88);
+        chest.removeItem(gold);
+        gold.amount(50).location(700, 2100, 0);
+        var removed = groundItems.get(0);
+        changes.removed(removed);
+        var created = new UOItem(0x50000002, 0x0EED, 0, "gold", 0).amount(5);
+        changes.changed(created);
+        assertEquals(5, changes.size());
+        var partial = dataManager.save(changes.drain(43)).join();
+        var loaded = new BinaryDataManager(file, null, Runnable::run);
+
+        assertEquals(0, changes.size());
+        assertTrue(partial.bytes() > 0 && full.bytes() > 0);
+        assertEquals(88, loaded.loadMobiles().get(1).getStrength());
+        assertEquals("Asder", loaded.loadMobiles().get(1).getName());
+        assertNotNull(loaded.loadMobiles().get(1).getItemByLayer(Layer.Backpack));
+        var items = loaded.loadItems();
+        assertEquals(8, items.size());
+        assertTrue(items.stream().noneMatch(item -> item.getSerialId() == removed.getSerialId()));
+        var loadedChest = (Container) items.stream().filter(item -> item.getSerialId() == chest.getSerialId()).findAny().orElseThrow();
+        assertTrue(loadedChest.getItems().isEmpty());
+        var loadedGold = items.stream().filter(item -> item.getSerialId() == gold.getSerialId()).findAny().orElseThrow();
+        assertEquals(50, loadedGold.amount());
+        assertEquals(700, loadedGold.getX());
+        assertTrue(items.stream().anyMatch(item -> item.getSerialId() == created.getSerialId()));
+        assertEquals(43, loaded.getItemSerial().intValue());
+    }
+
+    @Test
+    public void shouldNotSaveChangesBeforeTheWholeWorld() {
+        var dataManager = new BinaryDataManager(directory.resolve("world.bin"), null, Runnable::run);
+        var changes = new ChangedEntities().drain(0);
+
+        assertThrows(CompletionException.class, () -> dataManager.save(changes).join());
+    }
+
+    @Test
+    public void shouldReplayTheJournalOnTopOfTheSave() {
+        var file = directory.resolve("world.bin");
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        var groundItems = source.loadItems();
+        var dataManager = new BinaryDataManager(file, null, Runnable::run, Runnable::run);
+        dataManager.save(WorldChanges.full(mobiles, source.loadAccounts(), groundItems, 42)).join();
+
+        var changes = new ChangedEntities();
+        mobiles.forEach(mobile -> mobile.trackChanges(changes));
+        groundItems.forEach(item -> item.trackChanges(changes));
+        ((UOMobile) mobiles.get(1)).setStrength(90);
+        dataManager.journal(changes.drainJournal(43)).join();
+        groundItems.get(0).amount(7);
+        ((UOMobile) mobiles.get(1)).setDexterity(60);
+        var stats = dataManager.journal(changes.drainJournal(44)).join();
+        var loaded = new BinaryDataManager(file, null, Runnable::run, Runnable::run);
+
+        assertTrue(stats.bytes() > 0);
+        assertEquals(90, loaded.loadMobiles().get(1).getStrength());
+        assertEquals(60, loaded.loadMobiles().get(1).getDexterity());
+        assertEquals(7, loaded.loadItems().get(0).amount());
+        assertEquals(44, loaded.getItemSerial().intValue());
+    }
+
+    @Test
+    public void shouldDropTheJournalRecordsIncludedInASave() throws Exception {
+        var file = directory.resolve("world.bin");
+        var journal = directory.resolve("world.bin.journal");
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        var dataManager = new BinaryDataManager(file, null, Runnable::run, Runnable::run);
+        dataManager.save(WorldChanges.full(mobiles, source.loadAccounts(), source.loadItems(), 42)).join();
+        var changes = new ChangedEntities();
+        mobiles.forEach(mobile -> mobile.trackChanges(changes));
+        ((UOMobile) mobiles.get(1)).setStrength(90);
+        dataManager.journal(changes.drainJournal(42)).join();
+        long journaled = Files.size(journal);
+
+        dataManager.save(changes.drain(42)).join();
+        long compacted = Files.size(journal);
+        ((UOMobile) mobiles.get(1)).setStrength(95);
+        dataManager.journal(changes.drainJournal(42)).join();
+        var loaded = new BinaryDataManager(file, null, Runnable::run, Runnable::run);
+
+        assertTrue(compacted < journaled);
+        assertEquals(95, loaded.loadMobiles().get(1).getStrength());
+    }
+
+    @Test
+    public void shouldDropTheIncompleteJournalRecords() throws Exception {
+        var file = directory.resolve("world.bin");
+        var journal = directory.resolve("world.bin.journal");
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        var dataManager = new BinaryDataManager(file, null, Runnable::run, Runnable::run);
+        dataManager.save(WorldChanges.full(mobiles, source.loadAccounts(), source.loadItems(), 42)).join();
+        var changes = new ChangedEntities();
+        mobiles.forEach(mobile -> mobile.trackChanges(changes));
+        ((UOMobile) mobiles.get(1)).setStrength(90);
+        dataManager.journal(changes.drainJournal(42)).join();
+        long journaled = Files.size(journal);
+        Files.write(journal, new byte[] {0, 0, 1, 0, 0, 0}, StandardOpenOption.APPEND); // Torn by a crash
+
+        var loaded = new BinaryDataManager(file, null, Runnable::run, Runnable::run);
+
+        assertEquals(90, loaded.loadMobiles().get(1).getStrength());
+        assertEquals(journaled, Files.size(journal));
+    }
+
+    @Test
+    public void shouldLeaveTheCharactersOnDiskUntilLoaded() {
+        var file = directory.resolve("world.bin");
+        var source = new InMemoryDataManager();
+        new BinaryDataManager(file, null, Runnable::run)
+                .save(WorldChanges.full(source.loadMobiles(), source.loadAccounts(), source.loadItems(), 42)).join();
+        var loaded = new BinaryDataManager(file, null, Runnable::run, null, true);
+
+        assertTrue(loaded.loadMobiles().isEmpty());
+        assertEquals(List.of(2), loaded.loadAccounts().get(1).getCharactersSerials());
+        assertEquals(6, loaded.loadItems().size());
+        var characters = loaded.loadCharacters(List.of(2, 99)).join();
+        assertEquals(1, characters.size());
+        assertEquals("Asder", characters.get(0).getName());
+        var backpack = (Container) characters.get(0).getItemByLayer(Layer.Backpack);
+        assertEquals("pitcher of water", backpack.getItems().get(0).getName());
+        assertEquals("robe", characters.get(0).getItemByLayer(Layer.OuterTorso).getName());
+    }
+
+    @Test
+    public void shouldSaveTheReplayedJournalBeforeLoadingTheCharacters() {
+        var file = directory.resolve("world.bin");
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        var dataManager = new BinaryDataManager(file, null, Runnable::run, Runnable::run);
+        dataManager.save(WorldChanges.full(mobiles, source.loadAccounts(), source.loadItems(), 42)).join();
+        var changes = new ChangedEntities();
+        mobiles.forEach(mobile -> mobile.trackChanges(changes));
+        ((UOMobile) mobiles.get(1)).setStrength(90);
+        dataManager.journal(changes.drainJournal(42)).join();
+
+        var loaded = new BinaryDataManager(file, null, Runnable::run, Runnable::run, true);
+        loaded.loadAccounts();
+
+        assertEquals(90, loaded.loadCharacters(List.of(2)).join().get(0).getStrength());
+    }
+
+    @Test
+    public void shouldRejectFilesWhichAreNotWorldSaves() throws Exception {
+        var file = directory.resolve("world.bin");
+        Files.writeString(file, "not a world save");
+
+        assertThrows(LoadException.class, () -> new BinaryDataManager(file, null, Runnable::run).loadMobiles());
+    }
+
+    @Test
+    public void shouldRefuseSavesOfNewerVersions() throws Exception {
+        var file = directory.resolve("world.bin");
+        new BinaryDataManager(file, null, Runnable::run).save(WorldChanges.full(List.of(), List.of(), List.of(), 0)).join();
+        var bytes = Files.readAllBytes(file);
+        bytes[4] = BinaryWorldFormat.VERSION + 1; // Version varint, after the magic
+        Files.write(file, bytes);
+
+        assertThrows(LoadException.class, () -> new BinaryDataManager(file, null, Runnable::run).loadMobiles());
+    }
+
+    @Test
+    public void shouldCaptureTheWorldWhileItChanges() throws Exception {
+        var source = new InMemoryDataManager();
+        var mobile = (UOMobile) source.loadMobiles().get(1);
+        var account = source.loadAccounts().get(0);
+        var chest = TestingFactory.createTestContainer(0x50000000, 0x0E43);
+        var changes = WorldChanges.full(List.of(mobile), List.of(account), List.of(chest), 0);
+        var changer = new Thread(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                var item = new UOItem(0x50000001 + i, 0x0EED, 0, "gold", 0);
+                mobile.setItemOnLayer(Layer.values()[1 + i % 20], item);
+                chest.addItem(item, new PointInSpace(i % 100, 0, 0));
+                account.addMobileSerialId(i);
+                if (i % 2 == 1) {
+                    mobile.removeItem(item);
+                    chest.removeItem(item);
+                }
+            }
+        });
+
+        changer.start();
+        while (changer.isAlive()) {
+            assertNotNull(WorldSnapshot.capture(changes));
+        }
+        changer.join();
+    }
+}
@@ -0,0 +1,70 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.DataManager;
+import net.sf.juoserver.api.Item;
+import net.sf.juoserver.api.WorldChanges;
+import net.sf.juoserver.model.UOItem;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Saves and loads 1M ground items in the embedded database and in the binary
+ * save; logs how long the whole save, the load and the save of the changes of
+ * 1% of them take with each.
+ */
+@Tag("benchmark")
+class JdbcDataManagerBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcDataManagerBenchmark.class);
+    private static final int ITEMS = 1_000_000;
+    private static final int CHANGED = ITEMS / 100;
+    private static final String[] NAMES = {"gold coin", "dagger", "robe", "shirt", "bread", "arrow", "bandage"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void compareWithTheBinarySave() {
+        var url = "jdbc:h2:" + directory.resolve("world");
+        var file = directory.resolve("world.bin");
+        run("database", () -> new JdbcDataManager(url, null, Runnable::run, 0));
+        run("binary save", () -> new BinaryDataManager(file, null, Runnable::run));
+    }
+
+    private void run(String name, Supplier<DataManager> dataManagers) {
+        List<Item> items = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new UOItem(0x40000000 + i, 0x0EED + i % NAMES.length, i % 3, NAMES[i % NAMES.length], 0)
+                    .amount(1 + i % 50)
+                    .location(i % 6144, i / 6144 % 4096, i % 20));
+        }
+        var dataManager = dataManagers.get();
+        var full = dataManager.save(WorldChanges.full(List.of(), List.of(), items, ITEMS)).join();
+        long start = System.nanoTime();
+        var loaded = dataManagers.get().loadItems();
+        long load = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(ITEMS, loaded.size());
+
+        var changes = new ChangedEntities();
+        items.forEach(item -> item.trackChanges(changes));
+        for (int i = 0; i < CHANGED; i++) {
+            items.get(i * 100).amount(1000);
+        }
+        var partial = dataManager.save(changes.drain(ITEMS)).join();
+
+        LOGGER.info("{}, {} items: saved in {} ms ({} bytes), loaded in {} ms; {} changed items saved in {} ms "
+                + "({} bytes)", name, ITEMS, full.writeMillis(), full.bytes(), load, CHANGED, partial.writeMillis(),
+                partial.bytes());
+        assertEquals(1000, dataManagers.get().loadItems().stream()
+                .filter(item -> item.getSerialId() == 0x40000000 + 100).findAny().orElseThrow().amount());
+    }
+}
@@ -0,0 +1,167 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.*;
+import net.sf.juoserver.model.InMemoryDataManager;
+import net.sf.juoserver.model.Passwords;
+import net.sf.juoserver.model.PointInSpace;
+import net.sf.juoserver.model.UOAccount;
+import net.sf.juoserver.model.UOItem;
+import net.sf.juoserver.model.UOMobile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcDataManagerTest {
+    @TempDir
+    Path directory;
+    private String url;
+
+    @BeforeEach
+    public void setUp() {
+        url = "jdbc:h2:" + directory.resolve("world");
+    }
+
+    @Test
+    public void shouldLoadTheFallbackWorldUntilTheFirstSave() {
+        var dataManager = new JdbcDataManager(url, new InMemoryDataManager(), Runnable::run, 0);
+
+        assertEquals(2, dataManager.loadMobiles().size());
+        assertEquals("admin", dataManager.loadAccounts().get(0).getUsername());
+        assertEquals(6, dataManager.loadItems().size());
+    }
+
+    @Test
+    public void shouldRestoreTheSavedWorld() {
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        List<Item> groundItems = new ArrayList<>(source.loadItems());
+        var chest = TestingFactory.createTestContainer(0x50000000, 0x0E43);
+        chest.addItem(new UOItem(0x50000001, 0x0EED, 0, "gold", 0).amount(100), new PointInSpace(20, 30, 0));
+        chest.location(750, 2150, 0).facet(Facet.Trammel);
+        groundItems.add(chest);
+        ((UOMobile) mobiles.get(1)).setStrength(77);
+
+        new JdbcDataManager(url, null, Runnable::run, 0)
+                .save(WorldChanges.full(mobiles, source.loadAccounts(), groundItems, 42)).join();
+        var loaded = new JdbcDataManager(url, null, Runnable::run, 0);
+
+        var mobile = loaded.loadMobiles().get(1);
+        assertEquals("Asder", mobile.getName());
+        assertEquals(77, mobile.getStrength());
+        assertEquals(6100, mobile.getX());
+        var backpack = (Container) mobile.getItemByLayer(Layer.Backpack);
+        assertEquals("pitcher of water", backpack.getItems().get(0).getName());
+        assertEquals(List.of(2), loaded.loadAccounts().get(1).getCharactersSerials());
+        var items = loaded.loadItems();
+        assertEquals(7, items.size());
+        var loadedChest = (Container) items.stream()
+                .filter(item -> item.getSerialId() == chest.getSerialId()).findAny().orElseThrow();
+        assertEquals(Facet.Trammel, loadedChest.getFacet());
+        assertEquals(100, loadedChest.getItems().get(0).amount());
+        assertEquals(30, loadedChest.getPositionWithinContainer(loadedChest.getItems().get(0)).getY());
+        assertEquals(42, loaded.getItemSerial().intValue());
+    }
+
+    @Test
+    public void shouldReplaceTheRowsOfTheChanges() {
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        List<Item> groundItems = new ArrayList<>(source.loadItems());
+        var chest = TestingFactory.createTestContainer(0x50000000, 0x0E43);
+        var gold = new UOItem(0x50000001, 0x0EED, 0, "gold", 0).amount(100);
+        chest.addItem(gold, new PointInSpace(20, 30, 0));
+        groundItems.add(chest);
+        var dataManager = new JdbcDataManager(url, null, Runnable::run, 0);
+        dataManager.save(WorldChanges.full(mobiles, source.loadAccounts(), groundItems, 42)).join();
+
+        var changes = new ChangedEntities();
+        mobiles.forEach(mobile -> mobile.trackChanges(changes));
+        groundItems.forEach(item -> item.trackChanges(changes));
+        gold.trackChanges(changes);
+        ((UOMobile) mobiles.get(1)).setStrength(88);
+        chest.removeItem(gold);
+        gold.amount(50).location(700, 2100, 0);
+        var removed = groundItems.get(0);
+        changes.removed(removed);
+        var partial = dataManager.save(changes.drain(43)).join();
+        var loaded = new JdbcDataManager(url, null, Runnable::run, 0);
+
+        assertTrue(partial.bytes() > 0);
+        assertEquals(88, loaded.loadMobiles().get(1).getStrength());
+        assertNotNull(loaded.loadMobiles().get(1).getItemByLayer(Layer.Backpack));
+        var items = loaded.loadItems();
+        assertEquals(7, items.size());
+        assertTrue(items.stream().noneMatch(item -> item.getSerialId() == removed.getSerialId()));
+        var loadedChest = (Container) items.stream()
+                .filter(item -> item.getSerialId() == chest.getSerialId()).findAny().orElseThrow();
+        assertTrue(loadedChest.getItems().isEmpty());
+        var loadedGold = items.stream().filter(item -> item.getSerialId() == gold.getSerialId()).findAny().orElseThrow();
+        assertEquals(50, loadedGold.amount());
+        assertEquals(43, loaded.getItemSerial().intValue());
+    }
+
+    @Test
+    public void shouldWriteTheQueuedSnapshotsTogether() {
+        var source = new InMemoryDataManager();
+        var mobiles = source.loadMobiles();
+        List<Runnable> flushes = new ArrayList<>();
+        var dataManager = new JdbcDataManager(url, null, flushes::add, 0);
+        var full = dataManager.save(WorldChanges.full(mobiles, source.loadAccounts(), source.loadItems(), 42));
+        var changes = new ChangedEntities();
+        mobiles.forEach(mobile -> mobile.trackChanges(changes));
+        ((UOMobile) mobiles.get(1)).setStrength(90);
+        var journaled = dataManager.journal(changes.drainJournal(43));
+
+        assertEquals(1, flushes.size());
+        flushes.forEach(Runnable::run);
+
+        assertSame(full.join(), journaled.join());
+        var loaded = new JdbcDataManager(url, null, Runnable::run, 0);
+        assertEquals(90, loaded.loadMobiles().get(1).getStrength());
+    }
+
+    @Test
+    public void shouldNotSaveChangesBeforeTheWholeWorld() {
+        var dataManager = new JdbcDataManager(url, null, Runnable::run, 0);
+        var changes = new ChangedEntities().drain(0);
+
+        assertThrows(CompletionException.class, () -> dataManager.save(changes).join());
+    }
+
+    @Test
+    public void shouldLeaveTheCharactersInTheDatabaseUntilLoaded() {
+        var source = new InMemoryDataManager();
+        new JdbcDataManager(url, null, Runnable::run, 0)
+                .save(WorldChanges.full(source.loadMobiles(), source.loadAccounts(), source.loadItems(), 42)).join();
+        var loaded = new JdbcDataManager(url, null, Runnable::run, 0, true);
+
+        assertTrue(loaded.loadMobiles().isEmpty());
+        assertEquals(List.of(2), loaded.loadAccounts().get(1).getCharactersSerials());
+        assertEquals(6, loaded.loadItems().size());
+        var characters = loaded.loadCharacters(List.of(2, 99)).join();
+        assertEquals(1, characters.size());
+        assertEquals("Asder", characters.get(0).getName());
+        var backpack = (Container) characters.get(0).getItemByLayer(Layer.Backpack);
+        assertEquals("pitcher of water", backpack.getItems().get(0).getName());
+        assertEquals("robe", characters.get(0).getItemByLayer(Layer.OuterTorso).getName());
+    }
+
+    @Test
+    public void shouldKeepTheHashedPasswords() {
+        var account = new UOAccount(1, "a".repeat(30), Passwords.hash("psw"));
+
+        new JdbcDataManager(url, null, Runnable::run, 0).save(WorldChanges.full(List.of(), List.of(account), List.of(), 0)).join();
+
+        var loaded = new JdbcDataManager(url, null, Runnable::run, 0).loadAccounts().get(0);
+        assertEquals(account.getUsername(), loaded.getUsername());
+        assertTrue(Passwords.matches("psw", loaded.getPassword()));
+    }
+}
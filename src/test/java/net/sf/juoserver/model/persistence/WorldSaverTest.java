@@ -0,0 +1,87 @@
+package net.sf.juoserver.model.persistence;
+
+import net.sf.juoserver.api.Core;
+import net.sf.juoserver.api.SaveStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WorldSaverTest {
+    @Mock
+    private Core core;
+    private WorldSaver saver;
+
+    @BeforeEach
+    public void setUp() {
+        saver = new WorldSaver(core, 1000);
+    }
+
+    @Test
+    public void shouldSaveTheWholeWorldFirstThenTheChanges() {
+        when(core.saveWorld()).thenReturn(CompletableFuture.completedFuture(new SaveStats(100, 5)));
+        when(core.saveChanges()).thenReturn(CompletableFuture.completedFuture(new SaveStats(120, 2)));
+
+        saver.execute(500);
+        saver.execute(1000);
+        saver.execute(1500);
+        saver.execute(2000);
+
+        verify(core).saveWorld();
+        verify(core).saveChanges();
+        assertEquals(new SaveStats(120, 2), saver.getLastStats());
+        assertTrue(saver.getLastCaptureMillis() >= 0);
+    }
+
+    @Test
+    public void shouldSkipTheSavesWhileThePreviousOneIsWritten() {
+        var pending = new CompletableFuture<SaveStats>();
+        when(core.saveWorld()).thenReturn(pending);
+
+        saver.execute(1000);
+        saver.execute(2000);
+        pending.complete(new SaveStats(100, 5));
+        when(core.saveChanges()).thenReturn(CompletableFuture.completedFuture(new SaveStats(120, 2)));
+        saver.execute(3000);
+
+        verify(core).saveWorld();
+        verify(core).saveChanges();
+    }
+
+    @Test
+    public void shouldSaveTheWholeWorldAfterAFailedSave() {
+        when(core.saveWorld())
+                .thenReturn(CompletableFuture.completedFuture(new SaveStats(100, 5)))
+                .thenReturn(CompletableFuture.completedFuture(new SaveStats(100, 5)));
+        when(core.saveChanges()).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("disk full")));
+
+        saver.execute(1000);
+        saver.execute(2000);
+        saver.execute(3000);
+
+        verify(core, times(2)).saveWorld();
+        verify(core).saveChanges();
+    }
+
+    @Test
+    public void shouldJournalTheChangesBetweenSavesOnceTheWorldIsSaved() {
+        saver = new WorldSaver(core, 1000, true);
+        when(core.saveWorld()).thenReturn(CompletableFuture.completedFuture(new SaveStats(100, 5)));
+        when(core.journalChanges()).thenReturn(CompletableFuture.completedFuture(new SaveStats(10, 1)));
+
+        saver.execute(100);
+        saver.execute(1000);
+        saver.execute(1100);
+        saver.execute(1200);
+
+        verify(core).saveWorld();
+        verify(core, times(2)).journalChanges();
+    }
+}
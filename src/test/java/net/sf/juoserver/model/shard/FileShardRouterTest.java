@@ -0,0 +1,85 @@
+package net.sf.juoserver.model.shard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileShardRouterTest {
+    @TempDir
+    Path directory;
+    private long now = 1_000_000;
+
+    private void report(String shard, int port, int players, int tickLoad) {
+        new NodeReporter(directory, shard, "127.0.0.1", port, null, () -> players, () -> tickLoad, () -> now)
+                .execute(0);
+    }
+
+    @Test
+    public void shouldAdvertiseEveryNodeAsAShardOfItsOwn() {
+        report("Trammel", 7776, 10, 20);
+        report("Felucca", 7777, 5, 20);
+        report("Trammel", 7778, 3, 20);
+
+        assertEquals(List.of("Trammel @127.0.0.1:7778", "Felucca", "Trammel @127.0.0.1:7776"),
+                new FileShardRouter(directory, () -> now).getShards());
+    }
+
+    @Test
+    public void shouldRouteToTheNodeOfTheShard() {
+        report("Trammel", 7776, 10, 20);
+        report("Felucca", 7777, 3, 90);
+        var router = new FileShardRouter(directory, () -> now);
+
+        assertEquals(new InetSocketAddress("127.0.0.1", 7777), router.route("Felucca"));
+        assertNull(router.route("Britain"));
+    }
+
+    @Test
+    public void shouldListTheNodeWithTheFewestPlayersFirst() {
+        report("Trammel", 7776, 10, 20);
+        report("Felucca", 7777, 3, 90);
+
+        assertEquals(List.of("Felucca", "Trammel"), new FileShardRouter(directory, () -> now).getShards());
+    }
+
+    @Test
+    public void shouldListTheNodesWhoseTicksOverrunLast() {
+        report("Trammel", 7776, 10, 20);
+        report("Felucca", 7777, 3, NodeReport.OVERLOADED);
+
+        assertEquals(List.of("Trammel", "Felucca"), new FileShardRouter(directory, () -> now).getShards());
+    }
+
+    @Test
+    public void shouldCountTheClientsRoutedBetweenTwoReads() {
+        report("Trammel", 7776, 10, 20);
+        report("Felucca", 7777, 0, 20);
+        var router = new FileShardRouter(directory, () -> now);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Felucca", router.getShards().get(0));
+            router.route("Felucca");
+        }
+        router.route("Felucca");
+
+        assertEquals(List.of("Trammel", "Felucca"), router.getShards());
+    }
+
+    @Test
+    public void shouldForgetTheNodesNoLongerReporting() {
+        report("Trammel", 7776, 10, 20);
+        var router = new FileShardRouter(directory, () -> now);
+        assertEquals(List.of("Trammel"), router.getShards());
+
+        now += 10 * NodeReporter.PERIOD;
+        report("Felucca", 7777, 0, 20);
+
+        assertEquals(List.of("Felucca"), router.getShards());
+        assertNull(router.route("Trammel"));
+    }
+}
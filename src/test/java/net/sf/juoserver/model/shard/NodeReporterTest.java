@@ -0,0 +1,65 @@
+package net.sf.juoserver.model.shard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeReporterTest {
+    @TempDir
+    Path directory;
+    private long now = 1_000_000;
+
+    private NodeReporter reporter(String host, int port, String world) {
+        return new NodeReporter(directory, "Trammel", host, port, world, () -> 0, () -> 0, () -> now);
+    }
+
+    @Test
+    public void shouldRefuseToPlayTheWorldOfAnotherNode() {
+        reporter("127.0.0.1", 7776, "/saves/trammel").start();
+
+        assertThrows(IllegalStateException.class, () -> reporter("127.0.0.1", 7777, "/saves/trammel").start());
+        assertEquals(1, NodeReporter.read(directory, now).size());
+    }
+
+    @Test
+    public void shouldPlayTheWorldOfANodeNoLongerReporting() {
+        reporter("127.0.0.1", 7776, "/saves/trammel").start();
+        now += 10 * NodeReporter.PERIOD;
+
+        reporter("127.0.0.1", 7777, "/saves/trammel").start();
+
+        assertEquals(7777, NodeReporter.read(directory, now).get(0).port());
+    }
+
+    @Test
+    public void shouldPlayItsOwnWorldAgainOnceRestarted() {
+        reporter("127.0.0.1", 7776, "/saves/trammel").start();
+
+        reporter("127.0.0.1", 7776, "/saves/trammel").start();
+
+        assertEquals(1, NodeReporter.read(directory, now).size());
+    }
+
+    @Test
+    public void shouldStartTheNodesOfOtherWorldsOrHosts() {
+        reporter("127.0.0.1", 7776, "/saves/trammel").start();
+        reporter("127.0.0.1", 7777, "/saves/felucca").start();
+        reporter("10.0.0.2", 7776, "/saves/trammel").start();
+        reporter("127.0.0.1", 7778, null).start();
+        reporter("127.0.0.1", 7779, null).start();
+
+        assertEquals(5, NodeReporter.read(directory, now).size());
+    }
+
+    @Test
+    public void shouldReadTheReportsWritten() {
+        var saved = new NodeReport("Trammel", "127.0.0.1", 7776, "jdbc:h2:./world", 3, 40, now);
+        var inMemory = new NodeReport("Trammel", "127.0.0.1", 7776, null, 3, 40, now);
+
+        assertEquals(saved, NodeReport.parse(saved.format()));
+        assertEquals(inMemory, NodeReport.parse(inMemory.format()));
+    }
+}
@@ -0,0 +1,158 @@
+package net.sf.juoserver.model.spawn;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UOSpawnerSystemTest {
+    private static final int TEMPLATE_ID = 2;
+
+    @Mock
+    private Core core;
+    @Mock
+    private ConfigFileReader configFileReader;
+    @Mock
+    private MapTile tile;
+    private final AtomicInteger serials = new AtomicInteger(1);
+    private final List<NpcMobile> spawned = new CopyOnWriteArrayList<>();
+    private long now;
+    private int walkableWidth = 110;
+    private UOSpawnerSystem spawnerSystem;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(core.getWalkGrid(Facet.Felucca)).thenReturn(new WalkGrid() {
+            @Override
+            public Facet getFacet() {
+                return Facet.Felucca;
+            }
+
+            @Override
+            public boolean isWalkable(int x, int y) {
+                return x < walkableWidth;
+            }
+        });
+        lenient().when(core.getTile(eq(Facet.Felucca), anyInt(), anyInt())).thenReturn(tile);
+        lenient().when(core.createNpcs(eq(TEMPLATE_ID), eq(Facet.Felucca), anyList())).then(invocation -> {
+            List<Point3D> locations = invocation.getArgument(2);
+            List<NpcMobile> npcs = locations.stream()
+                    .map(location -> TestingFactory.createTestNpcMobile(serials.getAndIncrement(), mock(AIScript.class)))
+                    .collect(Collectors.toList());
+            spawned.addAll(npcs);
+            return npcs;
+        });
+        spawnerSystem = new UOSpawnerSystem(core, configFileReader, () -> now);
+    }
+
+    @Test
+    public void shouldSpawnEveryDefinitionInBatches() {
+        when(configFileReader.loadSpawns()).thenReturn(List.of(definition(100, 2 * UOSpawnerSystem.SPAWN_BATCH + 1, 60)));
+
+        spawnerSystem.spawn();
+
+        assertEquals(2 * UOSpawnerSystem.SPAWN_BATCH + 1, spawnerSystem.getSpawnedCount());
+        verify(core).addMobileListener(spawnerSystem);
+        verify(core, times(3)).createNpcs(eq(TEMPLATE_ID), eq(Facet.Felucca), anyList());
+    }
+
+    @Test
+    public void shouldOnlySpawnOnWalkableCells() {
+        when(configFileReader.loadSpawns()).thenReturn(List.of(definition(100, 50, 60)));
+
+        spawnerSystem.spawn();
+
+        verify(core).createNpcs(eq(TEMPLATE_ID), eq(Facet.Felucca),
+                argThat((List<? extends Point3D> locations) -> locations.size() == 50 && locations.stream().allMatch(location -> location.getX() < 110)));
+    }
+
+    @Test
+    public void shouldSkipRegionsWithoutWalkableCells() {
+        when(configFileReader.loadSpawns()).thenReturn(List.of(definition(200, 5, 60)));
+
+        spawnerSystem.spawn();
+
+        assertEquals(0, spawnerSystem.getSpawnedCount());
+    }
+
+    @Test
+    public void shouldRespawnRemovedNpcsOnceDue() {
+        when(configFileReader.loadSpawns()).thenReturn(List.of(definition(100, 3, 60)));
+        spawnerSystem.spawn();
+        var killed = spawned.get(0);
+
+        spawnerSystem.onMobileRemoved(killed);
+        spawnerSystem.onMobileRemoved(killed); // Removed once only
+        assertEquals(2, spawnerSystem.getSpawnedCount());
+        assertEquals(1, spawnerSystem.getPendingRespawns());
+
+        now = 59_999;
+        spawnerSystem.execute(now);
+        verify(core, times(1)).createNpcs(eq(TEMPLATE_ID), eq(Facet.Felucca), anyList());
+
+        now = 60_000;
+        spawnerSystem.execute(now);
+        verify(core).createNpcs(eq(TEMPLATE_ID), eq(Facet.Felucca), argThat((List<? extends Point3D> locations) -> locations.size() == 1));
+        assertEquals(3, spawnerSystem.getSpawnedCount());
+        assertEquals(0, spawnerSystem.getPendingRespawns());
+    }
+
+    @Test
+    public void shouldRetryTheReplacementsWithoutWalkableCells() {
+        when(configFileReader.loadSpawns()).thenReturn(List.of(definition(100, 2, 60)));
+        spawnerSystem.spawn();
+        spawnerSystem.onMobileRemoved(spawned.get(0));
+        spawnerSystem.onMobileRemoved(spawned.get(1));
+        walkableWidth = 0;
+
+        now = 60_000;
+        spawnerSystem.execute(now);
+        assertEquals(0, spawnerSystem.getSpawnedCount());
+        assertEquals(2, spawnerSystem.getPendingRespawns());
+
+        walkableWidth = 110;
+        now += UOSpawnerSystem.RETRY_DELAY - 1;
+        spawnerSystem.execute(now);
+        assertEquals(0, spawnerSystem.getSpawnedCount());
+
+        now += 1;
+        spawnerSystem.execute(now);
+        assertEquals(2, spawnerSystem.getSpawnedCount());
+        assertEquals(0, spawnerSystem.getPendingRespawns());
+    }
+
+    @Test
+    public void shouldIgnoreMobilesNotSpawned() {
+        spawnerSystem.onMobileRemoved(TestingFactory.createTestNpcMobile(1000, mock(AIScript.class)));
+        spawnerSystem.onMobileRemoved(TestingFactory.createTestMobile(1001, "player"));
+
+        assertEquals(0, spawnerSystem.getPendingRespawns());
+    }
+
+    private static SpawnDefinition definition(int x, int count, int respawnDelay) {
+        var definition = new UOSpawnDefinition();
+        definition.setName("test");
+        definition.setTemplateId(TEMPLATE_ID);
+        definition.setFacet(Facet.Felucca);
+        definition.setX(x);
+        definition.setY(100);
+        definition.setWidth(20);
+        definition.setHeight(20);
+        definition.setCount(count);
+        definition.setRespawnDelay(respawnDelay);
+        return definition;
+    }
+}
@@ -0,0 +1,64 @@
+package net.sf.juoserver.networking.threaded;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.api.Configuration;
+import net.sf.juoserver.api.LoginManager;
+import net.sf.juoserver.api.WrongPasswordException;
+import net.sf.juoserver.protocol.AuthenticationController;
+import net.sf.juoserver.protocol.ControllerFactory;
+import net.sf.juoserver.protocol.Huffman;
+import net.sf.juoserver.protocol.LoginRequest;
+import net.sf.juoserver.protocol.UOProtocolMessageReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThreadedProtocolIoPortTest {
+    @Mock
+    private ControllerFactory controllerFactory;
+    @Mock
+    private LoginManager loginManager;
+    private final Configuration configuration = spy(TestingFactory.createTestConfiguration());
+
+    @Test
+    public void shouldCloseTheConnectionOfTheRejectedLogins() throws Exception {
+        doReturn((Configuration.PacketConfiguration) () -> false).when(configuration).getPacket();
+        when(loginManager.login("myuser", "wrong"))
+                .thenReturn(CompletableFuture.failedFuture(new WrongPasswordException("myuser")));
+        try (var listener = new ServerSocket(0);
+             var client = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort())) {
+            var port = new ThreadedProtocolIoPort("client-1", new ThreadedServerAdapter(configuration, controllerFactory),
+                    controllerFactory, new UOProtocolWire("client-1", listener.accept(), new UOProtocolMessageReader(),
+                    new Huffman(), configuration));
+            port.init();
+            var reader = new Thread(() -> {
+                try {
+                    port.startUp();
+                    port.shutDown();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            reader.start();
+
+            // Verified by another thread, while the client thread waits for messages
+            new AuthenticationController(port, configuration, loginManager).handle(new LoginRequest("myuser", "wrong"));
+
+            reader.join(5000);
+            assertFalse(reader.isAlive());
+            client.setSoTimeout(5000);
+            assertTrue(client.getInputStream().readAllBytes().length > 0); // The reject, then the end of the stream
+        }
+    }
+}
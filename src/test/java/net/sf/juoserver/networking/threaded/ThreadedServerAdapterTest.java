@@ -0,0 +1,59 @@
+package net.sf.juoserver.networking.threaded;
+
+import net.sf.juoserver.TestingFactory;
+import net.sf.juoserver.protocol.ControllerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThreadedServerAdapterTest {
+    @Mock
+    private ControllerFactory controllerFactory;
+
+    @Test
+    public void shouldCloseTheSilentConnectionsReleasingTheirThreads() throws Exception {
+        int port;
+        try (var probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        var server = new ThreadedServerAdapter(TestingFactory.createTestConfiguration(), controllerFactory, port, 1, 1);
+        var listener = new Thread(() -> {
+            try {
+                server.acceptClientConnections();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        listener.setDaemon(true);
+        listener.start();
+
+        try (var silent = connect(port); var next = connect(port)) {
+            silent.setSoTimeout(5000);
+            assertEquals(-1, silent.getInputStream().read());
+            next.setSoTimeout(5000);
+            assertEquals(-1, next.getInputStream().read()); // Served once the silent one released its thread
+        }
+    }
+
+    private static Socket connect(int port) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (IOException e) {
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(100); // The listener is not up yet
+            }
+        }
+    }
+}
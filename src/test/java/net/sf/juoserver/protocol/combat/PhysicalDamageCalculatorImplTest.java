@@ -1,7 +1,11 @@
 package net.sf.juoserver.protocol.combat;
 
+import net.sf.juoserver.TestingFactory;
 import net.sf.juoserver.api.Configuration;
+import net.sf.juoserver.api.Layer;
 import net.sf.juoserver.api.Mobile;
+import net.sf.juoserver.model.UOItem;
+import net.sf.juoserver.model.UOMobile;
 import net.sf.juoserver.model.combat.PhysicalDamageCalculatorImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,7 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -61,6 +65,27 @@ class PhysicalDamageCalculatorImplTest {
         assertEquals(26, damage);
     }
 
+    @DisplayName("Should derive the combat stats again only once the mobile changed")
+    @Test
+    public void shouldCacheTheCombatStatsUntilTheMobileChanges() {
+        var mobile = (UOMobile) TestingFactory.createTestMobile(1, "mobile");
+        mobile.setStrength(100);
+        mobile.setDexterity(50);
+
+        var stats = physicalDamageCalculator.statsOf(mobile);
+        assertEquals(1 + 50 + 10, stats.attackModifier()); // Fists, strength/2, dexterity/5
+        assertSame(stats, physicalDamageCalculator.statsOf(mobile));
+
+        mobile.setItemOnLayer(Layer.FirstValid, new UOItem(2, 0x143A, 0, "maul", 5).speed(32));
+        var armed = physicalDamageCalculator.statsOf(mobile);
+        assertNotSame(stats, armed);
+        assertEquals(32, armed.weaponSpeed());
+        assertEquals(5 + 50 + 10, armed.attackModifier());
+
+        mobile.setDexterity(100);
+        assertEquals(5 + 50 + 20, physicalDamageCalculator.statsOf(mobile).attackModifier());
+    }
+
     public Mobile givenAttacker(int baseDamage, int strength, int dexterity) {
         var attacker = mock(Mobile.class);
         when(attacker.getWeaponBaseDamage()).thenReturn(baseDamage);